@@ -0,0 +1,136 @@
+package config;
+
+import connect.SchemaScripts;
+import dao.QADao;
+import service.AttemptLog;
+import service.IRTService;
+import service.ItemStatisticsStore;
+import service.KnowledgeTracer;
+import service.LlmResponseCache;
+import service.MCQFeedbackService;
+import service.QuestionBankSnapshot;
+import service.QuizSessionStore;
+import service.ReviewScheduler;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Warms in-memory learning caches at deploy time and runs their periodic jobs.
+ */
+public class AppContextListener implements ServletContextListener {
+
+    private static final Logger logger = Logger.getLogger(AppContextListener.class.getName());
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bookai-background");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Runs first on the single background thread, before anything reads the new tables
+        scheduler.execute(SchemaScripts::applyAll);
+
+        scheduler.execute(() -> {
+            try {
+                ItemStatisticsStore.getInstance().ensureSeeded(new QADao());
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Item statistics seeding failed", e);
+            }
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> QuizSessionStore.getInstance().purgeExpired(),
+            5, 5, TimeUnit.MINUTES);
+
+        // The first tick loads the review cards; later ones retry a failed load with backoff
+        scheduler.scheduleWithFixedDelay(() -> ReviewScheduler.getInstance().tick(), 0, 1, TimeUnit.MINUTES);
+
+        long flushSeconds = Long.parseLong(ConfigLoader.getProperty("bkt.flush.interval.seconds", "60"));
+        scheduler.scheduleWithFixedDelay(this::flushLearningState, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+
+        Path snapshotPath = getSnapshotPath();
+        loadQuestionBankSnapshot(snapshotPath);
+
+        long interval = Long.parseLong(ConfigLoader.getProperty("question.bank.snapshot.interval.minutes", "30"));
+        scheduler.scheduleWithFixedDelay(() -> exportQuestionBankSnapshot(snapshotPath),
+            Files.exists(snapshotPath) ? interval : 1, interval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        MCQFeedbackService.getInstance().shutdown();
+        flushLearningState();
+        AttemptLog.getInstance().close();
+        LlmResponseCache.getInstance().close();
+    }
+
+    private void flushLearningState() {
+        try {
+            KnowledgeTracer.getInstance().flush();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Concept mastery flush failed, retrying on next run", e);
+        }
+        try {
+            ReviewScheduler.getInstance().flush();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Review card flush failed, retrying on next run", e);
+        }
+        AttemptLog.getInstance().sync();
+        LlmResponseCache.getInstance().sync();
+    }
+
+    private void loadQuestionBankSnapshot(Path snapshotPath) {
+        if (!Files.exists(snapshotPath)) {
+            logger.info("No question bank snapshot at " + snapshotPath + ", first export is scheduled");
+            return;
+        }
+        try {
+            QuestionBankSnapshot snapshot = QuestionBankSnapshot.open(snapshotPath);
+            QuestionBankSnapshot.install(snapshot);
+            // Catch up on deltas off the request path
+            scheduler.execute(() -> {
+                try {
+                    snapshot.catchUp(new QADao(), new IRTService());
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Snapshot catch-up failed", e);
+                }
+            });
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "❌ Failed to map question bank snapshot " + snapshotPath, e);
+        }
+    }
+
+    private void exportQuestionBankSnapshot(Path snapshotPath) {
+        try {
+            QuestionBankSnapshot.exportFromDatabase(new QADao(), new IRTService(), snapshotPath);
+            QuestionBankSnapshot.install(QuestionBankSnapshot.open(snapshotPath));
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "❌ Question bank snapshot export failed", e);
+        }
+    }
+
+    private static Path getSnapshotPath() {
+        String configured = ConfigLoader.getProperty("question.bank.snapshot.path");
+        if (configured == null || configured.trim().isEmpty()) {
+            configured = System.getProperty("user.home") + File.separator + "BookAI"
+                       + File.separator + "cache" + File.separator + "question-bank.snap";
+        }
+        return Paths.get(configured);
+    }
+}
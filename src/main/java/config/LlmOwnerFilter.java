@@ -0,0 +1,36 @@
+package config;
+
+import service.LlmScheduler;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Attributes model calls made while serving a request to the signed-in user (or the
+ * client address) so {@link LlmScheduler} can queue them fairly per learner.
+ */
+public class LlmOwnerFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpSession session = httpRequest.getSession(false);
+        Object userID = (session != null) ? session.getAttribute("userID") : null;
+        String owner = (userID != null) ? "user:" + userID : "client:" + request.getRemoteAddr();
+
+        String previous = LlmScheduler.actingFor(owner);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LlmScheduler.restoreOwner(previous);
+        }
+    }
+}
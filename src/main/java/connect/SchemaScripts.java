@@ -0,0 +1,55 @@
+package connect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DDL for the tables and columns added on top of the original schema, kept as scripts
+ * under src/main/resources/db.
+ *
+ * Every script checks for what it creates, so they are applied in order at each startup
+ * and can also be run by hand (sqlcmd -i) where the application login has no DDL rights.
+ */
+public class SchemaScripts {
+
+    private static final Logger logger = Logger.getLogger(SchemaScripts.class.getName());
+
+    private static final String[] SCRIPTS = {
+        "item-parameters.sql",
+        "user-ability.sql",
+        "user-concept-mastery.sql",
+        "review-cards.sql",
+        "qa-performance-chosen-option.sql",
+        "mcq-feedback.sql",
+    };
+
+    /**
+     * Apply every script; a failing script is logged and the rest still run.
+     */
+    public static void applyAll() {
+        for (String script : SCRIPTS) {
+            try (Connection conn = DBConnection.getConnection();
+                 Statement st = conn.createStatement()) {
+                st.execute(read(script));
+                logger.fine("Schema script applied: " + script);
+            } catch (SQLException | IOException e) {
+                logger.log(Level.WARNING, "❌ Schema script db/" + script + " failed, apply it by hand", e);
+            }
+        }
+    }
+
+    private static String read(String script) throws IOException {
+        try (InputStream in = SchemaScripts.class.getClassLoader().getResourceAsStream("db/" + script)) {
+            if (in == null) {
+                throw new IOException("Missing schema script db/" + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -54,6 +54,11 @@ public class AIServlet extends HttpServlet {
             return;
         }
         
+        if (EventStream.isRequested(request)) {
+            streamResult(response, action, chapterTitle, chapterContent);
+            return;
+        }
+        
         try {
             logger.info("AI Action: " + action + " for chapter: " + chapterTitle);
             
@@ -100,6 +105,57 @@ public class AIServlet extends HttpServlet {
         }
     }
     
+    /**
+     * SSE variant: tokens as they are generated, then a "done" event with the usual JSON.
+     * Generation stops when the client disconnects since nothing is persisted.
+     */
+    private void streamResult(HttpServletResponse response, String action, String chapterTitle,
+                              String chapterContent) throws IOException {
+        EventStream stream = new EventStream(response);
+        OllamaService.TokenSink sink = token -> {
+            stream.token(token);
+            if (!stream.isOpen()) {
+                throw new IOException("Client disconnected");
+            }
+        };
+        
+        try {
+            logger.info("AI streaming action: " + action + " for chapter: " + chapterTitle);
+            
+            String result;
+            if ("summary".equalsIgnoreCase(action)) {
+                result = ollamaService.streamChapterSummary(chapterTitle, chapterContent, sink);
+            } else if ("qa".equalsIgnoreCase(action)) {
+                result = ollamaService.streamStudyQuestions(chapterTitle, chapterContent, sink);
+            } else if ("concepts".equalsIgnoreCase(action)) {
+                result = ollamaService.streamKeyConcepts(chapterTitle, chapterContent, sink);
+            } else {
+                stream.error("Unknown action '" + action + "'. Use 'summary', 'qa', or 'concepts'");
+                return;
+            }
+            
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("action", action);
+            jsonResponse.addProperty("title", chapterTitle);
+            jsonResponse.addProperty("result", result);
+            jsonResponse.addProperty("success", true);
+            stream.send("done", jsonResponse);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.SEVERE, "Request interrupted", e);
+            stream.error("Request interrupted: " + e.getMessage());
+            
+        } catch (Exception e) {
+            if (!stream.isOpen()) {
+                logger.info("AI stream closed by client");
+                return;
+            }
+            logger.log(Level.SEVERE, "Error streaming AI response", e);
+            stream.error("Error communicating with AI service: " + e.getMessage());
+        }
+    }
+    
     private void sendErrorResponse(HttpServletResponse response, String errorMessage) 
             throws IOException {
         JsonObject errorJson = new JsonObject();
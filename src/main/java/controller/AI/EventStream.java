@@ -0,0 +1,85 @@
+package controller.AI;
+
+import com.google.gson.Gson;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Server-Sent Events response used by the streaming variants of the LLM servlets.
+ *
+ * Events carry JSON: "token" ({"t": piece of text}) while generating, then one "done"
+ * with the same payload the JSON endpoint returns, or "error". Each event is flushed
+ * immediately. Once the client has gone away, further events are dropped and
+ * {@link #isOpen()} turns false, so callers decide whether to stop generating or to
+ * finish and persist the result anyway.
+ */
+public class EventStream {
+
+    private static final Gson gson = new Gson();
+
+    private final HttpServletResponse response;
+    private final PrintWriter writer;
+    private volatile boolean open = true;
+
+    public EventStream(HttpServletResponse response) throws IOException {
+        this.response = response;
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no"); // keep reverse proxies from buffering
+        this.writer = response.getWriter();
+        response.flushBuffer();
+    }
+
+    /**
+     * Whether the request asked for a stream: Accept: text/event-stream or stream=true.
+     */
+    public static boolean isRequested(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return "true".equalsIgnoreCase(request.getParameter("stream"))
+            || (accept != null && accept.contains("text/event-stream"));
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void token(String text) {
+        send("token", new Token(text));
+    }
+
+    public void send(String event, Object data) {
+        if (!open) {
+            return;
+        }
+        writer.write("event: " + event + "\ndata: " + gson.toJson(data) + "\n\n");
+        writer.flush();
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            open = false;
+            return;
+        }
+        if (writer.checkError()) {
+            open = false;
+        }
+    }
+
+    public void error(String message) {
+        send("error", new ErrorEvent(message));
+    }
+
+    private static final class Token {
+        final String t;
+        Token(String t) { this.t = t; }
+    }
+
+    private static final class ErrorEvent {
+        final boolean success = false;
+        final String error;
+        ErrorEvent(String error) { this.error = error; }
+    }
+}
@@ -0,0 +1,38 @@
+package controller.AI;
+
+import com.google.gson.Gson;
+import service.LlmResponseCache;
+import service.LlmScheduler;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Queue depth, running calls and wait times of the LLM scheduler per priority class,
+ * and hit counts of the response cache in front of it.
+ */
+public class LlmSchedulerServlet extends HttpServlet {
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        LlmScheduler scheduler = LlmScheduler.getInstance();
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("maxConcurrency", scheduler.getMaxConcurrency());
+        result.put("classes", scheduler.getStats());
+        result.put("cache", LlmResponseCache.getInstance().getStats());
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
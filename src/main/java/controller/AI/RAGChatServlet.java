@@ -34,6 +34,11 @@ public class RAGChatServlet extends HttpServlet {
             return;
         }
         
+        if (EventStream.isRequested(request)) {
+            streamAnswer(response, question);
+            return;
+        }
+        
         try {
             logger.info("Received RAG query: " + question);
             
@@ -59,6 +64,36 @@ public class RAGChatServlet extends HttpServlet {
         doPost(request, response);
     }
     
+    /**
+     * SSE variant: a "sources" event once retrieval is done, the answer token by token,
+     * then "done" with the same body as the JSON response.
+     */
+    private void streamAnswer(HttpServletResponse response, String question) throws IOException {
+        EventStream stream = new EventStream(response);
+        try {
+            logger.info("Received streaming RAG query: " + question);
+            
+            RAGQueryService.RAGResponse result = ragService.streamQuery(question, 3,
+                sources -> stream.send("sources", convertToSourceInfo(sources)),
+                token -> {
+                    stream.token(token);
+                    if (!stream.isOpen()) {
+                        throw new IOException("Client disconnected");
+                    }
+                });
+            
+            stream.send("done", new ApiResponse(result.answer, convertToSourceInfo(result.sources)));
+            
+        } catch (Exception e) {
+            if (!stream.isOpen()) {
+                logger.info("RAG stream closed by client");
+                return;
+            }
+            logger.log(Level.SEVERE, "RAG query failed", e);
+            stream.error("Lỗi: " + e.getMessage());
+        }
+    }
+    
     private List<SourceInfo> convertToSourceInfo(List<Chapter> chapters) {
         List<SourceInfo> sources = new ArrayList<>();
         if (chapters != null) {
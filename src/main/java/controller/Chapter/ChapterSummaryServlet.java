@@ -2,6 +2,7 @@ package controller.Chapter;
 import dao.ChapterDAO;
 import model.Chapter;
 import service.OllamaService;
+import controller.AI.EventStream;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import com.google.gson.Gson;
@@ -29,6 +30,11 @@ public class ChapterSummaryServlet extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         
+        if (EventStream.isRequested(request)) {
+            streamSummary(request, response);
+            return;
+        }
+        
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
@@ -122,6 +128,12 @@ public class ChapterSummaryServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        // EventSource can only GET
+        if (EventStream.isRequested(request)) {
+            streamSummary(request, response);
+            return;
+        }
+        
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
@@ -131,4 +143,61 @@ public class ChapterSummaryServlet extends HttpServlet {
         
         response.getWriter().write(gson.toJson(result));
     }
-}
\ No newline at end of file
+    
+    /**
+     * SSE variant of doPost: a cached summary is sent as a single "done" event, a new one
+     * token by token. Generation continues if the client disconnects so the summary is
+     * still saved once complete.
+     */
+    private void streamSummary(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EventStream stream = new EventStream(response);
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            int chapterId = Integer.parseInt(request.getParameter("chapterId"));
+            Chapter chapter = chapterDAO.getChapterById(chapterId);
+            if (chapter == null) {
+                stream.error("Chapter not found");
+                return;
+            }
+            result.put("chapterNumber", chapter.getChapterNumber());
+            result.put("chapterTitle", chapter.getTitle());
+            
+            if (chapter.getSummary() != null && !chapter.getSummary().trim().isEmpty()) {
+                logger.info("✅ Using cached summary for chapter " + chapter.getChapterNumber());
+                result.put("success", true);
+                result.put("summary", chapter.getSummary());
+                result.put("cached", true);
+                stream.send("done", result);
+                return;
+            }
+            
+            logger.info("Streaming NEW summary for chapter " + chapter.getChapterNumber() + "...");
+            String summary = ollamaService.streamChapterSummary(chapter.getTitle(), chapter.getContent(),
+                                                                stream::token);
+            
+            if (!chapterDAO.updateChapterSummary(chapterId, summary)) {
+                stream.error("Failed to save summary to database");
+                return;
+            }
+            logger.info("✅ Summary streamed and saved for chapter " + chapter.getChapterNumber());
+            
+            result.put("success", true);
+            result.put("summary", summary);
+            result.put("cached", false);
+            stream.send("done", result);
+            
+        } catch (NumberFormatException e) {
+            stream.error("Invalid chapter ID format");
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Database error: " + e.getMessage(), e);
+            stream.error("Database error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stream.error("Request interrupted");
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "❌ Error streaming summary: " + e.getMessage(), e);
+            stream.error("Ollama service không khả dụng: " + e.getMessage());
+        }
+    }
+}
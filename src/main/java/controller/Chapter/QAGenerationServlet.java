@@ -4,6 +4,8 @@ import dao.ChapterDAO;
 import dao.QADao;
 import model.Chapter;
 import model.QA;
+import service.LlmScheduler;
+import service.MCQFeedbackService;
 import service.OllamaService;
 import service.TaggingService;
 
@@ -147,21 +149,24 @@ public class QAGenerationServlet extends HttpServlet {
                 int tagged = 0;
                 int failed = 0;
                 
-                for (QA qa : savedQAs) {
-                    if (!qa.isAutoTagged()) {
-                        try {
-                            logger.info("🏷️ Tagging Q&A #" + qa.getQAID());
-                            taggingService.tagQA(qa);
-                            tagged++;
-                            
-                            // Rate limiting
-                            Thread.sleep(1000); // 1 second delay between tags
-                            
-                        } catch (Exception e) {
-                            logger.severe("❌ Failed to tag Q&A #" + qa.getQAID() + ": " + e.getMessage());
-                            failed++;
+                // Model calls are paced by LlmScheduler as batch work
+                LlmScheduler.actingFor("tagging:chapter:" + chapterId);
+                try {
+                    for (QA qa : savedQAs) {
+                        if (!qa.isAutoTagged()) {
+                            try {
+                                logger.info("🏷️ Tagging Q&A #" + qa.getQAID());
+                                taggingService.tagQA(qa);
+                                tagged++;
+                                
+                            } catch (Exception e) {
+                                logger.severe("❌ Failed to tag Q&A #" + qa.getQAID() + ": " + e.getMessage());
+                                failed++;
+                            }
                         }
                     }
+                } finally {
+                    LlmScheduler.clearOwner();
                 }
                 
                 logger.info("✅ Auto-tagging completed: " + tagged + " tagged, " + failed + " failed");
@@ -170,6 +175,9 @@ public class QAGenerationServlet extends HttpServlet {
             
             logger.info("🏷️ Auto-tagging started in background thread");
             
+            // Answer feedback is generated once per option now, so grading never waits on the model
+            MCQFeedbackService.getInstance().pregenerate(chapterId);
+            
             result.put("success", true);
             result.put("qas", savedQAs);
             result.put("cached", false);
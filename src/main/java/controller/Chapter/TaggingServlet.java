@@ -4,6 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import dao.QADao;
 import model.QA;
+import service.CompactBitmap;
+import service.LlmScheduler;
+import service.QuestionAttributeIndex;
 import service.TaggingService;
 
 import jakarta.servlet.ServletException;
@@ -12,6 +15,8 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -57,16 +62,37 @@ public class TaggingServlet extends HttpServlet {
                 return;
             }
             
+            // ========== ACTION: Filter Question Bank ==========
+            // e.g. action=filter&chapterId=3&difficulty=hard&tagId=12&anyTagId=40&anyTagId=41
+            if ("filter".equals(action)) {
+                CompactBitmap matches = QuestionAttributeIndex.getInstance().select(
+                    intValues(request.getParameterValues("chapterId")),
+                    values(request.getParameterValues("difficulty")),
+                    values(request.getParameterValues("bloomLevel")),
+                    intValues(request.getParameterValues("tagId")),
+                    intValues(request.getParameterValues("anyTagId")));
+                
+                jsonResponse.addProperty("success", true);
+                jsonResponse.addProperty("count", matches.cardinality());
+                jsonResponse.add("qaIds", gson.toJsonTree(matches.toArray()));
+                
+                response.getWriter().write(gson.toJson(jsonResponse));
+                return;
+            }
+            
             // ========== ACTION: Tag All Untagged ==========
             if ("tagAll".equals(action)) {
                 logger.info("🔄 Starting tag all untagged Q&As...");
                 
                 // Run in background thread to avoid timeout
                 new Thread(() -> {
+                    LlmScheduler.actingFor("tagging:all");
                     try {
                         taggingService.tagAllUntagged();
                     } catch (Exception e) {
                         logger.log(Level.SEVERE, "Error tagging all", e);
+                    } finally {
+                        LlmScheduler.clearOwner();
                     }
                 }).start();
                 
@@ -111,17 +137,20 @@ public class TaggingServlet extends HttpServlet {
                 // Run tagging in background
                 final int finalUntaggedCount = untaggedCount;
                 new Thread(() -> {
+                    // Model calls are paced by LlmScheduler as batch work
+                    LlmScheduler.actingFor("tagging:chapter:" + chapterId);
                     try {
                         logger.info("Starting background tagging for " + finalUntaggedCount + " Q&As");
                         for (QA qa : qas) {
                             if (!qa.isAutoTagged()) {
                                 taggingService.tagQA(qa);
-                                Thread.sleep(1000); // Rate limiting
                             }
                         }
                         logger.info("✅ Completed tagging for chapter " + chapterId);
                     } catch (Exception e) {
                         logger.log(Level.SEVERE, "Error in background tagging", e);
+                    } finally {
+                        LlmScheduler.clearOwner();
                     }
                 }).start();
                 
@@ -195,13 +224,28 @@ public class TaggingServlet extends HttpServlet {
         }
     }
     
+    private static List<String> values(String[] params) {
+        return (params == null) ? null : Arrays.asList(params);
+    }
+    
+    private static List<Integer> intValues(String[] params) {
+        if (params == null) {
+            return null;
+        }
+        List<Integer> ints = new ArrayList<>();
+        for (String param : params) {
+            ints.add(Integer.parseInt(param.trim()));
+        }
+        return ints;
+    }
+    
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
 
         String action = request.getParameter("action");
         
-        if ("stats".equals(action)) {
+        if ("stats".equals(action) || "filter".equals(action)) {
             doPost(request, response);
         } else {
             response.setContentType("application/json");
@@ -210,7 +254,7 @@ public class TaggingServlet extends HttpServlet {
             JsonObject jsonResponse = new JsonObject();
             jsonResponse.addProperty("success", false);
             jsonResponse.addProperty("error", "Use POST method for tagging operations");
-            jsonResponse.addProperty("info", "GET only supports: ?action=stats");
+            jsonResponse.addProperty("info", "GET only supports: ?action=stats, ?action=filter");
             
             response.getWriter().write(gson.toJson(jsonResponse));
         }
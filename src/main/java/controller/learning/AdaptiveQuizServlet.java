@@ -1,10 +1,11 @@
 package controller.learning;
 
 import com.google.gson.Gson;
-import dao.AdaptiveLearningDAO;
 import model.QA;
-import model.UserChapterMastery;
+import model.UserAbility;
 import service.IRTService;
+import service.QuizSession;
+import service.QuizSessionStore;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
@@ -13,16 +14,22 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
+/**
+ * Adaptive quiz backed by a server-side {@link QuizSession}.
+ *
+ * GET  ?chapterId=..[&quizSessionId=..]            start a quiz, or resume one, and return the current question
+ * POST ?quizSessionId=..&qaId=..&answer=..         grade the answer and return the next question
+ */
 public class AdaptiveQuizServlet extends HttpServlet {
     
     private static final Logger logger = Logger.getLogger(AdaptiveQuizServlet.class.getName());
-    private AdaptiveLearningDAO adaptiveDAO;
+    private QuizSessionStore sessionStore;
     private IRTService irtService;
     private Gson gson;
     
     @Override
     public void init() throws ServletException {
-        adaptiveDAO = new AdaptiveLearningDAO();
+        sessionStore = QuizSessionStore.getInstance();
         irtService = new IRTService();
         gson = new Gson();
     }
@@ -37,8 +44,7 @@ public class AdaptiveQuizServlet extends HttpServlet {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            HttpSession session = request.getSession(false);
-            Integer userID = (session != null) ? (Integer) session.getAttribute("userID") : 1;
+            int userID = getUserID(request);
             
             String chapterIdStr = request.getParameter("chapterId");
             if (chapterIdStr == null) {
@@ -50,36 +56,67 @@ public class AdaptiveQuizServlet extends HttpServlet {
             
             int chapterID = Integer.parseInt(chapterIdStr);
             
-            logger.info("Getting adaptive question for user " + userID + ", chapter " + chapterID);            
-            UserChapterMastery mastery = adaptiveDAO.getMasteryScore(userID, chapterID);
-            double masteryScore = (mastery != null) ? mastery.getMasteryScore() : 0.0;
-             
-            double theta = irtService.estimateUserAbility(userID, chapterID);            
-            QA question = irtService.selectOptimalQuestion(userID, chapterID);
+            QuizSession quiz = sessionStore.get(request.getParameter("quizSessionId"), userID);
+            if (quiz == null || quiz.getChapterID() != chapterID) {
+                logger.info("Starting adaptive quiz for user " + userID + ", chapter " + chapterID);
+                quiz = sessionStore.start(userID, chapterID);
+            }
+            
+            synchronized (quiz) {
+                if (quiz.getCurrent() == null) {
+                    result.put("success", false);
+                    result.put("error", "No suitable questions found");
+                } else {
+                    result.put("success", true);
+                    putQuizState(result, quiz);
+                }
+            }
+            
+        } catch (Exception e) {
+            logger.severe("Error: " + e.getMessage());
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        
+        response.getWriter().write(gson.toJson(result));
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            int userID = getUserID(request);
             
-            if (question == null) {
+            QuizSession quiz = sessionStore.get(request.getParameter("quizSessionId"), userID);
+            if (quiz == null) {
                 result.put("success", false);
-                result.put("error", "No suitable questions found");
+                result.put("error", "Quiz session expired or not found");
                 response.getWriter().write(gson.toJson(result));
                 return;
             }
-            double beta = irtService.estimateItemDifficulty(question.getDifficulty());
-            double predictedProb = irtService.calculateProbability(theta, beta);
             
-            result.put("success", true);
-            result.put("question", question);
-            result.put("masteryScore", masteryScore);
-            result.put("userTheta", theta);
-            result.put("itemBeta", beta);
-            result.put("predictedProbability", predictedProb);
-            result.put("totalQuestions", mastery != null ? mastery.getTotalQuestions() : 0);
-            result.put("correctAnswers", mastery != null ? mastery.getCorrectAnswers() : 0);
+            int qaId = Integer.parseInt(request.getParameter("qaId"));
+            boolean isCorrect = sessionStore.answer(quiz, qaId, request.getParameter("answer"));
+            
+            synchronized (quiz) {
+                result.put("success", true);
+                result.put("answeredQaId", qaId);
+                result.put("isCorrect", isCorrect);
+                putQuizState(result, quiz);
+            }
             
-            logger.info("Selected question: QA #" + question.getQAID() + 
-                       " (difficulty: " + question.getDifficulty() + 
-                       ", beta: " + String.format("%.2f", beta) + 
-                       ", P(correct): " + String.format("%.2f", predictedProb) + ")");
+            logger.info("User " + userID + " answered QA #" + qaId + (isCorrect ? " correctly" : " incorrectly") +
+                       ", theta now " + String.format("%.2f", quiz.getAbility().getTheta()));
             
+        } catch (IllegalStateException | NumberFormatException e) {
+            result.put("success", false);
+            result.put("error", e.getMessage());
         } catch (Exception e) {
             logger.severe("Error: " + e.getMessage());
             result.put("success", false);
@@ -88,4 +125,29 @@ public class AdaptiveQuizServlet extends HttpServlet {
         
         response.getWriter().write(gson.toJson(result));
     }
-}
\ No newline at end of file
+    
+    private void putQuizState(Map<String, Object> result, QuizSession quiz) {
+        UserAbility ability = quiz.getAbility();
+        QA question = quiz.getCurrent();
+        double theta = ability.getTheta();
+        
+        result.put("quizSessionId", quiz.getId());
+        result.put("question", question);
+        result.put("masteryScore", quiz.getMasteryScore());
+        result.put("userTheta", theta);
+        result.put("userThetaSE", ability.getStandardError());
+        result.put("precisionReached", irtService.hasReachedPrecision(ability));
+        result.put("totalQuestions", quiz.getTotalQuestions());
+        result.put("correctAnswers", quiz.getCorrectAnswers());
+        if (question != null) {
+            result.put("itemBeta", quiz.getCurrentBeta());
+            result.put("predictedProbability", irtService.calculateProbability(theta, quiz.getCurrentBeta()));
+        }
+    }
+    
+    private int getUserID(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Integer userID = (session != null) ? (Integer) session.getAttribute("userID") : null;
+        return (userID != null) ? userID : 1;
+    }
+}
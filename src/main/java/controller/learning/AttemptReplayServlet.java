@@ -0,0 +1,108 @@
+package controller.learning;
+
+import com.google.gson.Gson;
+import dao.AdaptiveLearningDAO;
+import service.AttemptLog;
+import service.AttemptReplay;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts a replay of the attempt log (POST) and reports the last run (GET).
+ *
+ * POST parameters: apply=true writes the rebuilt mastery, ability and item statistics
+ * back (default is a dry run); backfill=true first copies the attempts already in the
+ * database into the log, which is needed once before the first replay.
+ */
+public class AttemptReplayServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(AttemptReplayServlet.class.getName());
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static volatile AttemptReplay.Report lastReport;
+    private static volatile String lastError;
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("running", running.get());
+        result.put("backfilled", AttemptLog.getInstance().hasBackfill());
+        result.put("report", lastReport);
+        if (lastError != null) {
+            result.put("error", lastError);
+        }
+        writeJson(response, result);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        boolean apply = "true".equalsIgnoreCase(request.getParameter("apply"));
+        boolean backfill = "true".equalsIgnoreCase(request.getParameter("backfill"));
+        Map<String, Object> result = new HashMap<>();
+
+        if (apply && !backfill && !AttemptLog.getInstance().hasBackfill()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            result.put("success", false);
+            result.put("error", "The attempt log has not been backfilled yet; POST apply=true&backfill=true");
+            writeJson(response, result);
+            return;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            result.put("success", false);
+            result.put("error", "A replay is already in progress");
+            writeJson(response, result);
+            return;
+        }
+
+        logger.info("🔁 Starting attempt replay (apply=" + apply + ", backfill=" + backfill + ")...");
+
+        // Run in background thread to avoid timeout
+        Thread replay = new Thread(() -> {
+            try {
+                if (backfill) {
+                    AttemptLog.getInstance().backfill(new AdaptiveLearningDAO());
+                }
+                lastReport = new AttemptReplay().run(apply);
+                lastError = null;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.log(Level.SEVERE, "Error replaying attempt log", e);
+            } finally {
+                running.set(false);
+            }
+        }, "attempt-replay");
+        try {
+            replay.start();
+        } catch (RuntimeException | Error e) {
+            running.set(false);
+            throw e;
+        }
+
+        result.put("success", true);
+        result.put("message", "Replay started in background. GET this endpoint for the report.");
+        writeJson(response, result);
+    }
+
+    private void writeJson(HttpServletResponse response, Map<String, Object> result) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
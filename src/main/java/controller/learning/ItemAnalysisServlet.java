@@ -0,0 +1,67 @@
+package controller.learning;
+
+import com.google.gson.Gson;
+import service.ItemAnalyzer;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Item analysis for instructors (GET ?chapterId= or ?bookId=): p-value, point-biserial
+ * and distractor counts per question.
+ */
+public class ItemAnalysisServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(ItemAnalysisServlet.class.getName());
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        Map<String, Object> result = new HashMap<>();
+        String chapterIdStr = request.getParameter("chapterId");
+        String bookIdStr = request.getParameter("bookId");
+
+        try {
+            ItemAnalyzer.Report report;
+            if (chapterIdStr != null) {
+                report = ItemAnalyzer.getInstance().analyzeChapter(Integer.parseInt(chapterIdStr));
+            } else if (bookIdStr != null) {
+                report = ItemAnalyzer.getInstance().analyzeBook(Integer.parseInt(bookIdStr));
+            } else {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                result.put("success", false);
+                result.put("error", "Missing chapterId or bookId");
+                writeJson(response, result);
+                return;
+            }
+            result.put("success", true);
+            result.put("report", report);
+        } catch (NumberFormatException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            result.put("success", false);
+            result.put("error", "Invalid id");
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error computing item analysis", e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        writeJson(response, result);
+    }
+
+    private void writeJson(HttpServletResponse response, Map<String, Object> result) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
@@ -0,0 +1,87 @@
+package controller.learning;
+
+import com.google.gson.Gson;
+import service.IRTCalibrationService;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts an offline IRT calibration run (POST) and reports the last run (GET).
+ */
+public class ItemCalibrationServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(ItemCalibrationServlet.class.getName());
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static volatile IRTCalibrationService.CalibrationReport lastReport;
+    private static volatile String lastError;
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("running", running.get());
+        result.put("report", lastReport);
+        if (lastError != null) {
+            result.put("error", lastError);
+        }
+        writeJson(response, result);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        String model = request.getParameter("model");
+        if (model == null || model.trim().isEmpty()) {
+            model = IRTCalibrationService.MODEL_RASCH;
+        }
+        Map<String, Object> result = new HashMap<>();
+
+        if (!running.compareAndSet(false, true)) {
+            result.put("success", false);
+            result.put("error", "A calibration run is already in progress");
+            writeJson(response, result);
+            return;
+        }
+
+        final String calibrationModel = model;
+        logger.info("📐 Starting " + calibrationModel + " calibration...");
+
+        // Run in background thread to avoid timeout
+        new Thread(() -> {
+            try {
+                lastReport = new IRTCalibrationService().calibrateFromDatabase(calibrationModel);
+                lastError = null;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.log(Level.SEVERE, "Error calibrating item parameters", e);
+            } finally {
+                running.set(false);
+            }
+        }, "irt-calibration").start();
+
+        result.put("success", true);
+        result.put("message", "Calibration started in background. GET this endpoint for the report.");
+        writeJson(response, result);
+    }
+
+    private void writeJson(HttpServletResponse response, Map<String, Object> result) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
@@ -2,7 +2,12 @@ package controller.learning;
 
 import com.google.gson.Gson;
 import dao.AdaptiveLearningDAO;
-import model.UserChapterMastery;
+import model.ConceptMastery;
+import model.ChapterProgress;
+import service.KnowledgeTracer;
+import service.Leaderboards;
+import service.LearningRollups;
+import service.ReviewScheduler;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import java.io.IOException;
@@ -14,6 +19,8 @@ import java.util.logging.Logger;
 public class LearningHistoryServlet extends HttpServlet {
     
     private static final Logger logger = Logger.getLogger(LearningHistoryServlet.class.getName());
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
     private AdaptiveLearningDAO adaptiveDAO;
     private Gson gson;
     
@@ -37,45 +44,95 @@ public class LearningHistoryServlet extends HttpServlet {
             HttpSession session = request.getSession(false);
             Integer userID = (session != null) ? (Integer) session.getAttribute("userID") : 1;
             
-            if ("getChapterHistory".equals(action)) {
+            if ("reviews".equals(action)) {
+                String limitStr = request.getParameter("limit");
+                int limit = (limitStr != null) ? Integer.parseInt(limitStr) : 20;
+                ReviewScheduler reviews = ReviewScheduler.getInstance();
+                result.put("success", true);
+                result.put("dueCount", reviews.getDueCount(userID));
+                result.put("cards", reviews.getNextDue(userID, limit));
+            } else if ("weakConcepts".equals(action)) {
+                List<ConceptMastery> weakest = KnowledgeTracer.getInstance().getWeakestConcepts(userID);
+                result.put("success", true);
+                result.put("concepts", weakest);
+                String chapterIdStr = request.getParameter("chapterId");
+                if (chapterIdStr != null) {
+                    int chapterID = Integer.parseInt(chapterIdStr);
+                    result.put("practiceQaIds",
+                        KnowledgeTracer.getInstance().questionsForWeakestConcepts(userID, chapterID).toArray());
+                }
+            } else if ("leaderboard".equals(action)) {
+                String chapterIdStr = request.getParameter("chapterId");
+                String bookIdStr = request.getParameter("bookId");
+                String limitStr = request.getParameter("limit");
+                int limit = Math.max(0, Math.min(Leaderboards.MAX_TOP,
+                    (limitStr != null) ? Integer.parseInt(limitStr) : 10));
+                Leaderboards boards = Leaderboards.getInstance();
+                if (chapterIdStr != null) {
+                    int chapterID = Integer.parseInt(chapterIdStr);
+                    result.put("success", true);
+                    result.put("top", boards.topOfChapter(chapterID, limit));
+                    result.put("me", boards.rankInChapter(userID, chapterID));
+                    result.put("learners", boards.learnersInChapter(chapterID));
+                } else if (bookIdStr != null) {
+                    int bookID = Integer.parseInt(bookIdStr);
+                    result.put("success", true);
+                    result.put("top", boards.topOfBook(bookID, limit));
+                    result.put("me", boards.rankInBook(userID, bookID));
+                    result.put("learners", boards.learnersInBook(bookID));
+                } else {
+                    result.put("success", false);
+                    result.put("error", "Missing chapterId or bookId");
+                }
+            } else if ("getChapterHistory".equals(action)) {
                 String chapterIdStr = request.getParameter("chapterId");
                 if (chapterIdStr == null) {
                     result.put("success", false);
                     result.put("error", "Missing chapterId");
                 } else {
                     int chapterID = Integer.parseInt(chapterIdStr);
-                    Map<String, Object> history = adaptiveDAO.getChapterHistory(userID, chapterID);
+                    String beforeStr = request.getParameter("before");
+                    String limitStr = request.getParameter("limit");
+                    int before = (beforeStr != null) ? Integer.parseInt(beforeStr) : 0;
+                    int limit = Math.max(1, Math.min(MAX_PAGE_SIZE,
+                        (limitStr != null) ? Integer.parseInt(limitStr) : DEFAULT_PAGE_SIZE));
+
+                    // One extra row tells whether an older page exists
+                    List<Map<String, Object>> attempts = adaptiveDAO.getAttemptPage(userID, chapterID, before, limit + 1);
+                    boolean hasMore = attempts.size() > limit;
+                    if (hasMore) {
+                        attempts = attempts.subList(0, limit);
+                    }
+                    ChapterProgress mastery = LearningRollups.getInstance().getChapter(userID, chapterID);
+
+                    Map<String, Object> history = new HashMap<>();
+                    history.put("mastery", mastery);
+                    history.put("attempts", attempts);
+                    history.put("totalAttempts", (mastery != null) ? mastery.getTotalQuestions() : attempts.size());
+                    history.put("hasMore", hasMore);
+                    if (hasMore) {
+                        history.put("nextBefore", attempts.get(attempts.size() - 1).get("performanceID"));
+                    }
                     result.put("success", true);
                     result.put("data", history);
                 }
+            } else if ("chapters".equals(action)) {
+                String bookIdStr = request.getParameter("bookId");
+                Integer bookID = (bookIdStr != null) ? Integer.valueOf(bookIdStr) : null;
+                result.put("success", true);
+                result.put("chapters", LearningRollups.getInstance().getChapters(userID, bookID));
             } else {
-                logger.info("Getting learning history for user " + userID);
-                
-                List<UserChapterMastery> history = adaptiveDAO.getUserLearningHistory(userID);
+                LearningRollups.Summary summary = LearningRollups.getInstance().getSummary(userID);
                 
-                if (history == null || history.isEmpty()) {
-                    result.put("success", true);
+                result.put("success", true);
+                if (summary.getTotalChapters() == 0) {
                     result.put("message", "Bạn chưa làm bài tập nào");
-                    result.put("history", new Object[0]);
-                } else {
-                    result.put("success", true);
-                    result.put("history", history);
-                    result.put("totalChapters", history.size());
-                    
-                    int totalQuestions = 0;
-                    int totalCorrect = 0;
-                    for (UserChapterMastery mastery : history) {
-                        totalQuestions += mastery.getTotalQuestions();
-                        totalCorrect += mastery.getCorrectAnswers();
-                    }
-                    
-                    result.put("totalQuestionsAnswered", totalQuestions);
-                    result.put("totalCorrectAnswers", totalCorrect);
-                    result.put("overallAccuracy", totalQuestions > 0 ? 
-                        Math.round((totalCorrect * 100.0 / totalQuestions) * 10) / 10.0 : 0);
-                    
-                    logger.info("Found " + history.size() + " chapters with progress");
                 }
+                result.put("totalChapters", summary.getTotalChapters());
+                result.put("totalQuestionsAnswered", summary.getTotalQuestionsAnswered());
+                result.put("totalCorrectAnswers", summary.getTotalCorrectAnswers());
+                result.put("overallAccuracy", summary.getOverallAccuracy());
+                result.put("books", summary.getBooks());
             }
             
         } catch (Exception e) {
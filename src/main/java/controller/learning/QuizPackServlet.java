@@ -0,0 +1,84 @@
+package controller.learning;
+
+import com.google.gson.Gson;
+import dao.QADao;
+import service.IRTService;
+import service.QuizPackBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Serves the offline quiz pack of a chapter (GET ?chapterId=), gzipped, with the pack
+ * version as ETag so unchanged packs are answered with 304.
+ */
+public class QuizPackServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(QuizPackServlet.class.getName());
+
+    private final Gson gson = new Gson();
+    private final QADao qaDao = new QADao();
+    private final IRTService irtService = new IRTService();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        String chapterIdStr = request.getParameter("chapterId");
+        if (chapterIdStr == null) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Missing chapterId");
+            return;
+        }
+
+        try {
+            QuizPackBuilder.QuizPack pack = QuizPackBuilder.getInstance()
+                .get(Integer.parseInt(chapterIdStr), qaDao, irtService);
+
+            String etag = "\"" + pack.getVersion() + "\"";
+            response.setHeader("ETag", etag);
+            response.setHeader("Cache-Control", "private, no-cache");
+            response.setHeader("Vary", "Accept-Encoding");
+            if (etag.equals(request.getHeader("If-None-Match"))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(pack.getGzipped().length);
+                response.getOutputStream().write(pack.getGzipped());
+            } else {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(pack.getGzipped()))) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+        } catch (NumberFormatException e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid chapterId: " + chapterIdStr);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error building quiz pack", e);
+            writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String error) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", error);
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
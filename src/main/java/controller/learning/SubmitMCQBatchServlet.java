@@ -5,9 +5,13 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import dao.AdaptiveLearningDAO;
+import dao.QADao;
+import model.UserAbility;
 import model.UserQAPerformance;
-import service.OllamaService;
+import service.AnswerKeyCache;
 import service.IRTService;
+import service.ItemStatisticsStore;
+import service.MCQFeedbackService;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
@@ -24,14 +28,14 @@ public class SubmitMCQBatchServlet extends HttpServlet {
     private static final Logger logger = Logger.getLogger(SubmitMCQBatchServlet.class.getName());
     
     private AdaptiveLearningDAO adaptiveDAO;
-    private OllamaService ollamaService;
+    private QADao qaDao;
     private IRTService irtService;
     private Gson gson;
     
     @Override
     public void init() throws ServletException {
         adaptiveDAO = new AdaptiveLearningDAO();
-        ollamaService = new OllamaService();
+        qaDao = new QADao();
         irtService = new IRTService();
         gson = new Gson();
         logger.info("SubmitMCQBatchServlet initialized with IRT support");
@@ -70,54 +74,60 @@ public class SubmitMCQBatchServlet extends HttpServlet {
             logger.info("Processing " + answersArray.size() + " MCQ answers for user " + userID);
             
             // Ước lượng khả năng ban đầu của user (theta)
-            double currentTheta = irtService.estimateUserAbility(userID, chapterId);
+            UserAbility ability = irtService.getUserAbility(userID, chapterId);
+            double currentTheta = ability.getTheta();
             logger.info("User " + userID + " initial theta: " + String.format("%.2f", currentTheta));
             
             List<Map<String, Object>> evaluations = new ArrayList<>();
             int totalCorrect = 0;
             double totalAIScore = 0;
             
+            AnswerKeyCache answerKeys = AnswerKeyCache.getInstance();
+            answerKeys.ensureChapterLoaded(chapterId, qaDao);
+            // Feedback is pre-generated per (question, option); grading makes no model calls
+            MCQFeedbackService feedbackService = MCQFeedbackService.getInstance();
+            feedbackService.ensureChapterLoaded(chapterId);
+            boolean feedbackMissing = false;
+            
             // Process each answer
             for (int i = 0; i < answersArray.size(); i++) {
                 JsonObject answerObj = answersArray.get(i).getAsJsonObject();
                 
                 int qaId = answerObj.get("qaId").getAsInt();
-                String question = answerObj.get("question").getAsString();
-                String correctAnswer = answerObj.get("correctAnswer").getAsString();
-                String userAnswer = answerObj.get("userAnswer").getAsString();
-                String difficulty = answerObj.get("difficulty").getAsString();
+                // Payload is {qaId, chosenOption}; older clients send the option text as userAnswer
+                String userAnswer = answerObj.has("chosenOption") ? answerObj.get("chosenOption").getAsString()
+                                  : answerObj.has("userAnswer") ? answerObj.get("userAnswer").getAsString() : "";
                 
-                logger.info("Q" + (i+1) + ": QA #" + qaId + " (difficulty: " + difficulty + ")");
+                AnswerKeyCache.AnswerKey key = answerKeys.get(qaId, qaDao);
+                if (key == null) {
+                    logger.warning("Q" + (i+1) + ": QA #" + qaId + " not found, skipped");
+                    evaluations.add(skipped(qaId, "Câu hỏi không còn tồn tại."));
+                    continue;
+                }
+                if (key.getChapterId() != chapterId) {
+                    // Performance, mastery and ability are all kept per chapter
+                    logger.warning("Q" + (i+1) + ": QA #" + qaId + " belongs to chapter " + key.getChapterId() +
+                                   ", not " + chapterId + ", skipped");
+                    evaluations.add(skipped(qaId, "Câu hỏi không thuộc chương này."));
+                    continue;
+                }
                 
                 boolean isCorrect = false;
                 String feedback = "";
                 double score = 0;
                 
                 // Check answer
-                if (userAnswer.isEmpty()) {
+                if (userAnswer.trim().isEmpty()) {
                     feedback = "Bạn chưa chọn đáp án nào.";
                     score = 0;
                 } else {
-                    char userLetter = userAnswer.trim().charAt(0);
-                    char correctLetter = correctAnswer.trim().charAt(0);
-                    isCorrect = (userLetter == correctLetter);
+                    isCorrect = AnswerKeyCache.isCorrect(key, userAnswer);
+                    score = isCorrect ? 100 : 30;
                     
-                    if (isCorrect) {
-                        try {
-                            feedback = generatePositiveFeedback(question, correctAnswer, difficulty);
-                            score = 100;
-                        } catch (Exception e) {
-                            feedback = "Chính xác! Bạn đã nắm vững kiến thức này.";
-                            score = 100;
-                        }
-                    } else {
-                        try {
-                            feedback = generateExplanation(question, correctAnswer, userAnswer, difficulty);
-                            score = 30; 
-                        } catch (Exception e) {
-                            feedback = "Chưa chính xác. Hãy xem lại đáp án đúng và giải thích bên dưới.";
-                            score = 30;
-                        }
+                    feedback = feedbackService.get(qaId, AnswerKeyCache.optionOf(userAnswer), key.getFingerprint());
+                    if (feedback == null) {
+                        feedback = isCorrect ? MCQFeedbackService.FALLBACK_CORRECT : MCQFeedbackService.FALLBACK_WRONG;
+                        feedbackMissing = true;
                     }
                 }
 
@@ -127,24 +137,21 @@ public class SubmitMCQBatchServlet extends HttpServlet {
                 performance.setQaID(qaId);
                 performance.setChapterID(chapterId);
                 performance.setCorrect(isCorrect);
+                performance.setChosenOption(AnswerKeyCache.storedOption(userAnswer));
                 performance.setTimeSpent(0); 
                 
                 String level = score >= 85 ? "excellent" : score >= 60 ? "good" : score >= 40 ? "basic" : "poor";
                 
-                adaptiveDAO.saveUserPerformanceWithAI(performance, level, score, feedback);
+                adaptiveDAO.saveUserPerformanceWithAI(performance, level, score, feedback,
+                        ItemStatisticsStore.cohortOf(currentTheta));
                 
-                // IRT: Update user ability (theta) after each response
+                // IRT: EAP update of the persisted ability after each response
                 try {
-                    double itemBeta = irtService.estimateItemDifficulty(difficulty);
-                    double predictedProb = irtService.calculateProbability(currentTheta, itemBeta);
-                    
-                    logger.info("  IRT: beta=" + String.format("%.2f", itemBeta) + 
-                               ", P(correct)=" + String.format("%.2f", predictedProb));
+                    ability = irtService.recordResponse(userID, chapterId, qaId, isCorrect);
+                    currentTheta = ability.getTheta();
                     
-                    // Update theta based on response
-                    currentTheta = irtService.updateUserAbility(currentTheta, itemBeta, isCorrect);
-                    
-                    logger.info("  Updated theta: " + String.format("%.2f", currentTheta));
+                    logger.info("  Updated theta: " + String.format("%.2f", currentTheta) +
+                               " (SE: " + String.format("%.2f", ability.getStandardError()) + ")");
                     
                 } catch (Exception e) {
                     logger.warning("IRT update failed: " + e.getMessage());
@@ -156,12 +163,20 @@ public class SubmitMCQBatchServlet extends HttpServlet {
                 evaluation.put("isCorrect", isCorrect);
                 evaluation.put("score", score);
                 evaluation.put("feedback", feedback);
+                evaluation.put("correctOption", String.valueOf(key.getOption()));
+                if (answerObj.has("fingerprint") && answerObj.get("fingerprint").getAsInt() != key.getFingerprint()) {
+                    evaluation.put("questionChanged", true);
+                }
                 evaluations.add(evaluation);
                 
                 if (isCorrect) totalCorrect++;
                 totalAIScore += score;
             }
             
+            if (feedbackMissing) {
+                feedbackService.pregenerate(chapterId);
+            }
+            
             // Get final mastery score
             var mastery = adaptiveDAO.getMasteryScore(userID, chapterId);
             double masteryScore = (mastery != null) ? mastery.getMasteryScore() : 0;
@@ -182,6 +197,8 @@ public class SubmitMCQBatchServlet extends HttpServlet {
             result.put("totalCorrect", totalCorrect);
             result.put("totalQuestions", answersArray.size());
             result.put("userTheta", currentTheta);
+            result.put("userThetaSE", ability.getStandardError());
+            result.put("precisionReached", irtService.hasReachedPrecision(ability));
             result.put("hasAchievedMastery", hasAchievedMastery);
             
         } catch (Exception e) {
@@ -193,37 +210,13 @@ public class SubmitMCQBatchServlet extends HttpServlet {
         
         response.getWriter().write(gson.toJson(result));
     }
-    
-    /**
-     * Generate positive feedback for correct answers
-     */
-    private String generatePositiveFeedback(String question, String answer, String difficulty) 
-            throws Exception {
-        
-        String prompt = "Câu hỏi: " + question + "\n" +
-                       "Đáp án đúng: " + answer + "\n" +
-                       "Độ khó: " + difficulty + "\n\n" +
-                       "Sinh viên đã trả lời ĐÚNG. Hãy cho 1 câu nhận xét ngắn gọn (tối đa 20 từ), " +
-                       "khuyến khích và giải thích vì sao đáp án này đúng. " +
-                       "Viết bằng tiếng Việt, thân thiện.";
-        
-        return ollamaService.answerQuestion(prompt, "");
-    }
-    
-    /**
-     * Generate explanation for wrong answers
-     */
-    private String generateExplanation(String question, String correctAnswer, 
-                                      String userAnswer, String difficulty) throws Exception {
-        
-        String prompt = "Câu hỏi: " + question + "\n" +
-                       "Đáp án đúng: " + correctAnswer + "\n" +
-                       "Sinh viên chọn: " + userAnswer + "\n" +
-                       "Độ khó: " + difficulty + "\n\n" +
-                       "Sinh viên đã trả lời SAI. Hãy giải thích ngắn gọn (tối đa 30 từ) " +
-                       "vì sao đáp án đúng là đúng và đáp án sinh viên chọn là sai. " +
-                       "Viết bằng tiếng Việt, thân thiện, giúp sinh viên hiểu.";
-        
-        return ollamaService.answerQuestion(prompt, "");
+
+    private static Map<String, Object> skipped(int qaId, String feedback) {
+        Map<String, Object> evaluation = new HashMap<>();
+        evaluation.put("qaId", qaId);
+        evaluation.put("isCorrect", false);
+        evaluation.put("score", 0);
+        evaluation.put("feedback", feedback);
+        return evaluation;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package controller.learning;
+
+import com.google.gson.Gson;
+import dao.QADao;
+import model.QuestionBankItem;
+import service.IRTService;
+import service.TestAssembler;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Assembles parallel exam forms from a blueprint posted as JSON:
+ * {chapterIDs, targetTheta, forms, requirements: [{difficulty, bloomLevel, tagID, count}]}.
+ */
+public class TestAssemblyServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(TestAssemblyServlet.class.getName());
+
+    private static final int MAX_FORMS = 20;
+
+    private final Gson gson = new Gson();
+    private final QADao qaDao = new QADao();
+    private final IRTService irtService = new IRTService();
+    private final TestAssembler assembler = new TestAssembler();
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        Map<String, Object> result = new HashMap<>();
+        try {
+            TestAssembler.Blueprint blueprint = gson.fromJson(request.getReader(), TestAssembler.Blueprint.class);
+            if (blueprint == null || blueprint.chapterIDs == null || blueprint.chapterIDs.isEmpty()
+                    || blueprint.requirements == null || blueprint.requirements.isEmpty()) {
+                badRequest(response, result, "Blueprint needs chapterIDs and at least one requirement");
+                return;
+            }
+            if (blueprint.forms < 1 || blueprint.forms > MAX_FORMS) {
+                badRequest(response, result, "forms must be between 1 and " + MAX_FORMS);
+                return;
+            }
+            long formLength = 0;
+            for (TestAssembler.Requirement requirement : blueprint.requirements) {
+                if (requirement == null || requirement.count < 0) {
+                    badRequest(response, result, "Every requirement needs a count of at least 0");
+                    return;
+                }
+                formLength += requirement.count;
+            }
+
+            List<QuestionBankItem> pool = TestAssembler.loadPool(new HashSet<>(blueprint.chapterIDs), qaDao, irtService);
+            if (formLength * blueprint.forms > pool.size()) {
+                badRequest(response, result, blueprint.forms + " forms of " + formLength +
+                                             " items need more than the " + pool.size() + " questions in the bank");
+                return;
+            }
+            TestAssembler.AssemblyReport report = assembler.assemble(blueprint, pool);
+
+            result.put("success", report.completeForms == report.formsRequested);
+            result.put("report", report);
+            if (report.completeForms < report.formsRequested) {
+                result.put("error", "Question bank too small for the blueprint: " + report.completeForms +
+                                    " of " + report.formsRequested + " forms are complete");
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error assembling test forms", e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        writeJson(response, result);
+    }
+
+    private void badRequest(HttpServletResponse response, Map<String, Object> result, String error)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        result.put("success", false);
+        result.put("error", error);
+        writeJson(response, result);
+    }
+
+    private void writeJson(HttpServletResponse response, Map<String, Object> result) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+}
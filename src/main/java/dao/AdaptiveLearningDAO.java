@@ -3,27 +3,106 @@ package dao;
 import connect.DBConnection;
 import model.UserQAPerformance;
 import model.UserChapterMastery;
+import model.ChapterProgress;
 import model.QA;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import service.AttemptLog;
+import service.CandidatePools;
 import service.IRTService;
+import service.ItemAnalyzer;
+import service.ItemStatisticsStore;
+import service.KnowledgeTracer;
+import service.Leaderboards;
+import service.LearningRollups;
+import service.MasteryFormula;
+import service.ReviewScheduler;
+import service.UserItemHistory;
 
 public class AdaptiveLearningDAO extends DBConnection {
     
     private static final Logger logger = Logger.getLogger(AdaptiveLearningDAO.class.getName());
     
+    private final QADao qaDao = new QADao();
+    
+    public static final int ATTEMPT_TEXT_CHARS = 100;
+    public static final int ATTEMPT_FEEDBACK_CHARS = 300;
+
+    private static final String MASTERY_SQL =
+        "SELECT " + RowMappers.MASTERY.columnList() + " FROM UserChapterMastery WHERE UserID = ? AND ChapterID = ?";
+    private static final String USER_HISTORY_SQL =
+        "SELECT " + RowMappers.PERFORMANCE.columnList() + " FROM UserQAPerformance " +
+        "WHERE UserID = ? AND ChapterID = ? " +
+        "ORDER BY AttemptedAt DESC";
+    private static final String CHAPTER_PROGRESS_COLUMNS =
+        "c.[ChapterID], c.[BookID], c.[ChapterNumber], c.[Title] AS [ChapterTitle], b.[Title] AS [BookTitle]";
+    private static final String CHAPTER_PROGRESS_SQL =
+        "SELECT " + CHAPTER_PROGRESS_COLUMNS + ", " +
+        "ucm.[TotalQuestions], ucm.[CorrectAnswers], ucm.[MasteryScore], ucm.[LastUpdated] " +
+        "FROM UserChapterMastery ucm " +
+        "JOIN [Chapter] c ON ucm.ChapterID = c.ChapterID " +
+        "JOIN [Book] b ON c.BookID = b.BookID " +
+        "WHERE ucm.UserID = ?";
+    private static final String CHAPTER_INFO_SQL =
+        "SELECT " + CHAPTER_PROGRESS_COLUMNS + " " +
+        "FROM [Chapter] c JOIN [Book] b ON c.BookID = b.BookID " +
+        "WHERE c.ChapterID = ?";
+    private static final String ATTEMPT_PAGE_SQL =
+        "SELECT TOP (?) uqp.PerformanceID, uqp.QAID, LEFT(qa.Question, " + ATTEMPT_TEXT_CHARS + ") AS Question, " +
+        "qa.Difficulty, uqp.IsCorrect, uqp.TimeSpent, uqp.AIScore, " +
+        "LEFT(uqp.AIFeedback, " + ATTEMPT_FEEDBACK_CHARS + ") AS AIFeedback, uqp.AttemptedAt " +
+        "FROM UserQAPerformance uqp " +
+        "JOIN [QA] qa ON uqp.QAID = qa.QAID " +
+        "WHERE uqp.UserID = ? AND uqp.ChapterID = ? AND uqp.PerformanceID < ? " +
+        "ORDER BY uqp.PerformanceID DESC";
+    private static final RowMapper<UserChapterMastery> MASTERY_SCORE =
+        RowMappers.MASTERY.only("UserID", "ChapterID", "MasteryScore");
+    private static final String CHAPTER_MASTERY_SCORES_SQL =
+        "SELECT " + MASTERY_SCORE.columnList() + " FROM UserChapterMastery WHERE ChapterID = ?";
+    private static final String BOOK_MASTERY_SCORES_SQL =
+        "SELECT " + MASTERY_SCORE.columnList("ucm") + " FROM UserChapterMastery ucm " +
+        "JOIN [Chapter] c ON ucm.ChapterID = c.ChapterID " +
+        "WHERE c.BookID = ?";
+    private static final String CHAPTER_ATTEMPTS_SQL =
+        "SELECT " + RowMappers.PERFORMANCE.columnList() + " FROM UserQAPerformance " +
+        "WHERE ChapterID = ? " +
+        "ORDER BY UserID, AttemptedAt, PerformanceID";
+    private static final String BOOK_ATTEMPTS_SQL =
+        "SELECT " + RowMappers.PERFORMANCE.columnList("uqp") + " FROM UserQAPerformance uqp " +
+        "JOIN [Chapter] c ON uqp.ChapterID = c.ChapterID " +
+        "WHERE c.BookID = ? " +
+        "ORDER BY uqp.UserID, uqp.AttemptedAt, uqp.PerformanceID";
+    private static final String ALL_ATTEMPTS_SQL =
+        "SELECT " + RowMappers.PERFORMANCE.columnList() + " FROM UserQAPerformance " +
+        "WHERE PerformanceID <= ? " +
+        "ORDER BY PerformanceID";
+    
 
    public boolean saveUserPerformanceWithAI(UserQAPerformance performance, 
                                          String understandingLevel,
                                          double aiScore,
                                          String aiFeedback) throws SQLException {
+    return saveUserPerformanceWithAI(performance, understandingLevel, aiScore, aiFeedback, -1);
+}
+
+   /**
+    * @param cohort ability cohort for item statistics ({@link ItemStatisticsStore#cohortOf}), -1 if unknown
+    */
+   public boolean saveUserPerformanceWithAI(UserQAPerformance performance, 
+                                         String understandingLevel,
+                                         double aiScore,
+                                         String aiFeedback,
+                                         int cohort) throws SQLException {
+    // OUTPUT returns the key and the database's AttemptedAt, which the attempt log records
     String sql = "INSERT INTO UserQAPerformance " +
-                 "(UserID, QAID, ChapterID, IsCorrect, TimeSpent, UnderstandingLevel, AIScore, AIFeedback) " +
-                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+                 "(UserID, QAID, ChapterID, IsCorrect, TimeSpent, UnderstandingLevel, AIScore, AIFeedback, ChosenOption) " +
+                 "OUTPUT INSERTED.PerformanceID, INSERTED.AttemptedAt " +
+                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
     
     try (Connection conn = getConnection();
          PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -36,10 +115,29 @@ public class AdaptiveLearningDAO extends DBConnection {
         ps.setString(6, understandingLevel);
         ps.setDouble(7, aiScore);
         ps.setString(8, aiFeedback);
+        ps.setString(9, performance.getChosenOption());
         
-        int result = ps.executeUpdate();
+        boolean inserted;
+        try (ResultSet keys = ps.executeQuery()) {
+            inserted = keys.next();
+            if (inserted) {
+                performance.setPerformanceID(keys.getInt(1));
+                performance.setAttemptedAt(keys.getTimestamp(2));
+            }
+        }
         
-        if (result > 0) {
+        if (inserted) {
+            performance.setAiScore(aiScore);
+            AttemptLog.getInstance().append(performance);
+            ItemStatisticsStore.getInstance().record(performance.getQaID(), cohort, performance.isCorrect());
+            ItemAnalyzer.getInstance().recordAttempt(performance);
+            UserItemHistory.getInstance().record(performance.getUserID(), performance.getQaID(), performance.isCorrect());
+            try {
+                KnowledgeTracer.getInstance().recordAttempt(performance.getUserID(), performance.getQaID(), performance.isCorrect());
+            } catch (SQLException e) {
+                logger.warning("Knowledge tracing update failed for QA #" + performance.getQaID() + ": " + e.getMessage());
+            }
+            ReviewScheduler.getInstance().recordReview(performance.getUserID(), performance.getQaID(), performance.isCorrect());
             // Cập nhật mastery score (có tính AIScore)
             updateMasteryScoreWithAI(performance.getUserID(), performance.getChapterID());
             logger.info("✅ Saved performance with AI evaluation for User " + performance.getUserID());
@@ -61,11 +159,7 @@ private void updateMasteryScoreWithAI(int userID, int chapterID) throws SQLExcep
                  "    CorrectAnswers = (SELECT COUNT(*) FROM UserQAPerformance " +
                  "                      WHERE UserID = ? AND ChapterID = ? AND IsCorrect = 1), " +
                  "    MasteryScore = (" +
-                 "      SELECT CASE " +
-                 "        WHEN COUNT(*) > 0 THEN " +
-                 "          (SUM(CASE WHEN IsCorrect = 1 THEN 60 ELSE 0 END) + SUM(ISNULL(AIScore, 0) * 0.4)) / COUNT(*) " +
-                 "        ELSE 0 " +
-                 "      END " +
+                 "      SELECT " + MasteryFormula.SQL + " " +
                  "      FROM UserQAPerformance " +
                  "      WHERE UserID = ? AND ChapterID = ?" +
                  "    ), " +
@@ -75,9 +169,8 @@ private void updateMasteryScoreWithAI(int userID, int chapterID) throws SQLExcep
                  "  VALUES (?, ?, " +
                  "          (SELECT COUNT(*) FROM UserQAPerformance WHERE UserID = ? AND ChapterID = ?), " +
                  "          (SELECT COUNT(*) FROM UserQAPerformance WHERE UserID = ? AND ChapterID = ? AND IsCorrect = 1), " +
-                 "          (SELECT CASE WHEN COUNT(*) > 0 THEN " +
-                 "            (SUM(CASE WHEN IsCorrect = 1 THEN 60 ELSE 0 END) + SUM(ISNULL(AIScore, 0) * 0.4)) / COUNT(*) " +
-                 "           ELSE 0 END FROM UserQAPerformance WHERE UserID = ? AND ChapterID = ?));";
+                 "          (SELECT " + MasteryFormula.SQL + " FROM UserQAPerformance WHERE UserID = ? AND ChapterID = ?)) " +
+                 "OUTPUT inserted.TotalQuestions, inserted.CorrectAnswers, inserted.MasteryScore, inserted.LastUpdated;";
     
     try (Connection conn = getConnection();
          PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -99,7 +192,13 @@ private void updateMasteryScoreWithAI(int userID, int chapterID) throws SQLExcep
         ps.setInt(15, userID);
         ps.setInt(16, chapterID);
         
-        ps.executeUpdate();
+        try (ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                Leaderboards.getInstance().updateMastery(userID, chapterID, rs.getDouble(3));
+                LearningRollups.getInstance().updateChapter(userID, chapterID, rs.getInt(1), rs.getInt(2),
+                                                            rs.getDouble(3), rs.getTimestamp(4));
+            }
+        }
         logger.info("✅ Updated mastery score with AI evaluation for User " + userID);
     }
 }
@@ -111,29 +210,15 @@ private void updateMasteryScoreWithAI(int userID, int chapterID) throws SQLExcep
      * @throws java.sql.SQLException
      */
     public UserChapterMastery getMasteryScore(int userID, int chapterID) throws SQLException {
-        String sql = "SELECT * FROM UserChapterMastery WHERE UserID = ? AND ChapterID = ?";
-        
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(MASTERY_SQL)) {
             
             ps.setInt(1, userID);
             ps.setInt(2, chapterID);
             
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                UserChapterMastery mastery = new UserChapterMastery();
-                mastery.setMasteryID(rs.getInt("MasteryID"));
-                mastery.setUserID(rs.getInt("UserID"));
-                mastery.setChapterID(rs.getInt("ChapterID"));
-                mastery.setTotalQuestions(rs.getInt("TotalQuestions"));
-                mastery.setCorrectAnswers(rs.getInt("CorrectAnswers"));
-                mastery.setMasteryScore(rs.getDouble("MasteryScore"));
-                mastery.setLastUpdated(rs.getTimestamp("LastUpdated"));
-                return mastery;
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.MASTERY.mapNext(MASTERY_SQL, rs);
             }
-            
-            return null;
         }
     }
     
@@ -153,70 +238,24 @@ private void updateMasteryScoreWithAI(int userID, int chapterID) throws SQLExcep
         }
         
         logger.info("🎯 User " + userID + " mastery: " + masteryScore + "% → difficulty: " + difficulty);
-        String sql = "SELECT TOP 1 q.* " +
-                     "FROM QA q " +
-                     "LEFT JOIN UserQAPerformance p ON q.QAID = p.QAID AND p.UserID = ? " +
-                     "WHERE q.ChapterID = ? " +
-                     "AND q.Difficulty = ? " +
-                     "AND (p.PerformanceID IS NULL OR p.IsCorrect = 0) " +
-                     "ORDER BY NEWID()"; // Random
         
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setInt(1, userID);
-            ps.setInt(2, chapterID);
-            ps.setString(3, difficulty);
-            
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                QA qa = new QA();
-                qa.setQAID(rs.getInt("QAID"));
-                qa.setChapterID(rs.getInt("ChapterID"));
-                qa.setQuestion(rs.getString("Question"));
-                qa.setAnswer(rs.getString("Answer"));
-                qa.setDifficulty(rs.getString("Difficulty"));
-                qa.setQuestionType(rs.getString("QuestionType"));
-                qa.setBloomLevel(rs.getString("BloomLevel"));
-                
+        int qaId = CandidatePools.getInstance().drawUnmastered(userID, chapterID, difficulty, this);
+        if (qaId > 0) {
+            QA qa = qaDao.getQAById(qaId);
+            if (qa != null) {
                 logger.info("✅ Selected Q&A #" + qa.getQAID() + " (difficulty: " + difficulty + ")");
                 return qa;
             }
-            
-            logger.info("⚠️ No unused questions, getting random one");
-            return getRandomQuestion(chapterID, difficulty);
         }
+        
+        logger.info("⚠️ No unused questions, getting random one");
+        return getRandomQuestion(chapterID, difficulty);
     }
     
 
     private QA getRandomQuestion(int chapterID, String difficulty) throws SQLException {
-        String sql = "SELECT TOP 1 * FROM QA " +
-                     "WHERE ChapterID = ? AND Difficulty = ? " +
-                     "ORDER BY NEWID()";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setInt(1, chapterID);
-            ps.setString(2, difficulty);
-            
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                QA qa = new QA();
-                qa.setQAID(rs.getInt("QAID"));
-                qa.setChapterID(rs.getInt("ChapterID"));
-                qa.setQuestion(rs.getString("Question"));
-                qa.setAnswer(rs.getString("Answer"));
-                qa.setDifficulty(rs.getString("Difficulty"));
-                qa.setQuestionType(rs.getString("QuestionType"));
-                
-                return qa;
-            }
-            
-            return null;
-        }
+        int qaId = CandidatePools.getInstance().draw(chapterID, difficulty);
+        return (qaId > 0) ? qaDao.getQAById(qaId) : null;
     }
     
 public QA getAdaptiveQuestionWithIRT(int userID, int chapterID) throws SQLException {
@@ -240,116 +279,222 @@ public QA getAdaptiveQuestionWithIRT(int userID, int chapterID) throws SQLExcept
     
 
     public List<UserQAPerformance> getUserHistory(int userID, int chapterID) throws SQLException {
-        String sql = "SELECT * FROM UserQAPerformance " +
-                     "WHERE UserID = ? AND ChapterID = ? " +
-                     "ORDER BY AttemptedAt DESC";
-        
-        List<UserQAPerformance> history = new ArrayList<>();
-        
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(USER_HISTORY_SQL)) {
             
             ps.setInt(1, userID);
             ps.setInt(2, chapterID);
             
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                UserQAPerformance perf = new UserQAPerformance();
-                perf.setPerformanceID(rs.getInt("PerformanceID"));
-                perf.setUserID(rs.getInt("UserID"));
-                perf.setQaID(rs.getInt("QAID"));
-                perf.setChapterID(rs.getInt("ChapterID"));
-                perf.setCorrect(rs.getBoolean("IsCorrect"));
-                perf.setTimeSpent(rs.getInt("TimeSpent"));
-                perf.setAttemptedAt(rs.getTimestamp("AttemptedAt"));
-                
-                history.add(perf);
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.PERFORMANCE.mapAll(USER_HISTORY_SQL, rs);
             }
         }
-        
-        return history;
     }
- public List<UserChapterMastery> getUserLearningHistory(int userID) throws SQLException {
-    List<UserChapterMastery> history = new ArrayList<>();
-    String sql = "SELECT ucm.*, c.ChapterName, c.ChapterNumber, b.BookName " +
-                 "FROM UserChapterMastery ucm " +
-                 "JOIN Chapters c ON ucm.ChapterID = c.ChapterID " +
-                 "JOIN Books b ON c.BookID = b.BookID " +
-                 "WHERE ucm.UserID = ? " +
-                 "ORDER BY ucm.LastUpdated DESC";
-    
-    try (Connection conn = getConnection();
-         PreparedStatement ps = conn.prepareStatement(sql)) {
-        
-        ps.setInt(1, userID);
-        ResultSet rs = ps.executeQuery();
-        
-        while (rs.next()) {
-            UserChapterMastery mastery = new UserChapterMastery();
-            mastery.setMasteryID(rs.getInt("MasteryID"));
-            mastery.setUserID(rs.getInt("UserID"));
-            mastery.setChapterID(rs.getInt("ChapterID"));
-            mastery.setTotalQuestions(rs.getInt("TotalQuestions"));
-            mastery.setCorrectAnswers(rs.getInt("CorrectAnswers"));
-            mastery.setMasteryScore(rs.getDouble("MasteryScore"));
-            mastery.setLastUpdated(rs.getTimestamp("LastUpdated"));
-            
-            history.add(mastery);
+
+    /**
+     * Overwrite mastery rows in one transaction, e.g. after a replay of the attempt log.
+     */
+    public int saveMasteryRows(List<UserChapterMastery> rows) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
         }
-        
-        logger.info("📊 Found " + history.size() + " chapters with progress for user " + userID);
+
+        String sql = "MERGE UserChapterMastery AS target " +
+                     "USING (SELECT ? AS UserID, ? AS ChapterID) AS source " +
+                     "ON target.UserID = source.UserID AND target.ChapterID = source.ChapterID " +
+                     "WHEN MATCHED THEN UPDATE SET TotalQuestions = ?, CorrectAnswers = ?, MasteryScore = ?, " +
+                     "  LastUpdated = GETDATE() " +
+                     "WHEN NOT MATCHED THEN INSERT (UserID, ChapterID, TotalQuestions, CorrectAnswers, MasteryScore) " +
+                     "  VALUES (source.UserID, source.ChapterID, ?, ?, ?);";
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (UserChapterMastery m : rows) {
+                ps.setInt(1, m.getUserID());
+                ps.setInt(2, m.getChapterID());
+                ps.setInt(3, m.getTotalQuestions());
+                ps.setInt(4, m.getCorrectAnswers());
+                ps.setDouble(5, m.getMasteryScore());
+                ps.setInt(6, m.getTotalQuestions());
+                ps.setInt(7, m.getCorrectAnswers());
+                ps.setDouble(8, m.getMasteryScore());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+
+        logger.info("💾 Rewrote " + rows.size() + " mastery rows");
+        return rows.size();
     }
-    
-    return history;
-}
 
+    /**
+     * {UserID, ChapterID, MasteryScore} of every learner in a chapter.
+     */
+    public List<UserChapterMastery> getChapterMasteryScores(int chapterID) throws SQLException {
+        return getMasteryScores(CHAPTER_MASTERY_SCORES_SQL, chapterID);
+    }
 
-public Map<String, Object> getChapterHistory(int userID, int chapterID) throws SQLException {
-    Map<String, Object> result = new HashMap<>();
+    /**
+     * {UserID, ChapterID, MasteryScore} of every learner in every chapter of a book.
+     */
+    public List<UserChapterMastery> getBookMasteryScores(int bookID) throws SQLException {
+        return getMasteryScores(BOOK_MASTERY_SCORES_SQL, bookID);
+    }
 
-    UserChapterMastery mastery = getMasteryScore(userID, chapterID);
-    result.put("mastery", mastery);
+    private List<UserChapterMastery> getMasteryScores(String sql, int scopeID) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-    String sql = "SELECT uqp.*, qa.Question, qa.Difficulty " +
-                 "FROM UserQAPerformance uqp " +
-                 "JOIN QA qa ON uqp.QAID = qa.QAID " +
-                 "WHERE uqp.UserID = ? AND uqp.ChapterID = ? " +
-                 "ORDER BY uqp.AttemptedAt DESC";
-    
-    List<Map<String, Object>> attempts = new ArrayList<>();
-    
-    try (Connection conn = getConnection();
-         PreparedStatement ps = conn.prepareStatement(sql)) {
-        
-        ps.setInt(1, userID);
-        ps.setInt(2, chapterID);
-        
-        ResultSet rs = ps.executeQuery();
-        
-        while (rs.next()) {
-            Map<String, Object> attempt = new HashMap<>();
-            attempt.put("performanceID", rs.getInt("PerformanceID"));
-            attempt.put("qaID", rs.getInt("QAID"));
-            attempt.put("question", rs.getString("Question"));
-            attempt.put("difficulty", rs.getString("Difficulty"));
-            attempt.put("isCorrect", rs.getBoolean("IsCorrect"));
-            attempt.put("timeSpent", rs.getInt("TimeSpent"));
-            attempt.put("understandingLevel", rs.getString("UnderstandingLevel"));
-            attempt.put("aiScore", rs.getDouble("AIScore"));
-            attempt.put("aiFeedback", rs.getString("AIFeedback"));
-            attempt.put("attemptedAt", rs.getTimestamp("AttemptedAt"));
-            
-            attempts.add(attempt);
+            ps.setInt(1, scopeID);
+            ps.setFetchSize(10_000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return MASTERY_SCORE.mapAll(sql, rs);
+            }
         }
     }
-    
-    result.put("attempts", attempts);
-    result.put("totalAttempts", attempts.size());
-    
-    logger.info("📚 Found " + attempts.size() + " attempts for user " + userID + " chapter " + chapterID);
-    
-    return result;
+
+    /**
+     * Stream every attempt in a chapter, grouped by user and in answer order.
+     */
+    public int streamChapterAttempts(int chapterID, Consumer<UserQAPerformance> handler) throws SQLException {
+        return streamAttempts(CHAPTER_ATTEMPTS_SQL, chapterID, handler);
+    }
+
+    /**
+     * Stream every attempt in a book, grouped by user and in answer order.
+     */
+    public int streamBookAttempts(int bookID, Consumer<UserQAPerformance> handler) throws SQLException {
+        return streamAttempts(BOOK_ATTEMPTS_SQL, bookID, handler);
+    }
+
+    /**
+     * Stream every attempt up to a PerformanceID in insertion order.
+     */
+    public int streamAllAttempts(int maxPerformanceID, Consumer<UserQAPerformance> handler) throws SQLException {
+        return streamAttempts(ALL_ATTEMPTS_SQL, maxPerformanceID, handler);
+    }
+
+    public int getMaxPerformanceID() throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT ISNULL(MAX(PerformanceID), 0) FROM UserQAPerformance");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int streamAttempts(String sql, int param, Consumer<UserQAPerformance> handler) throws SQLException {
+        int count = 0;
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, param);
+            ps.setFetchSize(10_000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper.Binding<UserQAPerformance> binding = RowMappers.PERFORMANCE.bind(sql, rs);
+                while (rs.next()) {
+                    handler.accept(binding.map(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public List<Integer> getAnsweredQAIDs(int userID) throws SQLException {
+        return getQAIDs("SELECT DISTINCT QAID FROM UserQAPerformance WHERE UserID = ?", userID);
+    }
+
+    public List<Integer> getCorrectQAIDs(int userID) throws SQLException {
+        return getQAIDs("SELECT DISTINCT QAID FROM UserQAPerformance WHERE UserID = ? AND IsCorrect = 1", userID);
+    }
+
+    private List<Integer> getQAIDs(String sql, int userID) throws SQLException {
+        List<Integer> qaIds = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, userID);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    qaIds.add(rs.getInt(1));
+                }
+            }
+        }
+        return qaIds;
+    }
+
+    /**
+     * Every chapter the user has practiced, with chapter and book titles.
+     */
+    public List<ChapterProgress> getChapterProgress(int userID) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(CHAPTER_PROGRESS_SQL)) {
+
+            ps.setInt(1, userID);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.CHAPTER_PROGRESS.mapAll(CHAPTER_PROGRESS_SQL, rs);
+            }
+        }
+    }
+
+    /**
+     * Chapter and book titles of one chapter, with zero progress; null if it does not exist.
+     */
+    public ChapterProgress getChapterInfo(int chapterID) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(CHAPTER_INFO_SQL)) {
+
+            ps.setInt(1, chapterID);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.CHAPTER_PROGRESS.mapNext(CHAPTER_INFO_SQL, rs);
+            }
+        }
+    }
+
+    /**
+     * One page of a user's attempts in a chapter, newest first, older than the given
+     * PerformanceID (0 for the newest page). Question text and AI feedback are cut to
+     * {@link #ATTEMPT_TEXT_CHARS} / {@link #ATTEMPT_FEEDBACK_CHARS} characters.
+     */
+    public List<Map<String, Object>> getAttemptPage(int userID, int chapterID, int beforePerformanceID, int limit)
+            throws SQLException {
+        List<Map<String, Object>> attempts = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ATTEMPT_PAGE_SQL)) {
+
+            ps.setInt(1, limit);
+            ps.setInt(2, userID);
+            ps.setInt(3, chapterID);
+            ps.setInt(4, (beforePerformanceID > 0) ? beforePerformanceID : Integer.MAX_VALUE);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> attempt = new HashMap<>();
+                    attempt.put("performanceID", rs.getInt("PerformanceID"));
+                    attempt.put("qaID", rs.getInt("QAID"));
+                    attempt.put("question", rs.getString("Question"));
+                    attempt.put("difficulty", rs.getString("Difficulty"));
+                    attempt.put("isCorrect", rs.getBoolean("IsCorrect"));
+                    attempt.put("timeSpent", rs.getInt("TimeSpent"));
+                    attempt.put("aiScore", rs.getDouble("AIScore"));
+                    attempt.put("aiFeedback", rs.getString("AIFeedback"));
+                    attempt.put("attemptedAt", rs.getTimestamp("AttemptedAt"));
+                    attempts.add(attempt);
+                }
+            }
+        }
+        return attempts;
+    }
 }
-    
-}
\ No newline at end of file
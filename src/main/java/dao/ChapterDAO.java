@@ -2,6 +2,8 @@ package dao;
 
 import connect.DBConnection;
 import model.Chapter;
+import service.Leaderboards;
+import service.ReviewScheduler;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -13,32 +15,24 @@ public class ChapterDAO {
 
     private static final Logger logger = Logger.getLogger(ChapterDAO.class.getName());
 
+    private static final String CHAPTER_BY_ID_SQL =
+        "SELECT " + RowMappers.CHAPTER.columnList() + " FROM [Chapter] WHERE [ChapterID] = ?";
+    private static final String CHAPTERS_BY_BOOK_SQL =
+        "SELECT " + RowMappers.CHAPTER.columnList() + " FROM [Chapter] WHERE [BookID] = ? ORDER BY [ChapterNumber]";
+
     /**
      * Get chapter by ID
      */
     public Chapter getChapterById(int chapterId) throws SQLException {
-        String sql = "SELECT [ChapterID], [BookID], [ChapterNumber], [Title], [Content], [Summary] " +
-                     "FROM [Chapter] WHERE [ChapterID] = ?";
-        
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(CHAPTER_BY_ID_SQL)) {
             
             ps.setInt(1, chapterId);
             
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    Chapter chapter = new Chapter();
-                    chapter.setChapterID(rs.getInt("ChapterID"));
-                    chapter.setBookID(rs.getInt("BookID"));
-                    chapter.setChapterNumber(rs.getInt("ChapterNumber"));
-                    chapter.setTitle(rs.getString("Title"));
-                    chapter.setContent(rs.getString("Content"));
-                    chapter.setSummary(rs.getString("Summary"));
-                    return chapter;
-                }
+                return RowMappers.CHAPTER.mapNext(CHAPTER_BY_ID_SQL, rs);
             }
         }
-        return null;
     }
 
     /**
@@ -69,26 +63,15 @@ public class ChapterDAO {
      * Get all chapters by book ID
      */
     public List<Chapter> getChaptersByBookId(int bookId) throws SQLException {
-        List<Chapter> chapters = new ArrayList<>();
-        String sql = "SELECT [ChapterID], [BookID], [ChapterNumber], [Title], [Content], [Summary] " +
-                     "FROM [Chapter] WHERE [BookID] = ? ORDER BY [ChapterNumber]";
+        List<Chapter> chapters;
         
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(CHAPTERS_BY_BOOK_SQL)) {
             
             ps.setInt(1, bookId);
             
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Chapter chapter = new Chapter();
-                    chapter.setChapterID(rs.getInt("ChapterID"));
-                    chapter.setBookID(rs.getInt("BookID"));
-                    chapter.setChapterNumber(rs.getInt("ChapterNumber"));
-                    chapter.setTitle(rs.getString("Title"));
-                    chapter.setContent(rs.getString("Content"));
-                    chapter.setSummary(rs.getString("Summary"));
-                    chapters.add(chapter);
-                }
+                chapters = RowMappers.CHAPTER.mapAll(CHAPTERS_BY_BOOK_SQL, rs);
             }
         }
         
@@ -137,6 +120,10 @@ public class ChapterDAO {
             int[] results = ps.executeBatch();
             
             logger.info("✅ Successfully inserted " + results.length + " chapters");
+            // A book board caches its chapter list
+            for (Chapter chapter : chapters) {
+                Leaderboards.getInstance().invalidateBook(chapter.getBookID());
+            }
             
             // Verify insertion
             int successCount = 0;
@@ -158,19 +145,46 @@ public class ChapterDAO {
     }
 
     /**
-     * Delete all chapters by book ID
+     * Delete all chapters by book ID, with their Q&As, and drop the in-memory state of
+     * each deleted chapter and Q&A. The Q&As are deleted explicitly (their rows would go
+     * by cascade anyway) so their IDs are known.
      */
     public void deleteChaptersByBookId(int bookId) throws SQLException {
-        String sql = "DELETE FROM [Chapter] WHERE [BookID] = ?";
+        String qaSql = "DELETE FROM [QA] OUTPUT DELETED.[QAID] WHERE [ChapterID] IN " +
+                       "(SELECT [ChapterID] FROM [Chapter] WHERE [BookID] = ?)";
+        String sql = "DELETE FROM [Chapter] OUTPUT DELETED.[ChapterID] WHERE [BookID] = ?";
+        List<Integer> deletedQAs = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
         
         try (Connection conn = DBConnection.getConnection();
+             PreparedStatement qaPs = conn.prepareStatement(qaSql);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
+            conn.setAutoCommit(false);
+            
+            qaPs.setInt(1, bookId);
+            try (ResultSet rs = qaPs.executeQuery()) {
+                while (rs.next()) {
+                    deletedQAs.add(rs.getInt(1));
+                }
+            }
+            
             ps.setInt(1, bookId);
-            int deleted = ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deleted.add(rs.getInt(1));
+                }
+            }
             
-            logger.info("✅ Deleted " + deleted + " chapters for book ID: " + bookId);
+            conn.commit();
+        }
+        
+        for (int chapterId : deleted) {
+            QADao.forgetChapter(chapterId);
         }
+        ReviewScheduler.getInstance().forgetQuestions(deletedQAs);
+        Leaderboards.getInstance().invalidateBook(bookId);
+        logger.info("✅ Deleted " + deleted.size() + " chapters for book ID: " + bookId);
     }
     
     /**
@@ -0,0 +1,88 @@
+package dao;
+
+import connect.DBConnection;
+import model.ConceptMastery;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Knowledge-tracing state per (user, concept tag) in [UserConceptMastery].
+ */
+public class ConceptMasteryDAO {
+
+    private static final Logger logger = Logger.getLogger(ConceptMasteryDAO.class.getName());
+
+    private static final String MASTERIES_SQL =
+        "SELECT " + RowMappers.CONCEPT_MASTERY.columnList("m") + ", t.[TagName] " +
+        "FROM [UserConceptMastery] m INNER JOIN [Tags] t ON t.[TagID] = m.[TagID] " +
+        "WHERE m.[UserID] = ?";
+
+    public List<ConceptMastery> getMasteries(int userID) throws SQLException {
+        List<ConceptMastery> masteries = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(MASTERIES_SQL)) {
+
+            ps.setInt(1, userID);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper.Binding<ConceptMastery> binding = RowMappers.CONCEPT_MASTERY.bind(MASTERIES_SQL, rs);
+                while (rs.next()) {
+                    ConceptMastery mastery = binding.map(rs);
+                    mastery.setConceptName(rs.getString("TagName"));
+                    masteries.add(mastery);
+                }
+            }
+        }
+        return masteries;
+    }
+
+    /**
+     * Upsert a batch of states in one transaction.
+     */
+    public int saveMasteries(List<ConceptMastery> masteries) throws SQLException {
+        if (masteries == null || masteries.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "MERGE [UserConceptMastery] AS target " +
+                     "USING (SELECT ? AS UserID, ? AS TagID) AS source " +
+                     "ON target.[UserID] = source.UserID AND target.[TagID] = source.TagID " +
+                     "WHEN MATCHED THEN UPDATE SET [PKnown] = ?, [Attempts] = ?, [CorrectAttempts] = ?, " +
+                     "  [LastUpdated] = GETDATE() " +
+                     "WHEN NOT MATCHED THEN INSERT ([UserID], [TagID], [PKnown], [Attempts], [CorrectAttempts], " +
+                     "  [LastUpdated]) VALUES (source.UserID, source.TagID, ?, ?, ?, GETDATE());";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (ConceptMastery m : masteries) {
+                ps.setInt(1, m.getUserID());
+                ps.setInt(2, m.getTagID());
+                ps.setDouble(3, m.getPKnown());
+                ps.setInt(4, m.getAttempts());
+                ps.setInt(5, m.getCorrectAttempts());
+                ps.setDouble(6, m.getPKnown());
+                ps.setInt(7, m.getAttempts());
+                ps.setInt(8, m.getCorrectAttempts());
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            conn.commit();
+
+            logger.fine("✅ Saved " + masteries.size() + " concept mastery states");
+            return masteries.size();
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Failed to save concept mastery states", e);
+            throw e;
+        }
+    }
+}
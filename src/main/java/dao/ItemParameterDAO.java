@@ -0,0 +1,108 @@
+package dao;
+
+import connect.DBConnection;
+import model.ItemParameter;
+
+import java.sql.*;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Calibrated IRT parameters per Q&A ([ItemParameters] table) and the response
+ * data used to calibrate them.
+ */
+public class ItemParameterDAO {
+
+    private static final Logger logger = Logger.getLogger(ItemParameterDAO.class.getName());
+
+    private static final String ALL_PARAMETERS_SQL =
+        "SELECT " + RowMappers.ITEM_PARAMETER.columnList() + " FROM [ItemParameters]";
+
+    @FunctionalInterface
+    public interface ResponseHandler {
+        void accept(int userId, int qaId, boolean correct);
+    }
+
+    public List<ItemParameter> getAllParameters() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ALL_PARAMETERS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            return RowMappers.ITEM_PARAMETER.mapAll(ALL_PARAMETERS_SQL, rs);
+        }
+    }
+
+    /**
+     * Stream each user's first attempt on each Q&A; retries are excluded because they
+     * are not independent responses.
+     */
+    public int streamFirstAttempts(ResponseHandler handler) throws SQLException {
+        String sql = "SELECT [UserID], [QAID], [IsCorrect] FROM (" +
+                     "  SELECT [UserID], [QAID], [IsCorrect], " +
+                     "         ROW_NUMBER() OVER (PARTITION BY [UserID], [QAID] ORDER BY [AttemptedAt]) AS rn " +
+                     "  FROM [UserQAPerformance]" +
+                     ") first_attempts WHERE rn = 1";
+        int count = 0;
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setFetchSize(10_000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(rs.getInt(1), rs.getInt(2), rs.getBoolean(3));
+                    count++;
+                }
+            }
+        }
+
+        logger.info("📥 Streamed " + count + " first-attempt responses");
+        return count;
+    }
+
+    public int saveParameters(List<ItemParameter> parameters) throws SQLException {
+        if (parameters == null || parameters.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "MERGE [ItemParameters] AS target " +
+                     "USING (SELECT ? AS QAID) AS source ON target.[QAID] = source.QAID " +
+                     "WHEN MATCHED THEN UPDATE SET [Difficulty] = ?, [Discrimination] = ?, [StandardError] = ?, " +
+                     "  [Model] = ?, [ResponseCount] = ?, [CalibratedAt] = GETDATE() " +
+                     "WHEN NOT MATCHED THEN INSERT ([QAID], [Difficulty], [Discrimination], [StandardError], " +
+                     "  [Model], [ResponseCount], [CalibratedAt]) VALUES (?, ?, ?, ?, ?, ?, GETDATE());";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (ItemParameter p : parameters) {
+                ps.setInt(1, p.getQaID());
+                ps.setDouble(2, p.getDifficulty());
+                ps.setDouble(3, p.getDiscrimination());
+                ps.setDouble(4, p.getStandardError());
+                ps.setString(5, p.getModel());
+                ps.setInt(6, p.getResponseCount());
+                ps.setInt(7, p.getQaID());
+                ps.setDouble(8, p.getDifficulty());
+                ps.setDouble(9, p.getDiscrimination());
+                ps.setDouble(10, p.getStandardError());
+                ps.setString(11, p.getModel());
+                ps.setInt(12, p.getResponseCount());
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            conn.commit();
+
+            logger.info("✅ Saved calibrated parameters for " + parameters.size() + " Q&As");
+            return parameters.size();
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Failed to save item parameters", e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dao;
+
+import connect.DBConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pre-generated MCQ feedback per (Q&A, option) in [MCQFeedback]
+ * (QAID, ChosenOption, Fingerprint, Feedback, CreatedAt). Fingerprint is the question
+ * fingerprint the text was generated for, so feedback of an edited question is stale.
+ */
+public class MCQFeedbackDAO {
+
+    private static final Logger logger = Logger.getLogger(MCQFeedbackDAO.class.getName());
+
+    /**
+     * Feedback rows of every Q&A in a chapter.
+     */
+    public List<Feedback> getFeedbackByChapterId(int chapterId) throws SQLException {
+        List<Feedback> rows = new ArrayList<>();
+        String sql = "SELECT f.[QAID], f.[ChosenOption], f.[Fingerprint], f.[Feedback] " +
+                     "FROM [MCQFeedback] f " +
+                     "INNER JOIN [QA] q ON q.[QAID] = f.[QAID] " +
+                     "WHERE q.[ChapterID] = ?";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, chapterId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String option = rs.getString("ChosenOption");
+                    rows.add(new Feedback(rs.getInt("QAID"),
+                                          (option != null && !option.isEmpty()) ? option.charAt(0) : 0,
+                                          rs.getInt("Fingerprint"),
+                                          rs.getString("Feedback")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Upsert a batch of feedback rows in one transaction.
+     */
+    public int saveFeedback(List<Feedback> rows) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "MERGE [MCQFeedback] AS target " +
+                     "USING (SELECT ? AS QAID, ? AS ChosenOption) AS source " +
+                     "ON target.[QAID] = source.QAID AND target.[ChosenOption] = source.ChosenOption " +
+                     "WHEN MATCHED THEN UPDATE SET [Fingerprint] = ?, [Feedback] = ?, [CreatedAt] = GETDATE() " +
+                     "WHEN NOT MATCHED THEN INSERT ([QAID], [ChosenOption], [Fingerprint], [Feedback], [CreatedAt]) " +
+                     "  VALUES (source.QAID, source.ChosenOption, ?, ?, GETDATE());";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (Feedback f : rows) {
+                ps.setInt(1, f.getQaId());
+                ps.setString(2, String.valueOf(f.getOption()));
+                ps.setInt(3, f.getFingerprint());
+                ps.setString(4, f.getText());
+                ps.setInt(5, f.getFingerprint());
+                ps.setString(6, f.getText());
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            conn.commit();
+
+            logger.fine("✅ Saved " + rows.size() + " MCQ feedback rows");
+            return rows.size();
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Failed to save MCQ feedback", e);
+            throw e;
+        }
+    }
+
+    public static class Feedback {
+        private final int qaId;
+        private final char option;
+        private final int fingerprint;
+        private final String text;
+
+        public Feedback(int qaId, char option, int fingerprint, String text) {
+            this.qaId = qaId;
+            this.option = option;
+            this.fingerprint = fingerprint;
+            this.text = text;
+        }
+
+        public int getQaId() { return qaId; }
+        public char getOption() { return option; }
+        public int getFingerprint() { return fingerprint; }
+        public String getText() { return text; }
+    }
+}
@@ -3,6 +3,7 @@ package dao;
 import connect.DBConnection;
 import static connect.DBConnection.getConnection;
 import model.QA;
+import model.QuestionBankItem;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -12,39 +13,41 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import model.UserQAPerformance;
+import service.AnswerKeyCache;
+import service.ItemStatisticsStore;
+import service.KnowledgeTracer;
+import service.MCQFeedbackService;
+import service.QuestionBankSnapshot;
+import service.QuizPackBuilder;
+import service.QuizSessionStore;
+import service.ReviewScheduler;
+import service.QuestionAttributeIndex;
 
 public class QADao {
     
     private static final Logger logger = Logger.getLogger(QADao.class.getName());
+    
+    private static final String QA_BY_CHAPTER_SQL =
+        "SELECT " + RowMappers.QA.columnList() + " FROM [QA] WHERE [ChapterID] = ? ORDER BY [QAID]";
+    private static final String QA_BY_ID_SQL =
+        "SELECT " + RowMappers.QA.columnList() + " FROM [QA] WHERE [QAID] = ?";
+    private static final RowMapper<QA> ANSWER_KEY = RowMappers.QA.only("QAID", "ChapterID", "Question", "Answer");
+    private static final String ANSWER_KEYS_SQL =
+        "SELECT " + ANSWER_KEY.columnList() + " FROM [QA] WHERE [ChapterID] = ?";
+    private static final String PERFORMANCE_BY_QA_SQL =
+        "SELECT " + RowMappers.PERFORMANCE.columnList() + " FROM [UserQAPerformance] " +
+        "WHERE [QAID] = ? ORDER BY [AttemptedAt] DESC";
   
     public List<QA> getQAsByChapterId(int chapterId) throws SQLException {
-        List<QA> qas = new ArrayList<>();
-        String sql = "SELECT [QAID], [ChapterID], [Question], [Answer], [Difficulty], [QuestionType], " +
-                     "[BloomLevel], [QuestionTypeTag], [AutoTagged], [VectorIndexed], [UpdatedAt] " +
-                     "FROM [QA] WHERE [ChapterID] = ? ORDER BY [QAID]";
+        List<QA> qas;
         
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(QA_BY_CHAPTER_SQL)) {
             
             ps.setInt(1, chapterId);
             
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    QA qa = new QA();
-                    qa.setQAID(rs.getInt("QAID"));
-                    qa.setChapterID(rs.getInt("ChapterID"));
-                    qa.setQuestion(rs.getString("Question"));
-                    qa.setAnswer(rs.getString("Answer"));
-                    qa.setDifficulty(rs.getString("Difficulty"));
-                    qa.setQuestionType(rs.getString("QuestionType"));
-                    qa.setBloomLevel(rs.getString("BloomLevel"));
-                    qa.setQuestionTypeTag(rs.getString("QuestionTypeTag"));
-                    qa.setAutoTagged(rs.getBoolean("AutoTagged"));
-                    qa.setVectorIndexed(rs.getBoolean("VectorIndexed"));
-                    qa.setUpdatedAt(rs.getTimestamp("UpdatedAt"));
-                    
-                    qas.add(qa);
-                }
+                qas = RowMappers.QA.mapAll(QA_BY_CHAPTER_SQL, rs);
             }
         }
         
@@ -72,6 +75,10 @@ public class QADao {
                 try (ResultSet rs = ps.getGeneratedKeys()) {
                     if (rs.next()) {
                         int qaId = rs.getInt(1);
+                        AnswerKeyCache.getInstance().put(qaId, chapterId, question, answer);
+                        QuestionAttributeIndex.getInstance().addQuestion(qaId, chapterId, difficulty);
+                        QuizPackBuilder.getInstance().invalidateChapter(chapterId);
+                        QuestionBankSnapshot.chapterChanged(chapterId);
                         logger.info("✅ Inserted Q&A with ID: " + qaId);
                         return qaId;
                     }
@@ -113,6 +120,10 @@ public class QADao {
             
             int[] results = ps.executeBatch();
             conn.commit();
+            AnswerKeyCache.getInstance().invalidateChapter(chapterId);
+            QuestionAttributeIndex.getInstance().markStale();
+            QuizPackBuilder.getInstance().invalidateChapter(chapterId);
+            QuestionBankSnapshot.chapterChanged(chapterId);
             
             int inserted = 0;
             for (int r : results) {
@@ -147,17 +158,44 @@ public class QADao {
     }
 
     public void deleteQAsByChapterId(int chapterId) throws SQLException {
-        String sql = "DELETE FROM [QA] WHERE [ChapterID] = ?";
+        String feedbackSql = "DELETE FROM [MCQFeedback] WHERE [QAID] IN " +
+                             "(SELECT [QAID] FROM [QA] WHERE [ChapterID] = ?)";
+        String sql = "DELETE FROM [QA] OUTPUT DELETED.[QAID] WHERE [ChapterID] = ?";
+        List<Integer> deleted = new ArrayList<>();
         
         try (Connection conn = DBConnection.getConnection();
+             PreparedStatement feedbackPs = conn.prepareStatement(feedbackSql);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
+            feedbackPs.setInt(1, chapterId);
+            feedbackPs.executeUpdate();
+            
             ps.setInt(1, chapterId);
-            int deleted = ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deleted.add(rs.getInt(1));
+                }
+            }
+            forgetChapter(chapterId);
+            ReviewScheduler.getInstance().forgetQuestions(deleted);
             
-            logger.info("✅ Deleted " + deleted + " Q&As for chapter ID: " + chapterId);
+            logger.info("✅ Deleted " + deleted.size() + " Q&As for chapter ID: " + chapterId);
         }
     }
+
+    /**
+     * Drop everything held in memory about a chapter's Q&As once they are gone from the
+     * database, whether deleted here or by the cascade from a deleted [Chapter].
+     */
+    static void forgetChapter(int chapterId) {
+        AnswerKeyCache.getInstance().invalidateChapter(chapterId);
+        MCQFeedbackService.getInstance().invalidateChapter(chapterId);
+        QuestionAttributeIndex.getInstance().removeChapter(chapterId);
+        QuestionBankSnapshot.chapterChanged(chapterId);
+        QuizPackBuilder.getInstance().invalidateChapter(chapterId);
+        QuizSessionStore.getInstance().invalidateChapter(chapterId);
+        KnowledgeTracer.getInstance().forgetAllConcepts();
+    }
     
     public int getOrCreateTag(String tagName, String tagType) throws SQLException {
         // Try to get existing tag
@@ -211,6 +249,8 @@ public class QADao {
             ps.setFloat(3, confidence);
             
             ps.executeUpdate();
+            QuestionAttributeIndex.getInstance().addTag(qaId, tagId);
+            KnowledgeTracer.getInstance().forgetConcepts(qaId);
             logger.fine("✅ Linked Q&A #" + qaId + " to Tag #" + tagId);
             
         } catch (SQLException e) {
@@ -219,12 +259,51 @@ public class QADao {
             }
         }
     }
+
+    public void removeTagFromQA(int qaId, int tagId) throws SQLException {
+        String sql = "DELETE FROM [QATags] WHERE [QAID] = ? AND [TagID] = ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setInt(1, qaId);
+            ps.setInt(2, tagId);
+            
+            if (ps.executeUpdate() > 0) {
+                QuestionAttributeIndex.getInstance().removeTag(qaId, tagId);
+                KnowledgeTracer.getInstance().forgetConcepts(qaId);
+                logger.fine("✅ Unlinked Q&A #" + qaId + " from Tag #" + tagId);
+            }
+        }
+    }
     
     public QA getQAById(int qaId) throws SQLException {
-    
-        return null;
-    
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(QA_BY_ID_SQL)) {
+            
+            ps.setInt(1, qaId);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.QA.mapNext(QA_BY_ID_SQL, rs);
+            }
+        }
+    }
+
+    /**
+     * QAID, ChapterID, Question and Answer of every Q&A in a chapter, for the answer key.
+     */
+    public List<QA> getAnswerKeys(int chapterId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ANSWER_KEYS_SQL)) {
+            
+            ps.setInt(1, chapterId);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                return ANSWER_KEY.mapAll(ANSWER_KEYS_SQL, rs);
+            }
+        }
     }
+
     public List<Tag> getTagsByQAId(int qaId) throws SQLException {
         List<Tag> tags = new ArrayList<>();
         String sql = "SELECT t.[TagID], t.[TagName], t.[TagType], t.[Description], qt.[Confidence] " +
@@ -254,58 +333,49 @@ public class QADao {
         return tags;
     }
     public List<UserQAPerformance> getAllPerformanceForQA(int qaID) throws SQLException {
-    String sql = "SELECT * FROM UserQAPerformance WHERE QAID = ? ORDER BY AttemptedAt DESC";
-    List<UserQAPerformance> performances = new ArrayList<>();
-    
-    try (Connection conn = getConnection();
-         PreparedStatement ps = conn.prepareStatement(sql)) {
-        
-        ps.setInt(1, qaID);
-        ResultSet rs = ps.executeQuery();
-        
-        while (rs.next()) {
-            UserQAPerformance perf = new UserQAPerformance();
-            perf.setPerformanceID(rs.getInt("PerformanceID"));
-            perf.setUserID(rs.getInt("UserID"));
-            perf.setQaID(rs.getInt("QAID"));
-            perf.setChapterID(rs.getInt("ChapterID"));
-            perf.setCorrect(rs.getBoolean("IsCorrect"));
-            perf.setTimeSpent(rs.getInt("TimeSpent"));
-            perf.setAttemptedAt(rs.getTimestamp("AttemptedAt"));
-            
-            performances.add(perf);
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(PERFORMANCE_BY_QA_SQL)) {
+            
+            ps.setInt(1, qaID);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.PERFORMANCE.mapAll(PERFORMANCE_BY_QA_SQL, rs);
+            }
         }
     }
-    
-    return performances;
-}
 
-public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
-    String sql = "SELECT * FROM QA WHERE ChapterID = ?";
-    List<QA> qas = new ArrayList<>();
-    
-    try (Connection conn = getConnection();
-         PreparedStatement ps = conn.prepareStatement(sql)) {
-        
-        ps.setInt(1, chapterID);
-        ResultSet rs = ps.executeQuery();
-        
-        while (rs.next()) {
-            QA qa = new QA();
-            qa.setQAID(rs.getInt("QAID"));
-            qa.setChapterID(rs.getInt("ChapterID"));
-            qa.setQuestion(rs.getString("Question"));
-            qa.setAnswer(rs.getString("Answer"));
-            qa.setDifficulty(rs.getString("Difficulty"));
-            qa.setQuestionType(rs.getString("QuestionType"));
-            qa.setBloomLevel(rs.getString("BloomLevel"));
-            
-            qas.add(qa);
+    /**
+     * Attempt counts per Q&A and ability cohort as {qaId, cohort, attempts, correct}.
+     * The cohort is taken from the learner's current chapter theta with the bands of
+     * {@link ItemStatisticsStore#cohortOf}; learners without an estimate count as medium.
+     */
+    public List<int[]> getItemAttemptCounts() throws SQLException {
+        String cohort = "CASE WHEN a.[Theta] < -0.5 THEN " + ItemStatisticsStore.COHORT_LOW +
+                        " WHEN a.[Theta] > 0.5 THEN " + ItemStatisticsStore.COHORT_HIGH +
+                        " ELSE " + ItemStatisticsStore.COHORT_MEDIUM + " END";
+        String sql = "SELECT p.[QAID], " + cohort + ", COUNT(*), " +
+                     "SUM(CASE WHEN p.[IsCorrect] = 1 THEN 1 ELSE 0 END) " +
+                     "FROM [UserQAPerformance] p " +
+                     "LEFT JOIN [UserAbility] a ON a.[UserID] = p.[UserID] AND a.[ChapterID] = p.[ChapterID] " +
+                     "GROUP BY p.[QAID], " + cohort;
+        List<int[]> counts = new ArrayList<>();
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            
+            while (rs.next()) {
+                counts.add(new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)});
+            }
         }
+        
+        return counts;
+    }
+
+    public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
+        return getQAsByChapterId(chapterID);
     }
     
-    return qas;
-}
     public void updateQAMetadata(int qaId, String bloomLevel, String questionTypeTag) throws SQLException {
         String sql = "UPDATE [QA] SET [BloomLevel] = ?, [QuestionTypeTag] = ?, " +
                      "[AutoTagged] = 1, [UpdatedAt] = GETDATE() WHERE [QAID] = ?";
@@ -318,6 +388,8 @@ public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
             ps.setInt(3, qaId);
             
             ps.executeUpdate();
+            QuestionAttributeIndex.getInstance().setBloomLevel(qaId, bloomLevel);
+            QuizSessionStore.getInstance().invalidateQuestion(qaId);
             logger.fine("✅ Updated metadata for Q&A #" + qaId);
         }
     }
@@ -329,6 +401,7 @@ public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
             
             ps.setInt(1, qaId);
             ps.executeUpdate();
+            QuizSessionStore.getInstance().invalidateQuestion(qaId);
         }
     }
     
@@ -399,6 +472,7 @@ public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
             
             ps.setInt(1, qaId);
             ps.executeUpdate();
+            QuizSessionStore.getInstance().invalidateQuestion(qaId);
         }
     }
     
@@ -487,9 +561,69 @@ public List<QA> getQAsByChapterID(int chapterID) throws SQLException {
         
         return stats;
     }
-    
 
-     
+    /**
+     * Load the text-free question bank (IDs, chapter, difficulty, Bloom level, tag IDs).
+     * When updatedSince is not null only rows changed after it, or inserted after
+     * afterQaId, are returned (delta catch-up for the snapshot).
+     */
+    public List<QuestionBankItem> getQuestionBankItems(Timestamp updatedSince, int afterQaId) throws SQLException {
+        String filter = (updatedSince != null) ? "WHERE (q.[UpdatedAt] > ? OR q.[QAID] > ?) " : "";
+
+        String itemSql = "SELECT q.[QAID], q.[ChapterID], q.[Difficulty], q.[BloomLevel], q.[UpdatedAt] " +
+                         "FROM [QA] q " + filter +
+                         "ORDER BY q.[ChapterID], q.[QAID]";
+        String tagSql = "SELECT qt.[QAID], qt.[TagID] " +
+                        "FROM [QATags] qt INNER JOIN [QA] q ON q.[QAID] = qt.[QAID] " + filter +
+                        "ORDER BY qt.[QAID], qt.[TagID]";
+
+        List<QuestionBankItem> items = new ArrayList<>();
+        Map<Integer, List<Integer>> tagsByQA = new HashMap<>();
+
+        try (Connection conn = DBConnection.getConnection()) {
+
+            try (PreparedStatement ps = conn.prepareStatement(tagSql)) {
+                if (updatedSince != null) {
+                    ps.setTimestamp(1, updatedSince);
+                    ps.setInt(2, afterQaId);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        tagsByQA.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getInt(2));
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(itemSql)) {
+                if (updatedSince != null) {
+                    ps.setTimestamp(1, updatedSince);
+                    ps.setInt(2, afterQaId);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        QuestionBankItem item = new QuestionBankItem();
+                        item.setQaID(rs.getInt(1));
+                        item.setChapterID(rs.getInt(2));
+                        item.setDifficulty(rs.getString(3));
+                        item.setBloomLevel(rs.getString(4));
+                        Timestamp updatedAt = rs.getTimestamp(5);
+                        item.setUpdatedAt(updatedAt != null ? updatedAt.getTime() : 0L);
+
+                        List<Integer> tagIds = tagsByQA.get(item.getQaID());
+                        if (tagIds != null) {
+                            item.setTagIDs(tagIds.stream().mapToInt(Integer::intValue).toArray());
+                        }
+                        items.add(item);
+                    }
+                }
+            }
+        }
+
+        logger.info("📦 Loaded " + items.size() + " question bank items" +
+                    (updatedSince != null ? " changed since " + updatedSince : ""));
+        return items;
+    }
+
     public int insertQAWithMetadata(
         int chapterId,
         String question,
@@ -0,0 +1,112 @@
+package dao;
+
+import connect.DBConnection;
+import model.ReviewCard;
+
+import java.sql.*;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spaced-repetition cards per (user, Q&A) in [ReviewCards].
+ */
+public class ReviewCardDAO {
+
+    private static final Logger logger = Logger.getLogger(ReviewCardDAO.class.getName());
+
+    // SQL Server "conflicted with the FOREIGN KEY constraint"
+    private static final int CONSTRAINT_CONFLICT = 547;
+
+    private static final String ALL_CARDS_SQL =
+        "SELECT " + RowMappers.REVIEW_CARD.columnList() + " FROM [ReviewCards]";
+
+    /**
+     * Stream every card without materializing the table.
+     */
+    public int streamCards(Consumer<ReviewCard> handler) throws SQLException {
+        int count = 0;
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ALL_CARDS_SQL)) {
+
+            ps.setFetchSize(10_000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper.Binding<ReviewCard> binding = RowMappers.REVIEW_CARD.bind(ALL_CARDS_SQL, rs);
+                while (rs.next()) {
+                    handler.accept(binding.map(rs));
+                    count++;
+                }
+            }
+        }
+
+        logger.info("📥 Streamed " + count + " review cards");
+        return count;
+    }
+
+    /**
+     * Upsert a batch of cards in one transaction.
+     */
+    public int saveCards(List<ReviewCard> cards) throws SQLException {
+        if (cards == null || cards.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "MERGE [ReviewCards] AS target " +
+                     "USING (SELECT ? AS UserID, ? AS QAID) AS source " +
+                     "ON target.[UserID] = source.UserID AND target.[QAID] = source.QAID " +
+                     "WHEN MATCHED THEN UPDATE SET [EaseFactor] = ?, [IntervalDays] = ?, [Repetitions] = ?, " +
+                     "  [Lapses] = ?, [DueAt] = ?, [LastReviewed] = ? " +
+                     "WHEN NOT MATCHED THEN INSERT ([UserID], [QAID], [EaseFactor], [IntervalDays], " +
+                     "  [Repetitions], [Lapses], [DueAt], [LastReviewed]) " +
+                     "  VALUES (source.UserID, source.QAID, ?, ?, ?, ?, ?, ?);";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (ReviewCard c : cards) {
+                ps.setInt(1, c.getUserID());
+                ps.setInt(2, c.getQaID());
+                ps.setDouble(3, c.getEaseFactor());
+                ps.setDouble(4, c.getIntervalDays());
+                ps.setInt(5, c.getRepetitions());
+                ps.setInt(6, c.getLapses());
+                ps.setTimestamp(7, c.getDueAt());
+                ps.setTimestamp(8, c.getLastReviewed());
+                ps.setDouble(9, c.getEaseFactor());
+                ps.setDouble(10, c.getIntervalDays());
+                ps.setInt(11, c.getRepetitions());
+                ps.setInt(12, c.getLapses());
+                ps.setTimestamp(13, c.getDueAt());
+                ps.setTimestamp(14, c.getLastReviewed());
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            conn.commit();
+
+            logger.fine("✅ Saved " + cards.size() + " review cards");
+            return cards.size();
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Failed to save review cards", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Whether a save failed because the card's Q&A no longer exists (FK_ReviewCards_QA).
+     */
+    public static boolean isMissingQuestion(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause.getErrorCode() == CONSTRAINT_CONFLICT) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Maps ResultSet rows to model objects with one lambda per column.
+ *
+ * Column labels are resolved to indexes once per statement shape (the SQL text)
+ * and cached, so the per-row work is plain {@code rs.getXxx(int)} calls. Columns
+ * missing from the result set are skipped, which lets a query select only what a
+ * hot path needs; {@link #only(String...)} derives a mapper for such a projection.
+ */
+public final class RowMapper<T> {
+
+    @FunctionalInterface
+    public interface ColumnSetter<T> {
+        void set(T target, ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    private final Supplier<T> factory;
+    private final Map<String, ColumnSetter<T>> columns; // normalized label -> setter, declaration order
+    private final Map<String, String> labels;            // normalized label -> label as declared
+    private final Map<String, Binding<T>> bindings = new ConcurrentHashMap<>();
+
+    private RowMapper(Supplier<T> factory, Map<String, ColumnSetter<T>> columns, Map<String, String> labels) {
+        this.factory = factory;
+        this.columns = columns;
+        this.labels = labels;
+    }
+
+    public static <T> Builder<T> of(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     * Mapper restricted to the given columns (in that order).
+     */
+    public RowMapper<T> only(String... labels) {
+        Map<String, ColumnSetter<T>> subset = new LinkedHashMap<>();
+        for (String label : labels) {
+            String key = normalize(label);
+            ColumnSetter<T> setter = columns.get(key);
+            if (setter == null) {
+                throw new IllegalArgumentException("Unknown column: " + label);
+            }
+            subset.put(key, setter);
+        }
+        return new RowMapper<>(factory, subset, this.labels);
+    }
+
+    /**
+     * Bracketed column list for a SELECT clause, e.g. {@code q.[QAID], q.[ChapterID]}.
+     */
+    public String columnList(String tableAlias) {
+        String prefix = (tableAlias == null || tableAlias.isEmpty()) ? "" : tableAlias + ".";
+        return columns.keySet().stream()
+            .map(c -> prefix + "[" + labels.get(c) + "]")
+            .collect(Collectors.joining(", "));
+    }
+
+    public String columnList() {
+        return columnList(null);
+    }
+
+    public List<T> mapAll(String sql, ResultSet rs) throws SQLException {
+        Binding<T> binding = bind(sql, rs);
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(binding.map(rs));
+        }
+        return rows;
+    }
+
+    /**
+     * Map the next row, or return null when the result set is exhausted.
+     */
+    public T mapNext(String sql, ResultSet rs) throws SQLException {
+        return rs.next() ? bind(sql, rs).map(rs) : null;
+    }
+
+    public Binding<T> bind(String sql, ResultSet rs) throws SQLException {
+        Binding<T> binding = bindings.get(sql);
+        if (binding == null) {
+            binding = resolve(rs.getMetaData());
+            bindings.put(sql, binding);
+        }
+        return binding;
+    }
+
+    private Binding<T> resolve(ResultSetMetaData meta) throws SQLException {
+        Map<String, Integer> indexByLabel = new LinkedHashMap<>();
+        for (int i = meta.getColumnCount(); i >= 1; i--) {
+            // Iterate backwards so the first occurrence wins on duplicate labels (joins)
+            indexByLabel.put(normalize(meta.getColumnLabel(i)), i);
+        }
+
+        int[] indexes = new int[columns.size()];
+        List<ColumnSetter<T>> setters = new ArrayList<>(columns.size());
+        for (Map.Entry<String, ColumnSetter<T>> column : columns.entrySet()) {
+            Integer index = indexByLabel.get(column.getKey());
+            if (index != null) {
+                indexes[setters.size()] = index;
+                setters.add(column.getValue());
+            }
+        }
+        return new Binding<>(factory, Arrays.copyOf(indexes, setters.size()), List.copyOf(setters));
+    }
+
+    public Set<String> getColumns() {
+        return columns.keySet();
+    }
+
+    private static String normalize(String label) {
+        return label.toUpperCase(Locale.ROOT);
+    }
+
+    public static final class Binding<T> {
+        private final Supplier<T> factory;
+        private final int[] indexes;
+        private final List<ColumnSetter<T>> setters;
+
+        private Binding(Supplier<T> factory, int[] indexes, List<ColumnSetter<T>> setters) {
+            this.factory = factory;
+            this.indexes = indexes;
+            this.setters = setters;
+        }
+
+        public T map(ResultSet rs) throws SQLException {
+            T target = factory.get();
+            for (int i = 0; i < indexes.length; i++) {
+                setters.get(i).set(target, rs, indexes[i]);
+            }
+            return target;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final Supplier<T> factory;
+        private final Map<String, ColumnSetter<T>> columns = new LinkedHashMap<>();
+        private final Map<String, String> labels = new LinkedHashMap<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        public Builder<T> column(String label, ColumnSetter<T> setter) {
+            columns.put(normalize(label), setter);
+            labels.put(normalize(label), label);
+            return this;
+        }
+
+        public RowMapper<T> build() {
+            return new RowMapper<>(factory, new LinkedHashMap<>(columns), new LinkedHashMap<>(labels));
+        }
+    }
+}
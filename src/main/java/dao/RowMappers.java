@@ -0,0 +1,117 @@
+package dao;
+
+import model.Chapter;
+import model.ChapterProgress;
+import model.ConceptMastery;
+import model.ItemParameter;
+import model.QA;
+import model.ReviewCard;
+import model.UserAbility;
+import model.UserChapterMastery;
+import model.UserQAPerformance;
+
+/**
+ * Shared row mappers for the DAOs, one column list per table.
+ */
+public final class RowMappers {
+
+    public static final RowMapper<QA> QA = RowMapper.<model.QA>of(model.QA::new)
+        .column("QAID", (qa, rs, i) -> qa.setQAID(rs.getInt(i)))
+        .column("ChapterID", (qa, rs, i) -> qa.setChapterID(rs.getInt(i)))
+        .column("Question", (qa, rs, i) -> qa.setQuestion(rs.getString(i)))
+        .column("Answer", (qa, rs, i) -> qa.setAnswer(rs.getString(i)))
+        .column("Difficulty", (qa, rs, i) -> qa.setDifficulty(rs.getString(i)))
+        .column("QuestionType", (qa, rs, i) -> qa.setQuestionType(rs.getString(i)))
+        .column("BloomLevel", (qa, rs, i) -> qa.setBloomLevel(rs.getString(i)))
+        .column("QuestionTypeTag", (qa, rs, i) -> qa.setQuestionTypeTag(rs.getString(i)))
+        .column("AutoTagged", (qa, rs, i) -> qa.setAutoTagged(rs.getBoolean(i)))
+        .column("VectorIndexed", (qa, rs, i) -> qa.setVectorIndexed(rs.getBoolean(i)))
+        .column("UpdatedAt", (qa, rs, i) -> qa.setUpdatedAt(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<UserQAPerformance> PERFORMANCE = RowMapper.of(UserQAPerformance::new)
+        .column("PerformanceID", (p, rs, i) -> p.setPerformanceID(rs.getInt(i)))
+        .column("UserID", (p, rs, i) -> p.setUserID(rs.getInt(i)))
+        .column("QAID", (p, rs, i) -> p.setQaID(rs.getInt(i)))
+        .column("ChapterID", (p, rs, i) -> p.setChapterID(rs.getInt(i)))
+        .column("IsCorrect", (p, rs, i) -> p.setCorrect(rs.getBoolean(i)))
+        .column("TimeSpent", (p, rs, i) -> p.setTimeSpent(rs.getInt(i)))
+        .column("ChosenOption", (p, rs, i) -> p.setChosenOption(rs.getString(i)))
+        .column("AIScore", (p, rs, i) -> p.setAiScore(rs.getDouble(i)))
+        .column("AttemptedAt", (p, rs, i) -> p.setAttemptedAt(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<UserChapterMastery> MASTERY = RowMapper.of(UserChapterMastery::new)
+        .column("MasteryID", (m, rs, i) -> m.setMasteryID(rs.getInt(i)))
+        .column("UserID", (m, rs, i) -> m.setUserID(rs.getInt(i)))
+        .column("ChapterID", (m, rs, i) -> m.setChapterID(rs.getInt(i)))
+        .column("TotalQuestions", (m, rs, i) -> m.setTotalQuestions(rs.getInt(i)))
+        .column("CorrectAnswers", (m, rs, i) -> m.setCorrectAnswers(rs.getInt(i)))
+        .column("MasteryScore", (m, rs, i) -> m.setMasteryScore(rs.getDouble(i)))
+        .column("LastUpdated", (m, rs, i) -> m.setLastUpdated(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<Chapter> CHAPTER = RowMapper.of(Chapter::new)
+        .column("ChapterID", (c, rs, i) -> c.setChapterID(rs.getInt(i)))
+        .column("BookID", (c, rs, i) -> c.setBookID(rs.getInt(i)))
+        .column("ChapterNumber", (c, rs, i) -> c.setChapterNumber(rs.getInt(i)))
+        .column("Title", (c, rs, i) -> c.setTitle(rs.getString(i)))
+        .column("Content", (c, rs, i) -> c.setContent(rs.getString(i)))
+        .column("Summary", (c, rs, i) -> c.setSummary(rs.getString(i)))
+        .build();
+
+    public static final RowMapper<ItemParameter> ITEM_PARAMETER = RowMapper.of(ItemParameter::new)
+        .column("QAID", (p, rs, i) -> p.setQaID(rs.getInt(i)))
+        .column("Difficulty", (p, rs, i) -> p.setDifficulty(rs.getDouble(i)))
+        .column("Discrimination", (p, rs, i) -> p.setDiscrimination(rs.getDouble(i)))
+        .column("StandardError", (p, rs, i) -> p.setStandardError(rs.getDouble(i)))
+        .column("Model", (p, rs, i) -> p.setModel(rs.getString(i)))
+        .column("ResponseCount", (p, rs, i) -> p.setResponseCount(rs.getInt(i)))
+        .column("CalibratedAt", (p, rs, i) -> p.setCalibratedAt(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<UserAbility> ABILITY = RowMapper.of(UserAbility::new)
+        .column("UserID", (u, rs, i) -> u.setUserID(rs.getInt(i)))
+        .column("ChapterID", (u, rs, i) -> u.setChapterID(rs.getInt(i)))
+        .column("Theta", (u, rs, i) -> u.setTheta(rs.getDouble(i)))
+        .column("StandardError", (u, rs, i) -> u.setStandardError(rs.getDouble(i)))
+        .column("ResponseCount", (u, rs, i) -> u.setResponseCount(rs.getInt(i)))
+        .column("Posterior", (u, rs, i) -> u.setPosteriorBytes(rs.getBytes(i)))
+        .column("LastUpdated", (u, rs, i) -> u.setLastUpdated(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<ConceptMastery> CONCEPT_MASTERY = RowMapper.of(ConceptMastery::new)
+        .column("UserID", (m, rs, i) -> m.setUserID(rs.getInt(i)))
+        .column("TagID", (m, rs, i) -> m.setTagID(rs.getInt(i)))
+        .column("PKnown", (m, rs, i) -> m.setPKnown(rs.getDouble(i)))
+        .column("Attempts", (m, rs, i) -> m.setAttempts(rs.getInt(i)))
+        .column("CorrectAttempts", (m, rs, i) -> m.setCorrectAttempts(rs.getInt(i)))
+        .column("LastUpdated", (m, rs, i) -> m.setLastUpdated(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<ReviewCard> REVIEW_CARD = RowMapper.of(ReviewCard::new)
+        .column("UserID", (c, rs, i) -> c.setUserID(rs.getInt(i)))
+        .column("QAID", (c, rs, i) -> c.setQaID(rs.getInt(i)))
+        .column("EaseFactor", (c, rs, i) -> c.setEaseFactor(rs.getDouble(i)))
+        .column("IntervalDays", (c, rs, i) -> c.setIntervalDays(rs.getDouble(i)))
+        .column("Repetitions", (c, rs, i) -> c.setRepetitions(rs.getInt(i)))
+        .column("Lapses", (c, rs, i) -> c.setLapses(rs.getInt(i)))
+        .column("DueAt", (c, rs, i) -> c.setDueAt(rs.getTimestamp(i)))
+        .column("LastReviewed", (c, rs, i) -> c.setLastReviewed(rs.getTimestamp(i)))
+        .build();
+
+    public static final RowMapper<ChapterProgress> CHAPTER_PROGRESS = RowMapper.of(ChapterProgress::new)
+        .column("ChapterID", (p, rs, i) -> p.setChapterID(rs.getInt(i)))
+        .column("BookID", (p, rs, i) -> p.setBookID(rs.getInt(i)))
+        .column("ChapterNumber", (p, rs, i) -> p.setChapterNumber(rs.getInt(i)))
+        .column("ChapterTitle", (p, rs, i) -> p.setChapterTitle(rs.getString(i)))
+        .column("BookTitle", (p, rs, i) -> p.setBookTitle(rs.getString(i)))
+        .column("TotalQuestions", (p, rs, i) -> p.setTotalQuestions(rs.getInt(i)))
+        .column("CorrectAnswers", (p, rs, i) -> p.setCorrectAnswers(rs.getInt(i)))
+        .column("MasteryScore", (p, rs, i) -> p.setMasteryScore(rs.getDouble(i)))
+        .column("LastUpdated", (p, rs, i) -> p.setLastUpdated(rs.getTimestamp(i)))
+        .build();
+
+    private RowMappers() {
+    }
+}
@@ -0,0 +1,96 @@
+package dao;
+
+import connect.DBConnection;
+import model.UserAbility;
+
+import java.sql.*;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persisted ability estimate per (user, chapter) in [UserAbility].
+ */
+public class UserAbilityDAO {
+
+    private static final Logger logger = Logger.getLogger(UserAbilityDAO.class.getName());
+
+    private static final String ABILITY_SQL =
+        "SELECT " + RowMappers.ABILITY.columnList() + " FROM [UserAbility] WHERE [UserID] = ? AND [ChapterID] = ?";
+
+    private static final String SAVE_ABILITY_SQL =
+        "MERGE [UserAbility] AS target " +
+        "USING (SELECT ? AS UserID, ? AS ChapterID) AS source " +
+        "ON target.[UserID] = source.UserID AND target.[ChapterID] = source.ChapterID " +
+        "WHEN MATCHED THEN UPDATE SET [Theta] = ?, [StandardError] = ?, [ResponseCount] = ?, " +
+        "  [Posterior] = ?, [LastUpdated] = GETDATE() " +
+        "WHEN NOT MATCHED THEN INSERT ([UserID], [ChapterID], [Theta], [StandardError], " +
+        "  [ResponseCount], [Posterior], [LastUpdated]) " +
+        "  VALUES (source.UserID, source.ChapterID, ?, ?, ?, ?, GETDATE());";
+
+    public UserAbility getAbility(int userID, int chapterID) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ABILITY_SQL)) {
+
+            ps.setInt(1, userID);
+            ps.setInt(2, chapterID);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowMappers.ABILITY.mapNext(ABILITY_SQL, rs);
+            }
+        }
+    }
+
+    public boolean saveAbility(UserAbility ability) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SAVE_ABILITY_SQL)) {
+
+            bindAbility(ps, ability);
+            return ps.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Failed to save ability for user " + ability.getUserID() +
+                       ", chapter " + ability.getChapterID(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Upsert many estimates in one transaction, e.g. after a replay of the attempt log.
+     */
+    public int saveAbilities(List<UserAbility> abilities) throws SQLException {
+        if (abilities == null || abilities.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SAVE_ABILITY_SQL)) {
+
+            conn.setAutoCommit(false);
+
+            for (UserAbility ability : abilities) {
+                bindAbility(ps, ability);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+
+        logger.info("💾 Rewrote " + abilities.size() + " ability estimates");
+        return abilities.size();
+    }
+
+    private static void bindAbility(PreparedStatement ps, UserAbility ability) throws SQLException {
+        byte[] posterior = ability.getPosteriorBytes();
+        ps.setInt(1, ability.getUserID());
+        ps.setInt(2, ability.getChapterID());
+        ps.setDouble(3, ability.getTheta());
+        ps.setDouble(4, ability.getStandardError());
+        ps.setInt(5, ability.getResponseCount());
+        ps.setBytes(6, posterior);
+        ps.setDouble(7, ability.getTheta());
+        ps.setDouble(8, ability.getStandardError());
+        ps.setInt(9, ability.getResponseCount());
+        ps.setBytes(10, posterior);
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * One user's progress over the chapters of a book they have practiced.
+ */
+public class BookProgress {
+    private int bookID;
+    private String bookTitle;
+    private int chaptersPracticed;
+    private int totalQuestions;
+    private int correctAnswers;
+    private double averageMastery;   // over practiced chapters
+    private Timestamp lastUpdated;
+
+    public BookProgress() {
+    }
+
+    public BookProgress(int bookID, String bookTitle, int chaptersPracticed, int totalQuestions,
+                        int correctAnswers, double averageMastery, Timestamp lastUpdated) {
+        this.bookID = bookID;
+        this.bookTitle = bookTitle;
+        this.chaptersPracticed = chaptersPracticed;
+        this.totalQuestions = totalQuestions;
+        this.correctAnswers = correctAnswers;
+        this.averageMastery = averageMastery;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public int getBookID() { return bookID; }
+    public void setBookID(int bookID) { this.bookID = bookID; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public int getChaptersPracticed() { return chaptersPracticed; }
+    public void setChaptersPracticed(int chaptersPracticed) { this.chaptersPracticed = chaptersPracticed; }
+
+    public int getTotalQuestions() { return totalQuestions; }
+    public void setTotalQuestions(int totalQuestions) { this.totalQuestions = totalQuestions; }
+
+    public int getCorrectAnswers() { return correctAnswers; }
+    public void setCorrectAnswers(int correctAnswers) { this.correctAnswers = correctAnswers; }
+
+    public double getAverageMastery() { return averageMastery; }
+    public void setAverageMastery(double averageMastery) { this.averageMastery = averageMastery; }
+
+    public Timestamp getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(Timestamp lastUpdated) { this.lastUpdated = lastUpdated; }
+}
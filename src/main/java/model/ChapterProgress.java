@@ -0,0 +1,60 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * One user's mastery row for a chapter, with the chapter and book it belongs to.
+ */
+public class ChapterProgress {
+    private int chapterID;
+    private int bookID;
+    private int chapterNumber;
+    private String chapterTitle;
+    private String bookTitle;
+    private int totalQuestions;
+    private int correctAnswers;
+    private double masteryScore;
+    private Timestamp lastUpdated;
+
+    public ChapterProgress() {
+    }
+
+    public ChapterProgress(ChapterProgress other) {
+        this.chapterID = other.chapterID;
+        this.bookID = other.bookID;
+        this.chapterNumber = other.chapterNumber;
+        this.chapterTitle = other.chapterTitle;
+        this.bookTitle = other.bookTitle;
+        this.totalQuestions = other.totalQuestions;
+        this.correctAnswers = other.correctAnswers;
+        this.masteryScore = other.masteryScore;
+        this.lastUpdated = other.lastUpdated;
+    }
+
+    public int getChapterID() { return chapterID; }
+    public void setChapterID(int chapterID) { this.chapterID = chapterID; }
+
+    public int getBookID() { return bookID; }
+    public void setBookID(int bookID) { this.bookID = bookID; }
+
+    public int getChapterNumber() { return chapterNumber; }
+    public void setChapterNumber(int chapterNumber) { this.chapterNumber = chapterNumber; }
+
+    public String getChapterTitle() { return chapterTitle; }
+    public void setChapterTitle(String chapterTitle) { this.chapterTitle = chapterTitle; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public int getTotalQuestions() { return totalQuestions; }
+    public void setTotalQuestions(int totalQuestions) { this.totalQuestions = totalQuestions; }
+
+    public int getCorrectAnswers() { return correctAnswers; }
+    public void setCorrectAnswers(int correctAnswers) { this.correctAnswers = correctAnswers; }
+
+    public double getMasteryScore() { return masteryScore; }
+    public void setMasteryScore(double masteryScore) { this.masteryScore = masteryScore; }
+
+    public Timestamp getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(Timestamp lastUpdated) { this.lastUpdated = lastUpdated; }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * Knowledge-tracing state of one user for one concept tag (Tags.TagType = 'concept').
+ */
+public class ConceptMastery {
+    private int userID;
+    private int tagID;
+    private String conceptName;
+    private double pKnown;           // P(concept learned) after the last attempt
+    private int attempts;
+    private int correctAttempts;
+    private Timestamp lastUpdated;
+
+    public ConceptMastery() {
+    }
+
+    public ConceptMastery(int userID, int tagID, String conceptName, double pKnown, int attempts, int correctAttempts) {
+        this.userID = userID;
+        this.tagID = tagID;
+        this.conceptName = conceptName;
+        this.pKnown = pKnown;
+        this.attempts = attempts;
+        this.correctAttempts = correctAttempts;
+    }
+
+    public int getUserID() { return userID; }
+    public void setUserID(int userID) { this.userID = userID; }
+
+    public int getTagID() { return tagID; }
+    public void setTagID(int tagID) { this.tagID = tagID; }
+
+    public String getConceptName() { return conceptName; }
+    public void setConceptName(String conceptName) { this.conceptName = conceptName; }
+
+    public double getPKnown() { return pKnown; }
+    public void setPKnown(double pKnown) { this.pKnown = pKnown; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public int getCorrectAttempts() { return correctAttempts; }
+    public void setCorrectAttempts(int correctAttempts) { this.correctAttempts = correctAttempts; }
+
+    public Timestamp getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(Timestamp lastUpdated) { this.lastUpdated = lastUpdated; }
+
+    @Override
+    public String toString() {
+        return String.format("ConceptMastery[User=%d, Tag=%d (%s), P(known)=%.2f, %d/%d]",
+            userID, tagID, conceptName, pKnown, correctAttempts, attempts);
+    }
+}
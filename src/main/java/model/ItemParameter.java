@@ -0,0 +1,54 @@
+package model;
+
+import java.sql.Timestamp;
+
+public class ItemParameter {
+    private int qaID;
+    private double difficulty;       // beta
+    private double discrimination;   // a (1.0 for Rasch)
+    private double standardError;    // SE of beta
+    private String model;            // "rasch" or "2pl"
+    private int responseCount;
+    private Timestamp calibratedAt;
+
+    public ItemParameter() {
+        this.discrimination = 1.0;
+    }
+
+    public ItemParameter(int qaID, double difficulty, double discrimination, double standardError,
+                         String model, int responseCount) {
+        this.qaID = qaID;
+        this.difficulty = difficulty;
+        this.discrimination = discrimination;
+        this.standardError = standardError;
+        this.model = model;
+        this.responseCount = responseCount;
+    }
+
+    public int getQaID() { return qaID; }
+    public void setQaID(int qaID) { this.qaID = qaID; }
+
+    public double getDifficulty() { return difficulty; }
+    public void setDifficulty(double difficulty) { this.difficulty = difficulty; }
+
+    public double getDiscrimination() { return discrimination; }
+    public void setDiscrimination(double discrimination) { this.discrimination = discrimination; }
+
+    public double getStandardError() { return standardError; }
+    public void setStandardError(double standardError) { this.standardError = standardError; }
+
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
+
+    public int getResponseCount() { return responseCount; }
+    public void setResponseCount(int responseCount) { this.responseCount = responseCount; }
+
+    public Timestamp getCalibratedAt() { return calibratedAt; }
+    public void setCalibratedAt(Timestamp calibratedAt) { this.calibratedAt = calibratedAt; }
+
+    @Override
+    public String toString() {
+        return String.format("ItemParameter[QA=%d, beta=%.3f, a=%.3f, SE=%.3f, model=%s, n=%d]",
+            qaID, difficulty, discrimination, standardError, model, responseCount);
+    }
+}
@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * Compact, text-free view of a question used by the in-memory question bank
+ * (snapshot, selection indexes). Question/answer text stays in {@link QA}.
+ */
+public class QuestionBankItem {
+    private int qaID;
+    private int chapterID;
+    private String difficulty;
+    private String bloomLevel;
+    private int[] tagIDs;
+    private double itemDifficulty;      // IRT beta
+    private double discrimination;      // IRT a (1.0 for Rasch)
+    private long updatedAt;             // epoch millis, 0 if unknown
+
+    public QuestionBankItem() {
+        this.tagIDs = new int[0];
+        this.discrimination = 1.0;
+    }
+
+    public QuestionBankItem(int qaID, int chapterID, String difficulty, String bloomLevel,
+                            int[] tagIDs, double itemDifficulty, double discrimination, long updatedAt) {
+        this.qaID = qaID;
+        this.chapterID = chapterID;
+        this.difficulty = difficulty;
+        this.bloomLevel = bloomLevel;
+        this.tagIDs = (tagIDs != null) ? tagIDs : new int[0];
+        this.itemDifficulty = itemDifficulty;
+        this.discrimination = discrimination;
+        this.updatedAt = updatedAt;
+    }
+
+    public int getQaID() { return qaID; }
+    public void setQaID(int qaID) { this.qaID = qaID; }
+
+    public int getChapterID() { return chapterID; }
+    public void setChapterID(int chapterID) { this.chapterID = chapterID; }
+
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+
+    public String getBloomLevel() { return bloomLevel; }
+    public void setBloomLevel(String bloomLevel) { this.bloomLevel = bloomLevel; }
+
+    public int[] getTagIDs() { return tagIDs; }
+    public void setTagIDs(int[] tagIDs) { this.tagIDs = (tagIDs != null) ? tagIDs : new int[0]; }
+
+    public double getItemDifficulty() { return itemDifficulty; }
+    public void setItemDifficulty(double itemDifficulty) { this.itemDifficulty = itemDifficulty; }
+
+    public double getDiscrimination() { return discrimination; }
+    public void setDiscrimination(double discrimination) { this.discrimination = discrimination; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    @Override
+    public String toString() {
+        return String.format("Item[ID=%d, Chapter=%d, Difficulty=%s, Bloom=%s, beta=%.2f, a=%.2f, tags=%d]",
+            qaID, chapterID, difficulty, bloomLevel, itemDifficulty, discrimination, tagIDs.length);
+    }
+}
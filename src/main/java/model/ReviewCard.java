@@ -0,0 +1,63 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * Spaced-repetition state of one Q&A for one user (SM-2).
+ */
+public class ReviewCard {
+    private int userID;
+    private int qaID;
+    private double easeFactor;      // SM-2 E-Factor, >= 1.3
+    private double intervalDays;
+    private int repetitions;        // successful reviews in a row
+    private int lapses;
+    private Timestamp dueAt;
+    private Timestamp lastReviewed;
+
+    public ReviewCard() {
+        this.easeFactor = 2.5;
+    }
+
+    public ReviewCard(int userID, int qaID, double easeFactor, double intervalDays, int repetitions,
+                      int lapses, Timestamp dueAt, Timestamp lastReviewed) {
+        this.userID = userID;
+        this.qaID = qaID;
+        this.easeFactor = easeFactor;
+        this.intervalDays = intervalDays;
+        this.repetitions = repetitions;
+        this.lapses = lapses;
+        this.dueAt = dueAt;
+        this.lastReviewed = lastReviewed;
+    }
+
+    public int getUserID() { return userID; }
+    public void setUserID(int userID) { this.userID = userID; }
+
+    public int getQaID() { return qaID; }
+    public void setQaID(int qaID) { this.qaID = qaID; }
+
+    public double getEaseFactor() { return easeFactor; }
+    public void setEaseFactor(double easeFactor) { this.easeFactor = easeFactor; }
+
+    public double getIntervalDays() { return intervalDays; }
+    public void setIntervalDays(double intervalDays) { this.intervalDays = intervalDays; }
+
+    public int getRepetitions() { return repetitions; }
+    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
+
+    public int getLapses() { return lapses; }
+    public void setLapses(int lapses) { this.lapses = lapses; }
+
+    public Timestamp getDueAt() { return dueAt; }
+    public void setDueAt(Timestamp dueAt) { this.dueAt = dueAt; }
+
+    public Timestamp getLastReviewed() { return lastReviewed; }
+    public void setLastReviewed(Timestamp lastReviewed) { this.lastReviewed = lastReviewed; }
+
+    @Override
+    public String toString() {
+        return String.format("ReviewCard[User=%d, QA=%d, EF=%.2f, interval=%.1fd, reps=%d, due=%s]",
+            userID, qaID, easeFactor, intervalDays, repetitions, dueAt);
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+
+public class UserAbility {
+    private int userID;
+    private int chapterID;
+    private double theta;             // EAP estimate
+    private double standardError;     // posterior SD
+    private int responseCount;
+    private transient double[] posterior; // log-weights on the EAP quadrature grid
+    private Timestamp lastUpdated;
+
+    public UserAbility() {}
+
+    public UserAbility(int userID, int chapterID) {
+        this.userID = userID;
+        this.chapterID = chapterID;
+    }
+
+    public int getUserID() { return userID; }
+    public void setUserID(int userID) { this.userID = userID; }
+
+    public int getChapterID() { return chapterID; }
+    public void setChapterID(int chapterID) { this.chapterID = chapterID; }
+
+    public double getTheta() { return theta; }
+    public void setTheta(double theta) { this.theta = theta; }
+
+    public double getStandardError() { return standardError; }
+    public void setStandardError(double standardError) { this.standardError = standardError; }
+
+    public int getResponseCount() { return responseCount; }
+    public void setResponseCount(int responseCount) { this.responseCount = responseCount; }
+
+    public double[] getPosterior() { return posterior; }
+    public void setPosterior(double[] posterior) { this.posterior = posterior; }
+
+    public Timestamp getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(Timestamp lastUpdated) { this.lastUpdated = lastUpdated; }
+
+    public byte[] getPosteriorBytes() {
+        if (posterior == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(posterior.length * Float.BYTES);
+        for (double w : posterior) {
+            buffer.putFloat((float) w);
+        }
+        return buffer.array();
+    }
+
+    public void setPosteriorBytes(byte[] bytes) {
+        if (bytes == null) {
+            this.posterior = null;
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        double[] weights = new double[bytes.length / Float.BYTES];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = buffer.getFloat();
+        }
+        this.posterior = weights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserAbility[user=%d, chapter=%d, theta=%.3f, SE=%.3f, n=%d]",
+            userID, chapterID, theta, standardError, responseCount);
+    }
+}
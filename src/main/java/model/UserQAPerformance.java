@@ -9,6 +9,8 @@ public class UserQAPerformance {
     private int chapterID;
     private boolean isCorrect;
     private int timeSpent; 
+    private String chosenOption; // "A".."D", null for free-text or legacy rows
+    private double aiScore;
     private Timestamp attemptedAt;
     
 
@@ -40,6 +42,12 @@ public class UserQAPerformance {
     public int getTimeSpent() { return timeSpent; }
     public void setTimeSpent(int timeSpent) { this.timeSpent = timeSpent; }
     
+    public String getChosenOption() { return chosenOption; }
+    public void setChosenOption(String chosenOption) { this.chosenOption = chosenOption; }
+    
+    public double getAiScore() { return aiScore; }
+    public void setAiScore(double aiScore) { this.aiScore = aiScore; }
+    
     public Timestamp getAttemptedAt() { return attemptedAt; }
     public void setAttemptedAt(Timestamp attemptedAt) { this.attemptedAt = attemptedAt; }
 }
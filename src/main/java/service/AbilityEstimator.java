@@ -0,0 +1,91 @@
+package service;
+
+import model.UserAbility;
+
+/**
+ * Expected-a-posteriori (EAP) ability estimation on a fixed quadrature grid.
+ *
+ * The posterior is kept as log-weights on the grid, so each response is one
+ * multiply-by-likelihood per node and the estimate never has to revisit history.
+ * Theta is the posterior mean and the standard error is the posterior SD.
+ */
+public final class AbilityEstimator {
+
+    public static final double GRID_MIN = -4.0;
+    public static final double GRID_MAX = 4.0;
+    public static final int GRID_POINTS = 41;
+
+    private static final double[] NODES = new double[GRID_POINTS];
+    private static final double[] PRIOR = new double[GRID_POINTS];
+
+    static {
+        double step = (GRID_MAX - GRID_MIN) / (GRID_POINTS - 1);
+        for (int k = 0; k < GRID_POINTS; k++) {
+            NODES[k] = GRID_MIN + k * step;
+            PRIOR[k] = -0.5 * NODES[k] * NODES[k]; // standard normal, unnormalized
+        }
+    }
+
+    private AbilityEstimator() {
+    }
+
+    /**
+     * Fresh estimate at the prior: theta 0, SE about 1.
+     */
+    public static UserAbility initial(int userID, int chapterID) {
+        UserAbility ability = new UserAbility(userID, chapterID);
+        ability.setPosterior(PRIOR.clone());
+        summarize(ability);
+        return ability;
+    }
+
+    /**
+     * Fold one scored response into the posterior and refresh theta and SE.
+     */
+    public static void update(UserAbility ability, double beta, double discrimination, boolean correct) {
+        double[] logPost = ability.getPosterior();
+        if (logPost == null || logPost.length != GRID_POINTS) {
+            logPost = PRIOR.clone();
+            ability.setPosterior(logPost);
+        }
+
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < GRID_POINTS; k++) {
+            double z = discrimination * (NODES[k] - beta);
+            // log P = -log(1 + e^-z), log Q = -log(1 + e^z)
+            logPost[k] -= Math.log1p(Math.exp(correct ? -z : z));
+            max = Math.max(max, logPost[k]);
+        }
+        // Keep the largest weight at 0 so float storage never underflows
+        for (int k = 0; k < GRID_POINTS; k++) {
+            logPost[k] -= max;
+        }
+
+        ability.setResponseCount(ability.getResponseCount() + 1);
+        summarize(ability);
+    }
+
+    /**
+     * Theta the estimate would move to after a hypothetical response, without changing it.
+     */
+    public static double projectedTheta(UserAbility ability, double beta, double discrimination, boolean correct) {
+        UserAbility copy = new UserAbility(ability.getUserID(), ability.getChapterID());
+        copy.setPosterior(ability.getPosterior() != null ? ability.getPosterior().clone() : null);
+        update(copy, beta, discrimination, correct);
+        return copy.getTheta();
+    }
+
+    private static void summarize(UserAbility ability) {
+        double[] logPost = ability.getPosterior();
+        double total = 0.0, mean = 0.0, second = 0.0;
+        for (int k = 0; k < GRID_POINTS; k++) {
+            double w = Math.exp(logPost[k]);
+            total += w;
+            mean += w * NODES[k];
+            second += w * NODES[k] * NODES[k];
+        }
+        mean /= total;
+        ability.setTheta(mean);
+        ability.setStandardError(Math.sqrt(Math.max(0.0, second / total - mean * mean)));
+    }
+}
@@ -0,0 +1,131 @@
+package service;
+
+import dao.QADao;
+import model.QA;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Server-side MCQ answer key: QAID -> correct option letter plus a CRC32 fingerprint of
+ * the question text, so submissions are graded from memory instead of trusting the
+ * answer the client sends back.
+ *
+ * Keys are loaded a chapter at a time on first use and kept current by {@link QADao}
+ * on insert and delete.
+ */
+public class AnswerKeyCache {
+
+    private static final Logger logger = Logger.getLogger(AnswerKeyCache.class.getName());
+
+    private static final AnswerKeyCache INSTANCE = new AnswerKeyCache();
+
+    private final Map<Integer, AnswerKey> keys = new ConcurrentHashMap<>();
+    private final Set<Integer> loadedChapters = ConcurrentHashMap.newKeySet();
+
+    public static AnswerKeyCache getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class AnswerKey {
+        private final int qaId;
+        private final int chapterId;
+        private final char option;
+        private final int fingerprint;
+
+        AnswerKey(int qaId, int chapterId, char option, int fingerprint) {
+            this.qaId = qaId;
+            this.chapterId = chapterId;
+            this.option = option;
+            this.fingerprint = fingerprint;
+        }
+
+        public int getQaId() { return qaId; }
+        public int getChapterId() { return chapterId; }
+        public char getOption() { return option; }
+        public int getFingerprint() { return fingerprint; }
+    }
+
+    /**
+     * Load every key of a chapter in one query, once.
+     */
+    public void ensureChapterLoaded(int chapterId, QADao qaDao) throws SQLException {
+        if (loadedChapters.contains(chapterId)) {
+            return;
+        }
+        int count = 0;
+        for (QA qa : qaDao.getAnswerKeys(chapterId)) {
+            put(qa.getQAID(), chapterId, qa.getQuestion(), qa.getAnswer());
+            count++;
+        }
+        loadedChapters.add(chapterId);
+        logger.fine("Answer keys loaded for chapter " + chapterId + ": " + count);
+    }
+
+    /**
+     * Key for a Q&A, loading that row on a miss; null if the Q&A does not exist.
+     */
+    public AnswerKey get(int qaId, QADao qaDao) throws SQLException {
+        AnswerKey key = keys.get(qaId);
+        if (key == null) {
+            QA qa = qaDao.getQAById(qaId);
+            if (qa != null) {
+                key = put(qa.getQAID(), qa.getChapterID(), qa.getQuestion(), qa.getAnswer());
+            }
+        }
+        return key;
+    }
+
+    public AnswerKey put(int qaId, int chapterId, String question, String answer) {
+        AnswerKey key = new AnswerKey(qaId, chapterId, optionOf(answer), fingerprint(question));
+        keys.put(qaId, key);
+        return key;
+    }
+
+    /**
+     * Forget a chapter's keys, e.g. after its Q&As were deleted or bulk-inserted.
+     */
+    public void invalidateChapter(int chapterId) {
+        loadedChapters.remove(chapterId);
+        keys.values().removeIf(key -> key.chapterId == chapterId);
+    }
+
+    /**
+     * Whether the chosen option (letter, or option text starting with it) is correct.
+     */
+    public static boolean isCorrect(AnswerKey key, String chosenOption) {
+        return key != null && key.option != 0 && optionOf(chosenOption) == key.option;
+    }
+
+    /**
+     * Option letter an answer starts with ("B. ..." -> 'B'), or 0 if blank.
+     */
+    public static char optionOf(String answer) {
+        if (answer == null || answer.trim().isEmpty()) {
+            return 0;
+        }
+        return Character.toUpperCase(answer.trim().charAt(0));
+    }
+
+    /**
+     * Option letter "A".."D" as stored in UserQAPerformance.ChosenOption, or null.
+     */
+    public static String storedOption(String answer) {
+        char option = optionOf(answer);
+        return (option >= 'A' && option <= 'D') ? String.valueOf(option) : null;
+    }
+
+    public static int fingerprint(String question) {
+        if (question == null) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(question.trim().replaceAll("\\s+", " ").getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+}
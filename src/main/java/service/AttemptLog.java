@@ -0,0 +1,396 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+import model.UserQAPerformance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of learner attempts, written next to UserQAPerformance so derived
+ * state (mastery, ability, item statistics) can be recomputed by {@link AttemptReplay}
+ * without scanning SQL Server.
+ *
+ * Segments are files attempts-NNNNNNNN.seg holding a 16-byte header (magic, version,
+ * createdAt) followed by fixed 40-byte records (big-endian):
+ *   performanceID, attemptedAt, userID, qaID, chapterID, aiScore (float), timeSpent,
+ *   flags (bit 0 = correct), chosen option (0 or 'A'..'D'), 2 reserved, CRC32 of the rest.
+ *
+ * A segment is closed once it reaches attempt.log.segment.mb. Segment 0 is reserved for
+ * the one-off {@link #backfill} of attempts that predate the log; live appends start
+ * at segment 1. The database stays the source of truth: a failed append is logged and
+ * does not fail the attempt, and records are forced to disk by {@link #sync()} on the
+ * background flush rather than per write.
+ */
+public class AttemptLog {
+
+    private static final Logger logger = Logger.getLogger(AttemptLog.class.getName());
+
+    private static final int MAGIC = 0x424B414C; // "BKAL"
+    private static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 40;
+    private static final String PREFIX = "attempts-";
+    private static final String SUFFIX = ".seg";
+
+    private static final AttemptLog INSTANCE = new AttemptLog(directory(),
+        Long.parseLong(ConfigLoader.getProperty("attempt.log.segment.mb", "64")) << 20);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.BIG_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by this
+    private FileChannel channel;
+    private int segment;
+    private boolean disabled;
+
+    public static AttemptLog getInstance() {
+        return INSTANCE;
+    }
+
+    AttemptLog(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(HEADER_BYTES + RECORD_BYTES, segmentBytes);
+    }
+
+    /**
+     * One decoded record.
+     */
+    public static final class Entry {
+        private final int performanceID;
+        private final long attemptedAt;
+        private final int userID;
+        private final int qaID;
+        private final int chapterID;
+        private final float aiScore;
+        private final int timeSpent;
+        private final boolean correct;
+        private final char chosenOption;
+
+        Entry(int performanceID, long attemptedAt, int userID, int qaID, int chapterID,
+              float aiScore, int timeSpent, boolean correct, char chosenOption) {
+            this.performanceID = performanceID;
+            this.attemptedAt = attemptedAt;
+            this.userID = userID;
+            this.qaID = qaID;
+            this.chapterID = chapterID;
+            this.aiScore = aiScore;
+            this.timeSpent = timeSpent;
+            this.correct = correct;
+            this.chosenOption = chosenOption;
+        }
+
+        public int getPerformanceID() { return performanceID; }
+        public long getAttemptedAt() { return attemptedAt; }
+        public int getUserID() { return userID; }
+        public int getQaID() { return qaID; }
+        public int getChapterID() { return chapterID; }
+        public float getAiScore() { return aiScore; }
+        public int getTimeSpent() { return timeSpent; }
+        public boolean isCorrect() { return correct; }
+        public char getChosenOption() { return chosenOption; }
+    }
+
+    // ============================================
+    // WRITE
+    // ============================================
+
+    /**
+     * Append a saved attempt to the current segment. The attempt must carry the
+     * AttemptedAt the database stored, so replays order it as the table does.
+     */
+    public synchronized void append(UserQAPerformance performance) {
+        if (performance.getAttemptedAt() == null) {
+            throw new IllegalArgumentException("Performance #" + performance.getPerformanceID() +
+                                               " has no AttemptedAt");
+        }
+        if (disabled) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                openLiveSegment();
+            } else if (channel.size() + RECORD_BYTES > segmentBytes) {
+                channel.force(false);
+                channel.close();
+                channel = createSegment(segment + 1);
+                segment++;
+            }
+            encode(record, crc, performance, performance.getAttemptedAt().getTime());
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Attempt log append failed for performance #" +
+                       performance.getPerformanceID() + ", log disabled until restart", e);
+            disabled = true;
+            closeQuietly();
+        }
+    }
+
+    public synchronized void sync() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Attempt log sync failed", e);
+        }
+    }
+
+    public synchronized void close() {
+        sync();
+        closeQuietly();
+    }
+
+    /**
+     * Whether the log already holds the history from before it existed.
+     */
+    public boolean hasBackfill() {
+        return Files.exists(segmentPath(0));
+    }
+
+    /**
+     * Write every attempt already in the database into segment 0. Rows also appended
+     * live while this runs are written twice and dropped by the replay, which keeps the
+     * first record per PerformanceID.
+     */
+    public int backfill(AdaptiveLearningDAO adaptiveDAO) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        synchronized (this) {
+            if (channel == null && !disabled) {
+                openLiveSegment(); // live appends must not land in segment 0
+            }
+        }
+        int maxPerformanceID = adaptiveDAO.getMaxPerformanceID();
+
+        Path target = segmentPath(0);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.BIG_ENDIAN);
+        CRC32 checksum = new CRC32();
+        int[] written = new int[1];
+        IOException[] failure = new IOException[1];
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+            adaptiveDAO.streamAllAttempts(maxPerformanceID, performance -> {
+                if (failure[0] != null) return;
+                try {
+                    long attemptedAt = (performance.getAttemptedAt() != null)
+                        ? performance.getAttemptedAt().getTime() : 0L;
+                    encode(buffer, checksum, performance, attemptedAt);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    written[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("🗄️ Attempt log backfilled with " + written[0] + " attempts up to #" + maxPerformanceID +
+                    " in " + (System.currentTimeMillis() - start) + "ms");
+        return written[0];
+    }
+
+    // ============================================
+    // READ
+    // ============================================
+
+    /**
+     * Every record in segment order. A torn or corrupt record ends its segment.
+     */
+    public long read(Consumer<Entry> handler) throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                channel.force(false);
+            }
+        }
+        long count = 0;
+        for (Path file : segments()) {
+            count += readSegment(file, handler);
+        }
+        return count;
+    }
+
+    public List<Path> segments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null); // zero-padded numbers sort lexically
+        return files;
+    }
+
+    static long readSegment(Path file, Consumer<Entry> handler) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_BYTES) {
+                return 0;
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an attempt log segment (v" + VERSION + "): " + file);
+            }
+
+            CRC32 checksum = new CRC32();
+            byte[] body = new byte[RECORD_BYTES - 4];
+            long count = 0;
+            for (int offset = HEADER_BYTES; offset + RECORD_BYTES <= size; offset += RECORD_BYTES) {
+                buffer.position(offset);
+                buffer.get(body);
+                checksum.reset();
+                checksum.update(body);
+                if ((int) checksum.getValue() != buffer.getInt(offset + RECORD_BYTES - 4)) {
+                    logger.warning("Attempt log " + file.getFileName() + ": bad record at offset " + offset +
+                                   ", skipping the rest of the segment");
+                    break;
+                }
+                byte flags = buffer.get(offset + 32);
+                byte option = buffer.get(offset + 33);
+                handler.accept(new Entry(
+                    buffer.getInt(offset),
+                    buffer.getLong(offset + 4),
+                    buffer.getInt(offset + 12),
+                    buffer.getInt(offset + 16),
+                    buffer.getInt(offset + 20),
+                    buffer.getFloat(offset + 24),
+                    buffer.getInt(offset + 28),
+                    (flags & 1) != 0,
+                    (char) option));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    // ============================================
+    // INTERNALS
+    // ============================================
+
+    private static void encode(ByteBuffer buffer, CRC32 checksum, UserQAPerformance p, long attemptedAt) {
+        char option = AnswerKeyCache.optionOf(p.getChosenOption());
+        buffer.clear();
+        buffer.putInt(p.getPerformanceID());
+        buffer.putLong(attemptedAt);
+        buffer.putInt(p.getUserID());
+        buffer.putInt(p.getQaID());
+        buffer.putInt(p.getChapterID());
+        buffer.putFloat((float) p.getAiScore());
+        buffer.putInt(p.getTimeSpent());
+        buffer.put((byte) (p.isCorrect() ? 1 : 0));
+        buffer.put((byte) ((option >= 'A' && option <= 'D') ? option : 0));
+        buffer.putShort((short) 0);
+        checksum.reset();
+        checksum.update(buffer.array(), 0, RECORD_BYTES - 4);
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+    }
+
+    /** Continue the newest live segment, or start segment 1. */
+    private void openLiveSegment() throws IOException {
+        Files.createDirectories(directory);
+        int last = 0;
+        for (Path file : segments()) {
+            last = Math.max(last, segmentNumber(file));
+        }
+        if (last == 0) {
+            segment = 1;
+            channel = createSegment(1);
+            return;
+        }
+        segment = last;
+        Path file = segmentPath(last);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        // Drop a torn tail so new records stay aligned
+        long size = channel.size();
+        long aligned = HEADER_BYTES + Math.max(0, (size - HEADER_BYTES) / RECORD_BYTES) * RECORD_BYTES;
+        if (size < HEADER_BYTES) {
+            channel.truncate(0);
+            writeHeader(channel);
+        } else if (aligned != size) {
+            logger.warning("Attempt log " + file.getFileName() + ": truncating torn tail of " + (size - aligned) + " bytes");
+            channel.truncate(aligned);
+        }
+        channel.position(channel.size());
+    }
+
+    private FileChannel createSegment(int number) throws IOException {
+        FileChannel created = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        writeHeader(created);
+        logger.info("🗄️ Attempt log segment " + number + " opened");
+        return created;
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).flip();
+        while (header.hasRemaining()) {
+            out.write(header);
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private void closeQuietly() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            channel = null;
+        }
+    }
+
+    private static Path directory() {
+        String configured = ConfigLoader.getProperty("attempt.log.directory");
+        if (configured == null || configured.trim().isEmpty()) {
+            configured = System.getProperty("user.home") + File.separator + "BookAI"
+                       + File.separator + "attempt-log";
+        }
+        return Paths.get(configured);
+    }
+}
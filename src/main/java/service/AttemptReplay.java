@@ -0,0 +1,275 @@
+package service;
+
+import dao.AdaptiveLearningDAO;
+import dao.UserAbilityDAO;
+import model.UserAbility;
+import model.UserChapterMastery;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rebuilds derived learning state from the {@link AttemptLog}: chapter mastery, IRT
+ * ability estimates and per-cohort item statistics.
+ *
+ * The log is read once in order. Records are routed to worker threads by user, so each
+ * worker sees one learner's attempts in the order they were made and folds them without
+ * locking. Mastery and ability rows of different workers are disjoint; only the item
+ * counters are summed when the workers are merged. Ability is re-estimated with the
+ * current item parameters, which is what makes a replay useful after a recalibration
+ * or a scoring change.
+ *
+ * With apply, the rebuilt rows overwrite UserChapterMastery and UserAbility and the
+ * in-memory caches built on them are reset. Apply is refused until the log has been
+ * backfilled, since a log without the older history would overwrite every row with the
+ * recent attempts alone. Attempts saved while the replay runs are
+ * folded into the affected rows again on the learner's next attempt in that chapter.
+ */
+public class AttemptReplay {
+
+    private static final Logger logger = Logger.getLogger(AttemptReplay.class.getName());
+
+    private static final int BATCH = 1024;
+    private static final AttemptLog.Entry[] END = new AttemptLog.Entry[0];
+
+    private final AttemptLog log;
+    private final IRTService irtService;
+    private final int partitions;
+
+    public AttemptReplay() {
+        this(AttemptLog.getInstance(), new IRTService(),
+             Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    AttemptReplay(AttemptLog log, IRTService irtService, int partitions) {
+        this.log = log;
+        this.irtService = irtService;
+        this.partitions = partitions;
+    }
+
+    public static final class Report {
+        private final long records;
+        private final long duplicates;
+        private final int partitions;
+        private final int masteryRows;
+        private final int abilityRows;
+        private final int items;
+        private final boolean applied;
+        private final long millis;
+
+        Report(long records, long duplicates, int partitions, int masteryRows, int abilityRows,
+               int items, boolean applied, long millis) {
+            this.records = records;
+            this.duplicates = duplicates;
+            this.partitions = partitions;
+            this.masteryRows = masteryRows;
+            this.abilityRows = abilityRows;
+            this.items = items;
+            this.applied = applied;
+            this.millis = millis;
+        }
+
+        public long getRecords() { return records; }
+        public long getDuplicates() { return duplicates; }
+        public int getPartitions() { return partitions; }
+        public int getMasteryRows() { return masteryRows; }
+        public int getAbilityRows() { return abilityRows; }
+        public int getItems() { return items; }
+        public boolean isApplied() { return applied; }
+        public long getMillis() { return millis; }
+    }
+
+    /**
+     * Replay the whole log; with apply, write the results back.
+     *
+     * @throws IllegalStateException with apply, if the log has not been backfilled
+     */
+    public Report run(boolean apply) throws IOException, SQLException, InterruptedException {
+        if (apply && !log.hasBackfill()) {
+            throw new IllegalStateException("The attempt log has no backfill of the older attempts; " +
+                                            "run a replay with backfill=true before applying one");
+        }
+        long start = System.currentTimeMillis();
+
+        Worker[] workers = new Worker[partitions];
+        for (int i = 0; i < partitions; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+
+        AttemptLog.Entry[][] batches = new AttemptLog.Entry[partitions][BATCH];
+        int[] fill = new int[partitions];
+        BitSet seen = new BitSet();
+        long[] duplicates = new long[1];
+        long records;
+        try {
+            records = log.read(entry -> {
+                int id = entry.getPerformanceID();
+                if (id > 0) {
+                    if (seen.get(id)) {
+                        duplicates[0]++;
+                        return;
+                    }
+                    seen.set(id);
+                }
+                int p = Math.floorMod(entry.getUserID(), partitions);
+                batches[p][fill[p]++] = entry;
+                if (fill[p] == BATCH) {
+                    workers[p].put(batches[p]);
+                    batches[p] = new AttemptLog.Entry[BATCH];
+                    fill[p] = 0;
+                }
+            });
+        } finally {
+            for (int p = 0; p < partitions; p++) {
+                if (fill[p] > 0) {
+                    workers[p].put(Arrays.copyOf(batches[p], fill[p]));
+                }
+                workers[p].put(END);
+            }
+            for (Worker worker : workers) {
+                worker.join();
+            }
+        }
+
+        List<UserChapterMastery> mastery = new ArrayList<>();
+        List<UserAbility> abilities = new ArrayList<>();
+        Map<Integer, int[]> items = new HashMap<>();
+        for (Worker worker : workers) {
+            if (worker.failure instanceof SQLException) {
+                throw (SQLException) worker.failure;
+            }
+            if (worker.failure != null) {
+                throw (RuntimeException) worker.failure;
+            }
+            worker.collect(mastery, abilities, items);
+        }
+
+        if (apply) {
+            new AdaptiveLearningDAO().saveMasteryRows(mastery);
+            new UserAbilityDAO().saveAbilities(abilities);
+            ItemStatisticsStore.getInstance().replace(items);
+            ItemAnalyzer.getInstance().invalidateAll();
+            Leaderboards.getInstance().invalidateAll();
+            LearningRollups.getInstance().invalidateAll();
+        }
+
+        long millis = System.currentTimeMillis() - start;
+        logger.info("🔁 Replayed " + (records - duplicates[0]) + " attempts (" + duplicates[0] + " duplicates) on " +
+                    partitions + " workers: " + mastery.size() + " mastery rows, " + abilities.size() +
+                    " abilities, " + items.size() + " items in " + millis + "ms" + (apply ? ", applied" : ""));
+        return new Report(records - duplicates[0], duplicates[0], partitions, mastery.size(), abilities.size(),
+                          items.size(), apply, millis);
+    }
+
+    /** Running totals of one (user, chapter). */
+    private static final class ChapterState {
+        int attempts;
+        int correct;
+        double pointSum;
+        UserAbility ability;
+    }
+
+    private final class Worker extends Thread {
+        final BlockingQueue<AttemptLog.Entry[]> queue = new ArrayBlockingQueue<>(16);
+        final Map<Long, ChapterState> chapters = new HashMap<>();
+        final Map<Long, double[]> parameters = new HashMap<>();
+        final Map<Integer, int[]> items = new HashMap<>(); // {attempts, correct} per cohort
+        volatile Exception failure; // SQLException or RuntimeException
+
+        Worker(int index) {
+            super("attempt-replay-" + index);
+            setDaemon(true);
+        }
+
+        void put(AttemptLog.Entry[] batch) {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying the attempt log", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                AttemptLog.Entry[] batch;
+                while ((batch = queue.take()) != END) {
+                    if (failure != null) continue; // keep draining so the reader never blocks
+                    try {
+                        for (AttemptLog.Entry entry : batch) {
+                            apply(entry);
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        failure = e;
+                        logger.log(Level.WARNING, "Attempt replay worker " + getName() + " failed", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void apply(AttemptLog.Entry entry) throws SQLException {
+            int userID = entry.getUserID();
+            int chapterID = entry.getChapterID();
+            ChapterState state = chapters.get(LongIntMap.pack(userID, chapterID));
+            if (state == null) {
+                state = new ChapterState();
+                state.ability = AbilityEstimator.initial(userID, chapterID);
+                chapters.put(LongIntMap.pack(userID, chapterID), state);
+            }
+
+            int[] counts = items.computeIfAbsent(entry.getQaID(), id -> new int[2 * ItemStatisticsStore.COHORT_COUNT]);
+            int cohort = ItemStatisticsStore.cohortOf(state.ability.getTheta());
+            int hit = entry.isCorrect() ? 1 : 0;
+            counts[2 * ItemStatisticsStore.COHORT_ALL]++;
+            counts[2 * ItemStatisticsStore.COHORT_ALL + 1] += hit;
+            counts[2 * cohort]++;
+            counts[2 * cohort + 1] += hit;
+
+            state.attempts++;
+            state.correct += hit;
+            state.pointSum += MasteryFormula.points(entry.isCorrect(), entry.getAiScore());
+
+            long itemKey = LongIntMap.pack(chapterID, entry.getQaID());
+            double[] item = parameters.get(itemKey);
+            if (item == null) {
+                item = irtService.getItemParameters(chapterID, entry.getQaID());
+                parameters.put(itemKey, item);
+            }
+            AbilityEstimator.update(state.ability, item[0], item[1], entry.isCorrect());
+        }
+
+        void collect(List<UserChapterMastery> mastery, List<UserAbility> abilities, Map<Integer, int[]> allItems) {
+            chapters.forEach((key, state) -> {
+                UserAbility ability = state.ability;
+                mastery.add(new UserChapterMastery(ability.getUserID(), ability.getChapterID(), state.attempts,
+                    state.correct, MasteryFormula.score(state.pointSum, state.attempts)));
+                abilities.add(ability);
+            });
+            // Attempts at one QAID come from many users, so item counts are summed across workers
+            items.forEach((qaId, counts) -> {
+                int[] total = allItems.get(qaId);
+                if (total == null) {
+                    allItems.put(qaId, counts);
+                } else {
+                    for (int i = 0; i < counts.length; i++) {
+                        total[i] += counts[i];
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package service;
+
+import model.UserAbility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Monte Carlo harness for the adaptive engine.
+ *
+ * Synthetic examinees with known abilities take complete adaptive sessions against a
+ * synthetic item bank; responses are drawn from the same IRT model the engine assumes.
+ * Every policy sees the same bank and the same examinees, and runs with equal seeds are
+ * repeatable, so a change to the engine can be compared against the previous numbers.
+ * Reported per policy: selection latency, sessions per second, and bias / RMSE of the
+ * final theta against the true theta. Nothing here touches the database.
+ *
+ * Run from the command line:
+ *   java -cp target/classes service.CATSimulator [examinees] [bankSize] [maxItems] [model]
+ */
+public class CATSimulator {
+
+    public enum Policy {
+        /** Previous behaviour: linear scan for P closest to 0.5, learning-rate theta update. */
+        LEGACY_SCAN,
+        /** Random unanswered item with EAP updating; lower bound for any adaptive policy. */
+        RANDOM_EAP,
+        /** Full-bank information arg-max through the bulk kernels, EAP updating. */
+        BULK_MAX_INFO_EAP,
+        /** ItemSelectionIndex branch-and-bound search, EAP updating (production path). */
+        INDEX_MAX_INFO_EAP
+    }
+
+    private static final double LEGACY_LEARNING_RATE = 0.3;
+
+    private final int examinees;
+    private final int bankSize;
+    private final int maxItems;
+    private final double stopStandardError;
+    private final boolean twoPL;
+    private final long seed;
+
+    public CATSimulator(int examinees, int bankSize, int maxItems, double stopStandardError,
+                        boolean twoPL, long seed) {
+        this.examinees = examinees;
+        this.bankSize = bankSize;
+        this.maxItems = Math.min(maxItems, bankSize);
+        this.stopStandardError = stopStandardError;
+        this.twoPL = twoPL;
+        this.seed = seed;
+    }
+
+    public List<SimulationReport> runAll() {
+        List<SimulationReport> reports = new ArrayList<>();
+        for (Policy policy : Policy.values()) {
+            reports.add(run(policy));
+        }
+        return reports;
+    }
+
+    public SimulationReport run(Policy policy) {
+        Random random = new Random(seed);
+
+        // Item bank: beta ~ N(0, 1), a ~ U(0.5, 2) for 2PL
+        int[] qaIds = new int[bankSize];
+        double[] betas = new double[bankSize];
+        double[] discriminations = new double[bankSize];
+        float[] betaF = new float[bankSize];
+        float[] aF = new float[bankSize];
+        for (int i = 0; i < bankSize; i++) {
+            qaIds[i] = i + 1;
+            betas[i] = random.nextGaussian();
+            discriminations[i] = twoPL ? 0.5 + 1.5 * random.nextDouble() : 1.0;
+            betaF[i] = (float) betas[i];
+            aF[i] = (float) discriminations[i];
+        }
+        ItemSelectionIndex index = new ItemSelectionIndex(0, qaIds, betas, discriminations);
+
+        double[] trueTheta = new double[examinees];
+        for (int e = 0; e < examinees; e++) {
+            trueTheta[e] = random.nextGaussian();
+        }
+
+        SimulationReport report = new SimulationReport();
+        report.policy = policy.name();
+        report.examinees = examinees;
+        report.bankSize = bankSize;
+        report.model = twoPL ? IRTCalibrationService.MODEL_2PL : IRTCalibrationService.MODEL_RASCH;
+
+        long[] latencies = new long[examinees * maxItems];
+        int latencyCount = 0;
+        double errorSum = 0.0, squaredErrorSum = 0.0, seSum = 0.0;
+        long itemsAdministered = 0;
+        float[] scratch = new float[bankSize];
+
+        long start = System.nanoTime();
+        for (int e = 0; e < examinees; e++) {
+            UserAbility ability = AbilityEstimator.initial(e, 0);
+            double legacyTheta = 0.0;
+            BitSet answeredQaIds = new BitSet(bankSize + 1);
+            boolean[] answeredPositions = new boolean[bankSize];
+
+            for (int step = 0; step < maxItems; step++) {
+                double theta = (policy == Policy.LEGACY_SCAN) ? legacyTheta : ability.getTheta();
+
+                long t0 = System.nanoTime();
+                int item = select(policy, theta, index, betas, betaF, aF, answeredQaIds, answeredPositions,
+                                  scratch, random);
+                latencies[latencyCount++] = System.nanoTime() - t0;
+                if (item < 0) {
+                    break;
+                }
+
+                // item is a bank position for every policy except the index, which returns its own position
+                double beta, a;
+                int qaId;
+                if (policy == Policy.INDEX_MAX_INFO_EAP) {
+                    qaId = index.getQaId(item);
+                    beta = index.getBeta(item);
+                    a = index.getDiscrimination(item);
+                } else {
+                    qaId = qaIds[item];
+                    beta = betas[item];
+                    a = discriminations[item];
+                }
+                answeredQaIds.set(qaId);
+                answeredPositions[qaId - 1] = true;
+
+                double pTrue = probability(trueTheta[e], beta, a);
+                boolean correct = random.nextDouble() < pTrue;
+                itemsAdministered++;
+
+                if (policy == Policy.LEGACY_SCAN) {
+                    double observed = correct ? 1.0 : 0.0;
+                    legacyTheta += LEGACY_LEARNING_RATE * (observed - probability(legacyTheta, beta, 1.0));
+                } else {
+                    AbilityEstimator.update(ability, beta, a, correct);
+                    if (ability.getStandardError() <= stopStandardError) {
+                        break;
+                    }
+                }
+            }
+
+            double estimate = (policy == Policy.LEGACY_SCAN) ? legacyTheta : ability.getTheta();
+            double error = estimate - trueTheta[e];
+            errorSum += error;
+            squaredErrorSum += error * error;
+            seSum += (policy == Policy.LEGACY_SCAN) ? Double.NaN : ability.getStandardError();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies, 0, latencyCount);
+        report.meanItems = (double) itemsAdministered / examinees;
+        report.bias = errorSum / examinees;
+        report.rmse = Math.sqrt(squaredErrorSum / examinees);
+        report.meanStandardError = seSum / examinees;
+        report.sessionsPerSecond = examinees / (elapsed / 1e9);
+        report.meanSelectionNanos = mean(latencies, latencyCount);
+        report.p50SelectionNanos = percentile(latencies, latencyCount, 0.50);
+        report.p99SelectionNanos = percentile(latencies, latencyCount, 0.99);
+        report.elapsedMillis = elapsed / 1_000_000;
+        return report;
+    }
+
+    private int select(Policy policy, double theta, ItemSelectionIndex index, double[] betas,
+                       float[] betaF, float[] aF, BitSet answeredQaIds, boolean[] answeredPositions,
+                       float[] scratch, Random random) {
+        switch (policy) {
+            case LEGACY_SCAN: {
+                int best = -1;
+                double minDistance = Double.MAX_VALUE;
+                for (int i = 0; i < betas.length; i++) {
+                    if (answeredPositions[i]) continue;
+                    double distance = Math.abs(probability(theta, betas[i], 1.0) - 0.5);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        best = i;
+                    }
+                }
+                return best;
+            }
+            case RANDOM_EAP: {
+                int remaining = betas.length - answeredQaIds.cardinality();
+                if (remaining <= 0) return -1;
+                int pick = random.nextInt(remaining);
+                for (int i = 0; i < betas.length; i++) {
+                    if (!answeredPositions[i] && pick-- == 0) return i;
+                }
+                return -1;
+            }
+            case BULK_MAX_INFO_EAP:
+                return IRTKernels.argMaxInformation((float) theta, betaF, twoPL ? aF : null, betaF.length,
+                                                    answeredPositions, scratch);
+            case INDEX_MAX_INFO_EAP:
+            default:
+                return index.selectMaxInformation(theta, answeredQaIds);
+        }
+    }
+
+    private static double probability(double theta, double beta, double a) {
+        return 1.0 / (1.0 + Math.exp(-a * (theta - beta)));
+    }
+
+    private static double mean(long[] values, int count) {
+        if (count == 0) return 0.0;
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) sum += values[i];
+        return sum / count;
+    }
+
+    private static long percentile(long[] sorted, int count, double q) {
+        if (count == 0) return 0L;
+        return sorted[Math.min(count - 1, (int) Math.ceil(q * count) - 1)];
+    }
+
+    public static class SimulationReport {
+        public String policy;
+        public String model;
+        public int examinees;
+        public int bankSize;
+        public double meanItems;
+        public double bias;
+        public double rmse;
+        public double meanStandardError;
+        public double sessionsPerSecond;
+        public double meanSelectionNanos;
+        public long p50SelectionNanos;
+        public long p99SelectionNanos;
+        public long elapsedMillis;
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %-5s items=%5.1f bias=%+.3f rmse=%.3f SE=%.3f sessions/s=%9.1f " +
+                                 "select(mean/p50/p99)=%.0f/%d/%d ns",
+                policy, model, meanItems, bias, rmse, meanStandardError, sessionsPerSecond,
+                meanSelectionNanos, p50SelectionNanos, p99SelectionNanos);
+        }
+    }
+
+    public static void main(String[] args) {
+        int examinees = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int bankSize = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int maxItems = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        boolean twoPL = args.length > 3 && IRTCalibrationService.MODEL_2PL.equalsIgnoreCase(args[3]);
+
+        CATSimulator simulator = new CATSimulator(examinees, bankSize, maxItems, 0.0, twoPL, 42L);
+        System.out.println("CAT simulation: " + examinees + " examinees, " + bankSize + " items, " +
+                           maxItems + " items/session, vector kernels=" + IRTKernels.isVectorized());
+        simulator.run(Policy.INDEX_MAX_INFO_EAP); // JIT warm-up
+        for (SimulationReport report : simulator.runAll()) {
+            System.out.println(report);
+        }
+    }
+}
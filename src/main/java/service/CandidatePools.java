@@ -0,0 +1,140 @@
+package service;
+
+import dao.AdaptiveLearningDAO;
+import dao.QADao;
+import model.QA;
+import model.QuestionBankItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * QAIDs per (chapter, difficulty) for the mastery-based fallback selection. Questions
+ * the user already answered correctly come from the bounded per-user sets of
+ * {@link UserItemHistory}.
+ *
+ * A draw first tries a few uniform picks and rejects mastered ones, which is O(1) as
+ * long as the pool is not mostly mastered; after that it falls back to one reservoir
+ * pass over the pool. Either way it is a memory operation, never a table sort.
+ */
+public class CandidatePools {
+
+    private static final Logger logger = Logger.getLogger(CandidatePools.class.getName());
+
+    private static final int REJECTION_ATTEMPTS = 8;
+
+    private static final CandidatePools INSTANCE = new CandidatePools();
+
+    // chapterId -> difficulty -> QAIDs
+    private final Map<Integer, Map<String, int[]>> pools = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so pools built across one are not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public static CandidatePools getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Random question of the given difficulty the user has not yet answered correctly,
+     * or -1 if there is none.
+     */
+    public int drawUnmastered(int userID, int chapterID, String difficulty, AdaptiveLearningDAO dao)
+            throws SQLException {
+        int[] pool = pool(chapterID, difficulty);
+        if (pool.length == 0) {
+            return -1;
+        }
+        BitSet correct = UserItemHistory.getInstance().correct(userID, dao);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        synchronized (correct) {
+            for (int attempt = 0; attempt < REJECTION_ATTEMPTS; attempt++) {
+                int qaId = pool[random.nextInt(pool.length)];
+                if (!correct.get(qaId)) {
+                    return qaId;
+                }
+            }
+
+            // Mostly mastered pool: uniform choice among the rest in one pass
+            int chosen = -1;
+            int seen = 0;
+            for (int qaId : pool) {
+                if (!correct.get(qaId) && random.nextInt(++seen) == 0) {
+                    chosen = qaId;
+                }
+            }
+            return chosen;
+        }
+    }
+
+    /**
+     * Uniform random question of the given difficulty, or -1 if the pool is empty.
+     */
+    public int draw(int chapterID, String difficulty) throws SQLException {
+        int[] pool = pool(chapterID, difficulty);
+        return (pool.length == 0) ? -1 : pool[ThreadLocalRandom.current().nextInt(pool.length)];
+    }
+
+    /**
+     * Drop all pools, e.g. after a new snapshot; they are rebuilt on next use.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        pools.clear();
+    }
+
+    /**
+     * Drop one chapter's pools, e.g. after Q&As were added to it.
+     */
+    public void invalidateChapter(int chapterID) {
+        invalidations.incrementAndGet();
+        pools.remove(chapterID);
+    }
+
+    private int[] pool(int chapterID, String difficulty) throws SQLException {
+        Map<String, int[]> chapter = pools.get(chapterID);
+        if (chapter == null) {
+            long seen = invalidations.get();
+            chapter = build(chapterID);
+            Map<String, int[]> built = chapter;
+            pools.compute(chapterID, (id, current) ->
+                (current != null) ? current : (invalidations.get() == seen) ? built : null);
+        }
+        int[] pool = chapter.get(normalize(difficulty));
+        return (pool != null) ? pool : new int[0];
+    }
+
+    private static Map<String, int[]> build(int chapterID) throws SQLException {
+        Map<String, List<Integer>> grouped = new HashMap<>();
+
+        QuestionBankSnapshot snapshot = QuestionBankSnapshot.covering(chapterID);
+        if (snapshot != null) {
+            for (QuestionBankItem item : snapshot.getChapterItems(chapterID)) {
+                grouped.computeIfAbsent(normalize(item.getDifficulty()), k -> new ArrayList<>()).add(item.getQaID());
+            }
+        } else {
+            for (QA qa : new QADao().getQAsByChapterID(chapterID)) {
+                grouped.computeIfAbsent(normalize(qa.getDifficulty()), k -> new ArrayList<>()).add(qa.getQAID());
+            }
+        }
+
+        Map<String, int[]> chapter = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> e : grouped.entrySet()) {
+            chapter.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        logger.fine("Candidate pools for chapter " + chapterID + ": " + chapter.keySet());
+        return chapter;
+    }
+
+    private static String normalize(String difficulty) {
+        return (difficulty == null) ? "" : difficulty.trim().toLowerCase();
+    }
+}
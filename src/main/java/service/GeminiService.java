@@ -17,6 +17,7 @@ public class GeminiService {
     private final String apiUrl = ConfigAPIKey.getProperty("gemini.base.url");
     private final String apiKey = ConfigAPIKey.getProperty("gemini.api.key");
     private final HttpClient httpClient;
+    private final LlmResponseCache cache = LlmResponseCache.getInstance();
 
     public GeminiService() {
         this.httpClient = HttpClient.newBuilder()
@@ -62,7 +63,7 @@ public class GeminiService {
             TÓM TẮT:
             """;
         
-        return callGemini(prompt);
+        return cachedGemini("gemini-summary.v1", prompt);
     }
 
     public String generateQAPairs(String chapterTitle, String chapterContent) throws IOException, InterruptedException {
@@ -73,7 +74,7 @@ public class GeminiService {
             CHƯƠNG: """ + chapterTitle + """
             NỘI DUNG: """ + chapterContent;
 
-        return callGemini(prompt);
+        return cachedGemini("gemini-qa.v1", prompt);
     }
 
     public String detectChaptersWithAI(String fullBookText) throws IOException, InterruptedException {
@@ -90,7 +91,24 @@ public class GeminiService {
             NỘI DUNG SÁCH:
             """ + fullBookText;
 
-        return callGemini(prompt);
+        return cachedGemini("gemini-chapters.v1", prompt);
+    }
+
+    /**
+     * Gemini reply to a templated prompt, from the response cache when the same prompt
+     * was answered before. The endpoint URL names the model, so it is part of the key.
+     */
+    private String cachedGemini(String template, String prompt) throws IOException, InterruptedException {
+        String key = LlmResponseCache.key(apiUrl, template, -1, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String text = callGemini(prompt);
+        if (!text.isEmpty()) {
+            cache.put(key, text);
+        }
+        return text;
     }
 
     private String callGemini(String prompt) throws IOException, InterruptedException {
@@ -0,0 +1,437 @@
+package service;
+
+import dao.ItemParameterDAO;
+import model.ItemParameter;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+import java.util.logging.Logger;
+
+/**
+ * Offline joint calibration of Rasch / 2PL item parameters over the full user x item
+ * response matrix.
+ *
+ * Estimation is regularized joint maximum likelihood: person and item parameters are
+ * updated alternately with one Newton step per parameter, each step running in parallel
+ * across users (resp. items) on a fork-join pool. Probabilities for each row or column
+ * are computed in bulk by {@link IRTKernels}. Weak normal priors keep users and
+ * items with all-correct or all-wrong responses finite; after every iteration the theta
+ * scale is re-standardized so the model stays identified.
+ */
+public class IRTCalibrationService {
+
+    private static final Logger logger = Logger.getLogger(IRTCalibrationService.class.getName());
+
+    public static final String MODEL_RASCH = "rasch";
+    public static final String MODEL_2PL = "2pl";
+
+    private static final double THETA_PRIOR_VAR = 1.0;
+    private static final double BETA_PRIOR_VAR = 4.0;
+    private static final double LOG_A_PRIOR_VAR = 0.25;
+    private static final double MAX_STEP = 1.0;
+    private static final double PARAM_BOUND = 6.0;
+    private static final double MIN_A = 0.2;
+    private static final double MAX_A = 4.0;
+    private static final int SEQUENTIAL_THRESHOLD = 512;
+
+    private final ItemParameterDAO parameterDAO;
+    private final int maxIterations;
+    private final double tolerance;
+    private final int minResponses;
+    private final int parallelism;
+
+    public IRTCalibrationService() {
+        this(new ItemParameterDAO(), 100, 1e-3, 5, Runtime.getRuntime().availableProcessors());
+    }
+
+    public IRTCalibrationService(ItemParameterDAO parameterDAO, int maxIterations, double tolerance,
+                                 int minResponses, int parallelism) {
+        this.parameterDAO = parameterDAO;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.minResponses = minResponses;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Load first attempts, calibrate, persist and publish the parameters.
+     */
+    public CalibrationReport calibrateFromDatabase(String model) throws SQLException {
+        long start = System.currentTimeMillis();
+
+        ResponseMatrix.Builder builder = new ResponseMatrix.Builder();
+        parameterDAO.streamFirstAttempts(builder::add);
+        ResponseMatrix matrix = builder.build();
+        long loadMs = System.currentTimeMillis() - start;
+
+        CalibrationReport report = calibrate(matrix, model);
+        report.loadMillis = loadMs;
+
+        if (!report.parameters.isEmpty()) {
+            parameterDAO.saveParameters(report.parameters);
+            ItemParameterStore.getInstance().replaceAll(report.parameters);
+        }
+
+        logger.info("📐 " + report);
+        return report;
+    }
+
+    public CalibrationReport calibrate(ResponseMatrix m, String model) {
+        boolean twoPL = MODEL_2PL.equalsIgnoreCase(model);
+        CalibrationReport report = new CalibrationReport();
+        report.model = twoPL ? MODEL_2PL : MODEL_RASCH;
+        report.users = m.userCount;
+        report.items = m.itemCount;
+        report.responses = m.responseCount;
+        report.threads = parallelism;
+
+        long start = System.nanoTime();
+
+        double[] theta = new double[m.userCount];
+        double[] beta = new double[m.itemCount];
+        double[] a = new double[m.itemCount];
+        double[] betaInfo = new double[m.itemCount];
+        Arrays.fill(a, 1.0);
+
+        // Start items from their logit correct rate; users start at the prior mean
+        for (int i = 0; i < m.itemCount; i++) {
+            int n = m.colPtr[i + 1] - m.colPtr[i];
+            int correct = 0;
+            for (int k = m.colPtr[i]; k < m.colPtr[i + 1]; k++) correct += m.colResp[k];
+            double p = (correct + 0.5) / (n + 1.0);
+            beta[i] = -Math.log(p / (1.0 - p));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            double[] previousBeta = new double[m.itemCount];
+            double[] previousA = new double[m.itemCount];
+            for (int iter = 1; iter <= maxIterations; iter++) {
+                System.arraycopy(beta, 0, previousBeta, 0, m.itemCount);
+                System.arraycopy(a, 0, previousA, 0, m.itemCount);
+
+                pool.invoke(new RangeTask(0, m.userCount, true,
+                    u -> updatePerson(m, u, theta, beta, a)));
+                pool.invoke(new RangeTask(0, m.itemCount, true,
+                    i -> updateItem(m, i, theta, beta, a, betaInfo, twoPL)));
+                normalizeScale(theta, beta, a, twoPL);
+
+                // Converged once a full sweep no longer moves the persisted item parameters
+                double maxChange = 0.0;
+                for (int i = 0; i < m.itemCount; i++) {
+                    maxChange = Math.max(maxChange, Math.abs(beta[i] - previousBeta[i]));
+                    maxChange = Math.max(maxChange, Math.abs(a[i] - previousA[i]));
+                }
+                report.iterations = iter;
+                report.maxChange = maxChange;
+                if (maxChange < tolerance) {
+                    report.converged = true;
+                    break;
+                }
+            }
+            report.logLikelihood = pool.invoke(new RangeTask(0, m.itemCount, false,
+                i -> itemLogLikelihood(m, i, theta, beta, a)));
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < m.itemCount; i++) {
+            int n = m.colPtr[i + 1] - m.colPtr[i];
+            if (n < minResponses) {
+                report.skippedItems++;
+                continue;
+            }
+            report.parameters.add(new ItemParameter(m.qaIds[i], beta[i], a[i],
+                1.0 / Math.sqrt(betaInfo[i]), report.model, n));
+        }
+
+        report.calibratedItems = report.parameters.size();
+        report.calibrationMillis = (System.nanoTime() - start) / 1_000_000;
+        return report;
+    }
+
+    private static double updatePerson(ResponseMatrix m, int u, double[] theta, double[] beta, double[] a) {
+        int from = m.rowPtr[u];
+        int n = m.rowPtr[u + 1] - from;
+        Scratch scratch = Scratch.get(n);
+        for (int j = 0; j < n; j++) {
+            int i = m.rowItem[from + j];
+            scratch.x[j] = (float) beta[i];
+            scratch.y[j] = (float) a[i];
+        }
+        double t = theta[u];
+        IRTKernels.probabilities((float) t, scratch.x, scratch.y, n, scratch.p);
+
+        double gradient = -t / THETA_PRIOR_VAR;
+        double info = 1.0 / THETA_PRIOR_VAR;
+        for (int j = 0; j < n; j++) {
+            double ai = scratch.y[j];
+            double p = scratch.p[j];
+            gradient += ai * (m.rowResp[from + j] - p);
+            info += ai * ai * p * (1.0 - p);
+        }
+        double step = clamp(gradient / info, -MAX_STEP, MAX_STEP);
+        theta[u] = clamp(t + step, -PARAM_BOUND, PARAM_BOUND);
+        return Math.abs(theta[u] - t);
+    }
+
+    private static double updateItem(ResponseMatrix m, int i, double[] theta, double[] beta, double[] a,
+                                     double[] betaInfo, boolean twoPL) {
+        double b = beta[i];
+        double ai = a[i];
+        int from = m.colPtr[i];
+        int n = m.colPtr[i + 1] - from;
+        Scratch scratch = Scratch.get(n);
+        for (int j = 0; j < n; j++) {
+            scratch.x[j] = (float) theta[m.colUser[from + j]];
+        }
+        IRTKernels.probabilitiesAt(scratch.x, n, (float) b, (float) ai, scratch.p);
+
+        double residual = 0.0, pq = 0.0, residualDist = 0.0, pqDist = 0.0, pqDist2 = 0.0;
+        for (int j = 0; j < n; j++) {
+            double d = theta[m.colUser[from + j]] - b;
+            double p = scratch.p[j];
+            double r = m.colResp[from + j] - p;
+            double w = p * (1.0 - p);
+            residual += r;
+            pq += w;
+            residualDist += r * d;
+            pqDist += w * d;
+            pqDist2 += w * d * d;
+        }
+
+        double bGradient = -ai * residual - b / BETA_PRIOR_VAR;
+        double bInfo = ai * ai * pq + 1.0 / BETA_PRIOR_VAR;
+        betaInfo[i] = bInfo;
+
+        if (!twoPL) {
+            beta[i] = clamp(b + clamp(bGradient / bInfo, -MAX_STEP, MAX_STEP), -PARAM_BOUND, PARAM_BOUND);
+            return Math.abs(beta[i] - b);
+        }
+
+        // Joint Fisher-scoring step on (beta, log a); the cross term matters because
+        // difficulty and discrimination trade off against each other for extreme items
+        double logA = Math.log(ai);
+        double aGradient = ai * residualDist - logA / LOG_A_PRIOR_VAR;
+        double aInfo = ai * ai * pqDist2 + 1.0 / LOG_A_PRIOR_VAR;
+        double cross = -ai * ai * pqDist;
+        double det = bInfo * aInfo - cross * cross;
+        double bStep = (aInfo * bGradient - cross * aGradient) / det;
+        double aStep = (bInfo * aGradient - cross * bGradient) / det;
+
+        beta[i] = clamp(b + clamp(bStep, -MAX_STEP, MAX_STEP), -PARAM_BOUND, PARAM_BOUND);
+        a[i] = clamp(Math.exp(logA + clamp(aStep, -MAX_STEP, MAX_STEP)), MIN_A, MAX_A);
+        return Math.max(Math.abs(beta[i] - b), Math.abs(a[i] - ai));
+    }
+
+    /**
+     * Fix the latent scale: thetas centred at 0, and for 2PL also unit variance.
+     * Without this the shrunken MAP thetas let discriminations drift upwards.
+     */
+    private static void normalizeScale(double[] theta, double[] beta, double[] a, boolean twoPL) {
+        if (theta.length < 2) {
+            return;
+        }
+        double mean = 0.0;
+        for (double t : theta) mean += t;
+        mean /= theta.length;
+        double sd = 1.0;
+        if (twoPL) {
+            double var = 0.0;
+            for (double t : theta) var += (t - mean) * (t - mean);
+            sd = Math.sqrt(var / theta.length);
+            if (sd < 1e-6) sd = 1.0;
+        }
+        for (int u = 0; u < theta.length; u++) theta[u] = (theta[u] - mean) / sd;
+        for (int i = 0; i < beta.length; i++) {
+            beta[i] = (beta[i] - mean) / sd;
+            a[i] = clamp(a[i] * sd, MIN_A, MAX_A);
+        }
+    }
+
+    private static double itemLogLikelihood(ResponseMatrix m, int i, double[] theta, double[] beta, double[] a) {
+        double ll = 0.0;
+        for (int k = m.colPtr[i]; k < m.colPtr[i + 1]; k++) {
+            double p = logistic(a[i] * (theta[m.colUser[k]] - beta[i]));
+            ll += (m.colResp[k] == 1) ? Math.log(p) : Math.log(1.0 - p);
+        }
+        return ll;
+    }
+
+    private static double logistic(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+
+    /**
+     * Per-thread gather buffers so the bulk kernels see contiguous float arrays.
+     */
+    private static final class Scratch {
+        private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(Scratch::new);
+
+        float[] x = new float[0];
+        float[] y = new float[0];
+        float[] p = new float[0];
+
+        static Scratch get(int n) {
+            Scratch s = LOCAL.get();
+            if (s.x.length < n) {
+                int cap = Math.max(n, s.x.length * 2);
+                s.x = new float[cap];
+                s.y = new float[cap];
+                s.p = new float[cap];
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Splits [from, to) until ranges are small, applies body to each index and reduces
+     * the results by max or sum.
+     */
+    private static final class RangeTask extends RecursiveTask<Double> {
+        private final int from, to;
+        private final boolean max;
+        private final IntToDoubleFunction body;
+
+        RangeTask(int from, int to, boolean max, IntToDoubleFunction body) {
+            this.from = from;
+            this.to = to;
+            this.max = max;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                double acc = 0.0;
+                for (int i = from; i < to; i++) {
+                    double v = body.applyAsDouble(i);
+                    acc = max ? Math.max(acc, v) : acc + v;
+                }
+                return acc;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, max, body);
+            left.fork();
+            double right = new RangeTask(mid, to, max, body).compute();
+            double l = left.join();
+            return max ? Math.max(l, right) : l + right;
+        }
+    }
+
+    /**
+     * Sparse dichotomous response matrix held twice: CSR by user for person updates
+     * and CSC by item for item updates, so both passes read contiguous memory.
+     */
+    public static final class ResponseMatrix {
+        final int userCount, itemCount, responseCount;
+        final int[] userIds, qaIds;
+        final int[] rowPtr, rowItem;
+        final byte[] rowResp;
+        final int[] colPtr, colUser;
+        final byte[] colResp;
+
+        private ResponseMatrix(int[] userIds, int[] qaIds, int[] users, int[] items, byte[] resp, int n) {
+            this.userIds = userIds;
+            this.qaIds = qaIds;
+            this.userCount = userIds.length;
+            this.itemCount = qaIds.length;
+            this.responseCount = n;
+
+            rowPtr = new int[userCount + 1];
+            colPtr = new int[itemCount + 1];
+            for (int k = 0; k < n; k++) {
+                rowPtr[users[k] + 1]++;
+                colPtr[items[k] + 1]++;
+            }
+            for (int u = 0; u < userCount; u++) rowPtr[u + 1] += rowPtr[u];
+            for (int i = 0; i < itemCount; i++) colPtr[i + 1] += colPtr[i];
+
+            rowItem = new int[n];
+            rowResp = new byte[n];
+            colUser = new int[n];
+            colResp = new byte[n];
+            int[] rowFill = Arrays.copyOf(rowPtr, userCount);
+            int[] colFill = Arrays.copyOf(colPtr, itemCount);
+            for (int k = 0; k < n; k++) {
+                int r = rowFill[users[k]]++;
+                rowItem[r] = items[k];
+                rowResp[r] = resp[k];
+                int c = colFill[items[k]]++;
+                colUser[c] = users[k];
+                colResp[c] = resp[k];
+            }
+        }
+
+        public int getUserCount() { return userCount; }
+        public int getItemCount() { return itemCount; }
+        public int getResponseCount() { return responseCount; }
+
+        public static final class Builder {
+            private final Map<Integer, Integer> userIndex = new HashMap<>();
+            private final Map<Integer, Integer> itemIndex = new HashMap<>();
+            private final List<Integer> userIds = new ArrayList<>();
+            private final List<Integer> qaIds = new ArrayList<>();
+            private int[] users = new int[1024];
+            private int[] items = new int[1024];
+            private byte[] resp = new byte[1024];
+            private int size;
+
+            public void add(int userId, int qaId, boolean correct) {
+                if (size == users.length) {
+                    int cap = size * 2;
+                    users = Arrays.copyOf(users, cap);
+                    items = Arrays.copyOf(items, cap);
+                    resp = Arrays.copyOf(resp, cap);
+                }
+                users[size] = userIndex.computeIfAbsent(userId, id -> { userIds.add(id); return userIds.size() - 1; });
+                items[size] = itemIndex.computeIfAbsent(qaId, id -> { qaIds.add(id); return qaIds.size() - 1; });
+                resp[size] = (byte) (correct ? 1 : 0);
+                size++;
+            }
+
+            public ResponseMatrix build() {
+                return new ResponseMatrix(
+                    userIds.stream().mapToInt(Integer::intValue).toArray(),
+                    qaIds.stream().mapToInt(Integer::intValue).toArray(),
+                    users, items, resp, size);
+            }
+        }
+    }
+
+    public static class CalibrationReport {
+        public String model;
+        public int users;
+        public int items;
+        public int responses;
+        public int threads;
+        public int iterations;
+        public boolean converged;
+        public double maxChange;
+        public double logLikelihood;
+        public int calibratedItems;
+        public int skippedItems;
+        public long loadMillis;
+        public long calibrationMillis;
+        public transient List<ItemParameter> parameters = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            return String.format("Calibration[%s, users=%d, items=%d (%d skipped), responses=%d, threads=%d, " +
+                                 "iterations=%d, converged=%s, maxChange=%.5f, logL=%.2f, load=%dms, fit=%dms]",
+                model, users, items, skippedItems, responses, threads, iterations, converged,
+                maxChange, logLikelihood, loadMillis, calibrationMillis);
+        }
+    }
+}
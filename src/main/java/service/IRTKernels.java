@@ -0,0 +1,134 @@
+package service;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk IRT kernels over item banks held in float arrays.
+ *
+ * P(correct) = 1 / (1 + e^(-a(theta - beta))) and Fisher information a^2 * P * (1 - P)
+ * are evaluated for one theta against many items, or one item against many thetas.
+ * When the build includes {@code VectorIRTKernels} (mvn -Pvector) and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} the kernels use the JDK Vector API;
+ * otherwise, or with {@code -Dbookai.irt.vector=false}, a scalar loop is used. Passing {@code a == null} means Rasch (a = 1 for every item).
+ */
+public final class IRTKernels {
+
+    private static final Logger logger = Logger.getLogger(IRTKernels.class.getName());
+
+    interface Impl {
+        void probabilities(float theta, float[] beta, float[] a, int n, float[] out, int outOffset);
+
+        void information(float theta, float[] beta, float[] a, int n, float[] out, int outOffset);
+
+        void probabilitiesAt(float[] thetas, int n, float beta, float a, float[] out);
+    }
+
+    private static final Impl IMPL = load();
+
+    private IRTKernels() {
+    }
+
+    private static Impl load() {
+        if (!Boolean.parseBoolean(System.getProperty("bookai.irt.vector", "true"))
+                || !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            logger.info("IRT kernels: scalar");
+            return new Scalar();
+        }
+        try {
+            Impl impl = (Impl) Class.forName("service.VectorIRTKernels").getDeclaredConstructor().newInstance();
+            logger.info("IRT kernels: " + impl);
+            return impl;
+        } catch (ClassNotFoundException e) {
+            logger.info("IRT kernels: scalar (built without -Pvector)");
+            return new Scalar();
+        } catch (Throwable t) {
+            logger.log(Level.WARNING, "Vector API unavailable, IRT kernels fall back to scalar", t);
+            return new Scalar();
+        }
+    }
+
+    public static boolean isVectorized() {
+        return !(IMPL instanceof Scalar);
+    }
+
+    /**
+     * out[i] = P(correct | theta) for items 0..n-1.
+     */
+    public static void probabilities(float theta, float[] beta, float[] a, int n, float[] out) {
+        IMPL.probabilities(theta, beta, a, n, out, 0);
+    }
+
+    /**
+     * out[i] = Fisher information at theta for items 0..n-1.
+     */
+    public static void information(float theta, float[] beta, float[] a, int n, float[] out) {
+        IMPL.information(theta, beta, a, n, out, 0);
+    }
+
+    /**
+     * out[k] = P(correct | thetas[k]) for one item, e.g. over a quadrature grid or a
+     * batch of examinees.
+     */
+    public static void probabilitiesAt(float[] thetas, int n, float beta, float a, float[] out) {
+        IMPL.probabilitiesAt(thetas, n, beta, a, out);
+    }
+
+    /**
+     * Row-major thetas x items matrix of P(correct): out[t * n + i].
+     */
+    public static void probabilityMatrix(float[] thetas, int thetaCount, float[] beta, float[] a, int n, float[] out) {
+        for (int t = 0; t < thetaCount; t++) {
+            IMPL.probabilities(thetas[t], beta, a, n, out, t * n);
+        }
+    }
+
+    /**
+     * Index of the item with the highest information at theta, skipping items whose
+     * flag in excluded is set, or -1 if none is left. scratch must hold n floats.
+     */
+    public static int argMaxInformation(float theta, float[] beta, float[] a, int n,
+                                        boolean[] excluded, float[] scratch) {
+        IMPL.information(theta, beta, a, n, scratch, 0);
+        int best = -1;
+        float bestInfo = -1f;
+        for (int i = 0; i < n; i++) {
+            if ((excluded == null || !excluded[i]) && scratch[i] > bestInfo) {
+                bestInfo = scratch[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    static final class Scalar implements Impl {
+        @Override
+        public void probabilities(float theta, float[] beta, float[] a, int n, float[] out, int outOffset) {
+            for (int i = 0; i < n; i++) {
+                float ai = (a == null) ? 1f : a[i];
+                out[outOffset + i] = (float) (1.0 / (1.0 + Math.exp(ai * (beta[i] - theta))));
+            }
+        }
+
+        @Override
+        public void information(float theta, float[] beta, float[] a, int n, float[] out, int outOffset) {
+            for (int i = 0; i < n; i++) {
+                float ai = (a == null) ? 1f : a[i];
+                double p = 1.0 / (1.0 + Math.exp(ai * (beta[i] - theta)));
+                out[outOffset + i] = (float) (ai * ai * p * (1.0 - p));
+            }
+        }
+
+        @Override
+        public void probabilitiesAt(float[] thetas, int n, float beta, float a, float[] out) {
+            for (int k = 0; k < n; k++) {
+                out[k] = (float) (1.0 / (1.0 + Math.exp(a * (beta - thetas[k]))));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package service;
 
+import config.ConfigLoader;
 import dao.AdaptiveLearningDAO;
+import dao.ItemParameterDAO;
 import dao.QADao;
+import dao.UserAbilityDAO;
+import model.ItemParameter;
 import model.QA;
+import model.QuestionBankItem;
+import model.UserAbility;
 import model.UserQAPerformance;
 
 import java.sql.SQLException;
@@ -17,13 +23,23 @@ public class IRTService {
     
     private AdaptiveLearningDAO adaptiveDAO;
     private QADao qaDao;
+    private UserAbilityDAO abilityDAO;
     
-    private static final double INITIAL_THETA = 0.0; 
+    private static final double STOP_STANDARD_ERROR =
+        Double.parseDouble(ConfigLoader.getProperty("irt.stop.standard.error", "0.3"));
+    private static final Object[] ABILITY_LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < ABILITY_LOCKS.length; i++) {
+            ABILITY_LOCKS[i] = new Object();
+        }
+    }
     private static final double LEARNING_RATE = 0.3;  
     
     public IRTService() {
         this.adaptiveDAO = new AdaptiveLearningDAO();
         this.qaDao = new QADao();
+        this.abilityDAO = new UserAbilityDAO();
     }
     
     public double calculateProbability(double theta, double beta) {
@@ -33,40 +49,81 @@ public class IRTService {
     
 
     public double estimateUserAbility(int userID, int chapterID) throws SQLException {
-        List<UserQAPerformance> history = adaptiveDAO.getUserHistory(userID, chapterID);
-        
-        if (history.isEmpty()) {
-            logger.info("User " + userID + " has no history, using initial theta: " + INITIAL_THETA);
-            return INITIAL_THETA;
+        return getUserAbility(userID, chapterID).getTheta();
+    }
+
+    /**
+     * Persisted EAP estimate for (user, chapter). Users without a row are bootstrapped
+     * once by folding their existing history into the prior.
+     */
+    public UserAbility getUserAbility(int userID, int chapterID) throws SQLException {
+        UserAbility ability = abilityDAO.getAbility(userID, chapterID);
+        if (ability != null) {
+            return ability;
         }
-        
-        
-        double theta = INITIAL_THETA;
-        
-        int totalAttempts = history.size();
-        int correctAnswers = 0;
-        
-        for (UserQAPerformance perf : history) {
-            if (perf.isCorrect()) {
-                correctAnswers++;
+
+        synchronized (lockFor(userID, chapterID)) {
+            ability = abilityDAO.getAbility(userID, chapterID);
+            return (ability != null) ? ability : bootstrap(userID, chapterID);
+        }
+    }
+
+    /**
+     * Fold one response into the user's persisted posterior and return the new estimate.
+     * The response must already be saved to UserQAPerformance: a user without a row is
+     * bootstrapped from that history, which then already holds it, so it is not folded in
+     * a second time.
+     */
+    public UserAbility recordResponse(int userID, int chapterID, int qaID, boolean isCorrect) throws SQLException {
+        synchronized (lockFor(userID, chapterID)) {
+            UserAbility ability = abilityDAO.getAbility(userID, chapterID);
+            if (ability == null) {
+                return bootstrap(userID, chapterID);
             }
+            return recordResponse(ability, qaID, isCorrect);
         }
-        
-        double correctRate = (double) correctAnswers / totalAttempts;
+    }
 
-        if (correctRate == 0.0) {
-            theta = -2.0; // 
-        } else if (correctRate == 1.0) {
-            theta = 2.0; 
-        } else {
-            theta = Math.log(correctRate / (1.0 - correctRate));
+    // Caller holds lockFor(user, chapter) and has just read the ability row
+    private UserAbility recordResponse(UserAbility ability, int qaID, boolean isCorrect) throws SQLException {
+        double previousTheta = ability.getTheta();
+
+        double[] item = getItemParameters(ability.getChapterID(), qaID);
+        AbilityEstimator.update(ability, item[0], item[1], isCorrect);
+        abilityDAO.saveAbility(ability);
+
+        logger.log(Level.INFO, "Theta update: {0} -> {1} (SE: {2})", new Object[]{
+            String.format("%.2f", previousTheta), String.format("%.2f", ability.getTheta()),
+            String.format("%.2f", ability.getStandardError())});
+        return ability;
+    }
+
+    /**
+     * Stopping rule: the ability is measured precisely enough once its SE drops below
+     * irt.stop.standard.error.
+     */
+    public boolean hasReachedPrecision(UserAbility ability) {
+        return ability.getResponseCount() > 0 && ability.getStandardError() <= STOP_STANDARD_ERROR;
+    }
+
+    // Caller holds lockFor(userID, chapterID) and has seen no row
+    private UserAbility bootstrap(int userID, int chapterID) throws SQLException {
+        UserAbility ability = AbilityEstimator.initial(userID, chapterID);
+        List<UserQAPerformance> history = adaptiveDAO.getUserHistory(userID, chapterID);
+        for (UserQAPerformance perf : history) {
+            double[] item = getItemParameters(chapterID, perf.getQaID());
+            AbilityEstimator.update(ability, item[0], item[1], perf.isCorrect());
         }
-        
-        logger.info("User " + userID + " estimated ability (theta): " + 
-                   String.format("%.2f", theta) + " (correct rate: " + 
-                   String.format("%.1f%%", correctRate * 100) + ")");
-        
-        return theta;
+        abilityDAO.saveAbility(ability);
+
+        logger.info("User " + userID + " ability bootstrapped from " + history.size() + " responses: " +
+                    "theta=" + String.format("%.2f", ability.getTheta()) +
+                    ", SE=" + String.format("%.2f", ability.getStandardError()));
+        return ability;
+    }
+
+    private static Object lockFor(int userID, int chapterID) {
+        return ABILITY_LOCKS[Math.floorMod(31 * userID + chapterID, ABILITY_LOCKS.length)];
     }
 
     public double estimateItemDifficulty(String difficulty) {
@@ -84,23 +141,35 @@ public class IRTService {
     
 
     public double estimateItemDifficultyFromData(int qaID) throws SQLException {
+        return estimateItemDifficultyFromData(qaID, ItemStatisticsStore.COHORT_ALL);
+    }
 
-        List<UserQAPerformance> allAttempts = qaDao.getAllPerformanceForQA(qaID);
-        
-        if (allAttempts.isEmpty()) {
- 
-            QA qa = qaDao.getQAById(qaID);
-            return estimateItemDifficulty(qa.getDifficulty());
+    public double estimateItemDifficultyFromData(int qaID, int cohort) throws SQLException {
+
+        if (cohort == ItemStatisticsStore.COHORT_ALL) {
+            ItemParameter calibrated = getCalibratedParameter(qaID);
+            if (calibrated != null) {
+                return calibrated.getDifficulty();
+            }
         }
 
-        int totalAttempts = allAttempts.size();
-        int correctCount = 0;
+        ItemStatisticsStore stats = ItemStatisticsStore.getInstance();
+        stats.ensureSeeded(qaDao);
         
-        for (UserQAPerformance perf : allAttempts) {
-            if (perf.isCorrect()) {
-                correctCount++;
+        int totalAttempts = stats.getAttempts(qaID, cohort);
+        
+        if (totalAttempts == 0) {
+            QuestionBankSnapshot snapshot = QuestionBankSnapshot.current();
+            QuestionBankItem item = (snapshot != null) ? snapshot.get(qaID) : null;
+            if (item != null) {
+                return item.getItemDifficulty();
             }
+ 
+            QA qa = qaDao.getQAById(qaID);
+            return (qa != null) ? estimateItemDifficulty(qa.getDifficulty()) : 0.0;
         }
+
+        int correctCount = stats.getCorrect(qaID, cohort);
         
         double correctRate = (double) correctCount / totalAttempts;
         
@@ -114,47 +183,53 @@ public class IRTService {
             beta = -Math.log(correctRate / (1.0 - correctRate));
         }
         
-        logger.info("QA #" + qaID + " estimated difficulty (beta): " + 
+        logger.fine("QA #" + qaID + " estimated difficulty (beta): " + 
                    String.format("%.2f", beta) + " (correct rate: " + 
                    String.format("%.1f%%", correctRate * 100) + ")");
         
         return beta;
     }
 
+    /**
+     * Parameters from the last calibration run, or null if the Q&A has not been calibrated.
+     */
+    public ItemParameter getCalibratedParameter(int qaID) throws SQLException {
+        ItemParameterStore store = ItemParameterStore.getInstance();
+        store.ensureLoaded(new ItemParameterDAO());
+        return store.get(qaID);
+    }
+
     public QA selectOptimalQuestion(int userID, int chapterID) throws SQLException {
-        
-        double theta = estimateUserAbility(userID, chapterID);
+        return selectOptimalQuestion(userID, chapterID, estimateUserAbility(userID, chapterID));
+    }
 
-        List<QA> allQuestions = qaDao.getQAsByChapterID(chapterID);
-        
-        if (allQuestions.isEmpty()) {
+    /**
+     * Highly informative unanswered question at theta, via the chapter's selection index
+     * with exposure control. Once every question has been answered the user's history
+     * no longer excludes any.
+     */
+    public QA selectOptimalQuestion(int userID, int chapterID, double theta) throws SQLException {
+        ItemSelectionIndex index = ItemSelectionIndex.forChapter(chapterID, this);
+
+        if (index.size() == 0) {
             logger.warning("No questions found for chapter " + chapterID);
             return null;
         }
 
-        QA optimalQuestion = null;
-        double minDistance = Double.MAX_VALUE;
-        
-        for (QA qa : allQuestions) {
-            double beta = estimateItemDifficulty(qa.getDifficulty());
+        ItemExposureControl exposure = ItemExposureControl.getInstance();
+        int position = index.selectWithExposureControl(theta, UserItemHistory.getInstance().answered(userID, adaptiveDAO), exposure);
+        if (position < 0) {
+            logger.info("User " + userID + " has answered every question in chapter " + chapterID);
+            position = index.selectWithExposureControl(theta, null, exposure);
+        }
 
-            double probability = calculateProbability(theta, beta);
+        QA optimalQuestion = qaDao.getQAById(index.getQaId(position));
 
-            double distance = Math.abs(probability - 0.5);
-            
-            if (distance < minDistance) {
-                minDistance = distance;
-                optimalQuestion = qa;
-            }
-            
-            logger.fine("QA #" + qa.getQAID() + " (beta=" + beta + 
-                       "): P(correct)=" + String.format("%.2f", probability));
-        }
-        
         if (optimalQuestion != null) {
-            double optimalBeta = estimateItemDifficulty(optimalQuestion.getDifficulty());
+            exposure.recordExposure(chapterID, optimalQuestion.getQAID());
+            double optimalBeta = index.getBeta(position);
             double optimalProb = calculateProbability(theta, optimalBeta);
-            
+
             logger.info("Selected optimal question:");
             logger.info("  QA #" + optimalQuestion.getQAID());
             logger.info("  Difficulty: " + optimalQuestion.getDifficulty());
@@ -162,9 +237,30 @@ public class IRTService {
             logger.info("  P(correct): " + String.format("%.2f", optimalProb));
             logger.info("  User theta: " + String.format("%.2f", theta));
         }
-        
+
         return optimalQuestion;
     }
+
+    /**
+     * Beta the selector uses for a question: calibrated when available, otherwise the
+     * difficulty label mapping.
+     */
+    public double getSelectionBeta(int chapterID, QA qa) throws SQLException {
+        return getItemParameters(chapterID, qa.getQAID())[0];
+    }
+
+    /**
+     * {beta, discrimination} for a Q&A, from the chapter's selection index when it is
+     * indexed there and from the data-driven estimate otherwise.
+     */
+    public double[] getItemParameters(int chapterID, int qaID) throws SQLException {
+        ItemSelectionIndex index = ItemSelectionIndex.forChapter(chapterID, this);
+        int position = index.positionOf(qaID);
+        if (position >= 0) {
+            return new double[]{index.getBeta(position), index.getDiscrimination(position)};
+        }
+        return new double[]{estimateItemDifficultyFromData(qaID), 1.0};
+    }
     
     
     public double updateUserAbility(double currentTheta, double itemBeta, 
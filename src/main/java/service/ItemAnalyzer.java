@@ -0,0 +1,367 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+import dao.ChapterDAO;
+import model.Chapter;
+import model.UserQAPerformance;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Classical item analysis per chapter or book: p-value, point-biserial correlation and
+ * distractor frequencies for every question, from one streaming pass over
+ * UserQAPerformance.
+ *
+ * Only a learner's first attempt at a question counts. The point-biserial correlates
+ * that answer with the learner's rest score (proportion correct on their other
+ * questions in the scope), so an item is not correlated with itself. Co-moments are
+ * accumulated Welford-style; because they can also be removed, a new attempt only
+ * replaces the observations of that one learner, and loaded scopes stay current
+ * through {@link #recordAttempt} without rescanning.
+ */
+public class ItemAnalyzer {
+
+    private static final Logger logger = Logger.getLogger(ItemAnalyzer.class.getName());
+
+    public static final String OPTIONS = "ABCD";
+
+    private static final ItemAnalyzer INSTANCE = new ItemAnalyzer();
+
+    private final int maxScopes = Integer.parseInt(ConfigLoader.getProperty("item.analysis.max.scopes", "64"));
+
+    private final Map<String, Scope> scopes = new ConcurrentHashMap<>();
+    private final AdaptiveLearningDAO adaptiveDAO = new AdaptiveLearningDAO();
+    private final ChapterDAO chapterDAO = new ChapterDAO();
+
+    public static ItemAnalyzer getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class ItemStats {
+        private final int qaID;
+        private final int attempts;
+        private final int correct;
+        private final double pValue;
+        private final Double pointBiserial; // null until two learners with a rest score differ
+        private final Map<String, Integer> optionCounts;
+        private final int unrecordedOptions;
+
+        ItemStats(int qaID, ItemAccumulator acc) {
+            this.qaID = qaID;
+            this.attempts = acc.attempts;
+            this.correct = acc.correct;
+            this.pValue = (acc.attempts == 0) ? 0 : (double) acc.correct / acc.attempts;
+            this.pointBiserial = acc.pointBiserial();
+            this.optionCounts = new LinkedHashMap<>();
+            for (int i = 0; i < OPTIONS.length(); i++) {
+                optionCounts.put(String.valueOf(OPTIONS.charAt(i)), acc.options[i]);
+            }
+            this.unrecordedOptions = acc.unrecorded;
+        }
+
+        public int getQaID() { return qaID; }
+        public int getAttempts() { return attempts; }
+        public int getCorrect() { return correct; }
+        public double getPValue() { return pValue; }
+        public Double getPointBiserial() { return pointBiserial; }
+        public Map<String, Integer> getOptionCounts() { return optionCounts; }
+        public int getUnrecordedOptions() { return unrecordedOptions; }
+    }
+
+    public static final class Report {
+        private final String scope;
+        private final int learners;
+        private final long attempts;
+        private final List<ItemStats> items;
+
+        Report(String scope, int learners, long attempts, List<ItemStats> items) {
+            this.scope = scope;
+            this.learners = learners;
+            this.attempts = attempts;
+            this.items = items;
+        }
+
+        public String getScope() { return scope; }
+        public int getLearners() { return learners; }
+        public long getAttempts() { return attempts; }
+        public List<ItemStats> getItems() { return items; }
+    }
+
+    public Report analyzeChapter(int chapterID) throws SQLException {
+        Scope scope = scope("chapter:" + chapterID, Set.of(chapterID));
+        scope.ensureLoaded(handler -> adaptiveDAO.streamChapterAttempts(chapterID, handler));
+        return scope.report();
+    }
+
+    public Report analyzeBook(int bookID) throws SQLException {
+        String key = "book:" + bookID;
+        Scope scope = scopes.get(key);
+        if (scope == null) {
+            Set<Integer> chapterIDs = new HashSet<>();
+            for (Chapter chapter : chapterDAO.getChaptersByBookId(bookID)) {
+                chapterIDs.add(chapter.getChapterID());
+            }
+            scope = scope(key, chapterIDs);
+        }
+        scope.ensureLoaded(handler -> adaptiveDAO.streamBookAttempts(bookID, handler));
+        return scope.report();
+    }
+
+    /**
+     * Apply a newly saved attempt to every loaded scope that covers its chapter.
+     */
+    public void recordAttempt(UserQAPerformance performance) {
+        for (Scope scope : scopes.values()) {
+            if (scope.chapterIDs.contains(performance.getChapterID())) {
+                scope.record(performance);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        scopes.clear();
+    }
+
+    private Scope scope(String key, Set<Integer> chapterIDs) {
+        Scope scope = scopes.computeIfAbsent(key, k -> new Scope(k, chapterIDs));
+        scope.lastUsed = System.currentTimeMillis();
+        if (scopes.size() > maxScopes) {
+            scopes.values().stream()
+                .filter(s -> s != scope)
+                .min(Comparator.comparingLong(s -> s.lastUsed))
+                .ifPresent(oldest -> scopes.remove(oldest.key, oldest));
+        }
+        return scope;
+    }
+
+    private interface AttemptSource {
+        int stream(Consumer<UserQAPerformance> handler) throws SQLException;
+    }
+
+    // ============================================
+    // SCOPE STATE
+    // ============================================
+
+    private final class Scope {
+        final String key;
+        final Set<Integer> chapterIDs;
+        final Map<Integer, Learner> learners = new HashMap<>();
+        final Map<Integer, ItemAccumulator> items = new HashMap<>();
+        final Object loadLock = new Object();
+        volatile long lastUsed;
+        long attempts;
+
+        // Guarded by this: attempts saved while the initial scan runs
+        boolean loading = true;
+        final List<UserQAPerformance> pending = new ArrayList<>();
+
+        Scope(String key, Set<Integer> chapterIDs) {
+            this.key = key;
+            this.chapterIDs = chapterIDs;
+        }
+
+        void ensureLoaded(AttemptSource source) throws SQLException {
+            synchronized (loadLock) {
+                synchronized (this) {
+                    if (!loading) return;
+                }
+                long start = System.currentTimeMillis();
+                Learner[] current = new Learner[1];
+                int rows;
+                try {
+                    rows = source.stream(row -> {
+                        if (current[0] != null && current[0].userID != row.getUserID()) {
+                            addObservations(current[0]);
+                            current[0] = null;
+                        }
+                        if (current[0] == null) {
+                            current[0] = learners.computeIfAbsent(row.getUserID(), Learner::new);
+                        }
+                        addAnswer(current[0], row);
+                    });
+                } catch (SQLException | RuntimeException e) {
+                    learners.clear();
+                    items.clear();
+                    attempts = 0;
+                    scopes.remove(key, this);
+                    throw e;
+                }
+                if (current[0] != null) {
+                    addObservations(current[0]);
+                }
+                synchronized (this) {
+                    for (UserQAPerformance performance : pending) {
+                        apply(performance);
+                    }
+                    pending.clear();
+                    loading = false;
+                }
+                logger.info("🧮 Item analysis for " + key + ": " + rows + " attempts, " + learners.size() +
+                            " learners, " + items.size() + " items in " + (System.currentTimeMillis() - start) + "ms");
+            }
+        }
+
+        synchronized void record(UserQAPerformance performance) {
+            if (loading) {
+                pending.add(performance);
+            } else {
+                apply(performance);
+            }
+        }
+
+        synchronized Report report() {
+            lastUsed = System.currentTimeMillis();
+            List<ItemStats> stats = new ArrayList<>(items.size());
+            items.forEach((qaId, acc) -> stats.add(new ItemStats(qaId, acc)));
+            stats.sort(Comparator.comparingInt(ItemStats::getQaID));
+            return new Report(key, learners.size(), attempts, stats);
+        }
+
+        private void apply(UserQAPerformance performance) {
+            Learner learner = learners.computeIfAbsent(performance.getUserID(), Learner::new);
+            if (learner.indexOf(performance.getQaID()) >= 0) {
+                return; // not a first attempt
+            }
+            removeObservations(learner);
+            addAnswer(learner, performance);
+            addObservations(learner);
+        }
+
+        /** Count a first attempt; its correlation observations are added with the learner's. */
+        private void addAnswer(Learner learner, UserQAPerformance performance) {
+            int qaId = performance.getQaID();
+            if (learner.indexOf(qaId) >= 0) {
+                return;
+            }
+            learner.add(qaId, performance.isCorrect());
+            ItemAccumulator acc = items.computeIfAbsent(qaId, id -> new ItemAccumulator());
+            acc.attempts++;
+            if (performance.isCorrect()) acc.correct++;
+            int option = (performance.getChosenOption() == null) ? -1
+                       : OPTIONS.indexOf(AnswerKeyCache.optionOf(performance.getChosenOption()));
+            if (option >= 0) acc.options[option]++;
+            else acc.unrecorded++;
+            attempts++;
+        }
+
+        private void addObservations(Learner learner) {
+            if (learner.size < 2) return;
+            for (int i = 0; i < learner.size; i++) {
+                double x = learner.correctBits.get(i) ? 1 : 0;
+                items.get(learner.qaIds[i]).add(x, learner.restScore(x));
+            }
+        }
+
+        private void removeObservations(Learner learner) {
+            if (learner.size < 2) return;
+            for (int i = 0; i < learner.size; i++) {
+                double x = learner.correctBits.get(i) ? 1 : 0;
+                items.get(learner.qaIds[i]).remove(x, learner.restScore(x));
+            }
+        }
+    }
+
+    /** First-attempt outcomes of one learner within a scope. */
+    private static final class Learner {
+        final int userID;
+        int[] qaIds = new int[8];
+        final BitSet correctBits = new BitSet();
+        int size;
+        int correct;
+
+        Learner(int userID) {
+            this.userID = userID;
+        }
+
+        int indexOf(int qaId) {
+            for (int i = 0; i < size; i++) {
+                if (qaIds[i] == qaId) return i;
+            }
+            return -1;
+        }
+
+        void add(int qaId, boolean isCorrect) {
+            if (size == qaIds.length) {
+                qaIds = Arrays.copyOf(qaIds, size * 2);
+            }
+            if (isCorrect) {
+                correctBits.set(size);
+                correct++;
+            }
+            qaIds[size++] = qaId;
+        }
+
+        /** Proportion correct on the other questions, given this question's outcome. */
+        double restScore(double x) {
+            return (correct - x) / (size - 1);
+        }
+    }
+
+    /**
+     * Counts plus running means and co-moments of (answer correct, rest score).
+     */
+    static final class ItemAccumulator {
+        int attempts;
+        int correct;
+        final int[] options = new int[OPTIONS.length()];
+        int unrecorded;
+
+        int n;
+        double meanX;
+        double meanY;
+        double m2X;
+        double m2Y;
+        double cXY;
+
+        void add(double x, double y) {
+            n++;
+            double dx = x - meanX;
+            double dy = y - meanY;
+            meanX += dx / n;
+            meanY += dy / n;
+            m2X += dx * (x - meanX);
+            m2Y += dy * (y - meanY);
+            cXY += dx * (y - meanY);
+        }
+
+        /** Exact inverse of {@link #add} for an observation added earlier. */
+        void remove(double x, double y) {
+            if (n <= 1) {
+                n = 0;
+                meanX = meanY = m2X = m2Y = cXY = 0;
+                return;
+            }
+            double oldMeanX = (n * meanX - x) / (n - 1);
+            double oldMeanY = (n * meanY - y) / (n - 1);
+            double dx = x - oldMeanX;
+            double dy = y - oldMeanY;
+            m2X -= dx * (x - meanX);
+            m2Y -= dy * (y - meanY);
+            cXY -= dx * (y - meanY);
+            meanX = oldMeanX;
+            meanY = oldMeanY;
+            n--;
+        }
+
+        Double pointBiserial() {
+            if (n < 2 || m2X <= 1e-12 || m2Y <= 1e-12) {
+                return null;
+            }
+            return Math.max(-1, Math.min(1, cXY / Math.sqrt(m2X * m2Y)));
+        }
+    }
+}
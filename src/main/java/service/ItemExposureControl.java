@@ -0,0 +1,122 @@
+package service;
+
+import config.ConfigLoader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Item exposure counters and the Sympson-Hetter style admission test used by adaptive
+ * selection.
+ *
+ * An item's exposure is its share of the questions served in its chapter. An item whose
+ * share is above irt.exposure.max.rate is administered with probability max rate / share
+ * when the selector proposes it, which pulls over-used items back to the cap without
+ * the offline simulations classical Sympson-Hetter needs. Small chapters are capped at
+ * twice the even share instead, since a 20% cap cannot be met with five questions.
+ *
+ * Counters are {@link LongAdder}s in chunks indexed by QAID, allocated on demand and
+ * never copied, so concurrent sessions count and read without locking or contending on
+ * one cache line. Counts are kept since startup only.
+ */
+public class ItemExposureControl {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+    /** Served questions in a chapter before shares are trusted. */
+    private static final long WARM_UP = 50;
+
+    private static final ItemExposureControl INSTANCE = new ItemExposureControl(
+        Double.parseDouble(ConfigLoader.getProperty("irt.exposure.max.rate", "0.2")),
+        Integer.parseInt(ConfigLoader.getProperty("irt.exposure.randomesque.size", "5")));
+
+    private final double maxRate;
+    private final int randomesqueSize;
+    private final AtomicReferenceArray<LongAdder[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final Map<Integer, LongAdder> servedByChapter = new ConcurrentHashMap<>();
+
+    public static ItemExposureControl getInstance() {
+        return INSTANCE;
+    }
+
+    ItemExposureControl(double maxRate, int randomesqueSize) {
+        this.maxRate = maxRate;
+        this.randomesqueSize = Math.max(1, randomesqueSize);
+    }
+
+    /**
+     * Number of most informative items the selector draws from.
+     */
+    public int getRandomesqueSize() {
+        return randomesqueSize;
+    }
+
+    /**
+     * Count one administration of a question in a chapter.
+     */
+    public void recordExposure(int chapterId, int qaId) {
+        LongAdder counter = counter(qaId, true);
+        if (counter != null) {
+            counter.increment();
+        }
+        servedByChapter.computeIfAbsent(chapterId, id -> new LongAdder()).increment();
+    }
+
+    public long getExposures(int qaId) {
+        LongAdder counter = counter(qaId, false);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    public long getServed(int chapterId) {
+        LongAdder served = servedByChapter.get(chapterId);
+        return (served == null) ? 0 : served.sum();
+    }
+
+    /**
+     * Share of the chapter's served questions that went to this item.
+     */
+    public double exposureRate(int chapterId, int qaId) {
+        long served = getServed(chapterId);
+        return (served == 0) ? 0.0 : (double) getExposures(qaId) / served;
+    }
+
+    /**
+     * Admission test for a proposed item in a chapter of itemCount questions.
+     */
+    public boolean admit(int chapterId, int qaId, int itemCount) {
+        long served = getServed(chapterId);
+        if (served < WARM_UP) {
+            return true;
+        }
+        double cap = Math.max(maxRate, 2.0 / Math.max(1, itemCount));
+        double rate = (double) getExposures(qaId) / served;
+        return rate <= cap || ThreadLocalRandom.current().nextDouble() < cap / rate;
+    }
+
+    private LongAdder counter(int qaId, boolean create) {
+        if (qaId < 0) {
+            return null;
+        }
+        int chunkIndex = qaId >>> CHUNK_BITS;
+        if (chunkIndex >= MAX_CHUNKS) {
+            return null;
+        }
+        LongAdder[] chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            if (!create) {
+                return null;
+            }
+            LongAdder[] fresh = new LongAdder[CHUNK_SIZE];
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                fresh[i] = new LongAdder();
+            }
+            chunks.compareAndSet(chunkIndex, null, fresh);
+            chunk = chunks.get(chunkIndex);
+        }
+        return chunk[qaId & (CHUNK_SIZE - 1)];
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import dao.ItemParameterDAO;
+import model.ItemParameter;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Calibrated item parameters, loaded once from [ItemParameters] and swapped as a whole
+ * after each calibration run so readers never see a half-updated bank.
+ */
+public class ItemParameterStore {
+
+    private static final Logger logger = Logger.getLogger(ItemParameterStore.class.getName());
+
+    private static final ItemParameterStore INSTANCE = new ItemParameterStore();
+
+    private volatile Map<Integer, ItemParameter> parameters = Collections.emptyMap();
+    private volatile boolean loaded;
+
+    public static ItemParameterStore getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void ensureLoaded(ItemParameterDAO dao) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        replaceAll(dao.getAllParameters());
+    }
+
+    public synchronized void replaceAll(Collection<ItemParameter> calibrated) {
+        Map<Integer, ItemParameter> next = new HashMap<>(calibrated.size() * 2);
+        for (ItemParameter p : calibrated) {
+            next.put(p.getQaID(), p);
+        }
+        parameters = Collections.unmodifiableMap(next);
+        loaded = true;
+        ItemSelectionIndex.invalidateAll();
+        QuizPackBuilder.getInstance().invalidateAll();
+        logger.info("📐 Item parameter store holds " + next.size() + " calibrated Q&As");
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Calibrated parameters for a Q&A, or null if it has never been calibrated.
+     */
+    public ItemParameter get(int qaId) {
+        return parameters.get(qaId);
+    }
+
+    public int size() {
+        return parameters.size();
+    }
+}
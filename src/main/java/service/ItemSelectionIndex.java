@@ -0,0 +1,315 @@
+package service;
+
+import dao.QADao;
+import model.ItemParameter;
+import model.QA;
+import model.QuestionBankItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Per-chapter item index for maximum-information selection.
+ *
+ * Items are held in parallel arrays sorted by beta. For a given theta the nearest beta
+ * is found by binary search and the search walks outward, skipping items the user has
+ * already answered, until no remaining item can beat the best Fisher information found.
+ * Under Rasch that is the first unanswered item on either side; under 2PL the stop uses
+ * the bound a_max^2 * P*Q evaluated at a_min * |theta - beta|.
+ *
+ * Answered items are excluded through the per-user bitsets of {@link UserItemHistory}.
+ *
+ * Live selection goes through {@link #selectWithExposureControl} so that learners at
+ * similar theta do not all get the same few questions; the simulator keeps pure
+ * maximum information.
+ */
+public class ItemSelectionIndex {
+
+    private static final Logger logger = Logger.getLogger(ItemSelectionIndex.class.getName());
+
+    private static final Map<Integer, ItemSelectionIndex> chapters = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so an index built across one is not cached
+    private static final AtomicLong invalidations = new AtomicLong();
+
+    private final int chapterId;
+    private final int[] qaIds;
+    private final double[] betas;
+    private final double[] discriminations;
+    // QAIDs ascending and their positions, for positionOf
+    private final int[] sortedQaIds;
+    private final int[] sortedPositions;
+    private final double minA;
+    private final double maxA;
+
+    ItemSelectionIndex(int chapterId, int[] qaIds, double[] betas, double[] discriminations) {
+        this.chapterId = chapterId;
+
+        Integer[] order = new Integer[qaIds.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Double.compare(betas[x], betas[y]));
+
+        this.qaIds = new int[qaIds.length];
+        this.betas = new double[qaIds.length];
+        this.discriminations = new double[qaIds.length];
+        double lo = Double.MAX_VALUE, hi = 0.0;
+        for (int i = 0; i < order.length; i++) {
+            this.qaIds[i] = qaIds[order[i]];
+            this.betas[i] = betas[order[i]];
+            this.discriminations[i] = discriminations[order[i]];
+            lo = Math.min(lo, this.discriminations[i]);
+            hi = Math.max(hi, this.discriminations[i]);
+        }
+        this.minA = (order.length == 0) ? 1.0 : lo;
+        this.maxA = (order.length == 0) ? 1.0 : hi;
+
+        Integer[] byQaId = new Integer[order.length];
+        for (int i = 0; i < byQaId.length; i++) byQaId[i] = i;
+        Arrays.sort(byQaId, (x, y) -> Integer.compare(this.qaIds[x], this.qaIds[y]));
+        this.sortedQaIds = new int[byQaId.length];
+        this.sortedPositions = new int[byQaId.length];
+        for (int i = 0; i < byQaId.length; i++) {
+            this.sortedQaIds[i] = this.qaIds[byQaId[i]];
+            this.sortedPositions[i] = byQaId[i];
+        }
+    }
+
+    /**
+     * Index for a chapter, built on first use from the question bank snapshot (or the
+     * database when no snapshot covers the chapter) and cached until it is invalidated.
+     */
+    public static ItemSelectionIndex forChapter(int chapterId, IRTService irtService) throws SQLException {
+        ItemSelectionIndex index = chapters.get(chapterId);
+        if (index == null) {
+            long seen = invalidations.get();
+            index = build(chapterId, irtService);
+            ItemSelectionIndex built = index;
+            chapters.compute(chapterId, (id, current) ->
+                (current != null) ? current : (invalidations.get() == seen) ? built : null);
+        }
+        return index;
+    }
+
+    /**
+     * Drop all chapter indexes, e.g. after recalibration or a new snapshot.
+     */
+    public static void invalidateAll() {
+        invalidations.incrementAndGet();
+        chapters.clear();
+    }
+
+    /**
+     * Drop one chapter's index, e.g. after Q&As were added to it.
+     */
+    public static void invalidateChapter(int chapterId) {
+        invalidations.incrementAndGet();
+        chapters.remove(chapterId);
+    }
+
+    private static ItemSelectionIndex build(int chapterId, IRTService irtService) throws SQLException {
+        long start = System.currentTimeMillis();
+        List<Integer> ids = new ArrayList<>();
+        List<String> difficulties = new ArrayList<>();
+
+        QuestionBankSnapshot snapshot = QuestionBankSnapshot.covering(chapterId);
+        if (snapshot != null) {
+            for (QuestionBankItem item : snapshot.getChapterItems(chapterId)) {
+                ids.add(item.getQaID());
+                difficulties.add(item.getDifficulty());
+            }
+        } else {
+            for (QA qa : new QADao().getQAsByChapterID(chapterId)) {
+                ids.add(qa.getQAID());
+                difficulties.add(qa.getDifficulty());
+            }
+        }
+
+        int n = ids.size();
+        int[] qaIds = new int[n];
+        double[] betas = new double[n];
+        double[] discriminations = new double[n];
+        for (int i = 0; i < n; i++) {
+            qaIds[i] = ids.get(i);
+            ItemParameter calibrated = irtService.getCalibratedParameter(qaIds[i]);
+            if (calibrated != null) {
+                betas[i] = calibrated.getDifficulty();
+                discriminations[i] = calibrated.getDiscrimination();
+            } else {
+                String difficulty = difficulties.get(i);
+                betas[i] = irtService.estimateItemDifficulty(difficulty != null ? difficulty : "");
+                discriminations[i] = 1.0;
+            }
+        }
+
+        logger.info("🗂️ Selection index for chapter " + chapterId + ": " + n + " items in " +
+                    (System.currentTimeMillis() - start) + "ms");
+        return new ItemSelectionIndex(chapterId, qaIds, betas, discriminations);
+    }
+
+    // ============================================
+    // SELECTION
+    // ============================================
+
+    /**
+     * Position of the unanswered item with maximum Fisher information at theta, or -1
+     * if every item is excluded.
+     */
+    public int selectMaxInformation(double theta, BitSet excluded) {
+        int n = qaIds.length;
+        if (n == 0) {
+            return -1;
+        }
+
+        int right = lowerBound(theta);
+        int left = right - 1;
+        int best = -1;
+        double bestInfo = -1.0;
+
+        while (left >= 0 || right < n) {
+            // Visit the side whose beta is closer to theta first
+            boolean takeRight = left < 0
+                || (right < n && betas[right] - theta <= theta - betas[left]);
+            int pos = takeRight ? right++ : left--;
+
+            double distance = Math.abs(theta - betas[pos]);
+            if (best >= 0 && upperBound(distance) <= bestInfo) {
+                break; // every remaining item is at least this far away
+            }
+            if (isExcluded(excluded, qaIds[pos])) {
+                continue;
+            }
+            double info = information(theta, betas[pos], discriminations[pos]);
+            if (info > bestInfo) {
+                bestInfo = info;
+                best = pos;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Positions of the k most informative unexcluded items at theta, best first.
+     * Same outward walk as {@link #selectMaxInformation}, stopping once no remaining
+     * item can beat the k-th best.
+     */
+    public int[] selectTopInformation(double theta, BitSet excluded, int k) {
+        int n = qaIds.length;
+        int[] best = new int[Math.min(k, n)];
+        double[] bestInfo = new double[best.length];
+        int found = 0;
+
+        int right = lowerBound(theta);
+        int left = right - 1;
+        while (best.length > 0 && (left >= 0 || right < n)) {
+            boolean takeRight = left < 0
+                || (right < n && betas[right] - theta <= theta - betas[left]);
+            int pos = takeRight ? right++ : left--;
+
+            if (found == best.length && upperBound(Math.abs(theta - betas[pos])) <= bestInfo[found - 1]) {
+                break;
+            }
+            if (isExcluded(excluded, qaIds[pos])) {
+                continue;
+            }
+            double info = information(theta, betas[pos], discriminations[pos]);
+            if (found == best.length && info <= bestInfo[found - 1]) {
+                continue;
+            }
+            // Insertion into the short sorted candidate list
+            int i = (found < best.length) ? found++ : found - 1;
+            while (i > 0 && bestInfo[i - 1] < info) {
+                best[i] = best[i - 1];
+                bestInfo[i] = bestInfo[i - 1];
+                i--;
+            }
+            best[i] = pos;
+            bestInfo[i] = info;
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Randomesque selection with exposure control: the k most informative items are
+     * proposed in random order and the first one {@link ItemExposureControl#admit}s is
+     * taken; if all are over-exposed, the least exposed one. The chosen item is not
+     * counted as exposed here, since callers may prefetch items they never serve.
+     * Returns -1 if every item is excluded.
+     */
+    public int selectWithExposureControl(double theta, BitSet excluded, ItemExposureControl exposure) {
+        int[] candidates = selectTopInformation(theta, excluded, exposure.getRandomesqueSize());
+        if (candidates.length == 0) {
+            return -1;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = candidates.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+        }
+
+        int leastExposed = candidates[0];
+        long leastExposures = Long.MAX_VALUE;
+        for (int pos : candidates) {
+            if (exposure.admit(chapterId, qaIds[pos], qaIds.length)) {
+                return pos;
+            }
+            long exposures = exposure.getExposures(qaIds[pos]);
+            if (exposures < leastExposures) {
+                leastExposures = exposures;
+                leastExposed = pos;
+            }
+        }
+        return leastExposed;
+    }
+
+    public int getChapterId() { return chapterId; }
+    public int size() { return qaIds.length; }
+    public int getQaId(int position) { return qaIds[position]; }
+    public double getBeta(int position) { return betas[position]; }
+    public double getDiscrimination(int position) { return discriminations[position]; }
+
+    /**
+     * Position of a Q&A in this index, or -1 if it is not indexed.
+     */
+    public int positionOf(int qaId) {
+        int i = Arrays.binarySearch(sortedQaIds, qaId);
+        return (i >= 0) ? sortedPositions[i] : -1;
+    }
+
+    private int lowerBound(double theta) {
+        int lo = 0, hi = betas.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (betas[mid] < theta) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private double upperBound(double distance) {
+        double p = 1.0 / (1.0 + Math.exp(-minA * distance));
+        return maxA * maxA * p * (1.0 - p);
+    }
+
+    private static double information(double theta, double beta, double a) {
+        double p = 1.0 / (1.0 + Math.exp(-a * (theta - beta)));
+        return a * a * p * (1.0 - p);
+    }
+
+    private static boolean isExcluded(BitSet excluded, int qaId) {
+        if (excluded == null) {
+            return false;
+        }
+        synchronized (excluded) {
+            return excluded.get(qaId);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package service;
+
+import dao.QADao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * Attempt/correct counters per QAID, optionally split by ability cohort.
+ *
+ * Each (QAID, cohort) slot is one long: attempts in the high 32 bits, correct answers
+ * in the low 32 bits, so a single atomic add updates both and a single read returns a
+ * consistent pair. Slots live in fixed-size chunks that are allocated on demand and
+ * never copied, so updates are lock-free even while the QAID range grows.
+ */
+public class ItemStatisticsStore {
+
+    private static final Logger logger = Logger.getLogger(ItemStatisticsStore.class.getName());
+
+    /** Cohort slot that aggregates every attempt. */
+    public static final int COHORT_ALL = 0;
+    public static final int COHORT_LOW = 1;
+    public static final int COHORT_MEDIUM = 2;
+    public static final int COHORT_HIGH = 3;
+    public static final int COHORT_COUNT = 4;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;        // slots per chunk
+    private static final int MAX_CHUNKS = 1 << 16;
+    private static final long ATTEMPT = 1L << 32;
+
+    private static final ItemStatisticsStore INSTANCE = new ItemStatisticsStore();
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private volatile boolean seeded;
+
+    // Attempts recorded while the seed query runs, applied once it has been loaded
+    private final Object pendingLock = new Object();
+    private final List<long[]> pending = new ArrayList<>();
+    private boolean seeding;
+
+    public static ItemStatisticsStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Ability band used as cohort for an attempt made at the given theta.
+     */
+    public static int cohortOf(double theta) {
+        if (theta < -0.5) return COHORT_LOW;
+        if (theta > 0.5) return COHORT_HIGH;
+        return COHORT_MEDIUM;
+    }
+
+    /**
+     * Load aggregate and per-cohort counts from UserQAPerformance once. Attempts
+     * recorded before seeding starts are ignored because the seed query already contains
+     * them; attempts recorded while it runs are queued and applied after the seed.
+     */
+    public synchronized void ensureSeeded(QADao qaDao) throws SQLException {
+        if (seeded) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (pendingLock) {
+            seeding = true;
+        }
+        List<int[]> counts;
+        try {
+            counts = qaDao.getItemAttemptCounts(); // {qaId, cohort, attempts, correct}
+        } catch (SQLException e) {
+            synchronized (pendingLock) {
+                seeding = false;
+                pending.clear();
+            }
+            throw e;
+        }
+        synchronized (pendingLock) {
+            for (int[] row : counts) {
+                long delta = ((long) row[2] << 32) | row[3];
+                add(slot(row[0], COHORT_ALL), delta);
+                if (row[1] > COHORT_ALL && row[1] < COHORT_COUNT) {
+                    add(slot(row[0], row[1]), delta);
+                }
+            }
+            for (long[] attempt : pending) {
+                apply((int) attempt[0], (int) attempt[1], attempt[2] != 0);
+            }
+            logger.info("📊 Item statistics seeded from " + counts.size() + " rows (+" + pending.size() +
+                        " queued attempts) in " + (System.currentTimeMillis() - start) + "ms");
+            pending.clear();
+            seeding = false;
+            seeded = true;
+        }
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void record(int qaId, boolean correct) {
+        record(qaId, -1, correct);
+    }
+
+    /**
+     * Count one attempt; cohort < 0 updates the aggregate only.
+     */
+    public void record(int qaId, int cohort, boolean correct) {
+        if (qaId < 0) {
+            return;
+        }
+        if (!seeded) {
+            synchronized (pendingLock) {
+                if (!seeded) {
+                    if (seeding) {
+                        pending.add(new long[]{qaId, cohort, correct ? 1 : 0});
+                    }
+                    return;
+                }
+            }
+        }
+        apply(qaId, cohort, correct);
+    }
+
+    private void apply(int qaId, int cohort, boolean correct) {
+        long delta = ATTEMPT | (correct ? 1L : 0L);
+        add(slot(qaId, COHORT_ALL), delta);
+        if (cohort > COHORT_ALL && cohort < COHORT_COUNT) {
+            add(slot(qaId, cohort), delta);
+        }
+    }
+
+    /**
+     * Swap in counts rebuilt elsewhere (e.g. by {@link AttemptReplay}), keyed by QAID with
+     * {attempts, correct} per cohort. Attempts recorded while the swap runs may be lost
+     * from the affected chunks; the counters are statistics, not the record of truth.
+     */
+    public synchronized void replace(Map<Integer, int[]> counts) {
+        AtomicLongArray[] rebuilt = new AtomicLongArray[MAX_CHUNKS];
+        for (Map.Entry<Integer, int[]> e : counts.entrySet()) {
+            int[] c = e.getValue();
+            for (int cohort = 0; cohort < COHORT_COUNT; cohort++) {
+                long slot = slot(e.getKey(), cohort);
+                int chunkIndex = (int) (slot >>> CHUNK_BITS);
+                if (e.getKey() < 0 || chunkIndex >= MAX_CHUNKS) {
+                    break;
+                }
+                if (rebuilt[chunkIndex] == null) {
+                    rebuilt[chunkIndex] = new AtomicLongArray(CHUNK_SIZE);
+                }
+                rebuilt[chunkIndex].set((int) (slot & (CHUNK_SIZE - 1)),
+                                        ((long) c[2 * cohort] << 32) | c[2 * cohort + 1]);
+            }
+        }
+        synchronized (pendingLock) {
+            for (int i = 0; i < MAX_CHUNKS; i++) {
+                if (rebuilt[i] != null || chunks.get(i) != null) {
+                    chunks.set(i, rebuilt[i]);
+                }
+            }
+            pending.clear();
+            seeding = false;
+            seeded = true;
+        }
+        logger.info("📊 Item statistics replaced for " + counts.size() + " Q&As");
+    }
+
+    public int getAttempts(int qaId) {
+        return getAttempts(qaId, COHORT_ALL);
+    }
+
+    public int getAttempts(int qaId, int cohort) {
+        return (int) (read(qaId, cohort) >>> 32);
+    }
+
+    public int getCorrect(int qaId) {
+        return getCorrect(qaId, COHORT_ALL);
+    }
+
+    public int getCorrect(int qaId, int cohort) {
+        return (int) read(qaId, cohort);
+    }
+
+    /**
+     * Proportion correct, or NaN when the item has no attempts in that cohort.
+     */
+    public double getCorrectRate(int qaId, int cohort) {
+        long packed = read(qaId, cohort);
+        int attempts = (int) (packed >>> 32);
+        return attempts == 0 ? Double.NaN : (double) (int) packed / attempts;
+    }
+
+    private long read(int qaId, int cohort) {
+        if (qaId < 0 || cohort < 0 || cohort >= COHORT_COUNT) {
+            return 0L;
+        }
+        long slot = slot(qaId, cohort);
+        int chunkIndex = (int) (slot >>> CHUNK_BITS);
+        if (chunkIndex >= MAX_CHUNKS) {
+            return 0L;
+        }
+        AtomicLongArray chunk = chunks.get(chunkIndex);
+        return (chunk == null) ? 0L : chunk.get((int) (slot & (CHUNK_SIZE - 1)));
+    }
+
+    private void add(long slot, long delta) {
+        int chunkIndex = (int) (slot >>> CHUNK_BITS);
+        if (chunkIndex >= MAX_CHUNKS) {
+            logger.warning("QA slot out of range for item statistics: " + slot);
+            return;
+        }
+        AtomicLongArray chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunks.compareAndSet(chunkIndex, null, new AtomicLongArray(CHUNK_SIZE));
+            chunk = chunks.get(chunkIndex);
+        }
+        chunk.addAndGet((int) (slot & (CHUNK_SIZE - 1)), delta);
+    }
+
+    private static long slot(int qaId, int cohort) {
+        return (long) qaId * COHORT_COUNT + cohort;
+    }
+}
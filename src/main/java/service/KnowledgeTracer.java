@@ -0,0 +1,338 @@
+package service;
+
+import config.ConfigLoader;
+import dao.ConceptMasteryDAO;
+import dao.QADao;
+import model.ConceptMastery;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Bayesian knowledge tracing per (user, concept).
+ *
+ * Every attempt updates P(known) of each concept tag linked to the Q&A: a Bayes step on
+ * the observed answer with slip/guess probabilities, then the learning transition.
+ * State lives in parallel primitive arrays indexed through a {@link LongIntMap} on the
+ * packed (userID, tagID) key; changed slots are flagged and written to
+ * [UserConceptMastery] in batches by {@link #flush()}. Each user keeps the slots of
+ * their few weakest concepts, recomputed on update, so reading them costs nothing.
+ *
+ * At most bkt.max.users learners are held. Beyond that the least recently used ones
+ * whose state is already written are evicted and their slots reused; a learner with
+ * unwritten changes is only evicted after the next flush has saved them.
+ */
+public class KnowledgeTracer {
+
+    private static final Logger logger = Logger.getLogger(KnowledgeTracer.class.getName());
+
+    public static final String CONCEPT_TAG_TYPE = "concept";
+
+    private static final int WEAKEST_KEPT = 5;
+    private static final float MIN_P = 1e-4f;
+    private static final float MAX_P = 1f - 1e-4f;
+
+    // Eldest users looked at per load when evicting outside a flush
+    private static final int EVICTION_SCAN = 32;
+
+    private static final KnowledgeTracer INSTANCE = new KnowledgeTracer();
+
+    private final double pInit = Double.parseDouble(ConfigLoader.getProperty("bkt.p.init", "0.3"));
+    private final double pTransit = Double.parseDouble(ConfigLoader.getProperty("bkt.p.transit", "0.1"));
+    private final double pSlip = Double.parseDouble(ConfigLoader.getProperty("bkt.p.slip", "0.1"));
+    private final double pGuess = Double.parseDouble(ConfigLoader.getProperty("bkt.p.guess", "0.25"));
+    private final int maxUsers = Integer.parseInt(ConfigLoader.getProperty("bkt.max.users", "10000"));
+
+    // Slot storage, guarded by this
+    private final LongIntMap slotIndex = new LongIntMap(1024);
+    private int[] slotUser = new int[1024];
+    private int[] slotTag = new int[1024];
+    private float[] pKnown = new float[1024];
+    private int[] attempts = new int[1024];
+    private int[] correct = new int[1024];
+    private int slotCount;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private final BitSet dirty = new BitSet();
+    private final BitSet saving = new BitSet();
+    // Access order makes it an LRU
+    private final LinkedHashMap<Integer, UserConcepts> users = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Integer, int[]> conceptsByQa = new ConcurrentHashMap<>();
+    private final Map<Integer, String> conceptNames = new ConcurrentHashMap<>();
+
+    private final ConceptMasteryDAO masteryDAO = new ConceptMasteryDAO();
+    private final QADao qaDao = new QADao();
+
+    private static final class UserConcepts {
+        int[] slots = new int[8];
+        int size;
+        int[] weakest = new int[0];
+    }
+
+    public static KnowledgeTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Update every concept of the Q&A with one observed answer.
+     */
+    public void recordAttempt(int userID, int qaId, boolean isCorrect) throws SQLException {
+        int[] concepts = conceptsOf(qaId);
+        if (concepts.length == 0) {
+            return;
+        }
+        // A flush may evict the user between loading and locking; load again then
+        while (true) {
+            ensureLoaded(userID);
+            synchronized (this) {
+                UserConcepts user = users.get(userID);
+                if (user == null) {
+                    continue;
+                }
+                for (int tagId : concepts) {
+                    int slot = slotFor(user, userID, tagId);
+                    pKnown[slot] = (float) update(pKnown[slot], isCorrect);
+                    attempts[slot]++;
+                    if (isCorrect) correct[slot]++;
+                    dirty.set(slot);
+                }
+                refreshWeakest(user);
+                return;
+            }
+        }
+    }
+
+    /**
+     * The user's weakest concepts (lowest P(known)), at most five, weakest first.
+     */
+    public List<ConceptMastery> getWeakestConcepts(int userID) throws SQLException {
+        while (true) {
+            ensureLoaded(userID);
+            synchronized (this) {
+                UserConcepts user = users.get(userID);
+                if (user == null) {
+                    continue;
+                }
+                List<ConceptMastery> weakest = new ArrayList<>();
+                for (int slot : user.weakest) {
+                    weakest.add(toMastery(slot));
+                }
+                return weakest;
+            }
+        }
+    }
+
+    /**
+     * Questions of a chapter that exercise any of the user's weakest concepts.
+     */
+    public CompactBitmap questionsForWeakestConcepts(int userID, int chapterID) throws SQLException {
+        List<Integer> tagIds = new ArrayList<>();
+        for (ConceptMastery mastery : getWeakestConcepts(userID)) {
+            tagIds.add(mastery.getTagID());
+        }
+        if (tagIds.isEmpty()) {
+            return new CompactBitmap();
+        }
+        return QuestionAttributeIndex.getInstance().select(List.of(chapterID), null, null, null, tagIds);
+    }
+
+    /**
+     * Write changed states in one batch, then evict users beyond bkt.max.users. Slots
+     * that fail to save stay dirty.
+     */
+    public int flush() throws SQLException {
+        List<ConceptMastery> changed = new ArrayList<>();
+        synchronized (this) {
+            saving.or(dirty);
+            dirty.clear();
+            saving.stream().forEach(slot -> changed.add(toMastery(slot)));
+        }
+        if (!changed.isEmpty()) {
+            try {
+                masteryDAO.saveMasteries(changed);
+            } catch (SQLException e) {
+                synchronized (this) {
+                    dirty.or(saving);
+                    saving.clear();
+                }
+                throw e;
+            }
+            logger.info("🧠 Flushed " + changed.size() + " concept mastery states");
+        }
+        synchronized (this) {
+            saving.clear();
+            evictWritten(Integer.MAX_VALUE, 0);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Forget the cached concepts of a Q&A, e.g. after it was (re)tagged.
+     */
+    public void forgetConcepts(int qaId) {
+        conceptsByQa.remove(qaId);
+    }
+
+    /**
+     * Forget every cached Q&A -> concepts mapping, e.g. after a chapter's Q&As were
+     * deleted and their IDs are no longer known.
+     */
+    public void forgetAllConcepts() {
+        conceptsByQa.clear();
+    }
+
+    /**
+     * Posterior after one observation followed by the learning transition.
+     */
+    double update(double p, boolean isCorrect) {
+        double posterior = isCorrect
+            ? p * (1 - pSlip) / (p * (1 - pSlip) + (1 - p) * pGuess)
+            : p * pSlip / (p * pSlip + (1 - p) * (1 - pGuess));
+        double next = posterior + (1 - posterior) * pTransit;
+        return Math.max(MIN_P, Math.min(MAX_P, next));
+    }
+
+    private int[] conceptsOf(int qaId) throws SQLException {
+        int[] concepts = conceptsByQa.get(qaId);
+        if (concepts == null) {
+            List<Integer> ids = new ArrayList<>();
+            for (QADao.Tag tag : qaDao.getTagsByQAId(qaId)) {
+                if (CONCEPT_TAG_TYPE.equals(tag.getTagType())) {
+                    ids.add(tag.getTagID());
+                    conceptNames.put(tag.getTagID(), tag.getTagName());
+                }
+            }
+            concepts = ids.stream().mapToInt(Integer::intValue).toArray();
+            conceptsByQa.put(qaId, concepts);
+        }
+        return concepts;
+    }
+
+    private void ensureLoaded(int userID) throws SQLException {
+        synchronized (this) {
+            if (users.containsKey(userID)) {
+                return;
+            }
+        }
+        List<ConceptMastery> stored = masteryDAO.getMasteries(userID);
+        synchronized (this) {
+            if (users.containsKey(userID)) {
+                return;
+            }
+            evictWritten(EVICTION_SCAN, 1);
+            UserConcepts user = new UserConcepts();
+            users.put(userID, user);
+            for (ConceptMastery m : stored) {
+                int slot = slotFor(user, userID, m.getTagID());
+                pKnown[slot] = (float) m.getPKnown();
+                attempts[slot] = m.getAttempts();
+                correct[slot] = m.getCorrectAttempts();
+                if (m.getConceptName() != null) {
+                    conceptNames.put(m.getTagID(), m.getConceptName());
+                }
+            }
+            refreshWeakest(user);
+        }
+    }
+
+    /**
+     * Evict least recently used users until reserve more fit under maxUsers, skipping
+     * any with unwritten or in-flight changes. Looks at no more than scanLimit users.
+     * Caller holds this.
+     */
+    private void evictWritten(int scanLimit, int reserve) {
+        int excess = users.size() + reserve - Math.max(1, maxUsers);
+        Iterator<Map.Entry<Integer, UserConcepts>> it = users.entrySet().iterator();
+        for (int scanned = 0; excess > 0 && scanned < scanLimit && it.hasNext(); scanned++) {
+            Map.Entry<Integer, UserConcepts> entry = it.next();
+            UserConcepts user = entry.getValue();
+            if (hasUnwritten(user)) {
+                continue;
+            }
+            for (int i = 0; i < user.size; i++) {
+                int slot = user.slots[i];
+                slotIndex.remove(LongIntMap.pack(entry.getKey(), slotTag[slot]));
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+                }
+                freeSlots[freeCount++] = slot;
+            }
+            it.remove();
+            excess--;
+        }
+    }
+
+    private boolean hasUnwritten(UserConcepts user) {
+        for (int i = 0; i < user.size; i++) {
+            int slot = user.slots[i];
+            if (dirty.get(slot) || saving.get(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotFor(UserConcepts user, int userID, int tagId) {
+        long key = LongIntMap.pack(userID, tagId);
+        int slot = slotIndex.get(key);
+        if (slot != LongIntMap.MISSING) {
+            return slot;
+        }
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == slotUser.length) {
+                int capacity = slotCount * 2;
+                slotUser = Arrays.copyOf(slotUser, capacity);
+                slotTag = Arrays.copyOf(slotTag, capacity);
+                pKnown = Arrays.copyOf(pKnown, capacity);
+                attempts = Arrays.copyOf(attempts, capacity);
+                correct = Arrays.copyOf(correct, capacity);
+            }
+            slot = slotCount++;
+        }
+        slotUser[slot] = userID;
+        slotTag[slot] = tagId;
+        pKnown[slot] = (float) pInit;
+        attempts[slot] = 0;
+        correct[slot] = 0;
+        slotIndex.put(key, slot);
+
+        if (user.size == user.slots.length) {
+            user.slots = Arrays.copyOf(user.slots, user.size * 2);
+        }
+        user.slots[user.size++] = slot;
+        return slot;
+    }
+
+    private void refreshWeakest(UserConcepts user) {
+        int[] weakest = new int[Math.min(WEAKEST_KEPT, user.size)];
+        int kept = 0;
+        for (int i = 0; i < user.size; i++) {
+            int slot = user.slots[i];
+            // Insertion into the short sorted prefix
+            int pos = kept;
+            while (pos > 0 && pKnown[weakest[pos - 1]] > pKnown[slot]) pos--;
+            if (pos >= weakest.length) continue;
+            int end = Math.min(kept, weakest.length - 1);
+            System.arraycopy(weakest, pos, weakest, pos + 1, end - pos);
+            weakest[pos] = slot;
+            if (kept < weakest.length) kept++;
+        }
+        user.weakest = weakest;
+    }
+
+    private ConceptMastery toMastery(int slot) {
+        return new ConceptMastery(slotUser[slot], slotTag[slot], conceptNames.get(slotTag[slot]),
+                                  pKnown[slot], attempts[slot], correct[slot]);
+    }
+}
@@ -0,0 +1,240 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+import dao.ChapterDAO;
+import model.Chapter;
+import model.UserChapterMastery;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Class leaderboards by mastery per chapter and per book.
+ *
+ * Each board keeps its learners in an {@link OrderStatisticTree}, so top-K and the rank
+ * of one learner are O(log n) instead of an ORDER BY over UserChapterMastery. A book
+ * ranks learners by the mean of their chapter mastery over all chapters of the book,
+ * unattempted chapters counting as 0. Boards are loaded on first use and then follow
+ * every mastery write through {@link #updateMastery}. At most leaderboard.max.boards
+ * are held; the least recently used one is dropped beyond that and reloaded on demand.
+ */
+public class Leaderboards {
+
+    private static final Logger logger = Logger.getLogger(Leaderboards.class.getName());
+
+    public static final int MAX_TOP = 100;
+
+    private static final Leaderboards INSTANCE = new Leaderboards();
+
+    private final int maxBoards = Integer.parseInt(ConfigLoader.getProperty("leaderboard.max.boards", "64"));
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private final AdaptiveLearningDAO adaptiveDAO = new AdaptiveLearningDAO();
+    private final ChapterDAO chapterDAO = new ChapterDAO();
+
+    public static Leaderboards getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class Entry {
+        private final int rank;      // 1-based
+        private final int userID;
+        private final double score;
+
+        Entry(int rank, int userID, double score) {
+            this.rank = rank;
+            this.userID = userID;
+            this.score = score;
+        }
+
+        public int getRank() { return rank; }
+        public int getUserID() { return userID; }
+        public double getScore() { return score; }
+    }
+
+    public List<Entry> topOfChapter(int chapterID, int k) throws SQLException {
+        return chapterBoard(chapterID).top(k);
+    }
+
+    public List<Entry> topOfBook(int bookID, int k) throws SQLException {
+        return bookBoard(bookID).top(k);
+    }
+
+    /**
+     * The user's place on the chapter board, or null if they have no mastery there yet.
+     */
+    public Entry rankInChapter(int userID, int chapterID) throws SQLException {
+        return chapterBoard(chapterID).entry(userID);
+    }
+
+    public Entry rankInBook(int userID, int bookID) throws SQLException {
+        return bookBoard(bookID).entry(userID);
+    }
+
+    public int learnersInChapter(int chapterID) throws SQLException {
+        return chapterBoard(chapterID).size();
+    }
+
+    public int learnersInBook(int bookID) throws SQLException {
+        return bookBoard(bookID).size();
+    }
+
+    /**
+     * Apply a new chapter mastery score to every loaded board that covers the chapter.
+     */
+    public void updateMastery(int userID, int chapterID, double masteryScore) {
+        for (Board board : boards.values()) {
+            if (board.chapterIDs.contains(chapterID)) {
+                board.update(userID, chapterID, masteryScore);
+            }
+        }
+    }
+
+    public void invalidateBook(int bookID) {
+        boards.remove("book:" + bookID);
+    }
+
+    public void invalidateAll() {
+        boards.clear();
+    }
+
+    private Board chapterBoard(int chapterID) throws SQLException {
+        Board board = board("chapter:" + chapterID, Set.of(chapterID));
+        board.ensureLoaded(() -> adaptiveDAO.getChapterMasteryScores(chapterID));
+        return board;
+    }
+
+    private Board bookBoard(int bookID) throws SQLException {
+        String key = "book:" + bookID;
+        Board board = boards.get(key);
+        if (board == null) {
+            Set<Integer> chapterIDs = new HashSet<>();
+            for (Chapter chapter : chapterDAO.getChaptersByBookId(bookID)) {
+                chapterIDs.add(chapter.getChapterID());
+            }
+            board = board(key, chapterIDs);
+        } else {
+            board.lastUsed = System.currentTimeMillis();
+        }
+        board.ensureLoaded(() -> adaptiveDAO.getBookMasteryScores(bookID));
+        return board;
+    }
+
+    private Board board(String key, Set<Integer> chapterIDs) {
+        Board board = boards.computeIfAbsent(key, k -> new Board(k, chapterIDs));
+        board.lastUsed = System.currentTimeMillis();
+        if (boards.size() > maxBoards) {
+            boards.values().stream()
+                .filter(b -> b != board)
+                .min(Comparator.comparingLong(b -> b.lastUsed))
+                .ifPresent(oldest -> boards.remove(oldest.key, oldest));
+        }
+        return board;
+    }
+
+    private interface MasterySource {
+        List<UserChapterMastery> load() throws SQLException;
+    }
+
+    private final class Board {
+        final String key;
+        final Set<Integer> chapterIDs;
+        final Object loadLock = new Object();
+        volatile long lastUsed;
+
+        // Guarded by this
+        final Map<Long, Double> chapterScores = new HashMap<>();
+        final Map<Integer, Double> totals = new HashMap<>();
+        final OrderStatisticTree tree = new OrderStatisticTree();
+        boolean loading = true;
+        final List<UserChapterMastery> pending = new ArrayList<>();
+
+        Board(String key, Set<Integer> chapterIDs) {
+            this.key = key;
+            this.chapterIDs = chapterIDs;
+        }
+
+        void ensureLoaded(MasterySource source) throws SQLException {
+            synchronized (loadLock) {
+                synchronized (this) {
+                    if (!loading) return;
+                }
+                long start = System.currentTimeMillis();
+                List<UserChapterMastery> scores;
+                try {
+                    scores = source.load();
+                } catch (SQLException | RuntimeException e) {
+                    boards.remove(key, this);
+                    throw e;
+                }
+                synchronized (this) {
+                    for (UserChapterMastery m : scores) {
+                        set(m.getUserID(), m.getChapterID(), m.getMasteryScore());
+                    }
+                    // Writes that raced with the load are absolute scores, so replaying is safe
+                    for (UserChapterMastery m : pending) {
+                        set(m.getUserID(), m.getChapterID(), m.getMasteryScore());
+                    }
+                    pending.clear();
+                    loading = false;
+                }
+                logger.info("🏆 Leaderboard " + key + ": " + totals.size() + " learners in " +
+                            (System.currentTimeMillis() - start) + "ms");
+            }
+        }
+
+        synchronized void update(int userID, int chapterID, double masteryScore) {
+            if (loading) {
+                UserChapterMastery m = new UserChapterMastery();
+                m.setUserID(userID);
+                m.setChapterID(chapterID);
+                m.setMasteryScore(masteryScore);
+                pending.add(m);
+            } else {
+                set(userID, chapterID, masteryScore);
+            }
+        }
+
+        synchronized List<Entry> top(int k) {
+            List<Entry> entries = new ArrayList<>();
+            int rank = 1;
+            for (int userID : tree.top(Math.max(0, Math.min(k, MAX_TOP)))) {
+                entries.add(new Entry(rank++, userID, score(totals.get(userID))));
+            }
+            return entries;
+        }
+
+        synchronized Entry entry(int userID) {
+            Double total = totals.get(userID);
+            return (total == null) ? null : new Entry(tree.rank(userID, total) + 1, userID, score(total));
+        }
+
+        synchronized int size() {
+            return tree.size();
+        }
+
+        private void set(int userID, int chapterID, double masteryScore) {
+            Double previous = chapterScores.put(LongIntMap.pack(userID, chapterID), masteryScore);
+            Double total = totals.get(userID);
+            if (total != null) {
+                tree.remove(userID, total);
+            }
+            double next = ((total == null) ? 0 : total) - ((previous == null) ? 0 : previous) + masteryScore;
+            totals.put(userID, next);
+            tree.insert(userID, next);
+        }
+
+        /** Mean over the board's chapters; totals rank identically. */
+        private double score(double total) {
+            return total / Math.max(1, chapterIDs.size());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+import model.BookProgress;
+import model.ChapterProgress;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Per-user learning dashboard rollups: progress per chapter, per book and overall.
+ *
+ * A user's rollup is loaded with one query on their first dashboard view and from then
+ * on maintained from the mastery MERGE in {@link AdaptiveLearningDAO}, which returns the
+ * new chapter row, so a dashboard read never touches the database again and its cost
+ * does not grow with the number of attempts. The most recently used users are kept,
+ * up to learning.rollup.max.users.
+ */
+public class LearningRollups {
+
+    private static final Logger logger = Logger.getLogger(LearningRollups.class.getName());
+
+    private static final LearningRollups INSTANCE = new LearningRollups();
+
+    private final int maxUsers = Integer.parseInt(ConfigLoader.getProperty("learning.rollup.max.users", "5000"));
+
+    // Access-ordered, guarded by this
+    private final Map<Integer, UserRollup> users = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, UserRollup> eldest) {
+            return size() > maxUsers;
+        }
+    };
+    private final Map<Integer, ChapterProgress> chapterInfo = new ConcurrentHashMap<>();
+    private final AdaptiveLearningDAO adaptiveDAO = new AdaptiveLearningDAO();
+
+    public static LearningRollups getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class Summary {
+        private final int totalChapters;
+        private final int totalQuestionsAnswered;
+        private final int totalCorrectAnswers;
+        private final double overallAccuracy;
+        private final List<BookProgress> books;
+
+        Summary(int totalChapters, int totalQuestionsAnswered, int totalCorrectAnswers, List<BookProgress> books) {
+            this.totalChapters = totalChapters;
+            this.totalQuestionsAnswered = totalQuestionsAnswered;
+            this.totalCorrectAnswers = totalCorrectAnswers;
+            this.overallAccuracy = totalQuestionsAnswered > 0
+                ? Math.round((totalCorrectAnswers * 100.0 / totalQuestionsAnswered) * 10) / 10.0 : 0;
+            this.books = books;
+        }
+
+        public int getTotalChapters() { return totalChapters; }
+        public int getTotalQuestionsAnswered() { return totalQuestionsAnswered; }
+        public int getTotalCorrectAnswers() { return totalCorrectAnswers; }
+        public double getOverallAccuracy() { return overallAccuracy; }
+        public List<BookProgress> getBooks() { return books; }
+    }
+
+    private static final class BookTotals {
+        String title;
+        int chapters;
+        int totalQuestions;
+        int correctAnswers;
+        double masterySum;
+        Timestamp lastUpdated;
+    }
+
+    private static final class UserRollup {
+        final Map<Integer, ChapterProgress> chapters = new HashMap<>();
+        final Map<Integer, BookTotals> books = new HashMap<>();
+        int totalQuestions;
+        int correctAnswers;
+
+        // Updates that arrive while the rollup is being loaded
+        boolean loading = true;
+        final List<ChapterProgress> pending = new ArrayList<>();
+
+        void set(ChapterProgress next) {
+            ChapterProgress previous = chapters.put(next.getChapterID(), next);
+            BookTotals book = books.computeIfAbsent(next.getBookID(), id -> new BookTotals());
+            if (previous != null) {
+                totalQuestions -= previous.getTotalQuestions();
+                correctAnswers -= previous.getCorrectAnswers();
+                book.totalQuestions -= previous.getTotalQuestions();
+                book.correctAnswers -= previous.getCorrectAnswers();
+                book.masterySum -= previous.getMasteryScore();
+            } else {
+                book.chapters++;
+            }
+            totalQuestions += next.getTotalQuestions();
+            correctAnswers += next.getCorrectAnswers();
+            book.title = next.getBookTitle();
+            book.totalQuestions += next.getTotalQuestions();
+            book.correctAnswers += next.getCorrectAnswers();
+            book.masterySum += next.getMasteryScore();
+            if (next.getLastUpdated() != null
+                    && (book.lastUpdated == null || next.getLastUpdated().after(book.lastUpdated))) {
+                book.lastUpdated = next.getLastUpdated();
+            }
+        }
+    }
+
+    // ============================================
+    // READS
+    // ============================================
+
+    public Summary getSummary(int userID) throws SQLException {
+        UserRollup rollup = rollup(userID);
+        synchronized (rollup) {
+            List<BookProgress> books = new ArrayList<>(rollup.books.size());
+            rollup.books.forEach((bookID, t) -> books.add(new BookProgress(bookID, t.title, t.chapters,
+                t.totalQuestions, t.correctAnswers, t.masterySum / Math.max(1, t.chapters), t.lastUpdated)));
+            books.sort(Comparator.comparing(BookProgress::getLastUpdated,
+                                            Comparator.nullsLast(Comparator.reverseOrder())));
+            return new Summary(rollup.chapters.size(), rollup.totalQuestions, rollup.correctAnswers, books);
+        }
+    }
+
+    /**
+     * Practiced chapters, most recent first; bookID null for all books.
+     */
+    public List<ChapterProgress> getChapters(int userID, Integer bookID) throws SQLException {
+        UserRollup rollup = rollup(userID);
+        synchronized (rollup) {
+            List<ChapterProgress> chapters = new ArrayList<>();
+            for (ChapterProgress chapter : rollup.chapters.values()) {
+                if (bookID == null || chapter.getBookID() == bookID) {
+                    chapters.add(new ChapterProgress(chapter));
+                }
+            }
+            chapters.sort(Comparator.comparing(ChapterProgress::getLastUpdated,
+                                               Comparator.nullsLast(Comparator.reverseOrder())));
+            return chapters;
+        }
+    }
+
+    public ChapterProgress getChapter(int userID, int chapterID) throws SQLException {
+        UserRollup rollup = rollup(userID);
+        synchronized (rollup) {
+            ChapterProgress chapter = rollup.chapters.get(chapterID);
+            return (chapter == null) ? null : new ChapterProgress(chapter);
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE (called from AdaptiveLearningDAO)
+    // ============================================
+
+    /**
+     * New mastery row of a chapter; ignored for users whose rollup is not cached.
+     */
+    public void updateChapter(int userID, int chapterID, int totalQuestions, int correctAnswers,
+                              double masteryScore, Timestamp lastUpdated) {
+        UserRollup rollup;
+        synchronized (this) {
+            rollup = users.get(userID);
+        }
+        if (rollup == null) {
+            return;
+        }
+        ChapterProgress next;
+        try {
+            next = chapterInfo(chapterID);
+        } catch (SQLException e) {
+            logger.warning("Dropping learning rollup of user " + userID + ": " + e.getMessage());
+            synchronized (this) {
+                users.remove(userID, rollup);
+            }
+            return;
+        }
+        if (next == null) {
+            return;
+        }
+        next.setTotalQuestions(totalQuestions);
+        next.setCorrectAnswers(correctAnswers);
+        next.setMasteryScore(masteryScore);
+        next.setLastUpdated(lastUpdated);
+
+        synchronized (rollup) {
+            if (rollup.loading) {
+                rollup.pending.add(next);
+            } else {
+                rollup.set(next);
+            }
+        }
+    }
+
+    /**
+     * Drop every cached rollup, e.g. after mastery rows were rewritten in bulk.
+     */
+    public synchronized void invalidateAll() {
+        users.clear();
+    }
+
+    // ============================================
+    // LOADING
+    // ============================================
+
+    private UserRollup rollup(int userID) throws SQLException {
+        UserRollup rollup;
+        synchronized (this) {
+            rollup = users.get(userID);
+            if (rollup == null) {
+                rollup = new UserRollup();
+                users.put(userID, rollup);
+            }
+        }
+        synchronized (rollup) {
+            if (!rollup.loading) {
+                return rollup;
+            }
+            // Holding the rollup lock only parks updates of this user until the load ends
+            List<ChapterProgress> rows;
+            try {
+                rows = adaptiveDAO.getChapterProgress(userID);
+            } catch (SQLException e) {
+                synchronized (this) {
+                    users.remove(userID, rollup);
+                }
+                throw e;
+            }
+            for (ChapterProgress row : rows) {
+                rollup.set(row);
+                chapterInfo.putIfAbsent(row.getChapterID(), info(row));
+            }
+            // Pending rows are absolute, so replaying them over the loaded ones is safe
+            for (ChapterProgress row : rollup.pending) {
+                rollup.set(row);
+            }
+            rollup.pending.clear();
+            rollup.loading = false;
+            logger.fine("📊 Learning rollup for user " + userID + ": " + rows.size() + " chapters");
+            return rollup;
+        }
+    }
+
+    /** Fresh progress row carrying only the chapter's identity and titles. */
+    private ChapterProgress chapterInfo(int chapterID) throws SQLException {
+        ChapterProgress info = chapterInfo.get(chapterID);
+        if (info == null) {
+            info = adaptiveDAO.getChapterInfo(chapterID);
+            if (info == null) {
+                return null;
+            }
+            chapterInfo.put(chapterID, info);
+        }
+        return new ChapterProgress(info);
+    }
+
+    private static ChapterProgress info(ChapterProgress row) {
+        ChapterProgress info = new ChapterProgress();
+        info.setChapterID(row.getChapterID());
+        info.setBookID(row.getBookID());
+        info.setChapterNumber(row.getChapterNumber());
+        info.setChapterTitle(row.getChapterTitle());
+        info.setBookTitle(row.getBookTitle());
+        return info;
+    }
+}
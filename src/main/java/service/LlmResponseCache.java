@@ -0,0 +1,431 @@
+package service;
+
+import config.ConfigLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed cache of model responses, addressed by the SHA-256 of (model, prompt
+ * template id, temperature, prompt).
+ *
+ * Responses are appended to segment files llm-NNNNNNNN.seg under llm.cache.directory;
+ * an in-memory index maps each key to its segment and offset and is rebuilt from the
+ * record headers at startup, so a hit is one positional read. Entries expire after
+ * llm.cache.ttl.days. When the segments exceed llm.cache.max.mb the oldest segment is
+ * deleted as a whole. A removed entry is written as a tombstone so it stays removed
+ * after a restart.
+ *
+ * Record layout (big-endian): length of the rest, 32-byte key, createdAt, value length
+ * (-1 for a tombstone), UTF-8 value, CRC32 of the value. Expiry is derived from
+ * createdAt at load time, so a shorter TTL also applies to existing entries.
+ */
+public class LlmResponseCache {
+
+    private static final Logger logger = Logger.getLogger(LlmResponseCache.class.getName());
+
+    private static final int MAGIC = 0x424B4C43; // "BKLC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int KEY_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = 4 + KEY_BYTES + 8 + 4;
+    private static final String PREFIX = "llm-";
+    private static final String SUFFIX = ".seg";
+
+    private static final LlmResponseCache INSTANCE = new LlmResponseCache(directory(),
+        TimeUnit.DAYS.toMillis(Long.parseLong(ConfigLoader.getProperty("llm.cache.ttl.days", "30"))),
+        Long.parseLong(ConfigLoader.getProperty("llm.cache.max.mb", "256")) << 20,
+        Long.parseLong(ConfigLoader.getProperty("llm.cache.segment.mb", "16")) << 20);
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final long segmentBytes;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readers = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Guarded by this
+    private final TreeMap<Integer, Long> segmentSizes = new TreeMap<>();
+    private FileChannel writer;
+    private int segment;
+    private boolean disabled;
+
+    public static LlmResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    LlmResponseCache(Path directory, long ttlMillis, long maxBytes, long segmentBytes) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = Math.max(HEADER_BYTES + RECORD_HEADER_BYTES, segmentBytes);
+        try {
+            open();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "LLM response cache unavailable at " + directory, e);
+            disabled = true;
+        }
+    }
+
+    private static final class Location {
+        final int segment;
+        final long offset;     // of the value
+        final int length;
+        final long expiresAt;
+
+        Location(int segment, long offset, int length, long expiresAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Cache key of one model call. The template id names the prompt and how its output
+     * is used; bump its version when either changes in a way the prompt text does not show.
+     */
+    public static String key(String model, String template, double temperature, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{model, template, Double.toString(temperature), prompt}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ============================================
+    // READ / WRITE
+    // ============================================
+
+    /**
+     * The cached response, or null.
+     */
+    public String get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            misses.increment();
+            return null;
+        }
+        if (location.expiresAt < System.currentTimeMillis()) {
+            index.remove(key, location);
+            misses.increment();
+            return null;
+        }
+        FileChannel channel = readers.get(location.segment);
+        if (channel == null) {
+            misses.increment();
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length + 4);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new IOException("Truncated entry");
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, location.length);
+            if ((int) crc.getValue() != buffer.getInt(location.length)) {
+                throw new IOException("Checksum mismatch");
+            }
+            hits.increment();
+            return new String(buffer.array(), 0, location.length, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Segment evicted under us or damaged on disk
+            index.remove(key, location);
+            misses.increment();
+            logger.fine("LLM cache entry dropped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        write(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Forget an entry, e.g. a response that turned out to be unusable.
+     */
+    public void remove(String key) {
+        if (index.remove(key) != null) {
+            write(key, null);
+        }
+    }
+
+    public synchronized void sync() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.force(false);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "LLM cache sync failed", e);
+        }
+    }
+
+    public synchronized void close() {
+        sync();
+        for (FileChannel channel : readers.values()) {
+            closeQuietly(channel);
+        }
+        readers.clear();
+        closeQuietly(writer);
+        writer = null;
+        disabled = true;
+    }
+
+    public static final class Stats {
+        private final int entries;
+        private final long bytes;
+        private final int segments;
+        private final long hits;
+        private final long misses;
+
+        Stats(int entries, long bytes, int segments, long hits, long misses) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.segments = segments;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public int getEntries() { return entries; }
+        public long getBytes() { return bytes; }
+        public int getSegments() { return segments; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+    }
+
+    public synchronized Stats getStats() {
+        long bytes = 0;
+        for (long size : segmentSizes.values()) {
+            bytes += size;
+        }
+        return new Stats(index.size(), bytes, segmentSizes.size(), hits.sum(), misses.sum());
+    }
+
+    private synchronized void write(String key, byte[] value) {
+        if (disabled) {
+            return;
+        }
+        int valueLength = (value == null) ? -1 : value.length;
+        int recordBytes = RECORD_HEADER_BYTES + Math.max(0, valueLength) + 4;
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes).order(ByteOrder.BIG_ENDIAN);
+        record.putInt(recordBytes - 4);
+        record.put(HexFormat.of().parseHex(key));
+        record.putLong(now);
+        record.putInt(valueLength);
+        CRC32 crc = new CRC32();
+        if (value != null) {
+            record.put(value);
+            crc.update(value);
+        }
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        try {
+            long size = segmentSizes.get(segment);
+            if (size > HEADER_BYTES && size + recordBytes > segmentBytes) {
+                rotate();
+                size = segmentSizes.get(segment);
+            }
+            long position = size;
+            while (record.hasRemaining()) {
+                writer.write(record);
+            }
+            segmentSizes.put(segment, size + recordBytes);
+            if (value != null) {
+                index.put(key, new Location(segment, position + RECORD_HEADER_BYTES, valueLength, expiresAt));
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "LLM cache write failed, cache disabled until restart", e);
+            disabled = true;
+        }
+    }
+
+    // ============================================
+    // SEGMENTS
+    // ============================================
+
+    private void open() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        boolean lastReadable = false;
+        for (Path file : files) {
+            int number = segmentNumber(file);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            long valid = scan(number, channel);
+            lastReadable = valid >= 0;
+            readers.put(number, channel);
+            segmentSizes.put(number, lastReadable ? valid : channel.size());
+            segment = number;
+        }
+
+        if (!lastReadable) {
+            createSegment(segment + 1);
+        } else {
+            writer = FileChannel.open(segmentPath(segment), StandardOpenOption.WRITE);
+            long valid = segmentSizes.get(segment);
+            if (writer.size() != valid) {
+                logger.warning("LLM cache " + segmentPath(segment).getFileName() + ": truncating torn tail");
+                writer.truncate(valid);
+            }
+            writer.position(valid);
+        }
+        evict();
+        logger.info("💾 LLM response cache: " + index.size() + " entries in " + segmentSizes.size() +
+                    " segments, loaded in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /** Index a segment's records; returns the length of its intact prefix, or -1 if the header is bad. */
+    private long scan(int number, FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        if (size < HEADER_BYTES || channel.read(header.limit(HEADER_BYTES), 0) < HEADER_BYTES
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            logger.warning("Ignoring unreadable LLM cache segment " + number);
+            return -1;
+        }
+
+        long now = System.currentTimeMillis();
+        byte[] keyBytes = new byte[KEY_BYTES];
+        long position = HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (channel.read(header, position + header.position()) < 0) break;
+            }
+            header.flip();
+            int length = header.getInt();
+            if (length < RECORD_HEADER_BYTES || position + 4 + length > size) {
+                break; // torn tail
+            }
+            header.get(keyBytes);
+            long expiresAt = header.getLong() + ttlMillis;
+            int valueLength = header.getInt();
+            String key = HexFormat.of().formatHex(keyBytes);
+            if (valueLength < 0 || expiresAt < now) {
+                index.remove(key);
+            } else {
+                index.put(key, new Location(number, position + RECORD_HEADER_BYTES, valueLength, expiresAt));
+            }
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    private void rotate() throws IOException {
+        writer.force(false);
+        closeQuietly(writer);
+        createSegment(segment + 1);
+        evict();
+    }
+
+    private void createSegment(int number) throws IOException {
+        Path file = segmentPath(number);
+        writer = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                  StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            writer.write(header);
+        }
+        readers.put(number, FileChannel.open(file, StandardOpenOption.READ));
+        segmentSizes.put(number, (long) HEADER_BYTES);
+        segment = number;
+    }
+
+    /** Delete the oldest segments until the cache fits its cap. */
+    private void evict() {
+        long total = 0;
+        for (long size : segmentSizes.values()) {
+            total += size;
+        }
+        while (total > maxBytes && segmentSizes.size() > 1) {
+            Map.Entry<Integer, Long> oldest = segmentSizes.pollFirstEntry();
+            int number = oldest.getKey();
+            total -= oldest.getValue();
+            index.values().removeIf(location -> location.segment == number);
+            closeQuietly(readers.remove(number));
+            try {
+                Files.deleteIfExists(segmentPath(number));
+            } catch (IOException e) {
+                logger.warning("Could not delete LLM cache segment " + number + ": " + e.getMessage());
+            }
+            logger.info("🧹 LLM cache evicted segment " + number);
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to do
+            }
+        }
+    }
+
+    private static Path directory() {
+        String configured = ConfigLoader.getProperty("llm.cache.directory");
+        if (configured == null || configured.trim().isEmpty()) {
+            configured = System.getProperty("user.home") + File.separator + "BookAI"
+                       + File.separator + "llm-cache";
+        }
+        return Paths.get(configured);
+    }
+}
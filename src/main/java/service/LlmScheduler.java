@@ -0,0 +1,262 @@
+package service;
+
+import config.ConfigLoader;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+/**
+ * Admission control in front of the model server.
+ *
+ * At most llm.max.concurrency calls run at once, matching the parallelism the model
+ * server is started with (OLLAMA_NUM_PARALLEL); more would only queue inside Ollama
+ * where interactive requests cannot overtake batch ones. Waiting interactive calls
+ * always go first. Batch calls (tagging, pre-generation) take idle slots but never
+ * more than llm.batch.max.concurrency, so a slot is normally free the moment a learner
+ * asks something. Within a class, callers are served round-robin per owner (usually
+ * the user, see {@link #actingFor}), so one learner or one bulk job cannot starve the
+ * others.
+ *
+ * Calls run on the caller's thread once admitted, which keeps streaming responses on
+ * the request thread.
+ */
+public class LlmScheduler {
+
+    private static final Logger logger = Logger.getLogger(LlmScheduler.class.getName());
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    private static final LlmScheduler INSTANCE = new LlmScheduler(
+        Integer.parseInt(ConfigLoader.getProperty("llm.max.concurrency", "2")),
+        Integer.parseInt(ConfigLoader.getProperty("llm.batch.max.concurrency", "1")));
+
+    private static final ThreadLocal<String> owner = new ThreadLocal<>();
+
+    private final int maxConcurrency;
+    private final int maxBatchConcurrency;
+
+    // Guarded by this
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, ClassStats> stats = new EnumMap<>(Priority.class);
+    private int running;
+
+    public static LlmScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    LlmScheduler(int maxConcurrency, int maxBatchConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxBatchConcurrency = Math.max(1, Math.min(maxBatchConcurrency, this.maxConcurrency));
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ClassQueue());
+            stats.put(priority, new ClassStats());
+        }
+    }
+
+    /**
+     * A model call, run once a slot is free.
+     */
+    public interface LlmCall<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Attribute the model calls made by this thread to an owner for fair queuing, e.g.
+     * "user:42" or "tagging:chapter:7". Returns the previous owner, which the caller puts
+     * back with {@link #restoreOwner} in a finally block.
+     */
+    public static String actingFor(String name) {
+        String previous = owner.get();
+        owner.set(name);
+        return previous;
+    }
+
+    /**
+     * Put back the owner {@link #actingFor} returned; null clears it.
+     */
+    public static void restoreOwner(String previous) {
+        if (previous == null) owner.remove();
+        else owner.set(previous);
+    }
+
+    /**
+     * Drop this thread's owner, e.g. at the end of a background job.
+     */
+    public static void clearOwner() {
+        owner.remove();
+    }
+
+    /**
+     * Wait for a slot, run the call, free the slot.
+     */
+    public <T> T submit(Priority priority, LlmCall<T> call) throws IOException, InterruptedException {
+        String name = owner.get();
+        Ticket ticket = new Ticket(priority, (name != null) ? name : Thread.currentThread().getName());
+        synchronized (this) {
+            queues.get(priority).add(ticket);
+            dispatch();
+        }
+        try {
+            ticket.admitted.await();
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                if (!queues.get(priority).remove(ticket)) {
+                    release(ticket); // admitted while we were being interrupted
+                }
+            }
+            throw e;
+        }
+
+        try {
+            return call.call();
+        } finally {
+            synchronized (this) {
+                release(ticket);
+            }
+        }
+    }
+
+    // ============================================
+    // METRICS
+    // ============================================
+
+    public static final class Stats {
+        private final String priority;
+        private final int queued;
+        private final int running;
+        private final long completed;
+        private final double meanWaitMs;
+        private final long maxWaitMs;
+
+        Stats(Priority priority, int queued, ClassStats s) {
+            this.priority = priority.name();
+            this.queued = queued;
+            this.running = s.running;
+            this.completed = s.completed;
+            this.meanWaitMs = (s.admitted == 0) ? 0 : (double) s.totalWaitMs / s.admitted;
+            this.maxWaitMs = s.maxWaitMs;
+        }
+
+        public String getPriority() { return priority; }
+        public int getQueued() { return queued; }
+        public int getRunning() { return running; }
+        public long getCompleted() { return completed; }
+        public double getMeanWaitMs() { return meanWaitMs; }
+        public long getMaxWaitMs() { return maxWaitMs; }
+    }
+
+    public synchronized Map<String, Stats> getStats() {
+        Map<String, Stats> snapshot = new LinkedHashMap<>();
+        for (Priority priority : Priority.values()) {
+            snapshot.put(priority.name(), new Stats(priority, queues.get(priority).size, stats.get(priority)));
+        }
+        return snapshot;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    // ============================================
+    // INTERNALS
+    // ============================================
+
+    private void dispatch() {
+        while (running < maxConcurrency) {
+            Ticket next = queues.get(Priority.INTERACTIVE).poll();
+            if (next == null && stats.get(Priority.BATCH).running < maxBatchConcurrency) {
+                next = queues.get(Priority.BATCH).poll();
+            }
+            if (next == null) {
+                return;
+            }
+            long waited = System.currentTimeMillis() - next.enqueuedAt;
+            ClassStats s = stats.get(next.priority);
+            s.running++;
+            s.admitted++;
+            s.totalWaitMs += waited;
+            s.maxWaitMs = Math.max(s.maxWaitMs, waited);
+            running++;
+            if (waited > 10_000) {
+                logger.info("⏳ " + next.priority + " LLM call for " + next.owner + " waited " + waited + "ms");
+            }
+            next.admitted.countDown();
+        }
+    }
+
+    private void release(Ticket ticket) {
+        ClassStats s = stats.get(ticket.priority);
+        s.running--;
+        s.completed++;
+        running--;
+        dispatch();
+    }
+
+    private static final class Ticket {
+        final Priority priority;
+        final String owner;
+        final long enqueuedAt = System.currentTimeMillis();
+        final CountDownLatch admitted = new CountDownLatch(1);
+
+        Ticket(Priority priority, String owner) {
+            this.priority = priority;
+            this.owner = owner;
+        }
+    }
+
+    private static final class ClassStats {
+        int running;
+        long admitted;
+        long completed;
+        long totalWaitMs;
+        long maxWaitMs;
+    }
+
+    /**
+     * Per-owner FIFOs served round-robin: each poll takes the head of the owner that
+     * has waited longest for a turn.
+     */
+    private static final class ClassQueue {
+        // Insertion order is the round-robin order
+        final LinkedHashMap<String, ArrayDeque<Ticket>> byOwner = new LinkedHashMap<>();
+        int size;
+
+        void add(Ticket ticket) {
+            byOwner.computeIfAbsent(ticket.owner, k -> new ArrayDeque<>()).add(ticket);
+            size++;
+        }
+
+        Ticket poll() {
+            Iterator<Map.Entry<String, ArrayDeque<Ticket>>> it = byOwner.entrySet().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, ArrayDeque<Ticket>> first = it.next();
+            Ticket ticket = first.getValue().poll();
+            it.remove();
+            if (!first.getValue().isEmpty()) {
+                byOwner.put(first.getKey(), first.getValue()); // back of the line
+            }
+            size--;
+            return ticket;
+        }
+
+        boolean remove(Ticket ticket) {
+            ArrayDeque<Ticket> tickets = byOwner.get(ticket.owner);
+            if (tickets == null || !tickets.remove(ticket)) {
+                return false;
+            }
+            if (tickets.isEmpty()) {
+                byOwner.remove(ticket.owner);
+            }
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package service;
+
+import dao.MCQFeedbackDAO;
+import dao.QADao;
+import model.QA;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Feedback shown after an MCQ answer, generated once per (Q&A, option) instead of once
+ * per submission.
+ *
+ * The text depends only on the question, its correct answer and the chosen option, so it
+ * is produced ahead of time on a background worker (batch priority in
+ * {@link LlmScheduler}) when questions are created, stored in [MCQFeedback] and served
+ * from memory. Grading never calls the model: a missing or stale entry (the question text
+ * changed since) gets the generic text and queues its chapter for generation.
+ */
+public class MCQFeedbackService {
+
+    private static final Logger logger = Logger.getLogger(MCQFeedbackService.class.getName());
+
+    private static final MCQFeedbackService INSTANCE = new MCQFeedbackService();
+
+    private static final char[] DEFAULT_OPTIONS = {'A', 'B', 'C', 'D'};
+    private static final Pattern OPTION_LINE = Pattern.compile("(?m)^\\s*([A-D])[.)]\\s*(.*)$");
+
+    public static final String FALLBACK_CORRECT = "Chính xác! Bạn đã nắm vững kiến thức này.";
+    public static final String FALLBACK_WRONG = "Chưa chính xác. Hãy xem lại đáp án đúng và giải thích bên dưới.";
+
+    private final MCQFeedbackDAO feedbackDAO = new MCQFeedbackDAO();
+    private final QADao qaDao = new QADao();
+    private final OllamaService ollamaService = new OllamaService(LlmScheduler.Priority.BATCH);
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Integer> loadedChapters = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pendingChapters = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mcq-feedback");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static MCQFeedbackService getInstance() {
+        return INSTANCE;
+    }
+
+    /** Feedback texts of one Q&A, indexed by option A-D. */
+    private static final class Entry {
+        final int chapterId;
+        final int fingerprint;
+        final String[] texts;
+
+        Entry(int chapterId, int fingerprint, String[] texts) {
+            this.chapterId = chapterId;
+            this.fingerprint = fingerprint;
+            this.texts = texts;
+        }
+    }
+
+    // ============================================
+    // LOOKUP
+    // ============================================
+
+    /**
+     * Load a chapter's stored feedback in one query, once.
+     */
+    public void ensureChapterLoaded(int chapterId) throws SQLException {
+        if (loadedChapters.contains(chapterId)) {
+            return;
+        }
+        List<MCQFeedbackDAO.Feedback> rows = feedbackDAO.getFeedbackByChapterId(chapterId);
+        for (MCQFeedbackDAO.Feedback row : rows) {
+            store(chapterId, row.getQaId(), row.getFingerprint(), row.getOption(), row.getText());
+        }
+        loadedChapters.add(chapterId);
+        logger.fine("MCQ feedback loaded for chapter " + chapterId + ": " + rows.size());
+    }
+
+    /**
+     * Stored feedback for an option of a question with the given fingerprint, or null.
+     */
+    public String get(int qaId, char option, int fingerprint) {
+        Entry entry = entries.get(qaId);
+        int index = option - 'A';
+        if (entry == null || entry.fingerprint != fingerprint || index < 0 || index >= entry.texts.length) {
+            return null;
+        }
+        return entry.texts[index];
+    }
+
+    /**
+     * Forget a chapter's feedback, e.g. after its Q&As were deleted.
+     */
+    public void invalidateChapter(int chapterId) {
+        loadedChapters.remove(chapterId);
+        entries.values().removeIf(entry -> entry.chapterId == chapterId);
+    }
+
+    private void store(int chapterId, int qaId, int fingerprint, char option, String text) {
+        int index = option - 'A';
+        if (index < 0 || index >= DEFAULT_OPTIONS.length || text == null) {
+            return;
+        }
+        entries.compute(qaId, (id, old) -> {
+            String[] texts = (old != null && old.fingerprint == fingerprint)
+                ? old.texts.clone() : new String[DEFAULT_OPTIONS.length];
+            texts[index] = text;
+            return new Entry(chapterId, fingerprint, texts);
+        });
+    }
+
+    // ============================================
+    // GENERATION
+    // ============================================
+
+    /**
+     * Queue generation of every missing or stale feedback text of a chapter. Returns
+     * immediately; a chapter already queued is not queued twice.
+     */
+    public void pregenerate(int chapterId) {
+        if (!pendingChapters.add(chapterId)) {
+            return;
+        }
+        worker.execute(() -> {
+            pendingChapters.remove(chapterId);
+            LlmScheduler.actingFor("feedback:chapter:" + chapterId);
+            try {
+                generateChapter(chapterId);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "MCQ feedback generation failed for chapter " + chapterId, e);
+            } finally {
+                LlmScheduler.clearOwner();
+            }
+        });
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void generateChapter(int chapterId) throws SQLException {
+        ensureChapterLoaded(chapterId);
+        long start = System.currentTimeMillis();
+        int generated = 0;
+        int failed = 0;
+
+        for (QA qa : qaDao.getQAsByChapterId(chapterId)) {
+            int fingerprint = AnswerKeyCache.fingerprint(qa.getQuestion());
+            char correct = AnswerKeyCache.optionOf(qa.getAnswer());
+            String difficulty = (qa.getDifficulty() != null) ? qa.getDifficulty() : "medium";
+            Map<Character, String> options = options(qa.getQuestion());
+
+            List<MCQFeedbackDAO.Feedback> rows = new ArrayList<>();
+            for (Map.Entry<Character, String> option : options.entrySet()) {
+                if (get(qa.getQAID(), option.getKey(), fingerprint) != null) {
+                    continue;
+                }
+                try {
+                    String prompt = (option.getKey() == correct)
+                        ? buildPositivePrompt(qa.getQuestion(), qa.getAnswer(), difficulty)
+                        : buildExplanationPrompt(qa.getQuestion(), qa.getAnswer(), option.getValue(), difficulty);
+                    String text = ollamaService.answerQuestion(prompt, "");
+                    rows.add(new MCQFeedbackDAO.Feedback(qa.getQAID(), option.getKey(), fingerprint, text));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    logger.warning("Feedback for Q&A #" + qa.getQAID() + " option " + option.getKey() +
+                                   " failed: " + e.getMessage());
+                    failed++;
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                feedbackDAO.saveFeedback(rows);
+                for (MCQFeedbackDAO.Feedback row : rows) {
+                    store(chapterId, row.getQaId(), row.getFingerprint(), row.getOption(), row.getText());
+                }
+                generated += rows.size();
+            }
+        }
+
+        if (generated > 0 || failed > 0) {
+            logger.info("💬 MCQ feedback for chapter " + chapterId + ": " + generated + " generated, " +
+                        failed + " failed in " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * Option letter -> option line ("C. ...") as listed in the question text; A-D by
+     * letter alone if the question lists none.
+     */
+    static Map<Character, String> options(String question) {
+        Map<Character, String> options = new TreeMap<>();
+        Matcher m = OPTION_LINE.matcher(question != null ? question : "");
+        while (m.find()) {
+            options.put(m.group(1).charAt(0), m.group(0).trim());
+        }
+        if (options.isEmpty()) {
+            for (char option : DEFAULT_OPTIONS) {
+                options.put(option, String.valueOf(option));
+            }
+        }
+        return options;
+    }
+
+    private static String buildPositivePrompt(String question, String answer, String difficulty) {
+        return "Câu hỏi: " + question + "\n" +
+               "Đáp án đúng: " + answer + "\n" +
+               "Độ khó: " + difficulty + "\n\n" +
+               "Sinh viên đã trả lời ĐÚNG. Hãy cho 1 câu nhận xét ngắn gọn (tối đa 20 từ), " +
+               "khuyến khích và giải thích vì sao đáp án này đúng. " +
+               "Viết bằng tiếng Việt, thân thiện.";
+    }
+
+    private static String buildExplanationPrompt(String question, String correctAnswer,
+                                                 String chosenOption, String difficulty) {
+        return "Câu hỏi: " + question + "\n" +
+               "Đáp án đúng: " + correctAnswer + "\n" +
+               "Sinh viên chọn: " + chosenOption + "\n" +
+               "Độ khó: " + difficulty + "\n\n" +
+               "Sinh viên đã trả lời SAI. Hãy giải thích ngắn gọn (tối đa 30 từ) " +
+               "vì sao đáp án đúng là đúng và đáp án sinh viên chọn là sai. " +
+               "Viết bằng tiếng Việt, thân thiện, giúp sinh viên hiểu.";
+    }
+}
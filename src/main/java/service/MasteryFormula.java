@@ -0,0 +1,35 @@
+package service;
+
+/**
+ * Chapter mastery score: the mean over a user's attempts in the chapter of
+ * 60 points for a correct answer plus 0.4 x the AI score.
+ *
+ * The SQL expression used by the mastery MERGE and the Java form used by quiz sessions
+ * and {@link AttemptReplay} are both built from the constants here, so a formula
+ * change is made once and historical rows can be rebuilt from the attempt log.
+ */
+public final class MasteryFormula {
+
+    public static final int CORRECT_POINTS = 60;
+    public static final double AI_SCORE_WEIGHT = 0.4;
+
+    /**
+     * Aggregate over UserQAPerformance rows of one (user, chapter).
+     */
+    public static final String SQL =
+        "CASE WHEN COUNT(*) > 0 THEN " +
+        "(SUM(CASE WHEN IsCorrect = 1 THEN " + CORRECT_POINTS + " ELSE 0 END) + " +
+        "SUM(ISNULL(AIScore, 0) * " + AI_SCORE_WEIGHT + ")) / COUNT(*) " +
+        "ELSE 0 END";
+
+    private MasteryFormula() {
+    }
+
+    public static double points(boolean isCorrect, double aiScore) {
+        return (isCorrect ? CORRECT_POINTS : 0) + aiScore * AI_SCORE_WEIGHT;
+    }
+
+    public static double score(double pointSum, int attempts) {
+        return (attempts > 0) ? pointSum / attempts : 0.0;
+    }
+}
@@ -6,11 +6,15 @@ import com.google.gson.JsonParser;
 import config.ConfigAPIKey;
 import dao.QADao;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -36,7 +40,26 @@ public class OllamaService {
     private static final int OLLAMA_TIMEOUT_SECONDS = 180;
     private static final int HEALTH_CHECK_TIMEOUT = 5;
     
+    private final LlmScheduler scheduler = LlmScheduler.getInstance();
+    private final LlmScheduler.Priority priority;
+    
+    // Cache key parts: the Flask proxy picks its own model and sampling settings
+    private static final String OLLAMA_MODEL = "llama3.2";
+    private static final String FLASK_MODEL = "flask-chat";
+    private static final double SERVER_DEFAULT_TEMPERATURE = -1;
+    
+    private final LlmResponseCache cache = LlmResponseCache.getInstance();
+    
     public OllamaService() {
+        this(LlmScheduler.Priority.INTERACTIVE);
+    }
+    
+    /**
+     * @param priority scheduling class of every model call made through this instance;
+     *                 BATCH for background work nobody is waiting on
+     */
+    public OllamaService(LlmScheduler.Priority priority) {
+        this.priority = priority;
         String configUrl = ConfigAPIKey.getProperty("ollama.flask.api.url");
         this.FLASK_API_URL = (configUrl != null) ? configUrl : "http://localhost:5001/chat";
         
@@ -82,7 +105,7 @@ public class OllamaService {
     public boolean isOllamaHealthy() {
         try {
             JSONObject requestBody = new JSONObject();
-            requestBody.put("model", "llama3.2");
+            requestBody.put("model", OLLAMA_MODEL);
             requestBody.put("prompt", "ping");
             requestBody.put("stream", false);
             
@@ -105,6 +128,10 @@ public class OllamaService {
     }
     
     private String sendFlaskMessage(String message) throws IOException, InterruptedException {
+        return scheduler.submit(priority, () -> sendFlaskMessageNow(message));
+    }
+    
+    private String sendFlaskMessageNow(String message) throws IOException, InterruptedException {
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("message", message);
         
@@ -132,6 +159,10 @@ public class OllamaService {
     }
     
     private String sendOllamaRequest(String requestBody) throws IOException, InterruptedException {
+        return scheduler.submit(priority, () -> sendOllamaRequestNow(requestBody));
+    }
+    
+    private String sendOllamaRequestNow(String requestBody) throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(OLLAMA_API_URL))
             .header("Content-Type", "application/json")
@@ -149,14 +180,184 @@ public class OllamaService {
         return response.body();
     }
     
+    // ============================================
+    // RESPONSE CACHE
+    // ============================================
+    
+    /**
+     * Reply of the Flask proxy to a prompt, from the response cache when the same
+     * template and prompt were answered before.
+     */
+    private String cachedFlaskMessage(String template, String prompt) throws IOException, InterruptedException {
+        String key = LlmResponseCache.key(FLASK_MODEL, template, SERVER_DEFAULT_TEMPERATURE, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            logger.info("Response cache hit (" + template + ")");
+            return cached;
+        }
+        String text = sendFlaskMessage(prompt);
+        cache.put(key, text);
+        return text;
+    }
+    
+    /**
+     * Non-streaming Ollama generation, returning the generated text.
+     */
+    private String generateText(String prompt, double temperature) throws IOException, InterruptedException {
+        JSONObject request = new JSONObject();
+        request.put("model", OLLAMA_MODEL);
+        request.put("prompt", prompt);
+        request.put("stream", false);
+        request.put("temperature", temperature);
+        
+        String jsonResponse = sendOllamaRequest(request.toString());
+        JSONObject responseObj = new JSONObject(jsonResponse);
+        return responseObj.getString("response");
+    }
+    
+    // ============================================
+    // STREAMING
+    // ============================================
+    
+    /**
+     * Receives generated text piece by piece. Throwing stops the generation.
+     */
+    public interface TokenSink {
+        void accept(String token) throws IOException;
+    }
+    
+    /**
+     * Generate with "stream": true and hand each NDJSON chunk's text to the sink as soon
+     * as Ollama produces it. Returns the full text once the final chunk arrives.
+     *
+     * Streaming talks to Ollama directly: the Flask /chat proxy only returns whole replies.
+     */
+    public String streamOllamaRequest(String prompt, double temperature, TokenSink sink) 
+            throws IOException, InterruptedException {
+        
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", OLLAMA_MODEL);
+        requestBody.put("prompt", prompt);
+        requestBody.put("stream", true);
+        requestBody.put("temperature", temperature);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(OLLAMA_API_URL))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(OLLAMA_TIMEOUT_SECONDS))
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+            .build();
+        
+        return scheduler.submit(priority, () -> streamResponse(request, sink));
+    }
+    
+    /**
+     * Stream a templated prompt; a cached reply is handed to the sink in one piece and a
+     * completed stream is cached.
+     */
+    private String streamCached(String template, String prompt, double temperature, TokenSink sink) 
+            throws IOException, InterruptedException {
+        String key = LlmResponseCache.key(OLLAMA_MODEL, template, temperature, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            logger.info("Response cache hit (" + template + ")");
+            sink.accept(cached);
+            return cached;
+        }
+        String text = streamOllamaRequest(prompt, temperature, sink);
+        cache.put(key, text);
+        return text;
+    }
+    
+    private String streamResponse(HttpRequest request, TokenSink sink) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        HttpResponse<InputStream> response = httpClient.send(request, 
+            HttpResponse.BodyHandlers.ofInputStream());
+        
+        // Closing the body early cancels the generation on the Ollama side
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            
+            if (response.statusCode() != 200) {
+                throw new IOException("Ollama API request failed: " + response.statusCode());
+            }
+            
+            StringBuilder text = new StringBuilder();
+            long firstTokenMillis = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JSONObject chunk = new JSONObject(line);
+                if (chunk.has("error")) {
+                    throw new IOException("Ollama API error: " + chunk.getString("error"));
+                }
+                String token = chunk.optString("response", "");
+                if (!token.isEmpty()) {
+                    if (firstTokenMillis < 0) {
+                        firstTokenMillis = System.currentTimeMillis() - startTime;
+                    }
+                    text.append(token);
+                    sink.accept(token);
+                }
+                if (chunk.optBoolean("done", false)) {
+                    logger.info(String.format("Streamed %d chars (first token %dms, total %.1fs)", 
+                        text.length(), firstTokenMillis, (System.currentTimeMillis() - startTime) / 1000.0));
+                    return text.toString();
+                }
+            }
+            throw new IOException("Ollama stream ended before the final chunk");
+        }
+    }
+    
+    public String streamChapterSummary(String chapterTitle, String chapterContent, TokenSink sink) 
+            throws IOException, InterruptedException {
+        logger.info("Streaming summary for: " + chapterTitle);
+        return streamCached("summary.v1", buildSummaryPrompt(chapterTitle, chapterContent), 0.7, sink).trim();
+    }
+    
+    public String streamStudyQuestions(String chapterTitle, String chapterContent, TokenSink sink) 
+            throws IOException, InterruptedException {
+        logger.info("Streaming study questions for: " + chapterTitle);
+        return streamCached("study-questions.v1", buildStudyQuestionsPrompt(chapterTitle, chapterContent), 0.7, sink).trim();
+    }
+    
+    public String streamKeyConcepts(String chapterTitle, String chapterContent, TokenSink sink) 
+            throws IOException, InterruptedException {
+        logger.info("Streaming key concepts for: " + chapterTitle);
+        return streamCached("key-concepts.v1", buildKeyConceptsPrompt(chapterTitle, chapterContent), 0.7, sink).trim();
+    }
+    
+    public String streamAnswer(String question, String context, TokenSink sink) 
+            throws IOException, InterruptedException {
+        logger.info("Streaming answer...");
+        return streamCached("answer.v1", buildAnswerPrompt(question, context), 0.7, sink).trim();
+    }
+    
     
     public String generateChapterSummary(String chapterTitle, String chapterContent) 
             throws IOException, InterruptedException {
         
+        String prompt = buildSummaryPrompt(chapterTitle, chapterContent);
+        
+        logger.info("Generating summary for: " + chapterTitle);
+        long startTime = System.currentTimeMillis();
+        
+        String summary = cachedFlaskMessage("summary.v1", prompt);
+        
+        long duration = System.currentTimeMillis() - startTime;
+        logger.info(String.format("Summary generated in %.1fs (%d chars)", 
+            duration / 1000.0, summary.length()));
+        
+        return summary.trim();
+    }
+    
+    private String buildSummaryPrompt(String chapterTitle, String chapterContent) {
         String contentSample = chapterContent.substring(0, 
             Math.min(3000, chapterContent.length()));
         
-        String prompt = String.format(
+        return String.format(
             "Hãy tóm tắt chương sau bằng tiếng Việt (khoảng 100-150 từ):\n\n" +
             "Tiêu đề: %s\n\n" +
             "Nội dung:\n%s\n\n" +
@@ -167,17 +368,6 @@ public class OllamaService {
             chapterTitle,
             contentSample
         );
-        
-        logger.info("Generating summary for: " + chapterTitle);
-        long startTime = System.currentTimeMillis();
-        
-        String summary = sendFlaskMessage(prompt);
-        
-        long duration = System.currentTimeMillis() - startTime;
-        logger.info(String.format("Summary generated in %.1fs (%d chars)", 
-            duration / 1000.0, summary.length()));
-        
-        return summary.trim();
     }
     
     
@@ -192,7 +382,7 @@ public class OllamaService {
             String prompt = buildMCQPrompt(summary, numQuestions);
             
             JSONObject request = new JSONObject();
-            request.put("model", "llama3.2");
+            request.put("model", OLLAMA_MODEL);
             request.put("prompt", prompt);
             request.put("stream", false);
             request.put("temperature", 0.7);
@@ -367,19 +557,17 @@ public class OllamaService {
 }
     
     public String generateShortFeedback(String prompt) throws Exception {
-        logger.info("Generating short feedback...");
-        
-        JSONObject request = new JSONObject();
-        request.put("model", "llama3.2");
-        request.put("prompt", prompt);
-        request.put("stream", false);
-        request.put("temperature", 0.7);
+        String key = LlmResponseCache.key(OLLAMA_MODEL, "short-feedback.v1", 0.7, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
         
-        String jsonResponse = sendOllamaRequest(request.toString());
-        JSONObject responseObj = new JSONObject(jsonResponse);
-        String generatedText = responseObj.getString("response");
+        logger.info("Generating short feedback...");
+        String generatedText = generateText(prompt, 0.7).trim();
+        cache.put(key, generatedText);
         
-        return generatedText.trim();
+        return generatedText;
     }
     
 
@@ -391,17 +579,18 @@ public class OllamaService {
         
         String prompt = buildEvaluationPrompt(question, correctAnswer, userAnswer, difficulty);
         
-        JSONObject request = new JSONObject();
-        request.put("model", "llama3.2");
-        request.put("prompt", prompt);
-        request.put("stream", false);
-        request.put("temperature", 0.3);
+        // Only replies that parse are cached, so a malformed one is retried next time
+        String key = LlmResponseCache.key(OLLAMA_MODEL, "evaluation.v1", 0.3, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return parseEvaluationResult(cached);
+        }
         
-        String jsonResponse = sendOllamaRequest(request.toString());
-        JSONObject responseObj = new JSONObject(jsonResponse);
-        String generatedText = responseObj.getString("response");
+        String generatedText = generateText(prompt, 0.3);
+        AnswerEvaluationResult result = parseEvaluationResult(generatedText);
+        cache.put(key, generatedText);
         
-        return parseEvaluationResult(generatedText);
+        return result;
     }
     
     private String buildEvaluationPrompt(String question, String correctAnswer, 
@@ -491,10 +680,20 @@ public class OllamaService {
     public String generateStudyQuestions(String chapterTitle, String chapterContent) 
         throws IOException, InterruptedException {
     
+    String prompt = buildStudyQuestionsPrompt(chapterTitle, chapterContent);
+    
+    logger.info("Generating study questions for: " + chapterTitle);
+    String questions = cachedFlaskMessage("study-questions.v1", prompt);
+    logger.info("Study questions generated");
+    
+    return questions.trim();
+}
+
+private String buildStudyQuestionsPrompt(String chapterTitle, String chapterContent) {
     String contentSample = chapterContent.substring(0, 
         Math.min(3000, chapterContent.length()));
     
-    String prompt = String.format(
+    return String.format(
         "Dựa vào nội dung chương sau, hãy tạo 5 câu hỏi ôn tập (có đáp án) " +
         "bằng tiếng Việt:\n\n" +
         "Chương: %s\n\n" +
@@ -507,21 +706,25 @@ public class OllamaService {
         chapterTitle,
         contentSample
     );
-    
-    logger.info("Generating study questions for: " + chapterTitle);
-    String questions = sendFlaskMessage(prompt);
-    logger.info("Study questions generated");
-    
-    return questions.trim();
 }
 
 public String extractKeyConcepts(String chapterTitle, String chapterContent) 
         throws IOException, InterruptedException {
     
+    String prompt = buildKeyConceptsPrompt(chapterTitle, chapterContent);
+    
+    logger.info("Extracting key concepts from: " + chapterTitle);
+    String concepts = cachedFlaskMessage("key-concepts.v1", prompt);
+    logger.info("Key concepts extracted");
+    
+    return concepts.trim();
+}
+
+private String buildKeyConceptsPrompt(String chapterTitle, String chapterContent) {
     String contentSample = chapterContent.substring(0, 
         Math.min(3000, chapterContent.length()));
     
-    String prompt = String.format(
+    return String.format(
         "Từ chương sách sau, hãy liệt kê 5-8 khái niệm/thuật ngữ quan trọng nhất " +
         "kèm giải thích ngắn gọn bằng tiếng Việt:\n\n" +
         "Tiêu đề: %s\n\n" +
@@ -530,12 +733,6 @@ public String extractKeyConcepts(String chapterTitle, String chapterContent)
         chapterTitle,
         contentSample
     );
-    
-    logger.info("Extracting key concepts from: " + chapterTitle);
-    String concepts = sendFlaskMessage(prompt);
-    logger.info("Key concepts extracted");
-    
-    return concepts.trim();
 }
  
     
@@ -544,17 +741,17 @@ public String extractKeyConcepts(String chapterTitle, String chapterContent)
         
         String prompt = buildTaggingPrompt(question, answer, difficulty);
         
-        JSONObject request = new JSONObject();
-        request.put("model", "llama3.2");
-        request.put("prompt", prompt);
-        request.put("stream", false);
-        request.put("temperature", 0.3);
+        String key = LlmResponseCache.key(OLLAMA_MODEL, "tagging.v1", 0.3, prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return parseTaggingResult(cached);
+        }
         
-        String jsonResponse = sendOllamaRequest(request.toString());
-        JSONObject responseObj = new JSONObject(jsonResponse);
-        String generatedText = responseObj.getString("response");
+        String generatedText = generateText(prompt, 0.3);
+        QATaggingResult result = parseTaggingResult(generatedText);
+        cache.put(key, generatedText);
 
-        return parseTaggingResult(generatedText);
+        return result;
     }
 
     private String buildTaggingPrompt(String question, String answer, String difficulty) {
@@ -640,11 +837,21 @@ public String extractKeyConcepts(String chapterTitle, String chapterContent)
     public String answerQuestion(String question, String context) 
             throws IOException, InterruptedException {
         
+        String prompt = buildAnswerPrompt(question, context);
+        
+        logger.info("Answering question...");
+        String answer = cachedFlaskMessage("answer.v1", prompt);
+        logger.info("Answer generated");
+        
+        return answer.trim();
+    }
+    
+    private String buildAnswerPrompt(String question, String context) {
         String contextSample = context.length() > 0 
             ? context.substring(0, Math.min(4000, context.length())) 
             : "";
         
-        String prompt = contextSample.isEmpty() 
+        return contextSample.isEmpty() 
             ? question
             : String.format(
                 "Dựa vào ngữ cảnh sau, hãy trả lời câu hỏi bằng tiếng Việt:\n\n" +
@@ -654,12 +861,6 @@ public String extractKeyConcepts(String chapterTitle, String chapterContent)
                 contextSample,
                 question
             );
-        
-        logger.info("Answering question...");
-        String answer = sendFlaskMessage(prompt);
-        logger.info("Answer generated");
-        
-        return answer.trim();
     }
     
     public void testConnection() {
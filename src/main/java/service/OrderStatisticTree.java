@@ -0,0 +1,141 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Treap of (score, userID) ordered by score descending, then userID ascending, with
+ * subtree sizes so insert, remove, rank and k-th element are O(log n) expected and
+ * top-K is O(log n + K). Not thread-safe.
+ */
+class OrderStatisticTree {
+
+    private static final class Node {
+        final double score;
+        final int userID;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(double score, int userID, int priority) {
+            this.score = score;
+            this.userID = userID;
+            this.priority = priority;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(int userID, double score) {
+        Node[] parts = split(root, score, userID);
+        root = merge(merge(parts[0], new Node(score, userID, random.nextInt())), parts[1]);
+    }
+
+    /**
+     * Remove the entry inserted with exactly this (userID, score).
+     */
+    void remove(int userID, double score) {
+        root = remove(root, score, userID);
+    }
+
+    /**
+     * Zero-based position of (userID, score): the number of entries ranked before it.
+     */
+    int rank(int userID, double score) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (compare(score, userID, node) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * User IDs of the first k entries, best first.
+     */
+    List<Integer> top(int k) {
+        List<Integer> users = new ArrayList<>(Math.min(k, size()));
+        collect(root, k, users);
+        return users;
+    }
+
+    private static void collect(Node node, int k, List<Integer> users) {
+        if (node == null || users.size() >= k) return;
+        collect(node.left, k, users);
+        if (users.size() < k) users.add(node.userID);
+        collect(node.right, k, users);
+    }
+
+    /** Negative when (score, userID) ranks before the node. */
+    private static int compare(double score, int userID, Node node) {
+        int byScore = Double.compare(node.score, score);
+        return (byScore != 0) ? byScore : Integer.compare(userID, node.userID);
+    }
+
+    /** Split into entries ranked before (score, userID) and the rest. */
+    private static Node[] split(Node node, double score, int userID) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(score, userID, node) > 0) {
+            Node[] parts = split(node.right, score, userID);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, score, userID);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node remove(Node node, double score, int userID) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(score, userID, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = remove(node.left, score, userID);
+        } else {
+            node.right = remove(node.right, score, userID);
+        }
+        update(node);
+        return node;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+}
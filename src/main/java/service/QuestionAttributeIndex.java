@@ -0,0 +1,293 @@
+package service;
+
+import dao.QADao;
+import model.QuestionBankItem;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Inverted index over the question bank: chapter, difficulty, Bloom level and every
+ * TagID in QATags (topics, concepts, question types) map to a {@link CompactBitmap} of
+ * QAIDs, so a filter is a handful of bitmap operations instead of a multi-way join.
+ *
+ * Built on first use from the question bank snapshot (or the database) and then kept
+ * current by {@link QADao}: single inserts, tag links and unlinks and metadata updates
+ * are applied directly; bulk inserts only mark the index stale and the next query pulls
+ * the delta, the same way {@link QuestionBankSnapshot#catchUp(QADao, IRTService)} does.
+ * Removing a QATags row does not touch [QA].[UpdatedAt], so the delta cannot see it:
+ * unlink tags through {@link QADao#removeTagFromQA}, not with SQL of your own.
+ */
+public class QuestionAttributeIndex {
+
+    private static final Logger logger = Logger.getLogger(QuestionAttributeIndex.class.getName());
+
+    private static final QuestionAttributeIndex INSTANCE = new QuestionAttributeIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CompactBitmap all = new CompactBitmap();
+    private final Map<Integer, CompactBitmap> byChapter = new HashMap<>();
+    private final Map<String, CompactBitmap> byDifficulty = new HashMap<>();
+    private final Map<String, CompactBitmap> byBloomLevel = new HashMap<>();
+    private final Map<Integer, CompactBitmap> byTag = new HashMap<>();
+
+    private volatile boolean loaded;
+    private volatile boolean stale;
+    private long caughtUpTo;
+    private int maxQaId;
+
+    public static QuestionAttributeIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * QAIDs matching every given constraint. Within a collection values are OR-ed
+     * (any of these chapters / difficulties / Bloom levels / tags), except allTags,
+     * whose tags must all be present; null or empty means unconstrained.
+     */
+    public CompactBitmap select(Collection<Integer> chapterIDs, Collection<String> difficulties,
+                                Collection<String> bloomLevels, Collection<Integer> allTags,
+                                Collection<Integer> anyTags) throws SQLException {
+        ensureCurrent();
+        lock.readLock().lock();
+        try {
+            CompactBitmap result = all;
+            result = restrict(result, anyOf(byChapter, chapterIDs));
+            result = restrict(result, anyOf(byDifficulty, normalize(difficulties)));
+            result = restrict(result, anyOf(byBloomLevel, normalize(bloomLevels)));
+            result = restrict(result, anyOf(byTag, anyTags));
+            if (allTags != null) {
+                for (Integer tagId : allTags) {
+                    result = CompactBitmap.and(result, bitmap(byTag, tagId));
+                }
+            }
+            return (result == all) ? all.copy() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CompactBitmap chapter(int chapterID) throws SQLException {
+        return select(List.of(chapterID), null, null, null, null);
+    }
+
+    public CompactBitmap tag(int tagID) throws SQLException {
+        return select(null, null, null, List.of(tagID), null);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE (called from QADao)
+    // ============================================
+
+    public void addQuestion(int qaId, int chapterID, String difficulty) {
+        if (!loaded) return;
+        lock.writeLock().lock();
+        try {
+            all.add(qaId);
+            bitmapFor(byChapter, chapterID).add(qaId);
+            if (difficulty != null) bitmapFor(byDifficulty, normalize(difficulty)).add(qaId);
+            maxQaId = Math.max(maxQaId, qaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addTag(int qaId, int tagID) {
+        if (!loaded) return;
+        lock.writeLock().lock();
+        try {
+            bitmapFor(byTag, tagID).add(qaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeTag(int qaId, int tagID) {
+        if (!loaded) return;
+        lock.writeLock().lock();
+        try {
+            CompactBitmap tag = byTag.get(tagID);
+            if (tag != null) tag.remove(qaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setBloomLevel(int qaId, String bloomLevel) {
+        if (!loaded) return;
+        lock.writeLock().lock();
+        try {
+            for (CompactBitmap bitmap : byBloomLevel.values()) bitmap.remove(qaId);
+            if (bloomLevel != null) bitmapFor(byBloomLevel, normalize(bloomLevel)).add(qaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeChapter(int chapterID) {
+        if (!loaded) return;
+        lock.writeLock().lock();
+        try {
+            CompactBitmap chapter = byChapter.remove(chapterID);
+            if (chapter != null) {
+                chapter.forEach(qaId -> removeEverywhere(qaId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rows were written without their IDs being known (batch insert); pull them on the
+     * next query.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    // ============================================
+    // LOADING
+    // ============================================
+
+    private void ensureCurrent() throws SQLException {
+        if (loaded && !stale) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            } else if (stale) {
+                catchUp();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws SQLException {
+        long start = System.currentTimeMillis();
+        QuestionBankSnapshot snapshot = QuestionBankSnapshot.current();
+        // Snapshot items carry no time of their own; catch up on rows changed since export
+        caughtUpTo = (snapshot != null) ? snapshot.getExportedAt() : start;
+        stale = (snapshot != null);
+        List<QuestionBankItem> items = (snapshot != null) ? snapshot.getAllItems()
+                                                          : new QADao().getQuestionBankItems(null, 0);
+
+        clear();
+        for (QuestionBankItem item : items) {
+            index(item);
+        }
+        loaded = true;
+        if (stale) {
+            catchUp();
+        }
+
+        logger.info("🔎 Question attribute index: " + all.cardinality() + " questions, " + byTag.size() +
+                    " tags, ~" + (footprint() / 1024) + " KB in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void catchUp() throws SQLException {
+        long now = System.currentTimeMillis();
+        List<QuestionBankItem> changed = new QADao().getQuestionBankItems(new Timestamp(caughtUpTo), maxQaId);
+        for (QuestionBankItem item : changed) {
+            removeEverywhere(item.getQaID());
+            index(item);
+        }
+        caughtUpTo = now;
+        stale = false;
+    }
+
+    private void index(QuestionBankItem item) {
+        int qaId = item.getQaID();
+        all.add(qaId);
+        bitmapFor(byChapter, item.getChapterID()).add(qaId);
+        if (item.getDifficulty() != null) bitmapFor(byDifficulty, normalize(item.getDifficulty())).add(qaId);
+        if (item.getBloomLevel() != null) bitmapFor(byBloomLevel, normalize(item.getBloomLevel())).add(qaId);
+        for (int tagId : item.getTagIDs()) {
+            bitmapFor(byTag, tagId).add(qaId);
+        }
+        maxQaId = Math.max(maxQaId, qaId);
+    }
+
+    private void removeEverywhere(int qaId) {
+        all.remove(qaId);
+        for (CompactBitmap bitmap : byChapter.values()) bitmap.remove(qaId);
+        for (CompactBitmap bitmap : byDifficulty.values()) bitmap.remove(qaId);
+        for (CompactBitmap bitmap : byBloomLevel.values()) bitmap.remove(qaId);
+        for (CompactBitmap bitmap : byTag.values()) bitmap.remove(qaId);
+    }
+
+    private void clear() {
+        all = new CompactBitmap();
+        byChapter.clear();
+        byDifficulty.clear();
+        byBloomLevel.clear();
+        byTag.clear();
+        maxQaId = 0;
+    }
+
+    private long footprint() {
+        long bytes = all.sizeInBytes();
+        for (CompactBitmap bitmap : byChapter.values()) bytes += bitmap.sizeInBytes();
+        for (CompactBitmap bitmap : byDifficulty.values()) bytes += bitmap.sizeInBytes();
+        for (CompactBitmap bitmap : byBloomLevel.values()) bytes += bitmap.sizeInBytes();
+        for (CompactBitmap bitmap : byTag.values()) bytes += bitmap.sizeInBytes();
+        return bytes;
+    }
+
+    private static CompactBitmap restrict(CompactBitmap result, CompactBitmap filter) {
+        return (filter == null) ? result : CompactBitmap.and(result, filter);
+    }
+
+    /**
+     * Union of the bitmaps for the given values, or null when there is no constraint.
+     */
+    private static <K> CompactBitmap anyOf(Map<K, CompactBitmap> map, Collection<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        CompactBitmap union = new CompactBitmap();
+        for (K value : values) {
+            union = CompactBitmap.or(union, bitmap(map, value));
+        }
+        return union;
+    }
+
+    private static <K> CompactBitmap bitmap(Map<K, CompactBitmap> map, K key) {
+        CompactBitmap bitmap = map.get(key);
+        return (bitmap != null) ? bitmap : new CompactBitmap();
+    }
+
+    private static <K> CompactBitmap bitmapFor(Map<K, CompactBitmap> map, K key) {
+        return map.computeIfAbsent(key, k -> new CompactBitmap());
+    }
+
+    private static List<String> normalize(Collection<String> values) {
+        return (values == null) ? null : values.stream().map(QuestionAttributeIndex::normalize).toList();
+    }
+
+    private static String normalize(String value) {
+        return (value == null) ? "" : value.trim().toLowerCase();
+    }
+}
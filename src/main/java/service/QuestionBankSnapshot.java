@@ -0,0 +1,442 @@
+package service;
+
+import dao.QADao;
+import model.ItemParameter;
+import model.QuestionBankItem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Compact binary snapshot of the question bank, memory-mapped read-only at startup.
+ *
+ * Layout (big-endian):
+ *   header     : magic, version, exportedAt, itemCount, chapterCount, tagCount, maxQaId
+ *   chapters   : chapterCount x (chapterId, firstItem, itemCount)
+ *   items      : itemCount x 32-byte records, grouped by chapter, QAID ascending
+ *   qaid index : itemCount x (qaId, itemIndex), QAID ascending
+ *   tag pool   : tagCount x tagId
+ *
+ * Rows changed after the export are fetched from the database by {@link #catchUp(QADao, IRTService)}
+ * and kept in an overlay that shadows the mapped records. Deleted questions are only
+ * dropped at the next export. Chapters whose Q&As were inserted or deleted at runtime are
+ * reported through {@link #chapterChanged}; the selection caches read those from the
+ * database until an export taken after the change is installed.
+ */
+public class QuestionBankSnapshot {
+
+    private static final Logger logger = Logger.getLogger(QuestionBankSnapshot.class.getName());
+
+    private static final int MAGIC = 0x42515342; // "BQSB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int CHAPTER_BYTES = 12;
+    private static final int ITEM_BYTES = 32;
+    private static final int INDEX_BYTES = 8;
+
+    private static final String[] DIFFICULTIES = {null, "easy", "medium", "hard"};
+    private static final String[] BLOOM_LEVELS = {null, "remember", "understand", "apply", "analyze", "evaluate", "create"};
+
+    private static volatile QuestionBankSnapshot current;
+
+    // chapterId -> time of the last runtime insert into or delete from the chapter
+    private static final Map<Integer, Long> chapterChanges = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long exportedAt;
+    private final int itemCount;
+    private final int chapterCount;
+    private final int maxQaId;
+    private final int chapterOffset;
+    private final int itemOffset;
+    private final int indexOffset;
+    private final int tagOffset;
+
+    private final Map<Integer, QuestionBankItem> overlay = new ConcurrentHashMap<>();
+    private volatile long caughtUpTo;
+
+    private QuestionBankSnapshot(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a question bank snapshot (v" + VERSION + "): " + file);
+        }
+        this.exportedAt = buffer.getLong(8);
+        this.itemCount = buffer.getInt(16);
+        this.chapterCount = buffer.getInt(20);
+        int tagCount = buffer.getInt(24);
+        this.maxQaId = buffer.getInt(28);
+
+        this.chapterOffset = HEADER_BYTES;
+        this.itemOffset = chapterOffset + chapterCount * CHAPTER_BYTES;
+        this.indexOffset = itemOffset + itemCount * ITEM_BYTES;
+        this.tagOffset = indexOffset + itemCount * INDEX_BYTES;
+
+        if ((long) tagOffset + (long) tagCount * 4 > buffer.capacity()) {
+            throw new IOException("Truncated question bank snapshot: " + file);
+        }
+        this.caughtUpTo = exportedAt;
+    }
+
+    // ============================================
+    // PROCESS-WIDE INSTANCE
+    // ============================================
+
+    public static QuestionBankSnapshot current() {
+        return current;
+    }
+
+    /**
+     * The current snapshot if it holds every Q&A of the chapter, or null if there is none
+     * or the chapter's Q&As changed after it was exported.
+     */
+    public static QuestionBankSnapshot covering(int chapterId) {
+        QuestionBankSnapshot snapshot = current;
+        if (snapshot == null) {
+            return null;
+        }
+        Long changedAt = chapterChanges.get(chapterId);
+        return (changedAt == null || changedAt < snapshot.exportedAt) ? snapshot : null;
+    }
+
+    /**
+     * Q&As were inserted into or deleted from a chapter: drop the chapter's selection
+     * caches and build them from the database until a newer export is installed. Call
+     * after the commit.
+     */
+    public static void chapterChanged(int chapterId) {
+        chapterChanges.put(chapterId, System.currentTimeMillis());
+        ItemSelectionIndex.invalidateChapter(chapterId);
+        CandidatePools.getInstance().invalidateChapter(chapterId);
+    }
+
+    public static void install(QuestionBankSnapshot snapshot) {
+        current = snapshot;
+        if (snapshot != null) {
+            chapterChanges.values().removeIf(changedAt -> changedAt < snapshot.exportedAt);
+        }
+        ItemSelectionIndex.invalidateAll();
+        CandidatePools.getInstance().invalidateAll();
+        QuizPackBuilder.getInstance().invalidateAll();
+    }
+
+    // ============================================
+    // EXPORT
+    // ============================================
+
+    /**
+     * Export the whole question bank from the database. Item parameters are filled
+     * by {@link IRTService} so the snapshot carries the betas the selector uses.
+     */
+    public static int exportFromDatabase(QADao qaDao, IRTService irtService, Path target)
+            throws SQLException, IOException {
+        // Taken before the read, so rows written during the export are picked up by catch-up
+        long exportedAt = System.currentTimeMillis();
+        List<QuestionBankItem> items = qaDao.getQuestionBankItems(null, 0);
+        for (QuestionBankItem item : items) {
+            fillParameters(item, irtService);
+        }
+        write(items, exportedAt, target);
+        return items.size();
+    }
+
+    private static void fillParameters(QuestionBankItem item, IRTService irtService) throws SQLException {
+        ItemParameter calibrated = irtService.getCalibratedParameter(item.getQaID());
+        if (calibrated != null) {
+            item.setItemDifficulty(calibrated.getDifficulty());
+            item.setDiscrimination(calibrated.getDiscrimination());
+        } else {
+            item.setItemDifficulty(irtService.estimateItemDifficulty(item.getDifficulty()));
+            item.setDiscrimination(1.0);
+        }
+    }
+
+    /**
+     * Write items to target atomically (temp file + move), so a node never maps a
+     * half-written snapshot. exportedAt is when the items were read; catch-up starts there.
+     */
+    public static void write(List<QuestionBankItem> items, long exportedAt, Path target) throws IOException {
+        long start = System.currentTimeMillis();
+
+        List<QuestionBankItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt(QuestionBankItem::getChapterID)
+                              .thenComparingInt(QuestionBankItem::getQaID));
+
+        Map<Integer, int[]> chapters = new LinkedHashMap<>(); // chapterId -> {first, count}
+        int tagCount = 0;
+        int maxQaId = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            QuestionBankItem item = sorted.get(i);
+            int index = i;
+            chapters.computeIfAbsent(item.getChapterID(), k -> new int[]{index, 0})[1]++;
+            tagCount += item.getTagIDs().length;
+            maxQaId = Math.max(maxQaId, item.getQaID());
+        }
+
+        Integer[] byQaId = new Integer[sorted.size()];
+        for (int i = 0; i < byQaId.length; i++) byQaId[i] = i;
+        java.util.Arrays.sort(byQaId, Comparator.comparingInt(i -> sorted.get(i).getQaID()));
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (OutputStream fileOut = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(exportedAt);
+            out.writeInt(sorted.size());
+            out.writeInt(chapters.size());
+            out.writeInt(tagCount);
+            out.writeInt(maxQaId);
+            out.writeInt(0); // reserved
+
+            for (Map.Entry<Integer, int[]> chapter : chapters.entrySet()) {
+                out.writeInt(chapter.getKey());
+                out.writeInt(chapter.getValue()[0]);
+                out.writeInt(chapter.getValue()[1]);
+            }
+
+            int nextTag = 0;
+            for (QuestionBankItem item : sorted) {
+                out.writeInt(item.getQaID());
+                out.writeInt(item.getChapterID());
+                out.writeByte(encode(DIFFICULTIES, item.getDifficulty()));
+                out.writeByte(encode(BLOOM_LEVELS, item.getBloomLevel()));
+                out.writeShort(item.getTagIDs().length);
+                out.writeInt(nextTag);
+                out.writeFloat((float) item.getItemDifficulty());
+                out.writeFloat((float) item.getDiscrimination());
+                out.writeLong(item.getUpdatedAt());
+                nextTag += item.getTagIDs().length;
+            }
+
+            for (Integer index : byQaId) {
+                out.writeInt(sorted.get(index).getQaID());
+                out.writeInt(index);
+            }
+
+            for (QuestionBankItem item : sorted) {
+                for (int tagId : item.getTagIDs()) {
+                    out.writeInt(tagId);
+                }
+            }
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info(String.format("💾 Exported question bank snapshot: %d items, %d chapters, %d tags in %dms -> %s",
+            sorted.size(), chapters.size(), tagCount, System.currentTimeMillis() - start, target));
+    }
+
+    // ============================================
+    // LOAD
+    // ============================================
+
+    public static QuestionBankSnapshot open(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2GB is not supported: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            QuestionBankSnapshot snapshot = new QuestionBankSnapshot(file, buffer);
+            logger.info(String.format("📦 Mapped question bank snapshot: %d items, %d chapters (exported %s) in %.1fms",
+                snapshot.itemCount, snapshot.chapterCount, new Timestamp(snapshot.exportedAt),
+                (System.nanoTime() - start) / 1_000_000.0));
+            return snapshot;
+        }
+    }
+
+    /**
+     * Pull rows inserted or updated since the export (or the last catch-up) into the overlay.
+     */
+    public int catchUp(QADao qaDao, IRTService irtService) throws SQLException {
+        long since = caughtUpTo;
+        long now = System.currentTimeMillis();
+
+        int highestKnown = maxQaId;
+        for (Integer qaId : overlay.keySet()) {
+            highestKnown = Math.max(highestKnown, qaId);
+        }
+
+        List<QuestionBankItem> changed = qaDao.getQuestionBankItems(new Timestamp(since), highestKnown);
+        for (QuestionBankItem item : changed) {
+            QuestionBankItem mapped = readByQaId(item.getQaID());
+            if (mapped != null && mapped.getUpdatedAt() == item.getUpdatedAt()) {
+                // Same row as exported: keep calibrated parameters from the snapshot
+                continue;
+            }
+            // Same parameters a full export would give the row
+            fillParameters(item, irtService);
+            overlay.put(item.getQaID(), item);
+        }
+        caughtUpTo = now;
+
+        if (!changed.isEmpty()) {
+            logger.info("🔄 Snapshot catch-up: " + changed.size() + " changed items since " + new Timestamp(since));
+        }
+        return changed.size();
+    }
+
+    /**
+     * Overlay an item changed at runtime (e.g. after tagging) without waiting for catch-up.
+     */
+    public void put(QuestionBankItem item) {
+        overlay.put(item.getQaID(), item);
+    }
+
+    // ============================================
+    // READS
+    // ============================================
+
+    public QuestionBankItem get(int qaId) {
+        QuestionBankItem changed = overlay.get(qaId);
+        return (changed != null) ? changed : readByQaId(qaId);
+    }
+
+    public List<QuestionBankItem> getChapterItems(int chapterId) {
+        List<QuestionBankItem> items = new ArrayList<>();
+
+        int chapter = findChapter(chapterId);
+        if (chapter >= 0) {
+            int base = chapterOffset + chapter * CHAPTER_BYTES;
+            int first = buffer.getInt(base + 4);
+            int count = buffer.getInt(base + 8);
+            for (int i = first; i < first + count; i++) {
+                int qaId = buffer.getInt(itemOffset + i * ITEM_BYTES);
+                QuestionBankItem changed = overlay.get(qaId);
+                items.add(changed != null ? changed : readItem(i));
+            }
+        }
+
+        for (QuestionBankItem changed : overlay.values()) {
+            if (changed.getChapterID() == chapterId && readByQaId(changed.getQaID()) == null) {
+                items.add(changed);
+            }
+        }
+        return items;
+    }
+
+    public List<QuestionBankItem> getAllItems() {
+        List<QuestionBankItem> items = new ArrayList<>(itemCount + overlay.size());
+        for (int i = 0; i < itemCount; i++) {
+            int qaId = buffer.getInt(itemOffset + i * ITEM_BYTES);
+            QuestionBankItem changed = overlay.get(qaId);
+            items.add(changed != null ? changed : readItem(i));
+        }
+        for (QuestionBankItem changed : overlay.values()) {
+            if (readByQaId(changed.getQaID()) == null) {
+                items.add(changed);
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    public long getExportedAt() {
+        return exportedAt;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private QuestionBankItem readByQaId(int qaId) {
+        int low = 0;
+        int high = itemCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(indexOffset + mid * INDEX_BYTES);
+            if (midId < qaId) {
+                low = mid + 1;
+            } else if (midId > qaId) {
+                high = mid - 1;
+            } else {
+                return readItem(buffer.getInt(indexOffset + mid * INDEX_BYTES + 4));
+            }
+        }
+        return null;
+    }
+
+    private int findChapter(int chapterId) {
+        // Directory is written in ascending chapter order
+        int low = 0;
+        int high = chapterCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(chapterOffset + mid * CHAPTER_BYTES);
+            if (midId < chapterId) {
+                low = mid + 1;
+            } else if (midId > chapterId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private QuestionBankItem readItem(int index) {
+        int base = itemOffset + index * ITEM_BYTES;
+
+        int tagCount = buffer.getShort(base + 10) & 0xFFFF;
+        int firstTag = buffer.getInt(base + 12);
+        int[] tagIds = new int[tagCount];
+        for (int t = 0; t < tagCount; t++) {
+            tagIds[t] = buffer.getInt(tagOffset + (firstTag + t) * 4);
+        }
+
+        return new QuestionBankItem(
+            buffer.getInt(base),
+            buffer.getInt(base + 4),
+            decode(DIFFICULTIES, buffer.get(base + 8)),
+            decode(BLOOM_LEVELS, buffer.get(base + 9)),
+            tagIds,
+            buffer.getFloat(base + 16),
+            buffer.getFloat(base + 20),
+            buffer.getLong(base + 24)
+        );
+    }
+
+    private static int encode(String[] table, String value) {
+        if (value == null) return 0;
+        for (int i = 1; i < table.length; i++) {
+            if (table[i].equalsIgnoreCase(value.trim())) return i;
+        }
+        return 0;
+    }
+
+    private static String decode(String[] table, byte code) {
+        return (code > 0 && code < table.length) ? table[code] : null;
+    }
+}
@@ -0,0 +1,216 @@
+package service;
+
+import com.google.gson.Gson;
+import config.ConfigLoader;
+import dao.QADao;
+import model.QA;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped offline quiz pack per chapter: every MCQ with its options, the item
+ * parameters the selector uses, and a hashed answer key, so a client can run the
+ * adaptive loop locally and send one batch to /submit-mcq-batch at the end.
+ *
+ * The key hash only keeps answers out of plain sight; it is trivially brute-forced
+ * over four options. Submissions are still graded server-side by {@link AnswerKeyCache}.
+ *
+ * The pack version is a CRC of its content, so a rebuild after an unrelated
+ * invalidation yields the same ETag and clients keep their copy.
+ */
+public class QuizPackBuilder {
+
+    private static final Logger logger = Logger.getLogger(QuizPackBuilder.class.getName());
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final QuizPackBuilder INSTANCE = new QuizPackBuilder();
+
+    private final Map<Integer, QuizPack> packs = new ConcurrentHashMap<>();
+    // Bumped by invalidation, so a build that overlapped one is not cached
+    private final Map<Integer, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+    private final Gson gson = new Gson();
+
+    public static QuizPackBuilder getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class QuizPack {
+        private final int chapterId;
+        private final String version;
+        private final byte[] gzipped;
+        private final int itemCount;
+        private final int rawBytes;
+
+        QuizPack(int chapterId, String version, byte[] gzipped, int itemCount, int rawBytes) {
+            this.chapterId = chapterId;
+            this.version = version;
+            this.gzipped = gzipped;
+            this.itemCount = itemCount;
+            this.rawBytes = rawBytes;
+        }
+
+        public int getChapterId() { return chapterId; }
+        public String getVersion() { return version; }
+        public byte[] getGzipped() { return gzipped; }
+        public int getItemCount() { return itemCount; }
+        public int getRawBytes() { return rawBytes; }
+    }
+
+    /** Serialized pack; short field names keep it small on mobile networks. */
+    private static final class PackBody {
+        int format = FORMAT_VERSION;
+        int chapterId;
+        String version;
+        double stopSE;
+        List<PackItem> items = new ArrayList<>();
+    }
+
+    private static final class PackItem {
+        int id;          // QAID
+        String q;        // question stem
+        List<String> o;  // options "A. ..."
+        String d;        // difficulty label
+        double b;        // beta
+        double a;        // discrimination
+        String k;        // keyHash(version, id, correct option)
+        int f;           // question fingerprint, echoed back on submit
+    }
+
+    public QuizPack get(int chapterId, QADao qaDao, IRTService irtService) throws SQLException, IOException {
+        QuizPack pack = packs.get(chapterId);
+        if (pack != null) {
+            return pack;
+        }
+        long generation = generationOf(chapterId);
+        QuizPack built = build(chapterId, qaDao, irtService);
+        // Checked under the key's lock, which invalidateChapter also takes
+        QuizPack cached = packs.compute(chapterId, (id, current) ->
+            (current != null) ? current : (generationOf(id) == generation) ? built : null);
+        return (cached != null) ? cached : built;
+    }
+
+    public void invalidateChapter(int chapterId) {
+        packs.compute(chapterId, (id, current) -> {
+            generations.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        packs.clear();
+    }
+
+    // Both counters only grow, so the sum changes whenever either does
+    private long generationOf(int chapterId) {
+        return epoch.get() + generations.getOrDefault(chapterId, 0L);
+    }
+
+    private QuizPack build(int chapterId, QADao qaDao, IRTService irtService) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        AnswerKeyCache answerKeys = AnswerKeyCache.getInstance();
+        answerKeys.ensureChapterLoaded(chapterId, qaDao);
+        ItemSelectionIndex index = ItemSelectionIndex.forChapter(chapterId, irtService);
+
+        PackBody body = new PackBody();
+        body.chapterId = chapterId;
+        body.stopSE = Double.parseDouble(ConfigLoader.getProperty("irt.stop.standard.error", "0.3"));
+
+        List<Character> correct = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        for (QA qa : qaDao.getQAsByChapterId(chapterId)) {
+            AnswerKeyCache.AnswerKey key = answerKeys.get(qa.getQAID(), qaDao);
+            List<String> options = options(qa.getQuestion());
+            if (key == null || options.isEmpty()) {
+                continue; // not a multiple-choice item
+            }
+            PackItem item = new PackItem();
+            item.id = qa.getQAID();
+            item.q = stem(qa.getQuestion());
+            item.o = options;
+            item.d = qa.getDifficulty();
+            int position = index.positionOf(qa.getQAID());
+            item.b = (position >= 0) ? index.getBeta(position) : irtService.estimateItemDifficulty(qa.getDifficulty());
+            item.a = (position >= 0) ? index.getDiscrimination(position) : 1.0;
+            item.f = key.getFingerprint();
+            body.items.add(item);
+            correct.add(key.getOption());
+
+            crc.update((item.id + ":" + item.f + ":" + key.getOption() + ":" + item.b + ":" + item.a + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        }
+        body.version = Long.toHexString(crc.getValue());
+        for (int i = 0; i < body.items.size(); i++) {
+            PackItem item = body.items.get(i);
+            item.k = keyHash(body.version, item.id, correct.get(i));
+        }
+
+        byte[] json = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        QuizPack pack = new QuizPack(chapterId, body.version, out.toByteArray(), body.items.size(), json.length);
+
+        logger.info("📦 Quiz pack for chapter " + chapterId + ": " + pack.getItemCount() + " items, " +
+                    json.length + " -> " + pack.getGzipped().length + " bytes in " +
+                    (System.currentTimeMillis() - start) + "ms");
+        return pack;
+    }
+
+    /**
+     * First 8 hex chars of SHA-256("version:qaId:OPTION"); the client hashes the chosen
+     * option the same way to grade locally.
+     */
+    public static String keyHash(String version, int qaId, char option) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha.digest((version + ":" + qaId + ":" + Character.toUpperCase(option))
+                .getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Option lines ("A. ...".."D. ...") after the stem, as the quiz page parses them.
+     */
+    static List<String> options(String question) {
+        List<String> options = new ArrayList<>();
+        if (question == null) {
+            return options;
+        }
+        String[] lines = question.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.matches("^[A-D]\\..*")) {
+                options.add(line);
+            }
+        }
+        return options;
+    }
+
+    static String stem(String question) {
+        return (question == null) ? "" : question.split("\n", 2)[0].trim();
+    }
+}
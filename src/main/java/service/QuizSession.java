@@ -0,0 +1,66 @@
+package service;
+
+import model.QA;
+import model.UserAbility;
+
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Server-side state of one adaptive quiz: the running ability estimate, the questions
+ * already answered, the question on screen and the questions prefetched for either
+ * outcome of it. All access goes through {@link QuizSessionStore}, which synchronizes
+ * on the session.
+ */
+public class QuizSession {
+
+    private final String id = UUID.randomUUID().toString();
+    private final int userID;
+    private final int chapterID;
+    // Latest persisted estimate, replaced after every answer
+    private volatile UserAbility ability;
+    private final BitSet answered;   // shared per-user set from UserItemHistory
+    private final long createdAt = System.currentTimeMillis();
+    private volatile long lastAccess = createdAt;
+
+    // Running mastery, same formula as UserChapterMastery.MasteryScore
+    int totalQuestions;
+    int correctAnswers;
+    double masteryPoints;
+
+    QA current;
+    double currentBeta;
+    QA nextIfCorrect;
+    QA nextIfIncorrect;
+
+    QuizSession(int userID, int chapterID, UserAbility ability, BitSet answered) {
+        this.userID = userID;
+        this.chapterID = chapterID;
+        this.ability = ability;
+        this.answered = answered;
+    }
+
+    public String getId() { return id; }
+    public int getUserID() { return userID; }
+    public int getChapterID() { return chapterID; }
+    public UserAbility getAbility() { return ability; }
+    void setAbility(UserAbility ability) { this.ability = ability; }
+    public long getCreatedAt() { return createdAt; }
+    public long getLastAccess() { return lastAccess; }
+
+    public QA getCurrent() { return current; }
+    public double getCurrentBeta() { return currentBeta; }
+
+    public int getTotalQuestions() { return totalQuestions; }
+    public int getCorrectAnswers() { return correctAnswers; }
+
+    public double getMasteryScore() {
+        return totalQuestions > 0 ? masteryPoints / totalQuestions : 0.0;
+    }
+
+    BitSet getAnswered() { return answered; }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,249 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+import dao.QADao;
+import model.QA;
+import model.UserAbility;
+import model.UserChapterMastery;
+import model.UserQAPerformance;
+
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * In-memory store of adaptive quiz sessions with idle expiry.
+ *
+ * Starting a session loads mastery, ability and the answered set once. After that,
+ * serving the next question is a lookup of the question prefetched for the outcome
+ * that actually happened; the database is only written (performance row, ability row),
+ * never scanned.
+ */
+public class QuizSessionStore {
+
+    private static final Logger logger = Logger.getLogger(QuizSessionStore.class.getName());
+
+    private static final QuizSessionStore INSTANCE = new QuizSessionStore();
+
+    private static final double CORRECT_SCORE = 100;
+    private static final double INCORRECT_SCORE = 30;
+
+    private final Map<String, QuizSession> sessions = new ConcurrentHashMap<>();
+    private final int maxQuestions =
+        Integer.parseInt(ConfigLoader.getProperty("quiz.question.cache.max", "5000"));
+    // Served questions by QAID; guarded by itself, access order makes it an LRU.
+    // Kept current by QADao on update and delete.
+    private final LinkedHashMap<Integer, QA> questions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, QA> eldest) {
+            return size() > maxQuestions;
+        }
+    };
+    private final long ttlMillis = TimeUnit.MINUTES.toMillis(
+        Long.parseLong(ConfigLoader.getProperty("quiz.session.ttl.minutes", "30")));
+
+    private final IRTService irtService = new IRTService();
+    private final AdaptiveLearningDAO adaptiveDAO = new AdaptiveLearningDAO();
+    private final QADao qaDao = new QADao();
+    private final AnswerKeyCache answerKeys = AnswerKeyCache.getInstance();
+    private final ItemExposureControl exposure = ItemExposureControl.getInstance();
+
+    public static QuizSessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    public QuizSession start(int userID, int chapterID) throws SQLException {
+        UserAbility ability = irtService.getUserAbility(userID, chapterID);
+        BitSet answered = UserItemHistory.getInstance().answered(userID, adaptiveDAO);
+        QuizSession session = new QuizSession(userID, chapterID, ability, answered);
+
+        UserChapterMastery mastery = adaptiveDAO.getMasteryScore(userID, chapterID);
+        if (mastery != null) {
+            session.totalQuestions = mastery.getTotalQuestions();
+            session.correctAnswers = mastery.getCorrectAnswers();
+            session.masteryPoints = mastery.getMasteryScore() * mastery.getTotalQuestions();
+        }
+
+        synchronized (session) {
+            advance(session, select(session, ability.getTheta(), -1));
+        }
+        sessions.put(session.getId(), session);
+
+        logger.info("🎯 Quiz session " + session.getId() + " started for user " + userID + ", chapter " + chapterID);
+        return session;
+    }
+
+    /**
+     * Live session owned by the user, or null if it is unknown or has expired.
+     */
+    public QuizSession get(String sessionId, int userID) {
+        if (sessionId == null) {
+            return null;
+        }
+        QuizSession session = sessions.get(sessionId);
+        if (session == null || session.getUserID() != userID) {
+            return null;
+        }
+        if (isExpired(session, System.currentTimeMillis())) {
+            sessions.remove(sessionId);
+            return null;
+        }
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Grade the answer to the current question, persist it and move to the prefetched
+     * next question. Returns whether the answer was correct.
+     */
+    public boolean answer(QuizSession session, int qaId, String chosenOption) throws SQLException {
+        synchronized (session) {
+            QA current = session.current;
+            if (current == null || current.getQAID() != qaId) {
+                throw new IllegalStateException("QA #" + qaId + " is not the current question of this quiz");
+            }
+
+            boolean isCorrect = AnswerKeyCache.isCorrect(answerKeys.get(qaId, qaDao), chosenOption);
+            double score = isCorrect ? CORRECT_SCORE : INCORRECT_SCORE;
+
+            UserQAPerformance performance = new UserQAPerformance();
+            performance.setUserID(session.getUserID());
+            performance.setQaID(qaId);
+            performance.setChapterID(session.getChapterID());
+            performance.setCorrect(isCorrect);
+            performance.setChosenOption(AnswerKeyCache.storedOption(chosenOption));
+            performance.setTimeSpent(0);
+            adaptiveDAO.saveUserPerformanceWithAI(performance, isCorrect ? "excellent" : "poor", score, "",
+                ItemStatisticsStore.cohortOf(session.getAbility().getTheta()));
+
+            // Folded into the stored row, not the session's copy: other sessions and batch
+            // submissions of this user and chapter may have moved it since
+            session.setAbility(irtService.recordResponse(session.getUserID(), session.getChapterID(), qaId, isCorrect));
+            // Normally the shared set already has it; not if the user was dropped from the history meanwhile
+            synchronized (session.getAnswered()) {
+                session.getAnswered().set(qaId);
+            }
+
+            session.totalQuestions++;
+            if (isCorrect) session.correctAnswers++;
+            session.masteryPoints += MasteryFormula.points(isCorrect, score);
+
+            QA next = isCorrect ? session.nextIfCorrect : session.nextIfIncorrect;
+            if (next == null || isAnswered(session, next.getQAID())) {
+                next = select(session, session.getAbility().getTheta(), -1);
+            }
+            advance(session, next);
+            return isCorrect;
+        }
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = sessions.size();
+        for (Iterator<QuizSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+            }
+        }
+        int purged = before - sessions.size();
+        if (purged > 0) {
+            logger.info("🧹 Purged " + purged + " expired quiz sessions, " + sessions.size() + " active");
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Make next the current question and prefetch the follow-up for both outcomes.
+     */
+    private void advance(QuizSession session, QA next) throws SQLException {
+        session.current = next;
+        session.nextIfCorrect = null;
+        session.nextIfIncorrect = null;
+        if (next == null) {
+            return;
+        }
+        exposure.recordExposure(session.getChapterID(), next.getQAID());
+
+        double[] item = irtService.getItemParameters(session.getChapterID(), next.getQAID());
+        session.currentBeta = item[0];
+
+        UserAbility ability = session.getAbility();
+        double thetaIfCorrect = AbilityEstimator.projectedTheta(ability, item[0], item[1], true);
+        double thetaIfIncorrect = AbilityEstimator.projectedTheta(ability, item[0], item[1], false);
+        session.nextIfCorrect = select(session, thetaIfCorrect, next.getQAID());
+        session.nextIfIncorrect = select(session, thetaIfIncorrect, next.getQAID());
+    }
+
+    private QA select(QuizSession session, double theta, int alsoExclude) throws SQLException {
+        ItemSelectionIndex index = ItemSelectionIndex.forChapter(session.getChapterID(), irtService);
+        BitSet excluded;
+        synchronized (session.getAnswered()) {
+            excluded = (BitSet) session.getAnswered().clone();
+        }
+        if (alsoExclude >= 0) {
+            excluded.set(alsoExclude);
+        }
+
+        int position = index.selectWithExposureControl(theta, excluded, exposure);
+        if (position < 0) {
+            // Everything answered: allow repeats, but not the question on screen
+            excluded.clear();
+            if (alsoExclude >= 0) excluded.set(alsoExclude);
+            position = index.selectWithExposureControl(theta, excluded, exposure);
+        }
+        return (position < 0) ? null : question(index.getQaId(position));
+    }
+
+    private QA question(int qaId) throws SQLException {
+        synchronized (questions) {
+            QA qa = questions.get(qaId);
+            if (qa != null) {
+                return qa;
+            }
+        }
+        QA qa = qaDao.getQAById(qaId);
+        if (qa != null) {
+            synchronized (questions) {
+                questions.put(qaId, qa);
+            }
+        }
+        return qa;
+    }
+
+    /**
+     * Forget a cached question, e.g. after its row was updated.
+     */
+    public void invalidateQuestion(int qaId) {
+        synchronized (questions) {
+            questions.remove(qaId);
+        }
+    }
+
+    /**
+     * Forget a chapter's cached questions, e.g. after its Q&As were deleted.
+     */
+    public void invalidateChapter(int chapterId) {
+        synchronized (questions) {
+            questions.values().removeIf(qa -> qa.getChapterID() == chapterId);
+        }
+    }
+
+    private static boolean isAnswered(QuizSession session, int qaId) {
+        synchronized (session.getAnswered()) {
+            return session.getAnswered().get(qaId);
+        }
+    }
+
+    private boolean isExpired(QuizSession session, long now) {
+        return now - session.getLastAccess() > ttlMillis;
+    }
+}
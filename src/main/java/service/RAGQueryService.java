@@ -5,12 +5,15 @@ import model.Chapter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 public class RAGQueryService {
     
     private static final Logger logger = Logger.getLogger(RAGQueryService.class.getName());
     
+    private static final String NO_RESULTS = "Không tìm thấy thông tin liên quan trong cơ sở dữ liệu.";
+    
     private final FAISSService faissService;
     private final ChapterDAO chapterDAO;
     private final OllamaService ollamaService;
@@ -26,6 +29,53 @@ public class RAGQueryService {
     public RAGResponse query(String question, int topK) throws Exception {
         logger.info("RAG Query: " + question);
         
+        Retrieval retrieval = retrieve(question, topK);
+        if (retrieval.sources.isEmpty()) {
+            return new RAGResponse(NO_RESULTS, retrieval.sources);
+        }
+        
+        // Step 4: Generate answer với Ollama
+        logger.info("Generating answer with Ollama...");
+        String answer;
+        try {
+            answer = ollamaService.answerQuestion(question, retrieval.context);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Answer generation interrupted", e);
+        }
+        
+        logger.info("✅ RAG response generated successfully");
+        return new RAGResponse(answer, retrieval.sources);
+    }
+    
+    /**
+     * Same as {@link #query} with the answer streamed to the sink as it is generated;
+     * sources are reported before the first token.
+     */
+    public RAGResponse streamQuery(String question, int topK, Consumer<List<Chapter>> onSources,
+                                   OllamaService.TokenSink sink) throws Exception {
+        logger.info("RAG streaming query: " + question);
+        
+        Retrieval retrieval = retrieve(question, topK);
+        onSources.accept(retrieval.sources);
+        if (retrieval.sources.isEmpty()) {
+            sink.accept(NO_RESULTS);
+            return new RAGResponse(NO_RESULTS, retrieval.sources);
+        }
+        
+        String answer;
+        try {
+            answer = ollamaService.streamAnswer(question, retrieval.context, sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Answer generation interrupted", e);
+        }
+        
+        logger.info("✅ RAG response streamed successfully");
+        return new RAGResponse(answer, retrieval.sources);
+    }
+    
+    private Retrieval retrieve(String question, int topK) throws Exception {
         // Step 1: Generate embedding cho question - DÙNG LOCAL
         logger.info("Generating query embedding with LocalEmbeddingService...");
         float[] queryEmbedding = embeddingService.generateEmbedding(question);
@@ -34,10 +84,7 @@ public class RAGQueryService {
         List<Integer> chapterIds = faissService.searchSimilarByVector(queryEmbedding, topK);
         
         if (chapterIds == null || chapterIds.isEmpty()) {
-            return new RAGResponse(
-                "Không tìm thấy thông tin liên quan trong cơ sở dữ liệu.",
-                new ArrayList<>()
-            );
+            return new Retrieval(new ArrayList<>(), "");
         }
         
         logger.info("Found " + chapterIds.size() + " relevant chapters");
@@ -60,18 +107,17 @@ public class RAGQueryService {
             }
         }
         
-        // Step 4: Generate answer với Ollama
-        logger.info("Generating answer with Ollama...");
-        String answer;
-        try {
-            answer = ollamaService.answerQuestion(question, context.toString());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Answer generation interrupted", e);
-        }
+        return new Retrieval(relevantChapters, context.toString());
+    }
+    
+    private static class Retrieval {
+        final List<Chapter> sources;
+        final String context;
         
-        logger.info("✅ RAG response generated successfully");
-        return new RAGResponse(answer, relevantChapters);
+        Retrieval(List<Chapter> sources, String context) {
+            this.sources = sources;
+            this.context = context;
+        }
     }
     
     public static class RAGResponse {
@@ -0,0 +1,635 @@
+package service;
+
+import dao.ReviewCardDAO;
+import model.ReviewCard;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SM-2 spaced-repetition scheduler over every (user, Q&A) card.
+ *
+ * Cards live in parallel primitive arrays addressed through a {@link LongIntMap} on the
+ * packed (userID, QAID) key, at minute resolution. Two indexes sit on top:
+ * <ul>
+ *   <li>a min-heap per user on (due minute, slot), so the next due cards of one user
+ *       are a few pops, and</li>
+ *   <li>a hierarchical timing wheel (4 levels of 64 buckets: minutes, ~hours, ~days,
+ *       ~months) that moves cards into the due-now set as time passes, so the users
+ *       with reviews due now are just the keys of a counter map.</li>
+ * </ul>
+ * Rescheduling never searches either index: the old entry is left behind and dropped
+ * when it surfaces because its due minute no longer matches the card. Changed cards are
+ * written to [ReviewCards] in batches by {@link #flush()}.
+ *
+ * Only a due card advances: a correct answer before the due time leaves the schedule as
+ * it is, a wrong one still lapses the card. Intervals are capped at MAX_INTERVAL_DAYS.
+ *
+ * The table is streamed once, by {@link #tick()} on the background thread. Reviews
+ * recorded before that finishes are queued and applied after it; a failed load is
+ * retried with exponential backoff, never from a request.
+ *
+ * Cards of deleted Q&As are dropped by {@link #forgetQuestions}; their slots are reused.
+ * A flush that still meets one (the Q&A was deleted by other means) saves card by card
+ * and drops the orphans, so one card cannot keep the rest from being written.
+ */
+public class ReviewScheduler {
+
+    private static final Logger logger = Logger.getLogger(ReviewScheduler.class.getName());
+
+    public static final int QUALITY_CORRECT = 4;
+    public static final int QUALITY_INCORRECT = 1;
+
+    private static final float INITIAL_EASE = 2.5f;
+    private static final float MIN_EASE = 1.3f;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_INTERVAL_DAYS = 365;
+    private static final int MAX_PENDING = 100_000;
+    private static final long MAX_LOAD_BACKOFF_MINUTES = 60;
+    // Due minute of a free slot; no index entry can match it
+    private static final long REMOVED = -1;
+
+    private static final ReviewScheduler INSTANCE = new ReviewScheduler();
+
+    // Card storage, guarded by this
+    private final LongIntMap slotIndex = new LongIntMap(4096);
+    private int[] cardUser = new int[4096];
+    private int[] cardQa = new int[4096];
+    private float[] ease = new float[4096];
+    private float[] interval = new float[4096];
+    private int[] repetitions = new int[4096];
+    private int[] lapses = new int[4096];
+    private long[] dueMinute = new long[4096];
+    private long[] reviewedMinute = new long[4096];
+    private int cardCount;          // slots in use or free
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final BitSet dirty = new BitSet();
+    private final BitSet dueNow = new BitSet();
+    private final Map<Integer, UserCards> users = new HashMap<>();
+    private final Map<Integer, Integer> dueCountByUser = new HashMap<>();
+    private final TimingWheel wheel = new TimingWheel();
+
+    private final ReviewCardDAO cardDAO;
+
+    // Reviews recorded before the load finished, as {userID, qaId, quality, minute}
+    private final Object pendingLock = new Object();
+    private final List<long[]> pending = new ArrayList<>();
+    private volatile boolean loaded;
+    private int loadFailures;
+    private long nextLoadMinute;
+
+    private static final class UserCards {
+        final LongHeap heap = new LongHeap();
+        int cards;
+    }
+
+    ReviewScheduler() {
+        this(new ReviewCardDAO());
+    }
+
+    ReviewScheduler(ReviewCardDAO cardDAO) {
+        this.cardDAO = cardDAO;
+    }
+
+    public static ReviewScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load every card and build both indexes, then apply the reviews queued meanwhile.
+     */
+    private void load() throws SQLException {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            wheel.reset(toMinute(start));
+            cardDAO.streamCards(this::addCard);
+        }
+        int queued = finishLoad(toMinute(System.currentTimeMillis()));
+        logger.info("🗓️ Review scheduler: " + size() + " cards, " + getUsersWithDueReviews().size() +
+                    " users with reviews due, " + queued + " queued reviews applied, loaded in " +
+                    (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Same as the background load, from the given cards at the given minute.
+     */
+    void load(List<ReviewCard> cards, long minute) {
+        synchronized (this) {
+            wheel.reset(minute);
+            cards.forEach(this::addCard);
+        }
+        finishLoad(minute);
+    }
+
+    private void addCard(ReviewCard card) {
+        int slot = slotFor(card.getUserID(), card.getQaID());
+        ease[slot] = (float) card.getEaseFactor();
+        interval[slot] = (float) Math.min(card.getIntervalDays(), MAX_INTERVAL_DAYS);
+        repetitions[slot] = card.getRepetitions();
+        lapses[slot] = card.getLapses();
+        reviewedMinute[slot] = (card.getLastReviewed() != null) ? toMinute(card.getLastReviewed().getTime()) : 0;
+        schedule(slot, (card.getDueAt() != null) ? toMinute(card.getDueAt().getTime()) : wheel.current);
+    }
+
+    private int finishLoad(long minute) {
+        synchronized (pendingLock) {
+            int queued = pending.size();
+            synchronized (this) {
+                wheel.advanceTo(minute);
+                for (long[] review : pending) {
+                    apply((int) review[0], (int) review[1], (int) review[2], review[3]);
+                }
+            }
+            pending.clear();
+            loaded = true;
+            return queued;
+        }
+    }
+
+    /**
+     * Grade a review (or a first attempt, which creates the card) and reschedule it.
+     */
+    public void recordReview(int userID, int qaId, boolean isCorrect) {
+        recordReview(userID, qaId, isCorrect ? QUALITY_CORRECT : QUALITY_INCORRECT);
+    }
+
+    /**
+     * SM-2 update for response quality 0..5; below 3 the card lapses and starts over.
+     */
+    public void recordReview(int userID, int qaId, int quality) {
+        recordReview(userID, qaId, quality, toMinute(System.currentTimeMillis()));
+    }
+
+    void recordReview(int userID, int qaId, int quality, long now) {
+        synchronized (pendingLock) {
+            if (!loaded) {
+                if (pending.size() < MAX_PENDING) {
+                    pending.add(new long[]{userID, qaId, quality, now});
+                    if (pending.size() == MAX_PENDING) {
+                        logger.warning("Review cards not loaded yet, dropping further reviews until they are");
+                    }
+                }
+                return;
+            }
+        }
+        synchronized (this) {
+            wheel.advanceTo(now);
+            apply(userID, qaId, quality, now);
+        }
+    }
+
+    /**
+     * Grade one review at the given minute. Caller holds this, with the wheel at now.
+     */
+    private void apply(int userID, int qaId, int quality, long now) {
+        int slot = slotFor(userID, qaId);
+        boolean due = dueMinute[slot] <= now; // new cards are due at minute 0
+        if (!due && quality >= 3) {
+            return; // early correct review: the schedule stands
+        }
+        if (dueNow.get(slot)) {
+            dueNow.clear(slot);
+            dueCountByUser.merge(userID, -1, (a, b) -> (a + b == 0) ? null : a + b);
+        }
+
+        if (quality >= 3) {
+            if (repetitions[slot] == 0) interval[slot] = 1;
+            else if (repetitions[slot] == 1) interval[slot] = 6;
+            else interval[slot] = Math.min(MAX_INTERVAL_DAYS, Math.round(interval[slot] * ease[slot]));
+            repetitions[slot]++;
+        } else {
+            repetitions[slot] = 0;
+            lapses[slot]++;
+            interval[slot] = 1;
+        }
+        int q = Math.max(0, Math.min(5, quality));
+        ease[slot] = Math.max(MIN_EASE, ease[slot] + 0.1f - (5 - q) * (0.08f + (5 - q) * 0.02f));
+        reviewedMinute[slot] = now;
+        dirty.set(slot);
+
+        schedule(slot, now + (long) interval[slot] * MINUTES_PER_DAY);
+    }
+
+    /**
+     * The user's next cards by due time, due ones first.
+     */
+    public synchronized List<ReviewCard> getNextDue(int userID, int limit) {
+        List<ReviewCard> next = new ArrayList<>();
+        UserCards user = users.get(userID);
+        if (!loaded || user == null) {
+            return next;
+        }
+        long[] taken = new long[Math.max(0, Math.min(limit, user.cards))];
+        int count = 0;
+        long previous = -1;
+        while (count < taken.length && user.heap.size() > 0) {
+            long entry = user.heap.poll();
+            if (entry == previous || !isCurrent(entry, userID)) {
+                continue; // stale or duplicate
+            }
+            previous = entry;
+            taken[count++] = entry;
+        }
+        for (int i = 0; i < count; i++) {
+            next.add(toCard(slotOf(taken[i])));
+            user.heap.add(taken[i]);
+        }
+        return next;
+    }
+
+    /**
+     * The user's cards that are due now, most overdue first.
+     */
+    public List<ReviewCard> getDueNow(int userID, int limit) {
+        List<ReviewCard> due = getNextDue(userID, limit);
+        long now = System.currentTimeMillis();
+        due.removeIf(card -> card.getDueAt().getTime() > now);
+        return due;
+    }
+
+    public synchronized int getDueCount(int userID) {
+        Integer count = dueCountByUser.get(userID);
+        return (count != null) ? count : 0;
+    }
+
+    /**
+     * Users with at least one review due, as of the last {@link #tick()}.
+     */
+    public synchronized Set<Integer> getUsersWithDueReviews() {
+        return new HashSet<>(dueCountByUser.keySet());
+    }
+
+    /**
+     * Advance the timing wheel to the current minute; run about once a minute on the
+     * background thread. Until the cards are loaded it (re)tries the load instead,
+     * backing off from 1 to MAX_LOAD_BACKOFF_MINUTES minutes between failures.
+     */
+    public void tick() {
+        long now = toMinute(System.currentTimeMillis());
+        if (loaded) {
+            synchronized (this) {
+                wheel.advanceTo(now);
+            }
+            return;
+        }
+        if (now < nextLoadMinute) {
+            return;
+        }
+        try {
+            load();
+            loadFailures = 0;
+        } catch (Exception e) {
+            long backoff = Math.min(MAX_LOAD_BACKOFF_MINUTES, 1L << Math.min(loadFailures, 6));
+            loadFailures++;
+            nextLoadMinute = now + backoff;
+            logger.log(Level.WARNING, "Review card loading failed, retrying in " + backoff + " min", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Drop the cards of deleted Q&As, so they are no longer listed, counted as due or
+     * written by {@link #flush()}. Reviews of them still queued for the load are dropped too.
+     */
+    public void forgetQuestions(Collection<Integer> qaIds) {
+        BitSet deleted = new BitSet();
+        for (int qaId : qaIds) {
+            if (qaId >= 0) deleted.set(qaId);
+        }
+        if (deleted.isEmpty()) {
+            return;
+        }
+        synchronized (pendingLock) {
+            pending.removeIf(review -> deleted.get((int) review[1]));
+        }
+        int removed = 0;
+        synchronized (this) {
+            for (int slot = 0; slot < cardCount; slot++) {
+                if (dueMinute[slot] != REMOVED && deleted.get(cardQa[slot])) {
+                    removeCard(slot);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.info("🗓️ Dropped " + removed + " review cards of " + deleted.cardinality() + " deleted Q&As");
+        }
+    }
+
+    /**
+     * Write changed cards in one batch. If the batch fails, cards are saved one by one:
+     * cards of Q&As that no longer exist are dropped, and the first other failure leaves
+     * that card and the rest dirty and is rethrown.
+     */
+    public int flush() throws SQLException {
+        List<ReviewCard> changed = new ArrayList<>();
+        int[] flushed;
+        synchronized (this) {
+            flushed = dirty.stream().toArray();
+            for (int slot : flushed) {
+                changed.add(toCard(slot));
+            }
+            dirty.clear();
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        try {
+            cardDAO.saveCards(changed);
+        } catch (SQLException e) {
+            logger.warning("Review card batch failed, saving cards one by one: " + e.getMessage());
+            return saveEach(changed, flushed);
+        }
+        logger.info("🗓️ Flushed " + changed.size() + " review cards");
+        return changed.size();
+    }
+
+    private int saveEach(List<ReviewCard> changed, int[] flushed) throws SQLException {
+        int saved = 0;
+        List<Integer> orphans = new ArrayList<>();
+        for (int i = 0; i < changed.size(); i++) {
+            ReviewCard card = changed.get(i);
+            try {
+                cardDAO.saveCards(List.of(card));
+                saved++;
+            } catch (SQLException e) {
+                if (ReviewCardDAO.isMissingQuestion(e)) {
+                    orphans.add(card.getQaID());
+                    continue;
+                }
+                // Not the card's fault (e.g. the database is down): keep it and the rest for the next flush
+                synchronized (this) {
+                    for (int j = i; j < changed.size(); j++) {
+                        redirty(flushed[j], changed.get(j));
+                    }
+                }
+                forgetQuestions(orphans);
+                throw e;
+            }
+        }
+        forgetQuestions(orphans);
+        logger.info("🗓️ Flushed " + saved + " review cards, dropped " + orphans.size() + " of deleted Q&As");
+        return saved;
+    }
+
+    // Caller holds this; the slot may have been freed or reused since it was flushed
+    private void redirty(int slot, ReviewCard card) {
+        if (dueMinute[slot] != REMOVED && cardUser[slot] == card.getUserID() && cardQa[slot] == card.getQaID()) {
+            dirty.set(slot);
+        }
+    }
+
+    public synchronized int size() {
+        return cardCount - freeCount;
+    }
+
+    // ============================================
+    // INTERNALS
+    // ============================================
+
+    private int slotFor(int userID, int qaId) {
+        long key = LongIntMap.pack(userID, qaId);
+        int slot = slotIndex.get(key);
+        if (slot != LongIntMap.MISSING) {
+            return slot;
+        }
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+            initSlot(slot, userID, qaId);
+            return slot;
+        }
+        if (cardCount == cardUser.length) {
+            int capacity = cardCount * 2;
+            cardUser = Arrays.copyOf(cardUser, capacity);
+            cardQa = Arrays.copyOf(cardQa, capacity);
+            ease = Arrays.copyOf(ease, capacity);
+            interval = Arrays.copyOf(interval, capacity);
+            repetitions = Arrays.copyOf(repetitions, capacity);
+            lapses = Arrays.copyOf(lapses, capacity);
+            dueMinute = Arrays.copyOf(dueMinute, capacity);
+            reviewedMinute = Arrays.copyOf(reviewedMinute, capacity);
+        }
+        slot = cardCount++;
+        initSlot(slot, userID, qaId);
+        return slot;
+    }
+
+    private void initSlot(int slot, int userID, int qaId) {
+        cardUser[slot] = userID;
+        cardQa[slot] = qaId;
+        ease[slot] = INITIAL_EASE;
+        interval[slot] = 0;
+        repetitions[slot] = 0;
+        lapses[slot] = 0;
+        dueMinute[slot] = 0;
+        reviewedMinute[slot] = 0;
+        slotIndex.put(LongIntMap.pack(userID, qaId), slot);
+        users.computeIfAbsent(userID, k -> new UserCards()).cards++;
+    }
+
+    // Index entries of the card are left behind; none matches a REMOVED due minute
+    private void removeCard(int slot) {
+        int userID = cardUser[slot];
+        slotIndex.remove(LongIntMap.pack(userID, cardQa[slot]));
+        if (dueNow.get(slot)) {
+            dueNow.clear(slot);
+            dueCountByUser.merge(userID, -1, (a, b) -> (a + b == 0) ? null : a + b);
+        }
+        dirty.clear(slot);
+        dueMinute[slot] = REMOVED;
+        UserCards user = users.get(userID);
+        if (--user.cards == 0) {
+            users.remove(userID);
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void schedule(int slot, long due) {
+        dueMinute[slot] = due;
+        long entry = entry(due, slot);
+
+        int userID = cardUser[slot];
+        UserCards user = users.get(userID);
+        user.heap.add(entry);
+        if (user.heap.size() > 2 * user.cards + 16) {
+            user.heap.removeIf(e -> !isCurrent(e, userID)); // drop entries of rescheduled or removed cards
+        }
+        wheel.add(entry);
+    }
+
+    private void markDue(int slot) {
+        if (!dueNow.get(slot)) {
+            dueNow.set(slot);
+            dueCountByUser.merge(cardUser[slot], 1, Integer::sum);
+        }
+    }
+
+    private boolean isCurrent(long entry) {
+        return dueMinute[slotOf(entry)] == dueOf(entry);
+    }
+
+    // A freed slot may since hold another user's card
+    private boolean isCurrent(long entry, int userID) {
+        return isCurrent(entry) && cardUser[slotOf(entry)] == userID;
+    }
+
+    private ReviewCard toCard(int slot) {
+        return new ReviewCard(cardUser[slot], cardQa[slot], ease[slot], interval[slot], repetitions[slot],
+            lapses[slot], new Timestamp(TimeUnit.MINUTES.toMillis(dueMinute[slot])),
+            reviewedMinute[slot] > 0 ? new Timestamp(TimeUnit.MINUTES.toMillis(reviewedMinute[slot])) : null);
+    }
+
+    // Epoch minutes fit the upper 32 bits until the year 10000
+    private static long entry(long due, int slot) {
+        return (due << 32) | slot;
+    }
+
+    private static long dueOf(long entry) {
+        return entry >>> 32;
+    }
+
+    private static int slotOf(long entry) {
+        return (int) entry;
+    }
+
+    private static long toMinute(long millis) {
+        return TimeUnit.MILLISECONDS.toMinutes(millis);
+    }
+
+    /**
+     * Hashed hierarchical timing wheel of (due minute, slot) entries. Level k buckets span
+     * 64^k minutes; when the clock crosses a bucket boundary of a higher level, that
+     * bucket is re-inserted one level down, and level 0 buckets fire.
+     */
+    private final class TimingWheel {
+        static final int BITS = 6;
+        static final int SIZE = 1 << BITS;
+        static final int LEVELS = 4;
+
+        final long[][][] buckets = new long[LEVELS][SIZE][];
+        final int[][] sizes = new int[LEVELS][SIZE];
+        long current;
+
+        void reset(long minute) {
+            for (int[] level : sizes) Arrays.fill(level, 0);
+            current = minute;
+        }
+
+        void add(long entry) {
+            long due = dueOf(entry);
+            long delta = due - current;
+            if (delta <= 0) {
+                markDue(slotOf(entry));
+                return;
+            }
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) level++;
+            int index = (int) (due >>> (BITS * level)) & (SIZE - 1);
+            push(level, index, entry);
+        }
+
+        void advanceTo(long minute) {
+            while (current < minute) {
+                current++;
+                for (int level = 1; level < LEVELS; level++) {
+                    if ((current & ((1L << (BITS * level)) - 1)) != 0) break;
+                    drain(level, (int) (current >>> (BITS * level)) & (SIZE - 1));
+                }
+                drain(0, (int) current & (SIZE - 1));
+            }
+        }
+
+        private void drain(int level, int index) {
+            long[] bucket = buckets[level][index];
+            int size = sizes[level][index];
+            if (size == 0) return;
+            buckets[level][index] = null;
+            sizes[level][index] = 0;
+            for (int i = 0; i < size; i++) {
+                if (isCurrent(bucket[i])) add(bucket[i]); // fires when due, else moves down
+            }
+        }
+
+        private void push(int level, int index, long entry) {
+            long[] bucket = buckets[level][index];
+            int size = sizes[level][index];
+            if (bucket == null) {
+                bucket = buckets[level][index] = new long[8];
+            } else if (size == bucket.length) {
+                bucket = buckets[level][index] = Arrays.copyOf(bucket, size * 2);
+            }
+            bucket[size] = entry;
+            sizes[level][index] = size + 1;
+        }
+    }
+
+    /**
+     * Binary min-heap of longs.
+     */
+    private static final class LongHeap {
+        long[] items = new long[8];
+        int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(long value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            int i = size++;
+            while (i > 0 && items[(i - 1) >>> 1] > value) {
+                items[i] = items[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            items[i] = value;
+        }
+
+        long poll() {
+            long top = items[0];
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && items[child + 1] < items[child]) child++;
+                if (items[child] >= last) break;
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+            return top;
+        }
+
+        void removeIf(LongPredicate stale) {
+            long[] kept = new long[Math.max(8, size)];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!stale.test(items[i])) kept[n++] = items[i];
+            }
+            Arrays.sort(kept, 0, n); // a sorted array is a valid heap
+            items = kept;
+            size = n;
+        }
+    }
+}
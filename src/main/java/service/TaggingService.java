@@ -15,7 +15,7 @@ public class TaggingService {
     private final OllamaService ollamaService;
     private final QADao qaDao;
     public TaggingService() {
-        this.ollamaService = new OllamaService();
+        this.ollamaService = new OllamaService(LlmScheduler.Priority.BATCH);
         this.qaDao = new QADao();
         
         logger.info("✅ TaggingService initialized");
@@ -89,11 +89,6 @@ public class TaggingService {
                 tagQA(qa);
                 success++;
                 
-
-                if (i < qas.size() - 1) {
-                    Thread.sleep(1000); 
-                }
-                
             } catch (Exception e) {
                 logger.severe("❌ Failed to tag QA #" + qa.getQAID() + ": " + e.getMessage());
                 failed++;
@@ -127,10 +122,6 @@ public class TaggingService {
                     if (qa != null) {
                         tagQA(qa);
                         success++;
-
-                        if (i < untaggedIds.size() - 1) {
-                            Thread.sleep(1000);
-                        }
                     } else {
                         logger.warning("⚠️ Q&A #" + qaId + " not found in database");
                         failed++;
@@ -169,10 +160,6 @@ public class TaggingService {
 
                     tagQA(qa);
                     success++;
-
-                    if (i < qaIds.size() - 1) {
-                        Thread.sleep(1000);
-                    }
                 } else {
                     logger.warning("⚠️ Q&A #" + qaId + " not found");
                     failed++;
@@ -0,0 +1,321 @@
+package service;
+
+import dao.QADao;
+import model.QuestionBankItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Automated test assembly: builds parallel, non-overlapping fixed-length forms that each
+ * meet a blueprint (N items per difficulty / Bloom level / tag) and carry as much Fisher
+ * information at the target theta as the bank allows.
+ *
+ * Greedy fill plus repair instead of an ILP solver:
+ * <ol>
+ *   <li>Requirements are filled scarcest first (fewest spare candidates per slot).
+ *       Each round the form with the least information so far picks first, taking the
+ *       most informative unused candidate.</li>
+ *   <li>When a requirement runs dry, an item already placed under another requirement
+ *       that also matches it is moved over, and the freed slot is refilled from that
+ *       requirement's unused candidates.</li>
+ *   <li>Finally same-requirement items are swapped between the most and least
+ *       informative forms until no swap narrows the spread.</li>
+ * </ol>
+ * Everything works on arrays of pool positions, so dozens of forms over a few thousand
+ * items take milliseconds.
+ */
+public class TestAssembler {
+
+    private static final Logger logger = Logger.getLogger(TestAssembler.class.getName());
+
+    private static final int MAX_BALANCE_SWAPS = 200;
+
+    /**
+     * One blueprint cell: count items matching every non-null attribute. tagID 0 means
+     * any tag.
+     */
+    public static class Requirement {
+        public String difficulty;
+        public String bloomLevel;
+        public int tagID;
+        public int count;
+
+        public Requirement() {
+        }
+
+        public Requirement(String difficulty, String bloomLevel, int tagID, int count) {
+            this.difficulty = difficulty;
+            this.bloomLevel = bloomLevel;
+            this.tagID = tagID;
+            this.count = count;
+        }
+
+        boolean matches(QuestionBankItem item) {
+            if (difficulty != null && !difficulty.equalsIgnoreCase(trim(item.getDifficulty()))) {
+                return false;
+            }
+            if (bloomLevel != null && !bloomLevel.equalsIgnoreCase(trim(item.getBloomLevel()))) {
+                return false;
+            }
+            if (tagID > 0) {
+                for (int tag : item.getTagIDs()) {
+                    if (tag == tagID) return true;
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public static class Blueprint {
+        public List<Integer> chapterIDs = new ArrayList<>();
+        public double targetTheta;
+        public int forms = 1;
+        public List<Requirement> requirements = new ArrayList<>();
+
+        int length() {
+            int total = 0;
+            for (Requirement r : requirements) total += Math.max(0, r.count);
+            return total;
+        }
+    }
+
+    public static class Form {
+        public int formNumber;
+        public List<Integer> qaIDs = new ArrayList<>();
+        public double information;
+        public int shortfall;
+    }
+
+    public static class AssemblyReport {
+        public int poolSize;
+        public int formsRequested;
+        public int formLength;
+        public int completeForms;
+        public int repairs;
+        public int balanceSwaps;
+        public double minInformation;
+        public double maxInformation;
+        public double elapsedMillis;
+        public List<Form> forms = new ArrayList<>();
+    }
+
+    /**
+     * Items of the blueprint's chapters with the parameters the selector uses: from the
+     * question bank snapshot when one is installed, otherwise from the database.
+     */
+    public static List<QuestionBankItem> loadPool(Collection<Integer> chapterIDs, QADao qaDao,
+                                                  IRTService irtService) throws SQLException {
+        List<QuestionBankItem> pool = new ArrayList<>();
+        QuestionBankSnapshot snapshot = QuestionBankSnapshot.current();
+        if (snapshot != null) {
+            for (int chapterID : chapterIDs) {
+                pool.addAll(snapshot.getChapterItems(chapterID));
+            }
+            return pool;
+        }
+        for (QuestionBankItem item : qaDao.getQuestionBankItems(null, 0)) {
+            if (chapterIDs.contains(item.getChapterID())) {
+                double[] params = irtService.getItemParameters(item.getChapterID(), item.getQaID());
+                item.setItemDifficulty(params[0]);
+                item.setDiscrimination(params[1]);
+                pool.add(item);
+            }
+        }
+        return pool;
+    }
+
+    public AssemblyReport assemble(Blueprint blueprint, List<QuestionBankItem> pool) {
+        long start = System.nanoTime();
+        int n = pool.size();
+        int formCount = Math.max(1, blueprint.forms);
+        List<Requirement> requirements = blueprint.requirements;
+        int reqCount = requirements.size();
+        int length = blueprint.length();
+
+        // Information of every item at the target theta, in one kernel pass
+        float[] betas = new float[n];
+        float[] as = new float[n];
+        for (int i = 0; i < n; i++) {
+            betas[i] = (float) pool.get(i).getItemDifficulty();
+            as[i] = (float) pool.get(i).getDiscrimination();
+        }
+        float[] info = new float[n];
+        IRTKernels.information((float) blueprint.targetTheta, betas, as, n, info);
+
+        // Candidates per requirement, most informative first
+        int[][] candidates = new int[reqCount][];
+        for (int r = 0; r < reqCount; r++) {
+            Requirement requirement = requirements.get(r);
+            candidates[r] = sortByInformation(pool, requirement, info);
+        }
+
+        Integer[] order = new Integer[reqCount];
+        for (int r = 0; r < reqCount; r++) order[r] = r;
+        Arrays.sort(order, (x, y) -> Integer.compare(
+            candidates[x].length - formCount * requirements.get(x).count,
+            candidates[y].length - formCount * requirements.get(y).count));
+
+        boolean[] used = new boolean[n];
+        int[] cursor = new int[reqCount];
+        int[][] slotItem = new int[formCount][length];
+        int[][] slotReq = new int[formCount][length];
+        int[] filled = new int[formCount];
+        double[] formInfo = new double[formCount];
+        int[] shortfall = new int[formCount];
+
+        AssemblyReport report = new AssemblyReport();
+        report.poolSize = n;
+        report.formsRequested = formCount;
+        report.formLength = length;
+
+        // 1. Greedy fill, weakest form picks first
+        Integer[] forms = new Integer[formCount];
+        for (int f = 0; f < formCount; f++) forms[f] = f;
+        for (int r : order) {
+            for (int k = 0; k < requirements.get(r).count; k++) {
+                Arrays.sort(forms, (x, y) -> Double.compare(formInfo[x], formInfo[y]));
+                for (int f : forms) {
+                    int item = nextUnused(candidates[r], cursor, r, used);
+                    if (item < 0) {
+                        item = repair(r, f, requirements, candidates, cursor, used, pool,
+                                      slotItem, slotReq, filled, formInfo, info, formCount);
+                        if (item >= 0) report.repairs++;
+                    }
+                    if (item < 0) {
+                        shortfall[f]++;
+                        continue;
+                    }
+                    used[item] = true;
+                    slotItem[f][filled[f]] = item;
+                    slotReq[f][filled[f]] = r;
+                    filled[f]++;
+                    formInfo[f] += info[item];
+                }
+            }
+        }
+
+        // 2. Balance information across forms
+        report.balanceSwaps = balance(formCount, slotItem, slotReq, filled, formInfo, info);
+
+        report.minInformation = Double.MAX_VALUE;
+        for (int f = 0; f < formCount; f++) {
+            Form form = new Form();
+            form.formNumber = f + 1;
+            form.information = formInfo[f];
+            form.shortfall = shortfall[f];
+            for (int s = 0; s < filled[f]; s++) {
+                form.qaIDs.add(pool.get(slotItem[f][s]).getQaID());
+            }
+            if (shortfall[f] == 0) report.completeForms++;
+            report.minInformation = Math.min(report.minInformation, formInfo[f]);
+            report.maxInformation = Math.max(report.maxInformation, formInfo[f]);
+            report.forms.add(form);
+        }
+        report.elapsedMillis = (System.nanoTime() - start) / 1e6;
+
+        logger.info(String.format("🧩 Assembled %d/%d complete forms of %d items from %d in %.1fms " +
+                                  "(repairs=%d, swaps=%d, info %.2f..%.2f)",
+            report.completeForms, formCount, length, n, report.elapsedMillis, report.repairs,
+            report.balanceSwaps, report.minInformation, report.maxInformation));
+        return report;
+    }
+
+    private static int[] sortByInformation(List<QuestionBankItem> pool, Requirement requirement, float[] info) {
+        List<Integer> matching = new ArrayList<>();
+        for (int i = 0; i < pool.size(); i++) {
+            if (requirement.matches(pool.get(i))) matching.add(i);
+        }
+        matching.sort((x, y) -> Float.compare(info[y], info[x]));
+        return matching.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int nextUnused(int[] candidates, int[] cursor, int r, boolean[] used) {
+        while (cursor[r] < candidates.length && used[candidates[cursor[r]]]) {
+            cursor[r]++;
+        }
+        return (cursor[r] < candidates.length) ? candidates[cursor[r]] : -1;
+    }
+
+    /**
+     * Free an item for requirement r: take a placed item of another requirement that
+     * also matches r and refill its slot from that requirement's unused candidates.
+     * Returns the freed item (already unmarked as used), or -1.
+     */
+    private static int repair(int r, int targetForm, List<Requirement> requirements, int[][] candidates,
+                              int[] cursor, boolean[] used, List<QuestionBankItem> pool,
+                              int[][] slotItem, int[][] slotReq, int[] filled, double[] formInfo,
+                              float[] info, int formCount) {
+        Requirement requirement = requirements.get(r);
+        for (int g = 0; g < formCount; g++) {
+            for (int s = 0; s < filled[g]; s++) {
+                int other = slotReq[g][s];
+                int item = slotItem[g][s];
+                if (other == r || !requirement.matches(pool.get(item))) {
+                    continue;
+                }
+                int replacement = nextUnused(candidates[other], cursor, other, used);
+                if (replacement < 0) {
+                    continue;
+                }
+                used[replacement] = true;
+                slotItem[g][s] = replacement;
+                formInfo[g] += info[replacement] - info[item];
+                used[item] = false;
+                return item;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Swap same-requirement items between the most and least informative forms while a
+     * swap narrows their gap. Returns the number of swaps made.
+     */
+    private static int balance(int formCount, int[][] slotItem, int[][] slotReq, int[] filled,
+                               double[] formInfo, float[] info) {
+        int swaps = 0;
+        while (formCount > 1 && swaps < MAX_BALANCE_SWAPS) {
+            int hi = 0, lo = 0;
+            for (int f = 1; f < formCount; f++) {
+                if (formInfo[f] > formInfo[hi]) hi = f;
+                if (formInfo[f] < formInfo[lo]) lo = f;
+            }
+            double gap = formInfo[hi] - formInfo[lo];
+            double bestGap = gap;
+            int bestS = -1, bestT = -1;
+            for (int s = 0; s < filled[hi]; s++) {
+                for (int t = 0; t < filled[lo]; t++) {
+                    if (slotReq[hi][s] != slotReq[lo][t]) continue;
+                    double delta = info[slotItem[hi][s]] - info[slotItem[lo][t]];
+                    double newGap = Math.abs(gap - 2 * delta);
+                    if (delta > 0 && newGap < bestGap - 1e-9) {
+                        bestGap = newGap;
+                        bestS = s;
+                        bestT = t;
+                    }
+                }
+            }
+            if (bestS < 0) {
+                break;
+            }
+            int a = slotItem[hi][bestS];
+            int b = slotItem[lo][bestT];
+            slotItem[hi][bestS] = b;
+            slotItem[lo][bestT] = a;
+            formInfo[hi] += info[b] - info[a];
+            formInfo[lo] += info[a] - info[b];
+            swaps++;
+        }
+        return swaps;
+    }
+
+    private static String trim(String value) {
+        return (value == null) ? "" : value.trim();
+    }
+}
@@ -0,0 +1,136 @@
+package service;
+
+import config.ConfigLoader;
+import dao.AdaptiveLearningDAO;
+
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user bitsets over QAIDs of the questions a learner has answered, and of those
+ * answered correctly, shared by the selectors that exclude them.
+ *
+ * Each set is loaded from UserQAPerformance on first use and then kept current by
+ * {@link #record}. At most user.history.max.users learners are held; the least recently
+ * used one is dropped beyond that, with both of its sets, and reloaded from the database
+ * when it comes back, so memory is bounded by the active users, not by everyone who ever
+ * practised.
+ *
+ * Callers read and write a returned set under its own monitor.
+ */
+public class UserItemHistory {
+
+    private static final UserItemHistory INSTANCE = new UserItemHistory(
+        Integer.parseInt(ConfigLoader.getProperty("user.history.max.users", "10000")));
+
+    private final int maxUsers;
+
+    // Guarded by this; access order makes it an LRU
+    private final LinkedHashMap<Integer, Entry> users;
+
+    public static UserItemHistory getInstance() {
+        return INSTANCE;
+    }
+
+    /** Sets of one user; either is null until first asked for. Guarded by the history. */
+    private static final class Entry {
+        BitSet answered;
+        BitSet correct;
+    }
+
+    UserItemHistory(int maxUsers) {
+        this.maxUsers = Math.max(1, maxUsers);
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > UserItemHistory.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * QAIDs the user has answered.
+     */
+    public BitSet answered(int userId, AdaptiveLearningDAO dao) throws SQLException {
+        synchronized (this) {
+            Entry entry = users.get(userId);
+            if (entry != null && entry.answered != null) {
+                return entry.answered;
+            }
+        }
+        // Load outside the lock; a concurrent loader may win, its set is used then
+        BitSet loaded = toBitSet(dao.getAnsweredQAIDs(userId));
+        synchronized (this) {
+            Entry entry = users.computeIfAbsent(userId, id -> new Entry());
+            if (entry.answered == null) {
+                entry.answered = loaded;
+            }
+            return entry.answered;
+        }
+    }
+
+    /**
+     * QAIDs the user has answered correctly at least once.
+     */
+    public BitSet correct(int userId, AdaptiveLearningDAO dao) throws SQLException {
+        synchronized (this) {
+            Entry entry = users.get(userId);
+            if (entry != null && entry.correct != null) {
+                return entry.correct;
+            }
+        }
+        BitSet loaded = toBitSet(dao.getCorrectQAIDs(userId));
+        synchronized (this) {
+            Entry entry = users.computeIfAbsent(userId, id -> new Entry());
+            if (entry.correct == null) {
+                entry.correct = loaded;
+            }
+            return entry.correct;
+        }
+    }
+
+    /**
+     * Record a graded answer in the sets held for the user; sets not held yet are left
+     * alone, since loading reads the same rows.
+     */
+    public void record(int userId, int qaId, boolean correct) {
+        if (qaId < 0) {
+            return;
+        }
+        BitSet answeredSet;
+        BitSet correctSet;
+        synchronized (this) {
+            Entry entry = users.get(userId);
+            if (entry == null) {
+                return;
+            }
+            answeredSet = entry.answered;
+            correctSet = correct ? entry.correct : null;
+        }
+        if (answeredSet != null) {
+            synchronized (answeredSet) {
+                answeredSet.set(qaId);
+            }
+        }
+        if (correctSet != null) {
+            synchronized (correctSet) {
+                correctSet.set(qaId);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return users.size();
+    }
+
+    private static BitSet toBitSet(List<Integer> qaIds) {
+        BitSet set = new BitSet();
+        for (int qaId : qaIds) {
+            set.set(qaId);
+        }
+        return set;
+    }
+}
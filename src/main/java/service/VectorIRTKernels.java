@@ -0,0 +1,78 @@
+package service;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link IRTKernels}. Only loaded reflectively when the
+ * jdk.incubator.vector module is present, so the class never links on JVMs without it.
+ */
+final class VectorIRTKernels implements IRTKernels.Impl {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void probabilities(float theta, float[] beta, float[] a, int n, float[] out, int outOffset) {
+        FloatVector one = FloatVector.broadcast(SPECIES, 1f);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector z = FloatVector.fromArray(SPECIES, beta, i).sub(theta);
+            if (a != null) {
+                z = z.mul(FloatVector.fromArray(SPECIES, a, i));
+            }
+            one.div(z.lanewise(VectorOperators.EXP).add(one)).intoArray(out, outOffset + i);
+        }
+        for (; i < n; i++) {
+            float ai = (a == null) ? 1f : a[i];
+            out[outOffset + i] = (float) (1.0 / (1.0 + Math.exp(ai * (beta[i] - theta))));
+        }
+    }
+
+    @Override
+    public void information(float theta, float[] beta, float[] a, int n, float[] out, int outOffset) {
+        FloatVector one = FloatVector.broadcast(SPECIES, 1f);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector z = FloatVector.fromArray(SPECIES, beta, i).sub(theta);
+            FloatVector av = null;
+            if (a != null) {
+                av = FloatVector.fromArray(SPECIES, a, i);
+                z = z.mul(av);
+            }
+            FloatVector p = one.div(z.lanewise(VectorOperators.EXP).add(one));
+            FloatVector info = p.mul(one.sub(p));
+            if (av != null) {
+                info = info.mul(av).mul(av);
+            }
+            info.intoArray(out, outOffset + i);
+        }
+        for (; i < n; i++) {
+            float ai = (a == null) ? 1f : a[i];
+            double p = 1.0 / (1.0 + Math.exp(ai * (beta[i] - theta)));
+            out[outOffset + i] = (float) (ai * ai * p * (1.0 - p));
+        }
+    }
+
+    @Override
+    public void probabilitiesAt(float[] thetas, int n, float beta, float a, float[] out) {
+        FloatVector one = FloatVector.broadcast(SPECIES, 1f);
+        int bound = SPECIES.loopBound(n);
+        int k = 0;
+        for (; k < bound; k += SPECIES.length()) {
+            // a * (beta - theta) = -a * theta + a * beta
+            FloatVector z = FloatVector.fromArray(SPECIES, thetas, k).mul(-a).add(a * beta);
+            one.div(z.lanewise(VectorOperators.EXP).add(one)).intoArray(out, k);
+        }
+        for (; k < n; k++) {
+            out[k] = (float) (1.0 / (1.0 + Math.exp(a * (beta - thetas[k]))));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector (" + SPECIES + ")";
+    }
+}
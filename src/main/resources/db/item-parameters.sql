@@ -0,0 +1,15 @@
+-- Calibrated IRT parameters per Q&A, written by IRTCalibrationService
+IF OBJECT_ID(N'[ItemParameters]', N'U') IS NULL
+BEGIN
+    CREATE TABLE [ItemParameters] (
+        [QAID]           INT          NOT NULL,
+        [Difficulty]     FLOAT        NOT NULL,
+        [Discrimination] FLOAT        NOT NULL CONSTRAINT [DF_ItemParameters_Discrimination] DEFAULT (1.0),
+        [StandardError]  FLOAT        NULL,
+        [Model]          NVARCHAR(16) NOT NULL,
+        [ResponseCount]  INT          NOT NULL CONSTRAINT [DF_ItemParameters_ResponseCount] DEFAULT (0),
+        [CalibratedAt]   DATETIME     NOT NULL CONSTRAINT [DF_ItemParameters_CalibratedAt] DEFAULT (GETDATE()),
+        CONSTRAINT [PK_ItemParameters] PRIMARY KEY ([QAID]),
+        CONSTRAINT [FK_ItemParameters_QA] FOREIGN KEY ([QAID]) REFERENCES [QA] ([QAID]) ON DELETE CASCADE
+    );
+END
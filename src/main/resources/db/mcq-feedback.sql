@@ -0,0 +1,14 @@
+-- Pre-generated MCQ feedback per (Q&A, option), written by MCQFeedbackService.
+-- Fingerprint is the question fingerprint the text was generated for.
+IF OBJECT_ID(N'[MCQFeedback]', N'U') IS NULL
+BEGIN
+    CREATE TABLE [MCQFeedback] (
+        [QAID]         INT           NOT NULL,
+        [ChosenOption] CHAR(1)       NOT NULL,
+        [Fingerprint]  INT           NOT NULL,
+        [Feedback]     NVARCHAR(MAX) NOT NULL,
+        [CreatedAt]    DATETIME      NOT NULL CONSTRAINT [DF_MCQFeedback_CreatedAt] DEFAULT (GETDATE()),
+        CONSTRAINT [PK_MCQFeedback] PRIMARY KEY ([QAID], [ChosenOption]),
+        CONSTRAINT [FK_MCQFeedback_QA] FOREIGN KEY ([QAID]) REFERENCES [QA] ([QAID]) ON DELETE CASCADE
+    );
+END
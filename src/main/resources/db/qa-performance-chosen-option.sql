@@ -0,0 +1,5 @@
+-- Option letter (A-D) the learner picked, read by ItemAnalyzer and AttemptLog
+IF COL_LENGTH(N'UserQAPerformance', N'ChosenOption') IS NULL
+BEGIN
+    ALTER TABLE [UserQAPerformance] ADD [ChosenOption] CHAR(1) NULL;
+END
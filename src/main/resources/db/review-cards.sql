@@ -0,0 +1,16 @@
+-- SM-2 spaced-repetition card per (user, Q&A), written by ReviewScheduler
+IF OBJECT_ID(N'[ReviewCards]', N'U') IS NULL
+BEGIN
+    CREATE TABLE [ReviewCards] (
+        [UserID]       INT      NOT NULL,
+        [QAID]         INT      NOT NULL,
+        [EaseFactor]   FLOAT    NOT NULL CONSTRAINT [DF_ReviewCards_EaseFactor] DEFAULT (2.5),
+        [IntervalDays] FLOAT    NOT NULL CONSTRAINT [DF_ReviewCards_IntervalDays] DEFAULT (0),
+        [Repetitions]  INT      NOT NULL CONSTRAINT [DF_ReviewCards_Repetitions] DEFAULT (0),
+        [Lapses]       INT      NOT NULL CONSTRAINT [DF_ReviewCards_Lapses] DEFAULT (0),
+        [DueAt]        DATETIME NOT NULL,
+        [LastReviewed] DATETIME NULL,
+        CONSTRAINT [PK_ReviewCards] PRIMARY KEY ([UserID], [QAID]),
+        CONSTRAINT [FK_ReviewCards_QA] FOREIGN KEY ([QAID]) REFERENCES [QA] ([QAID]) ON DELETE CASCADE
+    );
+END
@@ -0,0 +1,14 @@
+-- Persisted EAP ability estimate per (user, chapter), written by IRTService
+IF OBJECT_ID(N'[UserAbility]', N'U') IS NULL
+BEGIN
+    CREATE TABLE [UserAbility] (
+        [UserID]        INT            NOT NULL,
+        [ChapterID]     INT            NOT NULL,
+        [Theta]         FLOAT          NOT NULL CONSTRAINT [DF_UserAbility_Theta] DEFAULT (0.0),
+        [StandardError] FLOAT          NOT NULL CONSTRAINT [DF_UserAbility_StandardError] DEFAULT (1.0),
+        [ResponseCount] INT            NOT NULL CONSTRAINT [DF_UserAbility_ResponseCount] DEFAULT (0),
+        [Posterior]     VARBINARY(MAX) NULL,
+        [LastUpdated]   DATETIME       NOT NULL CONSTRAINT [DF_UserAbility_LastUpdated] DEFAULT (GETDATE()),
+        CONSTRAINT [PK_UserAbility] PRIMARY KEY ([UserID], [ChapterID])
+    );
+END
@@ -0,0 +1,14 @@
+-- Knowledge-tracing state per (user, concept tag), written by KnowledgeTracer
+IF OBJECT_ID(N'[UserConceptMastery]', N'U') IS NULL
+BEGIN
+    CREATE TABLE [UserConceptMastery] (
+        [UserID]          INT      NOT NULL,
+        [TagID]           INT      NOT NULL,
+        [PKnown]          FLOAT    NOT NULL,
+        [Attempts]        INT      NOT NULL CONSTRAINT [DF_UserConceptMastery_Attempts] DEFAULT (0),
+        [CorrectAttempts] INT      NOT NULL CONSTRAINT [DF_UserConceptMastery_CorrectAttempts] DEFAULT (0),
+        [LastUpdated]     DATETIME NOT NULL CONSTRAINT [DF_UserConceptMastery_LastUpdated] DEFAULT (GETDATE()),
+        CONSTRAINT [PK_UserConceptMastery] PRIMARY KEY ([UserID], [TagID]),
+        CONSTRAINT [FK_UserConceptMastery_Tags] FOREIGN KEY ([TagID]) REFERENCES [Tags] ([TagID]) ON DELETE CASCADE
+    );
+END
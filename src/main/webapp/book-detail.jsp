@@ -663,45 +663,45 @@ function generateSummary(chapterId, button) {
     btnText.textContent = 'Đang tạo...';
     button.innerHTML = '<div class="spinner"></div> <span class="btn-text">Đang tạo...</span>';
     
-    $.ajax({
-        url: 'chaptersummaryservlet',
-        method: 'POST',
-        data: { chapterId: chapterId },
-        dataType: 'json',
-        success: function(response) {
-            if (response.success) {
-                var summaryDiv = $('#summary-' + chapterId);
-                var summaryHtml = '<div class="summary-content fade-in">' + 
-                                  escapeHtml(response.summary) + 
-                                  '</div>';
-                summaryDiv.html(summaryHtml);
-                
-                var badge = response.cached ? 
-                    '<span class="status-badge badge-cached"><i class="fas fa-clock"></i> Đã lưu trước</span>' :
-                    '<span class="status-badge badge-has-summary"><i class="fas fa-check-circle"></i> Đã tạo xong</span>';
-                
-                $(button).replaceWith(badge);
-                showNotification('success', 'Tóm tắt đã được tạo thành công!');
-                
-                var qaButton = '<div id="qa-container-' + chapterId + '" style="margin-top: 12px;">' +
-                    '<button class="btn-generate" style="background: #48bb78;" onclick="generateQA(' + chapterId + ', this)">' +
-                    '<i class="fas fa-question-circle"></i> <span class="btn-text">Tạo câu hỏi trắc nghiệm</span>' +
-                    '</button>' +
-                    '<span id="qa-status-' + chapterId + '" style="margin-left: 10px;"></span>' +
-                    '</div>';
-                summaryDiv.closest('.summary-section').after(qaButton);
-                
-            } else {
-                button.disabled = false;
-                button.innerHTML = '<i class="fas fa-play"></i> <span class="btn-text">Tạo tóm tắt</span>';
-                showNotification('error', response.error || 'Có lỗi xảy ra');
-            }
-        },
-        error: function(xhr, status, error) {
-            button.disabled = false;
-            button.innerHTML = '<i class="fas fa-play"></i> <span class="btn-text">Tạo tóm tắt</span>';
-            showNotification('error', 'Lỗi kết nối: ' + error);
-        }
+    var summaryDiv = $('#summary-' + chapterId);
+    var streamed = '';
+    var source = new EventSource('chaptersummaryservlet?stream=true&chapterId=' + encodeURIComponent(chapterId));
+    
+    source.addEventListener('token', function(e) {
+        streamed += JSON.parse(e.data).t;
+        summaryDiv.html('<div class="summary-content">' + escapeHtml(streamed) + '</div>');
+    });
+    
+    source.addEventListener('done', function(e) {
+        source.close();
+        var response = JSON.parse(e.data);
+        var summaryHtml = '<div class="summary-content fade-in">' + 
+                          escapeHtml(response.summary) + 
+                          '</div>';
+        summaryDiv.html(summaryHtml);
+        
+        var badge = response.cached ? 
+            '<span class="status-badge badge-cached"><i class="fas fa-clock"></i> Đã lưu trước</span>' :
+            '<span class="status-badge badge-has-summary"><i class="fas fa-check-circle"></i> Đã tạo xong</span>';
+        
+        $(button).replaceWith(badge);
+        showNotification('success', 'Tóm tắt đã được tạo thành công!');
+        
+        var qaButton = '<div id="qa-container-' + chapterId + '" style="margin-top: 12px;">' +
+            '<button class="btn-generate" style="background: #48bb78;" onclick="generateQA(' + chapterId + ', this)">' +
+            '<i class="fas fa-question-circle"></i> <span class="btn-text">Tạo câu hỏi trắc nghiệm</span>' +
+            '</button>' +
+            '<span id="qa-status-' + chapterId + '" style="margin-left: 10px;"></span>' +
+            '</div>';
+        summaryDiv.closest('.summary-section').after(qaButton);
+    });
+    
+    source.addEventListener('error', function(e) {
+        source.close();
+        var message = (e.data) ? (JSON.parse(e.data).error || 'Có lỗi xảy ra') : 'Lỗi kết nối';
+        button.disabled = false;
+        button.innerHTML = '<i class="fas fa-play"></i> <span class="btn-text">Tạo tóm tắt</span>';
+        showNotification('error', message);
     });
 }
 
@@ -808,13 +808,10 @@ function submitAllAnswers(chapterId, event) {
         var qa = qas[i];
         var selectedOption = $('[id^="opt-' + chapterId + '-' + i + '-"].selected');
         
+        // Graded server-side against the stored answer key; only the chosen letter is sent
         var userAnswer = {
             qaId: qa.qaid || qa.qaID || qa.QAID,
-            chapterId: chapterId,
-            question: qa.question.split('\n')[0],
-            correctAnswer: qa.answer,
-            userAnswer: selectedOption.length > 0 ? selectedOption.text().trim() : '',
-            difficulty: qa.difficulty || 'medium'
+            chosenOption: selectedOption.length > 0 ? (selectedOption.data('letter') || '') : ''
         };
         
         userAnswers.push(userAnswer);
@@ -1082,7 +1079,10 @@ function showNotification(type, message) {
 
 // ========== HÀM LỊCH SỬ ==========
 
+var historyChapterId = null;
+
 function showChapterHistory(chapterId, chapterTitle) {
+    historyChapterId = chapterId;
     $('#historyChapterTitle').text('Lịch sử làm bài - ' + chapterTitle);
     $('#historyModal').fadeIn(300);
     $('#historyContent').html('<div class="loading-spinner"><i class="fas fa-spinner"></i><p>Đang tải lịch sử...</p></div>');
@@ -1158,60 +1158,98 @@ function displayChapterHistory(data) {
     
     if (attempts.length > 0) {
         html += '<h5 style="margin-bottom: 15px; color: #1e293b;"><i class="fas fa-clock"></i> Lịch sử trả lời</h5>';
-        html += '<div class="history-timeline">';
+        html += '<div class="history-timeline">' + renderHistoryAttempts(attempts) + '</div>';
+        html += renderLoadMoreHistory(data);
+    }
+    
+    $('#historyContent').html(html);
+}
+
+function renderHistoryAttempts(attempts) {
+    var html = '';
+    for (var i = 0; i < attempts.length; i++) {
+        var attempt = attempts[i];
+        var questionText = attempt.question;
+        if (questionText && questionText.length >= 100) {
+            questionText = questionText.substring(0, 100) + '...';
+        }
         
-        for (var i = 0; i < attempts.length; i++) {
-            var attempt = attempts[i];
-            var questionText = attempt.question;
-            if (questionText && questionText.length > 100) {
-                questionText = questionText.substring(0, 100) + '...';
-            }
-            
-            var difficultyClass = 'difficulty-' + (attempt.difficulty || 'medium');
-            var resultClass = attempt.isCorrect ? 'result-correct' : 'result-incorrect';
-            var resultIcon = attempt.isCorrect ? 'fa-check-circle' : 'fa-times-circle';
-            var resultText = attempt.isCorrect ? 'Đúng' : 'Sai';
-            
-            html += '<div class="timeline-item">';
-            html += '<div class="timeline-question">' + escapeHtml(questionText) + '</div>';
-            
-            html += '<div class="timeline-meta">';
-            html += '<span class="difficulty-badge ' + difficultyClass + '">' + 
-                    '<i class="fas fa-layer-group"></i> ' + (attempt.difficulty || 'medium') + '</span>';
-            html += '<span class="result-badge ' + resultClass + '">' +
-                    '<i class="fas ' + resultIcon + '"></i> ' + resultText + '</span>';
-            
-            if (attempt.timeSpent) {
-                html += '<span><i class="fas fa-clock"></i> ' + attempt.timeSpent + 's</span>';
-            }
-            
-            if (attempt.attemptedAt) {
-                var date = new Date(attempt.attemptedAt);
-                var timeStr = formatDate(date);
-                html += '<span><i class="fas fa-calendar"></i> ' + timeStr + '</span>';
+        var difficultyClass = 'difficulty-' + (attempt.difficulty || 'medium');
+        var resultClass = attempt.isCorrect ? 'result-correct' : 'result-incorrect';
+        var resultIcon = attempt.isCorrect ? 'fa-check-circle' : 'fa-times-circle';
+        var resultText = attempt.isCorrect ? 'Đúng' : 'Sai';
+        
+        html += '<div class="timeline-item">';
+        html += '<div class="timeline-question">' + escapeHtml(questionText) + '</div>';
+        
+        html += '<div class="timeline-meta">';
+        html += '<span class="difficulty-badge ' + difficultyClass + '">' + 
+                '<i class="fas fa-layer-group"></i> ' + (attempt.difficulty || 'medium') + '</span>';
+        html += '<span class="result-badge ' + resultClass + '">' +
+                '<i class="fas ' + resultIcon + '"></i> ' + resultText + '</span>';
+        
+        if (attempt.timeSpent) {
+            html += '<span><i class="fas fa-clock"></i> ' + attempt.timeSpent + 's</span>';
+        }
+        
+        if (attempt.attemptedAt) {
+            var date = new Date(attempt.attemptedAt);
+            var timeStr = formatDate(date);
+            html += '<span><i class="fas fa-calendar"></i> ' + timeStr + '</span>';
+        }
+        html += '</div>';
+        
+        if (attempt.aiScore || attempt.aiFeedback) {
+            html += '<div class="ai-feedback-item">';
+            if (attempt.aiScore) {
+                html += '<strong><i class="fas fa-robot"></i> Điểm AI: ' + 
+                        Math.round(attempt.aiScore) + '/100</strong>';
             }
-            html += '</div>';
-            
-            if (attempt.aiScore || attempt.aiFeedback) {
-                html += '<div class="ai-feedback-item">';
-                if (attempt.aiScore) {
-                    html += '<strong><i class="fas fa-robot"></i> Điểm AI: ' + 
-                            Math.round(attempt.aiScore) + '/100</strong>';
-                }
-                if (attempt.aiFeedback) {
-                    html += '<p style="margin-top: 5px; margin-bottom: 0;">' + 
-                            escapeHtml(attempt.aiFeedback) + '</p>';
-                }
-                html += '</div>';
+            if (attempt.aiFeedback) {
+                html += '<p style="margin-top: 5px; margin-bottom: 0;">' + 
+                        escapeHtml(attempt.aiFeedback) + '</p>';
             }
-            
             html += '</div>';
         }
         
         html += '</div>';
     }
+    return html;
+}
+
+function renderLoadMoreHistory(data) {
+    if (!data.hasMore) {
+        return '';
+    }
+    return '<div class="history-load-more" style="text-align: center; margin-top: 15px;">' +
+           '<button class="btn btn-outline-primary btn-sm" onclick="loadMoreHistory(' + data.nextBefore + ')">' +
+           '<i class="fas fa-chevron-down"></i> Xem thêm</button></div>';
+}
+
+function loadMoreHistory(before) {
+    var $more = $('#historyContent .history-load-more');
+    $more.find('button').prop('disabled', true);
     
-    $('#historyContent').html(html);
+    $.ajax({
+        url: 'learninghistory',
+        method: 'GET',
+        data: {
+            action: 'getChapterHistory',
+            chapterId: historyChapterId,
+            before: before
+        },
+        dataType: 'json',
+        success: function(response) {
+            $more.remove();
+            if (response.success) {
+                $('#historyContent .history-timeline').append(renderHistoryAttempts(response.data.attempts || []));
+                $('#historyContent').append(renderLoadMoreHistory(response.data));
+            }
+        },
+        error: function() {
+            $more.find('button').prop('disabled', false);
+        }
+    });
 }
 
 function closeHistoryModal(event) {
@@ -164,38 +164,53 @@ async function sendRAGQuestion() {
     
     addRAGMessage('loading', 'Đang tìm kiếm và phân tích...');
     
-    try {
-        const response = await fetch('<%= request.getContextPath() %>/rag-chat', {
-            method: 'POST',
-            headers: { 'Content-Type': 'application/x-www-form-urlencoded' },
-            body: 'question=' + encodeURIComponent(question)
-        });
-        
-        const data = await response.json();
-        
+    const source = new EventSource('<%= request.getContextPath() %>/rag-chat?stream=true&question=' +
+                                   encodeURIComponent(question));
+    let answerDiv = null;
+    let answer = '';
+    
+    source.addEventListener('token', function(e) {
+        if (!answerDiv) {
+            const loadingMsg = document.querySelector('.rag-message.loading');
+            if (loadingMsg) loadingMsg.remove();
+            answerDiv = addRAGMessage('assistant', '');
+        }
+        answer += JSON.parse(e.data).t;
+        answerDiv.textContent = answer;
+        const chatBox = document.getElementById('ragChatBox');
+        chatBox.scrollTop = chatBox.scrollHeight;
+    });
+    
+    source.addEventListener('done', function(e) {
+        source.close();
+        const data = JSON.parse(e.data);
         const loadingMsg = document.querySelector('.rag-message.loading');
         if (loadingMsg) loadingMsg.remove();
+        if (answerDiv) answerDiv.remove();
         
-        if (data.error) {
-            addRAGMessage('assistant', 'Lỗi: ' + data.error);
-        } else {
-            let message = data.answer;
-            
-            if (data.sources && data.sources.length > 0) {
-                message += '<div class="rag-sources">Nguồn tham khảo: ';
-                data.sources.forEach((s, i) => {
-                    message += (i > 0 ? '; ' : '') + 'Chương ' + s.chapterNumber + ': ' + s.title;
-                });
-                message += '</div>';
-            }
-            
-            addRAGMessage('assistant', message);
+        let message = data.answer;
+        
+        if (data.sources && data.sources.length > 0) {
+            message += '<div class="rag-sources">Nguồn tham khảo: ';
+            data.sources.forEach((s, i) => {
+                message += (i > 0 ? '; ' : '') + 'Chương ' + s.chapterNumber + ': ' + s.title;
+            });
+            message += '</div>';
         }
-    } catch (error) {
+        
+        addRAGMessage('assistant', message);
+    });
+    
+    source.addEventListener('error', function(e) {
+        source.close();
         const loadingMsg = document.querySelector('.rag-message.loading');
         if (loadingMsg) loadingMsg.remove();
-        addRAGMessage('assistant', 'Lỗi kết nối: ' + error.message);
-    }
+        if (e.data) {
+            addRAGMessage('assistant', 'Lỗi: ' + JSON.parse(e.data).error);
+        } else if (!answerDiv) {
+            addRAGMessage('assistant', 'Lỗi kết nối');
+        }
+    });
 }
 
 function addRAGMessage(type, content) {
@@ -211,6 +226,7 @@ function addRAGMessage(type, content) {
     
     chatBox.appendChild(div);
     chatBox.scrollTop = chatBox.scrollHeight;
+    return div;
 }
 
 function askExample(question) {
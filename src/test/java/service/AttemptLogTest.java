@@ -0,0 +1,153 @@
+package service;
+
+import model.UserQAPerformance;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class AttemptLogTest {
+
+    private static final int RECORDS_PER_SEGMENT = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: records roll over into new segments and read back in order")
+    void testRollover() throws IOException {
+        AttemptLog log = newLog();
+        for (int id = 1; id <= 25; id++) {
+            log.append(performance(id));
+        }
+        log.close();
+
+        assertEquals(3, log.segments().size());
+        List<AttemptLog.Entry> entries = readAll(log);
+        assertEquals(25, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            AttemptLog.Entry entry = entries.get(i);
+            assertEquals(i + 1, entry.getPerformanceID());
+            assertEquals(1_000_000L * (i + 1), entry.getAttemptedAt());
+            assertEquals('B', entry.getChosenOption());
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: a torn tail is truncated when the log is reopened")
+    void testTornTailRecovery() throws IOException {
+        AttemptLog log = newLog();
+        for (int id = 1; id <= 3; id++) {
+            log.append(performance(id));
+        }
+        log.close();
+
+        Path segment = log.segments().get(0);
+        try (FileChannel out = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            out.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7}));
+        }
+
+        AttemptLog reopened = newLog();
+        reopened.append(performance(4));
+        reopened.close();
+
+        List<AttemptLog.Entry> entries = readAll(reopened);
+        assertEquals(4, entries.size());
+        assertEquals(4, entries.get(3).getPerformanceID());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: a corrupt record ends its segment, later segments still read")
+    void testCorruptRecordSkipsRestOfSegment() throws IOException {
+        AttemptLog log = newLog();
+        for (int id = 1; id <= 15; id++) {
+            log.append(performance(id));
+        }
+        log.close();
+
+        Path first = log.segments().get(0);
+        try (FileChannel out = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}),
+                      AttemptLog.HEADER_BYTES + 4L * AttemptLog.RECORD_BYTES + 13);
+        }
+
+        List<AttemptLog.Entry> entries = readAll(log);
+        assertEquals(4 + 5, entries.size());
+        assertEquals(11, entries.get(4).getPerformanceID());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test 4: attempts without the database AttemptedAt are rejected")
+    void testRejectsMissingAttemptedAt() {
+        AttemptLog log = newLog();
+        UserQAPerformance performance = performance(1);
+        performance.setAttemptedAt(null);
+        assertThrows(IllegalArgumentException.class, () -> log.append(performance));
+        log.close();
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test 5: replay refuses to apply without a backfill")
+    void testReplayApplyNeedsBackfill() throws Exception {
+        AttemptLog log = newLog();
+        log.append(performance(1));
+        assertFalse(log.hasBackfill());
+
+        AttemptReplay replay = new AttemptReplay(log, null, 2);
+        assertThrows(IllegalStateException.class, () -> replay.run(true));
+        log.close();
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test 6: a worker's runtime failure surfaces instead of hanging the replay")
+    void testReplaySurfacesWorkerFailure() throws Exception {
+        AttemptLog log = newLog();
+        for (int id = 1; id <= 3000; id++) {
+            log.append(performance(id));
+        }
+        // No IRTService: the first item lookup fails inside the worker
+        AttemptReplay replay = new AttemptReplay(log, null, 1);
+        assertThrows(NullPointerException.class, () -> replay.run(false));
+        log.close();
+    }
+
+    private AttemptLog newLog() {
+        return new AttemptLog(directory,
+            AttemptLog.HEADER_BYTES + (long) RECORDS_PER_SEGMENT * AttemptLog.RECORD_BYTES);
+    }
+
+    private static List<AttemptLog.Entry> readAll(AttemptLog log) throws IOException {
+        List<AttemptLog.Entry> entries = new ArrayList<>();
+        log.read(entries::add);
+        return entries;
+    }
+
+    private static UserQAPerformance performance(int id) {
+        UserQAPerformance performance = new UserQAPerformance();
+        performance.setPerformanceID(id);
+        performance.setUserID(7);
+        performance.setQaID(100 + id % 5);
+        performance.setChapterID(3);
+        performance.setCorrect(id % 2 == 0);
+        performance.setChosenOption("B");
+        performance.setAiScore(id % 2 == 0 ? 100 : 30);
+        performance.setAttemptedAt(new Timestamp(1_000_000L * id));
+        return performance;
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import connect.DBConnection;
+import controller.Book.BookCrud;
+import dao.QADao;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class BookDeletionTest {
+
+    private static final int BOOK_ID = 3;
+    private static final int CHAPTER_ID = 40;
+    private static final int OTHER_CHAPTER_ID = 41;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: deleting a book through BookCrud drops its chapters' cached Q&As")
+    void testDeleteBookForgetsChapters() throws Exception {
+        AnswerKeyCache answerKeys = AnswerKeyCache.getInstance();
+        answerKeys.put(901, CHAPTER_ID, "Q1\nA. x\nB. y", "A. x");
+        answerKeys.put(902, OTHER_CHAPTER_ID, "Q2\nA. x\nB. y", "B. y");
+
+        Connection conn = mock(Connection.class);
+        PreparedStatement deleteQAs = statement(rows(901));
+        PreparedStatement deleteChapters = statement(rows(CHAPTER_ID));
+        PreparedStatement deleteBook = statement(rows());
+        when(deleteBook.executeUpdate()).thenReturn(1);
+        PreparedStatement other = statement(rows());
+        when(conn.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("DELETE FROM [QA]")) return deleteQAs;
+            if (sql.startsWith("DELETE FROM [Chapter]")) return deleteChapters;
+            if (sql.startsWith("DELETE FROM [Book]")) return deleteBook;
+            return other;
+        });
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("action")).thenReturn("delete");
+        when(request.getParameter("id")).thenReturn(String.valueOf(BOOK_ID));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        try (MockedStatic<DBConnection> db = mockStatic(DBConnection.class)) {
+            db.when(DBConnection::getConnection).thenReturn(conn);
+
+            BookCrud crud = new BookCrud();
+            crud.init();
+            crud.service(request, response);
+
+            verify(deleteQAs).setInt(1, BOOK_ID);
+            verify(deleteChapters).setInt(1, BOOK_ID);
+            verify(conn).commit();
+            verify(deleteBook).executeUpdate();
+            verify(response).sendRedirect(startsWith("bookcrud?action=list&success="));
+
+            // The deleted chapter's key is gone (the reload finds no row); the other is kept
+            QADao qaDao = new QADao();
+            assertNull(answerKeys.get(901, qaDao));
+            assertNotNull(answerKeys.get(902, qaDao));
+        }
+    }
+
+    private static PreparedStatement statement(ResultSet rs) throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.executeQuery()).thenReturn(rs);
+        return ps;
+    }
+
+    private static ResultSet rows(int... ids) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(mock(ResultSetMetaData.class));
+        int[] next = {0};
+        when(rs.next()).thenAnswer(invocation -> next[0]++ < ids.length);
+        when(rs.getInt(1)).thenAnswer(invocation -> ids[next[0] - 1]);
+        return rs;
+    }
+}
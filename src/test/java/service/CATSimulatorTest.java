@@ -0,0 +1,52 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CATSimulatorTest {
+
+    private static final int EXAMINEES = 500;
+    private static final int BANK_SIZE = 500;
+    private static final int MAX_ITEMS = 25;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: Rasch - index selection matches full-bank arg-max and recovers theta")
+    void testRaschRecovery() {
+        List<CATSimulator.SimulationReport> reports =
+            new CATSimulator(EXAMINEES, BANK_SIZE, MAX_ITEMS, 0.0, false, 7L).runAll();
+        reports.forEach(System.out::println);
+
+        CATSimulator.SimulationReport bulk = find(reports, CATSimulator.Policy.BULK_MAX_INFO_EAP);
+        CATSimulator.SimulationReport index = find(reports, CATSimulator.Policy.INDEX_MAX_INFO_EAP);
+        CATSimulator.SimulationReport random = find(reports, CATSimulator.Policy.RANDOM_EAP);
+
+        // Same selection rule; the float kernels may only break near-ties differently
+        assertEquals(bulk.rmse, index.rmse, 0.01, "Index and bulk arg-max disagree");
+        assertTrue(index.rmse < random.rmse, "Adaptive selection no better than random: " + index.rmse);
+        assertTrue(Math.abs(index.bias) < 0.1, "Theta bias too large: " + index.bias);
+        assertTrue(index.rmse < 0.45, "Theta RMSE too large: " + index.rmse);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: 2PL - SE stopping rule ends sessions early")
+    void testStoppingRule() {
+        CATSimulator.SimulationReport report = new CATSimulator(EXAMINEES, BANK_SIZE, 60, 0.4, true, 11L)
+            .run(CATSimulator.Policy.INDEX_MAX_INFO_EAP);
+        System.out.println(report);
+
+        assertTrue(report.meanItems < 60, "Stopping rule never triggered");
+        assertTrue(report.meanStandardError <= 0.45, "Mean SE above target: " + report.meanStandardError);
+        assertTrue(report.rmse < 0.6, "Theta RMSE too large: " + report.rmse);
+    }
+
+    private static CATSimulator.SimulationReport find(List<CATSimulator.SimulationReport> reports,
+                                                      CATSimulator.Policy policy) {
+        return reports.stream().filter(r -> r.policy.equals(policy.name())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,110 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CompactBitmapTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: add, remove and contains match a BitSet across container switches")
+    void testAddRemove() {
+        Random random = new Random(11L);
+        CompactBitmap bitmap = new CompactBitmap();
+        BitSet expected = new BitSet();
+
+        // Grow the first chunk past the array limit, then shrink it back below
+        for (int v = 0; v < 6000; v++) {
+            int value = random.nextInt(1 << 16);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        for (int v = 0; v < 60000; v++) {
+            int value = random.nextInt(1 << 16);
+            bitmap.remove(value);
+            expected.clear(value);
+        }
+        bitmap.add(70000);
+        expected.set(70000);
+
+        assertMatches(expected, bitmap);
+        for (int value = 0; value < 2 << 16; value += 7) {
+            assertEquals(expected.get(value), bitmap.contains(value), "value " + value);
+        }
+
+        bitmap.remove(70000);
+        expected.clear(70000);
+        assertMatches(expected, bitmap);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: and / or / andNot match BitSet for sparse and dense chunks")
+    void testSetOperations() {
+        Random random = new Random(12L);
+        BitSet a = new BitSet();
+        BitSet b = new BitSet();
+        fill(a, random, 0, 200);               // sparse
+        fill(b, random, 0, 300);
+        fill(a, random, 1 << 16, 20000);       // dense
+        fill(b, random, 1 << 16, 30000);
+        fill(b, random, 2 << 16, 100);         // only in b
+
+        CompactBitmap x = toBitmap(a);
+        CompactBitmap y = toBitmap(b);
+
+        BitSet and = (BitSet) a.clone();
+        and.and(b);
+        BitSet or = (BitSet) a.clone();
+        or.or(b);
+        BitSet andNot = (BitSet) a.clone();
+        andNot.andNot(b);
+        BitSet reverse = (BitSet) b.clone();
+        reverse.andNot(a);
+
+        assertMatches(and, CompactBitmap.and(x, y));
+        assertMatches(or, CompactBitmap.or(x, y));
+        assertMatches(andNot, CompactBitmap.andNot(x, y));
+        assertMatches(reverse, CompactBitmap.andNot(y, x));
+
+        // Operands are left untouched
+        assertMatches(a, x);
+        assertMatches(b, y);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: a copy is independent of the original")
+    void testCopy() {
+        CompactBitmap original = CompactBitmap.of(1, 5, 70000);
+        CompactBitmap copy = original.copy();
+        copy.add(9);
+        copy.remove(70000);
+
+        assertArrayEquals(new int[]{1, 5, 70000}, original.toArray());
+        assertArrayEquals(new int[]{1, 5, 9}, copy.toArray());
+        assertTrue(CompactBitmap.andNot(original, original).isEmpty());
+    }
+
+    private static void fill(BitSet set, Random random, int base, int count) {
+        for (int i = 0; i < count; i++) {
+            set.set(base + random.nextInt(1 << 16));
+        }
+    }
+
+    private static CompactBitmap toBitmap(BitSet set) {
+        CompactBitmap bitmap = new CompactBitmap();
+        set.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static void assertMatches(BitSet expected, CompactBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+}
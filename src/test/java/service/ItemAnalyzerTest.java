@@ -0,0 +1,80 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ItemAnalyzerTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: Welford remove is the inverse of add")
+    void testRemoveUndoesAdd() {
+        Random random = new Random(3L);
+        double[] xs = new double[200];
+        double[] ys = new double[200];
+        ItemAnalyzer.ItemAccumulator all = new ItemAnalyzer.ItemAccumulator();
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextBoolean() ? 1 : 0;
+            ys[i] = random.nextInt(20) + 0.5 * xs[i];
+            all.add(xs[i], ys[i]);
+        }
+
+        // Remove the first half in shuffled order; the rest must match a fresh accumulator
+        ItemAnalyzer.ItemAccumulator rest = new ItemAnalyzer.ItemAccumulator();
+        for (int i = 100; i < xs.length; i++) {
+            rest.add(xs[i], ys[i]);
+        }
+        for (int i = 99; i >= 0; i -= 2) all.remove(xs[i], ys[i]);
+        for (int i = 0; i < 100; i += 2) all.remove(xs[i], ys[i]);
+
+        assertEquals(rest.n, all.n);
+        assertEquals(rest.meanX, all.meanX, 1e-9);
+        assertEquals(rest.meanY, all.meanY, 1e-9);
+        assertEquals(rest.m2X, all.m2X, 1e-6);
+        assertEquals(rest.m2Y, all.m2Y, 1e-6);
+        assertEquals(rest.cXY, all.cXY, 1e-6);
+        assertEquals(rest.pointBiserial(), all.pointBiserial(), 1e-9);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: point-biserial matches the two-pass correlation")
+    void testPointBiserial() {
+        double[] xs = {1, 0, 1, 1, 0, 0, 1, 0};
+        double[] ys = {9, 3, 7, 8, 4, 2, 6, 5};
+        ItemAnalyzer.ItemAccumulator acc = new ItemAnalyzer.ItemAccumulator();
+        for (int i = 0; i < xs.length; i++) acc.add(xs[i], ys[i]);
+
+        double mx = 0, my = 0;
+        for (int i = 0; i < xs.length; i++) { mx += xs[i]; my += ys[i]; }
+        mx /= xs.length;
+        my /= xs.length;
+        double sxy = 0, sxx = 0, syy = 0;
+        for (int i = 0; i < xs.length; i++) {
+            sxy += (xs[i] - mx) * (ys[i] - my);
+            sxx += (xs[i] - mx) * (xs[i] - mx);
+            syy += (ys[i] - my) * (ys[i] - my);
+        }
+        assertEquals(sxy / Math.sqrt(sxx * syy), acc.pointBiserial(), 1e-12);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: removing down to one observation leaves no correlation")
+    void testRemoveToEmpty() {
+        ItemAnalyzer.ItemAccumulator acc = new ItemAnalyzer.ItemAccumulator();
+        acc.add(1, 5);
+        acc.add(0, 2);
+        acc.remove(0, 2);
+        assertEquals(1, acc.n);
+        assertNull(acc.pointBiserial());
+        acc.remove(1, 5);
+        assertEquals(0, acc.n);
+        assertEquals(0, acc.meanX);
+        assertEquals(0, acc.m2Y);
+    }
+}
@@ -0,0 +1,115 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ItemSelectionIndexTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: top-K information matches a brute-force sort")
+    void testTopInformationMatchesBruteForce() {
+        Random random = new Random(46L);
+        int n = 500;
+        int[] qaIds = new int[n];
+        double[] betas = new double[n];
+        double[] discriminations = new double[n];
+        for (int i = 0; i < n; i++) {
+            qaIds[i] = 1000 + i;
+            betas[i] = random.nextGaussian() * 1.5;
+            discriminations[i] = 0.3 + random.nextDouble() * 2.2;
+        }
+        ItemSelectionIndex index = new ItemSelectionIndex(1, qaIds, betas, discriminations);
+
+        for (int trial = 0; trial < 200; trial++) {
+            double theta = random.nextGaussian() * 2.0;
+            int k = 1 + random.nextInt(12);
+            BitSet excluded = new BitSet();
+            for (int i = 0; i < n / 3; i++) {
+                excluded.set(1000 + random.nextInt(n));
+            }
+
+            int[] top = index.selectTopInformation(theta, excluded, k);
+            double[] expected = bruteForce(index, theta, excluded, k);
+
+            assertEquals(expected.length, top.length);
+            for (int i = 0; i < top.length; i++) {
+                assertFalse(excluded.get(index.getQaId(top[i])));
+                assertEquals(expected[i], information(index, theta, top[i]), 1e-12,
+                             "rank " + i + " at theta " + theta);
+            }
+            if (top.length > 0) {
+                assertEquals(expected[0], information(index, theta, index.selectMaxInformation(theta, excluded)), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: exclusions and small pools")
+    void testExclusionsAndSmallPools() {
+        ItemSelectionIndex index = new ItemSelectionIndex(1,
+            new int[]{1, 2, 3}, new double[]{-1.0, 0.0, 1.0}, new double[]{1.0, 1.0, 1.0});
+
+        assertArrayEquals(new int[]{1, 2, 0}, index.selectTopInformation(0.1, null, 5));
+        assertEquals(0, index.selectTopInformation(0.0, null, 0).length);
+
+        BitSet all = new BitSet();
+        all.set(1, 4);
+        assertEquals(0, index.selectTopInformation(0.0, all, 2).length);
+        assertEquals(-1, index.selectMaxInformation(0.0, all));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: positionOf finds every indexed Q&A and nothing else")
+    void testPositionOf() {
+        Random random = new Random(30L);
+        int n = 300;
+        int[] qaIds = new int[n];
+        double[] betas = new double[n];
+        double[] discriminations = new double[n];
+        for (int i = 0; i < n; i++) {
+            qaIds[i] = 7 * i + random.nextInt(7);
+            betas[i] = random.nextGaussian();
+            discriminations[i] = 1.0;
+        }
+        ItemSelectionIndex index = new ItemSelectionIndex(1, qaIds, betas, discriminations);
+
+        for (int pos = 0; pos < index.size(); pos++) {
+            assertEquals(pos, index.positionOf(index.getQaId(pos)));
+        }
+        assertEquals(-1, index.positionOf(-1));
+        assertEquals(-1, index.positionOf(7 * n + 1));
+        assertEquals(-1, new ItemSelectionIndex(1, new int[0], new double[0], new double[0]).positionOf(0));
+    }
+
+    private static double[] bruteForce(ItemSelectionIndex index, double theta, BitSet excluded, int k) {
+        double[] info = new double[index.size()];
+        int m = 0;
+        for (int pos = 0; pos < index.size(); pos++) {
+            if (!excluded.get(index.getQaId(pos))) {
+                info[m++] = information(index, theta, pos);
+            }
+        }
+        double[] sorted = Arrays.copyOf(info, m);
+        Arrays.sort(sorted);
+        double[] top = new double[Math.min(k, m)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = sorted[m - 1 - i];
+        }
+        return top;
+    }
+
+    private static double information(ItemSelectionIndex index, double theta, int pos) {
+        double a = index.getDiscrimination(pos);
+        double p = 1.0 / (1.0 + Math.exp(-a * (theta - index.getBeta(pos))));
+        return a * a * p * (1.0 - p);
+    }
+}
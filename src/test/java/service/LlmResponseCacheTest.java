@@ -0,0 +1,132 @@
+package service;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class LlmResponseCacheTest {
+
+    private static final long TTL = TimeUnit.DAYS.toMillis(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: entries and tombstones survive a restart")
+    void testReloadWithTombstone() {
+        LlmResponseCache cache = newCache(1 << 20, 1 << 20);
+        cache.put(key("a"), "xin chào");
+        cache.put(key("b"), "second");
+        cache.put(key("a"), "replaced");
+        cache.remove(key("b"));
+        cache.close();
+
+        LlmResponseCache reopened = newCache(1 << 20, 1 << 20);
+        assertEquals("replaced", reopened.get(key("a")));
+        assertNull(reopened.get(key("b")));
+        assertEquals(1, reopened.getStats().getEntries());
+        reopened.close();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: a torn tail is dropped and the segment stays writable")
+    void testTornTail() throws IOException {
+        LlmResponseCache cache = newCache(1 << 20, 1 << 20);
+        cache.put(key("a"), "kept");
+        cache.put(key("b"), "torn");
+        cache.close();
+
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        LlmResponseCache reopened = newCache(1 << 20, 1 << 20);
+        assertEquals("kept", reopened.get(key("a")));
+        assertNull(reopened.get(key("b")));
+        reopened.put(key("c"), "after recovery");
+        reopened.close();
+
+        LlmResponseCache again = newCache(1 << 20, 1 << 20);
+        assertEquals("kept", again.get(key("a")));
+        assertEquals("after recovery", again.get(key("c")));
+        assertEquals(1, segments().size());
+        again.close();
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: a damaged value is a miss, not a wrong answer")
+    void testChecksumMismatch() throws IOException {
+        LlmResponseCache cache = newCache(1 << 20, 1 << 20);
+        cache.put(key("a"), "value");
+        cache.close();
+
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // First byte of the value: segment header, length, key, createdAt, value length
+            channel.write(ByteBuffer.wrap(new byte[]{'V'}), 8 + 4 + 32 + 8 + 4);
+        }
+
+        LlmResponseCache reopened = newCache(1 << 20, 1 << 20);
+        assertNull(reopened.get(key("a")));
+        assertEquals(0, reopened.getStats().getEntries());
+        reopened.close();
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test 4: segments rotate and the oldest is evicted over the cap")
+    void testRotationAndEviction() throws IOException {
+        String value = "x".repeat(200);
+        LlmResponseCache cache = newCache(1000, 2500);
+        for (int i = 0; i < 20; i++) {
+            cache.put(key("k" + i), value);
+        }
+
+        // Eviction runs on rotation, so the live segment may take the total over by one segment
+        assertTrue(cache.getStats().getBytes() <= 2500 + 1000);
+        assertTrue(cache.getStats().getSegments() < 7);
+        assertNull(cache.get(key("k0")));
+        assertEquals(value, cache.get(key("k19")));
+        cache.close();
+
+        LlmResponseCache reopened = newCache(1000, 2500);
+        assertEquals(segments().size(), reopened.getStats().getSegments());
+        assertNull(reopened.get(key("k0")));
+        assertEquals(value, reopened.get(key("k19")));
+        reopened.close();
+    }
+
+    private LlmResponseCache newCache(long segmentBytes, long maxBytes) {
+        return new LlmResponseCache(directory, TTL, maxBytes, segmentBytes);
+    }
+
+    private static String key(String prompt) {
+        return LlmResponseCache.key("model", "test-v1", 0.0, prompt);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "llm-*.seg")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+}
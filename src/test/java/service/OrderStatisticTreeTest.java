@@ -0,0 +1,71 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class OrderStatisticTreeTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: rank and top-K match a sorted list under random updates")
+    void testMatchesSortedList() {
+        Random random = new Random(5L);
+        OrderStatisticTree tree = new OrderStatisticTree();
+        Map<Integer, Double> scores = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int userID = random.nextInt(400);
+            Double previous = scores.get(userID);
+            if (previous != null) {
+                tree.remove(userID, previous);
+            }
+            if (previous != null && random.nextInt(10) == 0) {
+                scores.remove(userID);
+                continue;
+            }
+            // Coarse scores so ties are common and the userID tie-break is exercised
+            double score = random.nextInt(50) / 10.0;
+            scores.put(userID, score);
+            tree.insert(userID, score);
+        }
+
+        List<Map.Entry<Integer, Double>> sorted = new ArrayList<>(scores.entrySet());
+        sorted.sort(Comparator.<Map.Entry<Integer, Double>>comparingDouble(Map.Entry::getValue).reversed()
+            .thenComparing(Map.Entry::getKey));
+
+        assertEquals(sorted.size(), tree.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Map.Entry<Integer, Double> e = sorted.get(i);
+            assertEquals(i, tree.rank(e.getKey(), e.getValue()), "Rank of user " + e.getKey());
+        }
+        List<Integer> top = tree.top(25);
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(sorted.get(i).getKey(), top.get(i));
+        }
+        assertEquals(25, top.size());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: top-K of an empty or short tree")
+    void testTopEdges() {
+        OrderStatisticTree tree = new OrderStatisticTree();
+        assertTrue(tree.top(10).isEmpty());
+        tree.insert(1, 0.5);
+        tree.insert(2, 0.9);
+        assertEquals(List.of(2, 1), tree.top(10));
+        assertTrue(tree.top(0).isEmpty());
+        tree.remove(2, 0.9);
+        assertEquals(List.of(1), tree.top(10));
+        assertEquals(0, tree.rank(1, 0.5));
+    }
+}
@@ -0,0 +1,222 @@
+package service;
+
+import dao.ReviewCardDAO;
+import model.ReviewCard;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReviewSchedulerTest {
+
+    private static final int USER = 7;
+    private static final int QA = 42;
+    private static final long START = TimeUnit.DAYS.toMinutes(20_000);
+    private static final long DAY = TimeUnit.DAYS.toMinutes(1);
+
+    private ReviewScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ReviewScheduler();
+        scheduler.load(List.of(), START);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test 1: SM-2 steps of 1, 6, then interval x ease for due correct reviews")
+    void testDueReviewsAdvance() {
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        ReviewCard card = card();
+        assertEquals(1, card.getRepetitions());
+        assertEquals(1.0, card.getIntervalDays());
+        assertEquals(START + DAY, dueMinute(card));
+
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, dueMinute(card));
+        card = card();
+        assertEquals(2, card.getRepetitions());
+        assertEquals(6.0, card.getIntervalDays());
+
+        long due = dueMinute(card);
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, due);
+        card = card();
+        assertEquals(3, card.getRepetitions());
+        assertEquals(Math.round(6 * card.getEaseFactor()), card.getIntervalDays(), 1.0);
+        assertEquals(due + (long) card.getIntervalDays() * DAY, dueMinute(card));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test 2: early correct answers leave the schedule alone")
+    void testEarlyCorrectIsNoOp() {
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        long due = dueMinute(card());
+
+        for (int i = 1; i <= 100; i++) {
+            scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START + i);
+        }
+        ReviewCard card = card();
+        assertEquals(1, card.getRepetitions());
+        assertEquals(1.0, card.getIntervalDays());
+        assertEquals(due, dueMinute(card));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test 3: early wrong answers still lapse the card")
+    void testEarlyWrongLapses() {
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START + DAY);
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_INCORRECT, START + DAY + 60);
+
+        ReviewCard card = card();
+        assertEquals(0, card.getRepetitions());
+        assertEquals(1, card.getLapses());
+        assertEquals(1.0, card.getIntervalDays());
+        assertEquals(START + DAY + 60 + DAY, dueMinute(card));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test 4: intervals are capped and due times never wrap")
+    void testIntervalCap() {
+        long now = START;
+        for (int i = 0; i < 60; i++) {
+            scheduler.recordReview(USER, QA, 5, now);
+            long due = dueMinute(card());
+            assertTrue(due > now, "Due time went backwards at review " + i + ": " + due);
+            now = due;
+        }
+        ReviewCard card = card();
+        assertEquals(365.0, card.getIntervalDays());
+        assertEquals(60, card.getRepetitions());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test 5: reviews recorded before the cards are loaded are applied after")
+    void testReviewsQueuedUntilLoaded() {
+        ReviewScheduler cold = new ReviewScheduler();
+        cold.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        assertFalse(cold.isLoaded());
+        assertTrue(cold.getNextDue(USER, 10).isEmpty());
+
+        cold.load(List.of(), START + 5);
+        assertTrue(cold.isLoaded());
+        List<ReviewCard> cards = cold.getNextDue(USER, 10);
+        assertEquals(1, cards.size());
+        assertEquals(START + DAY, dueMinute(cards.get(0)));
+        assertTrue(cold.getNextDue(USER, -1).isEmpty());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test 6: cards of deleted Q&As leave the due lists, counts and flushes")
+    void testForgetQuestions() throws SQLException {
+        List<List<ReviewCard>> saved = new ArrayList<>();
+        ReviewScheduler scheduler = loaded(new ReviewCardDAO() {
+            @Override
+            public int saveCards(List<ReviewCard> cards) {
+                saved.add(cards);
+                return cards.size();
+            }
+        });
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER, QA + 1, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER + 1, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        // Advances the wheel past the first due time
+        scheduler.recordReview(USER + 2, QA + 2, ReviewScheduler.QUALITY_CORRECT, START + 2 * DAY);
+        assertEquals(2, scheduler.getDueCount(USER));
+        assertEquals(1, scheduler.getDueCount(USER + 1));
+
+        scheduler.forgetQuestions(List.of(QA));
+
+        assertEquals(2, scheduler.size());
+        assertEquals(1, scheduler.getDueCount(USER));
+        assertEquals(0, scheduler.getDueCount(USER + 1));
+        assertFalse(scheduler.getUsersWithDueReviews().contains(USER + 1));
+        assertTrue(scheduler.getNextDue(USER + 1, 10).isEmpty());
+        List<ReviewCard> left = scheduler.getNextDue(USER, 10);
+        assertEquals(1, left.size());
+        assertEquals(QA + 1, left.get(0).getQaID());
+
+        // Freed slots are reused without the new cards showing up for their former owners
+        scheduler.recordReview(USER + 3, QA + 3, ReviewScheduler.QUALITY_CORRECT, START + 2 * DAY);
+        scheduler.recordReview(USER + 3, QA + 4, ReviewScheduler.QUALITY_CORRECT, START + 2 * DAY);
+        assertEquals(4, scheduler.size());
+        assertEquals(1, scheduler.getNextDue(USER, 10).size());
+        assertTrue(scheduler.getNextDue(USER + 1, 10).isEmpty());
+        assertEquals(2, scheduler.getNextDue(USER + 3, 10).size());
+
+        assertEquals(4, scheduler.flush());
+        assertTrue(saved.get(0).stream().noneMatch(card -> card.getQaID() == QA));
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test 7: an orphaned card does not block the flush of the others")
+    void testFlushDropsOrphans() throws SQLException {
+        List<ReviewCard> saved = new ArrayList<>();
+        ReviewScheduler scheduler = loaded(new ReviewCardDAO() {
+            @Override
+            public int saveCards(List<ReviewCard> cards) throws SQLException {
+                if (cards.stream().anyMatch(card -> card.getQaID() == QA)) {
+                    throw new SQLException("FOREIGN KEY constraint \"FK_ReviewCards_QA\"", "23000", 547);
+                }
+                saved.addAll(cards);
+                return cards.size();
+            }
+        });
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER, QA + 1, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER + 1, QA + 1, ReviewScheduler.QUALITY_CORRECT, START);
+
+        assertEquals(2, scheduler.flush());
+        assertEquals(2, saved.size());
+        assertEquals(2, scheduler.size());
+        assertEquals(0, scheduler.flush());
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test 8: other save failures keep the cards for the next flush")
+    void testFlushKeepsCardsOnOutage() throws SQLException {
+        boolean[] down = {true};
+        ReviewScheduler scheduler = loaded(new ReviewCardDAO() {
+            @Override
+            public int saveCards(List<ReviewCard> cards) throws SQLException {
+                if (down[0]) {
+                    throw new SQLException("Connection refused", "08S01", 0);
+                }
+                return cards.size();
+            }
+        });
+        scheduler.recordReview(USER, QA, ReviewScheduler.QUALITY_CORRECT, START);
+        scheduler.recordReview(USER, QA + 1, ReviewScheduler.QUALITY_CORRECT, START);
+
+        assertThrows(SQLException.class, scheduler::flush);
+        down[0] = false;
+        assertEquals(2, scheduler.flush());
+    }
+
+    private static ReviewScheduler loaded(ReviewCardDAO dao) {
+        ReviewScheduler scheduler = new ReviewScheduler(dao);
+        scheduler.load(List.of(), START);
+        return scheduler;
+    }
+
+    private ReviewCard card() {
+        List<ReviewCard> cards = scheduler.getNextDue(USER, 1);
+        assertEquals(1, cards.size());
+        return cards.get(0);
+    }
+
+    private static long dueMinute(ReviewCard card) {
+        return TimeUnit.MILLISECONDS.toMinutes(card.getDueAt().getTime());
+    }
+}